@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.benchmark;
+
+import java.lang.StackWalker.StackFrame;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+
+/**
+ * CallingMethodNameBenchmark compares the cost of resolving the name of the calling spy method
+ * using {@link Thread#getStackTrace()}, as MethodCallRecorder used to do, with the
+ * {@link StackWalker} based resolution now used by {@link MethodCallRecorder#addCall(Object...)}.
+ * <p>
+ * The stackDepth parameter adds extra frames below the spy method, to simulate spies called deep
+ * down in the code under test, where getStackTrace has to materialize the whole stack.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallingMethodNameBenchmark {
+	private static final int NUMBER_OF_CALLS_BACKWARD_TO_FIND_CALLING_METHOD = 3;
+	private static final int NUMBER_OF_FRAMES_TO_SKIP_TO_FIND_CALLING_METHOD = 2;
+	private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+	@Param({ "10", "100" })
+	int stackDepth;
+
+	private MethodCallRecorder MCR;
+
+	@Benchmark
+	public String stackTrace() {
+		return callAtDepth(stackDepth, this::spyMethodUsingStackTrace);
+	}
+
+	@Benchmark
+	public String stackWalker() {
+		return callAtDepth(stackDepth, this::spyMethodUsingStackWalker);
+	}
+
+	@Benchmark
+	public int addCall() {
+		MCR = new MethodCallRecorder();
+		callAtDepth(stackDepth, this::spyMethodUsingMCR);
+		return MCR.getNumberOfCallsToMethod("spyMethodUsingMCR");
+	}
+
+	private String callAtDepth(int depth, Spy spy) {
+		if (depth == 0) {
+			return spy.call();
+		}
+		return callAtDepth(depth - 1, spy);
+	}
+
+	private String spyMethodUsingStackTrace() {
+		return addCallUsingStackTrace();
+	}
+
+	private String addCallUsingStackTrace() {
+		return getMethodNameFromCallUsingStackTrace();
+	}
+
+	private String getMethodNameFromCallUsingStackTrace() {
+		StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
+		return stackTrace[NUMBER_OF_CALLS_BACKWARD_TO_FIND_CALLING_METHOD].getMethodName();
+	}
+
+	private String spyMethodUsingStackWalker() {
+		return addCallUsingStackWalker();
+	}
+
+	private String addCallUsingStackWalker() {
+		return getMethodNameFromCallUsingStackWalker();
+	}
+
+	private String getMethodNameFromCallUsingStackWalker() {
+		return STACK_WALKER.walk(this::getMethodNameOfCallingFrame);
+	}
+
+	private String getMethodNameOfCallingFrame(Stream<StackFrame> frames) {
+		return frames.skip(NUMBER_OF_FRAMES_TO_SKIP_TO_FIND_CALLING_METHOD).findFirst().get()
+				.getMethodName();
+	}
+
+	private String spyMethodUsingMCR() {
+		MCR.addCall("parameter", "value");
+		return null;
+	}
+
+	@FunctionalInterface
+	private interface Spy {
+		String call();
+	}
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+import se.uu.ub.cora.testutils.mcr.RecordingCursor;
+import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
+
+/**
+ * MethodCallRecorderBenchmark measures the hot paths of {@link MethodCallRecorder} used by spies
+ * (recording calls) and by tests (asserting on recorded calls).
+ * <p>
+ * The recording benchmarks record numberOfCalls calls into a new recorder per operation, spread
+ * over numberOfMethods methods. The assert benchmarks run against a recorder prepared with the
+ * same shape, and assert on the last recorded call, which is the worst case for
+ * assertCalledParameters.
+ * <p>
+ * The addCallCountingOnly benchmark records the same calls into a recorder that only counts them,
+ * and should show no allocation per call when run with the gc profiler. The
+ * addCallAndReturnedWithCallTiming benchmark records calls and returned values into a recorder
+ * that only counts them and measures their durations, and should show the same.
+ * <p>
+ * The addCallAndReturnedForMethodNameUsingMRV benchmark records the calls and the values returned
+ * from a {@link MethodReturnValues}, using the methods that take the method name, so that the calls
+ * can be spread over numberOfMethods methods. It does not call
+ * {@link MethodCallRecorder#addCallAndReturnFromMRV(Object...)}, which takes the method name from
+ * the calling spy method, that is measured in {@link SpyRecordingBenchmark}.
+ * <p>
+ * The addCallAfterReset benchmark records the same calls as addCall, into a recorder that is reset
+ * instead of created for each operation, and should allocate less than addCall, as the storage for
+ * the calls is reused.
+ * <p>
+ * The assertParameter and getParameter benchmarks look up the last parameter of the last recorded
+ * call, and together with assertParameters and assertNumberOfCallsToMethod should show no
+ * allocation per operation when run with the gc profiler, as the recorded values are read in place.
+ * <p>
+ * The assertCalledBefore and assertCallOrder benchmarks check that the first recorded call was
+ * made before the last recorded call, and should take about the same time regardless of the number
+ * of recorded calls.
+ * <p>
+ * The assertAllCalls benchmarks assert every recorded call in the order they were recorded, using
+ * assertParameters with call numbers, and using a cursor over all calls.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MethodCallRecorderBenchmark {
+
+	@Param({ "1", "100", "10000" })
+	int numberOfCalls;
+
+	@Param({ "1", "3", "6" })
+	int numberOfParameters;
+
+	@Param({ "1", "10" })
+	int numberOfMethods;
+
+	private RecordingShape shape;
+	private MethodCallRecorder preparedMCR;
+	private MethodCallRecorder reusedMCR;
+	private String lastMethodName;
+	private int lastCallNumber;
+	private Object[] lastValues;
+	private String lastParameterName;
+	private Object lastParameterValue;
+	private String firstMethodName;
+	private String[] callOrder;
+
+	@Setup
+	public void setup() {
+		shape = new RecordingShape(numberOfCalls, numberOfParameters, numberOfMethods);
+		preparedMCR = new MethodCallRecorder();
+		shape.recordAllCalls(preparedMCR);
+		reusedMCR = new MethodCallRecorder();
+		shape.recordAllCalls(reusedMCR);
+		int lastCall = numberOfCalls - 1;
+		lastMethodName = shape.methodNameForCall(lastCall);
+		lastCallNumber = preparedMCR.getNumberOfCallsToMethod(lastMethodName) - 1;
+		lastValues = shape.valuesForCall(lastCall);
+		Object[] lastParameters = shape.parametersForCall(lastCall);
+		lastParameterName = (String) lastParameters[lastParameters.length - 2];
+		lastParameterValue = lastParameters[lastParameters.length - 1];
+		firstMethodName = shape.methodNameForCall(0);
+		callOrder = numberOfCalls == 1 ? new String[] { lastMethodName }
+				: new String[] { firstMethodName, lastMethodName };
+	}
+
+	@Benchmark
+	public MethodCallRecorder addCall() {
+		MethodCallRecorder mcr = new MethodCallRecorder();
+		shape.recordAllCalls(mcr);
+		return mcr;
+	}
+
+	@Benchmark
+	public MethodCallRecorder addCallAfterReset() {
+		reusedMCR.reset();
+		shape.recordAllCalls(reusedMCR);
+		return reusedMCR;
+	}
+
+	@Benchmark
+	public MethodCallRecorder addCallCountingOnly() {
+		MethodCallRecorder mcr = new MethodCallRecorder();
+		mcr.useCountingOnly();
+		shape.recordAllCalls(mcr);
+		return mcr;
+	}
+
+	@Benchmark
+	public MethodCallRecorder addCallAndReturnedWithCallTiming() {
+		MethodCallRecorder mcr = new MethodCallRecorder();
+		mcr.useCountingOnly();
+		mcr.useCallTiming();
+		for (int call = 0; call < numberOfCalls; call++) {
+			String methodName = shape.methodNameForCall(call);
+			mcr.addCallForMethodNameAndParameters(methodName, shape.parametersForCall(call));
+			mcr.addReturnedForMethodNameAndReturnValue(methodName, null);
+		}
+		return mcr;
+	}
+
+	@Benchmark
+	public MethodCallRecorder addCallAndReturnedForMethodNameUsingMRV() {
+		MethodCallRecorder mcr = new MethodCallRecorder();
+		MethodReturnValues mrv = new MethodReturnValues();
+		shape.setDefaultReturnValues(mrv);
+		mcr.useMRV(mrv);
+		for (int call = 0; call < numberOfCalls; call++) {
+			String methodName = shape.methodNameForCall(call);
+			Object[] parameters = shape.parametersForCall(call);
+			mcr.addCallForMethodNameAndParameters(methodName, parameters);
+			Object returnValue = mrv.getReturnValueForMethodNameAndParameters(methodName,
+					shape.valuesForCall(call));
+			mcr.addReturnedForMethodNameAndReturnValue(methodName, returnValue);
+		}
+		return mcr;
+	}
+
+	@Benchmark
+	public void assertParameters() {
+		preparedMCR.assertParameters(lastMethodName, lastCallNumber, lastValues);
+	}
+
+	@Benchmark
+	public void assertCalledParameters() {
+		preparedMCR.assertCalledParameters(lastMethodName, lastValues);
+	}
+
+	@Benchmark
+	public void assertParameter() {
+		preparedMCR.assertParameter(lastMethodName, lastCallNumber, lastParameterName,
+				lastParameterValue);
+	}
+
+	@Benchmark
+	public Object getParameter() {
+		return preparedMCR.getParameterForMethodAndCallNumberAndParameter(lastMethodName,
+				lastCallNumber, lastParameterName);
+	}
+
+	@Benchmark
+	public void assertNumberOfCallsToMethod() {
+		preparedMCR.assertNumberOfCallsToMethod(lastMethodName, lastCallNumber + 1);
+	}
+
+	@Benchmark
+	public void assertCalledBefore() {
+		preparedMCR.assertCalledBefore(firstMethodName, 0, lastMethodName, lastCallNumber);
+	}
+
+	@Benchmark
+	public void assertCallOrder() {
+		preparedMCR.assertCallOrder(callOrder);
+	}
+
+	@Benchmark
+	public void assertAllCallsUsingAssertParameters() {
+		for (int call = 0; call < numberOfCalls; call++) {
+			preparedMCR.assertParameters(shape.methodNameForCall(call), call / numberOfMethods,
+					shape.valuesForCall(call));
+		}
+	}
+
+	@Benchmark
+	public void assertAllCallsUsingCursor() {
+		RecordingCursor cursor = preparedMCR.cursorForAllCalls();
+		for (int call = 0; call < numberOfCalls; call++) {
+			cursor.assertNext(shape.methodNameForCall(call), shape.valuesForCall(call));
+		}
+		cursor.assertNoMore();
+	}
+}
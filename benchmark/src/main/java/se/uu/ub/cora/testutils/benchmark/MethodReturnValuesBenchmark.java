@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
+
+/**
+ * MethodReturnValuesBenchmark measures
+ * {@link MethodReturnValues#getReturnValueForMethodNameAndParameters(String, Object...)} when
+ * numberOfCalls specific suppliers are set up, spread over numberOfMethods methods, and the
+ * operation looks up the return value for the last of them. The default benchmark looks up a
+ * value that only matches the default supplier of the method.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MethodReturnValuesBenchmark {
+	private static final Object RETURN_VALUE = new Object();
+
+	@Param({ "1", "100", "10000" })
+	int numberOfCalls;
+
+	@Param({ "1", "3", "6" })
+	int numberOfParameters;
+
+	@Param({ "1", "10" })
+	int numberOfMethods;
+
+	private MethodReturnValues MRV;
+	private String lastMethodName;
+	private Object[] lastValues;
+	private Object[] notSpecifiedValues;
+
+	@Setup
+	public void setup() {
+		RecordingShape shape = new RecordingShape(numberOfCalls, numberOfParameters,
+				numberOfMethods);
+		MRV = new MethodReturnValues();
+		shape.setDefaultReturnValues(MRV);
+		for (int call = 0; call < numberOfCalls; call++) {
+			MRV.setSpecificReturnValuesSupplier(shape.methodNameForCall(call), () -> RETURN_VALUE,
+					shape.valuesForCall(call));
+		}
+		int lastCall = numberOfCalls - 1;
+		lastMethodName = shape.methodNameForCall(lastCall);
+		lastValues = shape.valuesForCall(lastCall);
+		notSpecifiedValues = shape.valuesForCall(numberOfCalls);
+	}
+
+	@Benchmark
+	public Object getReturnValueSpecific() {
+		return MRV.getReturnValueForMethodNameAndParameters(lastMethodName, lastValues);
+	}
+
+	@Benchmark
+	public Object getReturnValueDefault() {
+		return MRV.getReturnValueForMethodNameAndParameters(lastMethodName, notSpecifiedValues);
+	}
+}
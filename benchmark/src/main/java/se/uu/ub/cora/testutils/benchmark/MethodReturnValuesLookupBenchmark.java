@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
+
+/**
+ * MethodReturnValuesLookupBenchmark measures lookups in {@link MethodReturnValues} when
+ * numberOfEntries return values, specific suppliers or exceptions are set up for one method.
+ * <p>
+ * The parameter values of the entries are pairs of small integers, in both orders, which is a
+ * common shape in tests and gives many keys with similar values. Each operation looks up the next
+ * entry, cycling through all of them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MethodReturnValuesLookupBenchmark {
+	private static final String METHOD_NAME = "someMethod";
+	private static final Object RETURN_VALUE = new Object();
+	private static final RuntimeException EXCEPTION = new RuntimeException("from benchmark");
+
+	@Param({ "1000", "10000" })
+	int numberOfEntries;
+
+	private MethodReturnValues queuedValuesMRV;
+	private MethodReturnValues specificSupplierMRV;
+	private MethodReturnValues exceptionMRV;
+	private Object[][] valuesForEntries;
+	private int nextEntry = 0;
+
+	@Setup
+	public void setup() {
+		queuedValuesMRV = createMRVWithDefaultSupplier();
+		specificSupplierMRV = createMRVWithDefaultSupplier();
+		exceptionMRV = createMRVWithDefaultSupplier();
+		valuesForEntries = new Object[numberOfEntries][];
+		for (int entry = 0; entry < numberOfEntries; entry++) {
+			Object[] values = valuesForEntry(entry);
+			valuesForEntries[entry] = values;
+			queuedValuesMRV.setReturnValues(METHOD_NAME, List.of(RETURN_VALUE), values);
+			specificSupplierMRV.setSpecificReturnValuesSupplier(METHOD_NAME, () -> RETURN_VALUE,
+					values);
+			exceptionMRV.setThrowException(METHOD_NAME, EXCEPTION, values);
+		}
+	}
+
+	private MethodReturnValues createMRVWithDefaultSupplier() {
+		MethodReturnValues mrv = new MethodReturnValues();
+		mrv.setDefaultReturnValuesSupplier(METHOD_NAME, () -> RETURN_VALUE);
+		return mrv;
+	}
+
+	private Object[] valuesForEntry(int entry) {
+		int pair = entry / 2;
+		int first = pair % 100;
+		int second = pair / 100;
+		if (entry % 2 == 0) {
+			return new Object[] { first, second };
+		}
+		return new Object[] { second, first };
+	}
+
+	private Object[] nextValues() {
+		Object[] values = valuesForEntries[nextEntry];
+		nextEntry = (nextEntry + 1) % numberOfEntries;
+		return values;
+	}
+
+	@Benchmark
+	public Object queuedValues() {
+		return queuedValuesMRV.getReturnValueForMethodNameAndParameters(METHOD_NAME,
+				nextValues());
+	}
+
+	@Benchmark
+	public Object specificSupplier() {
+		return specificSupplierMRV.getReturnValueForMethodNameAndParameters(METHOD_NAME,
+				nextValues());
+	}
+
+	@Benchmark
+	public Object exception() {
+		try {
+			return exceptionMRV.getReturnValueForMethodNameAndParameters(METHOD_NAME,
+					nextValues());
+		} catch (RuntimeException e) {
+			return e;
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.benchmark;
+
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
+
+/**
+ * RecordingShape precomputes method names, parameter names and parameter values for a number of
+ * calls spread over a number of methods, so that benchmarks measure the recorder and not the
+ * creation of their input.
+ */
+class RecordingShape {
+	private static final Object DEFAULT_RETURN_VALUE = new Object();
+	private final String[] methodNames;
+	private final String[] parameterNames;
+	private final Object[][] parametersForCalls;
+	private final Object[][] valuesForCalls;
+
+	RecordingShape(int numberOfCalls, int numberOfParameters, int numberOfMethods) {
+		methodNames = createMethodNames(numberOfMethods);
+		parameterNames = createParameterNames(numberOfParameters);
+		valuesForCalls = new Object[numberOfCalls + 1][];
+		parametersForCalls = new Object[numberOfCalls + 1][];
+		for (int call = 0; call <= numberOfCalls; call++) {
+			valuesForCalls[call] = createValues(call, numberOfParameters);
+			parametersForCalls[call] = createParameters(valuesForCalls[call]);
+		}
+	}
+
+	private String[] createMethodNames(int numberOfMethods) {
+		String[] names = new String[numberOfMethods];
+		for (int i = 0; i < numberOfMethods; i++) {
+			names[i] = "method" + i;
+		}
+		return names;
+	}
+
+	private String[] createParameterNames(int numberOfParameters) {
+		String[] names = new String[numberOfParameters];
+		for (int i = 0; i < numberOfParameters; i++) {
+			names[i] = "parameter" + i;
+		}
+		return names;
+	}
+
+	private Object[] createValues(int call, int numberOfParameters) {
+		Object[] values = new Object[numberOfParameters];
+		values[0] = "value" + call;
+		for (int i = 1; i < numberOfParameters; i++) {
+			values[i] = i % 2 == 0 ? Integer.valueOf(call) : new Object();
+		}
+		return values;
+	}
+
+	private Object[] createParameters(Object[] values) {
+		Object[] parameters = new Object[values.length * 2];
+		for (int i = 0; i < values.length; i++) {
+			parameters[i * 2] = parameterNames[i];
+			parameters[i * 2 + 1] = values[i];
+		}
+		return parameters;
+	}
+
+	String methodNameForCall(int call) {
+		return methodNames[call % methodNames.length];
+	}
+
+	Object[] parametersForCall(int call) {
+		return parametersForCalls[call];
+	}
+
+	Object[] valuesForCall(int call) {
+		return valuesForCalls[call];
+	}
+
+	void recordAllCalls(MethodCallRecorder mcr) {
+		for (int call = 0; call < parametersForCalls.length - 1; call++) {
+			mcr.addCallForMethodNameAndParameters(methodNameForCall(call), parametersForCall(call));
+		}
+	}
+
+	void setDefaultReturnValues(MethodReturnValues mrv) {
+		for (String methodName : methodNames) {
+			mrv.setDefaultReturnValuesSupplier(methodName, () -> DEFAULT_RETURN_VALUE);
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
+import se.uu.ub.cora.testutils.spy.AutoSpy;
+
+/**
+ * SpyCallBenchmark measures the cost of a single call to a spy, for a hand written spy using method
+ * ids, a proxy created by {@link AutoSpy#createSpyFor(Class)} and a spy class generated by
+ * {@link AutoSpy#createGeneratedSpyFor(Class)}.
+ * <p>
+ * The spies are created once, with a recorder that only counts calls and a default return value,
+ * so that what is measured is the path from the spy method to the recorder and the return value,
+ * and not the storing of calls. Run with the gc profiler to see the objects created per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpyCallBenchmark {
+	private static final Object RETURN_VALUE = new Object();
+
+	private SpiedForCall handWritten;
+	private SpiedForCall proxy;
+	private SpiedForCall generated;
+	private String stringValue = "someValue";
+	private int intValue = 1000;
+
+	@Setup
+	public void setup() {
+		handWritten = new HandWrittenSpy(createMCR(), createMRV());
+		proxy = AutoSpy.createSpyFor(SpiedForCall.class, createMCR(), createMRV()).getSpy();
+		generated = AutoSpy.createGeneratedSpyFor(SpiedForCall.class, createMCR(), createMRV())
+				.getSpy();
+	}
+
+	private MethodCallRecorder createMCR() {
+		MethodCallRecorder mcr = new MethodCallRecorder();
+		mcr.useCountingOnly();
+		return mcr;
+	}
+
+	private MethodReturnValues createMRV() {
+		return new MethodReturnValues();
+	}
+
+	@Benchmark
+	public Object handWritten() {
+		return handWritten.read(stringValue, intValue);
+	}
+
+	@Benchmark
+	public Object proxy() {
+		return proxy.read(stringValue, intValue);
+	}
+
+	@Benchmark
+	public Object generated() {
+		return generated.read(stringValue, intValue);
+	}
+
+	public interface SpiedForCall {
+		Object read(String type, int number);
+	}
+
+	private static class HandWrittenSpy implements SpiedForCall {
+		private final MethodCallRecorder MCR;
+		private final int readId;
+
+		HandWrittenSpy(MethodCallRecorder MCR, MethodReturnValues MRV) {
+			this.MCR = MCR;
+			MCR.useMRV(MRV);
+			readId = MCR.registerMethod("read", "type", "number");
+			MRV.setDefaultReturnValuesSupplier("read", () -> RETURN_VALUE);
+		}
+
+		@Override
+		public Object read(String type, int number) {
+			return MCR.addCallAndReturnFromMRVForMethodId(readId, type, number);
+		}
+	}
+}
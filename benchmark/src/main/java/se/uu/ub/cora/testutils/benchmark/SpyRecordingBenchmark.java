@@ -0,0 +1,233 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
+import se.uu.ub.cora.testutils.spy.AutoSpy;
+
+/**
+ * SpyRecordingBenchmark measures a spy that records numberOfCalls calls to a method with three
+ * parameters, or with one int parameter, into a new {@link MethodCallRecorder} per operation. The
+ * calls are recorded the way a spy writes them, using the varargs
+ * {@link MethodCallRecorder#addCall(Object...)}, the fixed arity overloads or the primitive
+ * overloads, and run with the gc profiler shows the garbage created per operation.
+ * <p>
+ * As resolving the name of the spy method using the stack dominates the cost of recording a call,
+ * the methodNameResolution parameter can be set to fixed, to use a recorder that gets the method
+ * name without walking the stack, so that only the cost of recording is measured. The methodId
+ * benchmarks use methods registered using {@link MethodCallRecorder#registerMethod(String,
+ * String...)}, and never resolve method names. The returnAutoSpy benchmark records the calls
+ * through a spy created by {@link AutoSpy}, that also uses method ids, and the returnGeneratedSpy
+ * benchmark through a spy class generated by {@link AutoSpy#createGeneratedSpyFor(Class,
+ * MethodCallRecorder, MethodReturnValues)}, to compare them with the hand written returnMethodId.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpyRecordingBenchmark {
+	private static final Object RETURN_VALUE = new Object();
+
+	private static final String FIXED_METHOD_NAME = "spyMethod";
+
+	@Param({ "1000" })
+	int numberOfCalls;
+
+	@Param({ "stackWalker", "fixed" })
+	String methodNameResolution;
+
+	private MethodCallRecorder MCR;
+	private MethodReturnValues MRV;
+	private String stringValue = "someValue";
+	private Object objectValue = new Object();
+
+	@Setup
+	public void setup() {
+		MRV = new MethodReturnValues();
+		MRV.setDefaultReturnValuesSupplier("spyMethodReturnVarargs", () -> RETURN_VALUE);
+		MRV.setDefaultReturnValuesSupplier("spyMethodReturnFixedArity", () -> RETURN_VALUE);
+		MRV.setDefaultReturnValuesSupplier(FIXED_METHOD_NAME, () -> RETURN_VALUE);
+		MRV.setDefaultReturnValuesSupplier("spyMethodReturnMethodId", () -> RETURN_VALUE);
+	}
+
+	private MethodCallRecorder createMCR() {
+		if ("fixed".equals(methodNameResolution)) {
+			return new MethodCallRecorderWithFixedMethodName();
+		}
+		return new MethodCallRecorder();
+	}
+
+	@Benchmark
+	public MethodCallRecorder varargs() {
+		MCR = createMCR();
+		for (int call = 0; call < numberOfCalls; call++) {
+			spyMethodVarargs(stringValue, call, objectValue);
+		}
+		return MCR;
+	}
+
+	private void spyMethodVarargs(String first, int second, Object third) {
+		MCR.addCall(new Object[] { "first", first, "second", second, "third", third });
+	}
+
+	@Benchmark
+	public MethodCallRecorder fixedArity() {
+		MCR = createMCR();
+		for (int call = 0; call < numberOfCalls; call++) {
+			spyMethodFixedArity(stringValue, call, objectValue);
+		}
+		return MCR;
+	}
+
+	private void spyMethodFixedArity(String first, int second, Object third) {
+		MCR.addCall("first", first, "second", second, "third", third);
+	}
+
+	@Benchmark
+	public MethodCallRecorder primitiveVarargs() {
+		MCR = createMCR();
+		for (int call = 0; call < numberOfCalls; call++) {
+			spyMethodPrimitiveVarargs(call);
+		}
+		return MCR;
+	}
+
+	private void spyMethodPrimitiveVarargs(int value) {
+		MCR.addCall(new Object[] { "value", value });
+	}
+
+	@Benchmark
+	public MethodCallRecorder primitive() {
+		MCR = createMCR();
+		for (int call = 0; call < numberOfCalls; call++) {
+			spyMethodPrimitive(call);
+		}
+		return MCR;
+	}
+
+	private void spyMethodPrimitive(int value) {
+		MCR.addCall("value", value);
+	}
+
+	@Benchmark
+	public MethodCallRecorder methodId() {
+		MCR = createMCR();
+		int methodId = MCR.registerMethod("spyMethodMethodId", "first", "second", "third");
+		for (int call = 0; call < numberOfCalls; call++) {
+			spyMethodMethodId(methodId, stringValue, call, objectValue);
+		}
+		return MCR;
+	}
+
+	private void spyMethodMethodId(int methodId, String first, int second, Object third) {
+		MCR.addCallForMethodId(methodId, first, second, third);
+	}
+
+	@Benchmark
+	public MethodCallRecorder returnMethodId() {
+		MCR = createMCR();
+		MCR.useMRV(MRV);
+		int methodId = MCR.registerMethod("spyMethodReturnMethodId", "first", "second");
+		for (int call = 0; call < numberOfCalls; call++) {
+			spyMethodReturnMethodId(methodId, stringValue, objectValue);
+		}
+		return MCR;
+	}
+
+	private Object spyMethodReturnMethodId(int methodId, String first, Object second) {
+		return MCR.addCallAndReturnFromMRVForMethodId(methodId, first, second);
+	}
+
+	@Benchmark
+	public MethodCallRecorder returnVarargs() {
+		MCR = createMCR();
+		MCR.useMRV(MRV);
+		for (int call = 0; call < numberOfCalls; call++) {
+			spyMethodReturnVarargs(stringValue, objectValue);
+		}
+		return MCR;
+	}
+
+	private Object spyMethodReturnVarargs(String first, Object second) {
+		return MCR.addCallAndReturnFromMRV(new Object[] { "first", first, "second", second });
+	}
+
+	@Benchmark
+	public MethodCallRecorder returnFixedArity() {
+		MCR = createMCR();
+		MCR.useMRV(MRV);
+		for (int call = 0; call < numberOfCalls; call++) {
+			spyMethodReturnFixedArity(stringValue, objectValue);
+		}
+		return MCR;
+	}
+
+	private Object spyMethodReturnFixedArity(String first, Object second) {
+		return MCR.addCallAndReturnFromMRV("first", first, "second", second);
+	}
+
+	@Benchmark
+	public MethodCallRecorder returnAutoSpy() {
+		MCR = createMCR();
+		SpiedForBenchmark spy = AutoSpy.createSpyFor(SpiedForBenchmark.class, MCR, MRV).getSpy();
+		for (int call = 0; call < numberOfCalls; call++) {
+			spy.spyMethodReturnAutoSpy(stringValue, objectValue);
+		}
+		return MCR;
+	}
+
+	@Benchmark
+	public MethodCallRecorder returnGeneratedSpy() {
+		MCR = createMCR();
+		SpiedForBenchmark spy = AutoSpy.createGeneratedSpyFor(SpiedForBenchmark.class, MCR, MRV)
+				.getSpy();
+		for (int call = 0; call < numberOfCalls; call++) {
+			spy.spyMethodReturnAutoSpy(stringValue, objectValue);
+		}
+		return MCR;
+	}
+
+	public interface SpiedForBenchmark {
+		Object spyMethodReturnAutoSpy(String first, Object second);
+	}
+
+	private static class MethodCallRecorderWithFixedMethodName extends MethodCallRecorder {
+		@Override
+		protected String getMethodNameFromCall() {
+			return FIXED_METHOD_NAME;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.spy.processor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * GenerateSpy makes {@link SpyProcessor} generate a spy class at compile time, for the annotated
+ * interface or for the interfaces listed in the annotation.
+ * <p>
+ * Placed on an interface, without values, is a spy generated for the interface, in the same
+ * package as the interface. Placed on any type or package, with a list of interfaces, is a spy
+ * generated for each listed interface, in the package of the annotated type or package. This makes
+ * it possible to generate spies in test code, for interfaces in other modules.
+ * <p>
+ * Ex: @GenerateSpy({ RecordStorage.class, DataRecordGroup.class })
+ * <p>
+ * The generated spies are named as the interface followed by Spy, and have a public MCR and MRV,
+ * just as hand written spies.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target({ ElementType.TYPE, ElementType.PACKAGE })
+public @interface GenerateSpy {
+	/**
+	 * value lists the interfaces to generate spies for, if empty is a spy generated for the
+	 * annotated interface.
+	 */
+	Class<?>[] value() default {};
+}
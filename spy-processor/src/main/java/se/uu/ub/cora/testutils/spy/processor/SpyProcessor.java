@@ -0,0 +1,159 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.spy.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.JavaFileObject;
+
+/**
+ * SpyProcessor is an annotation processor that generates spy classes for interfaces, as requested
+ * using {@link GenerateSpy}. The source of each spy is written by {@link SpySourceWriter}.
+ * <p>
+ * The processor is found by javac through the service file in this jar, and only needs to be on
+ * the class path, or the processor path, when compiling the code using {@link GenerateSpy}.
+ */
+@SupportedAnnotationTypes("se.uu.ub.cora.testutils.spy.processor.GenerateSpy")
+public class SpyProcessor extends AbstractProcessor {
+	private static final String GENERATE_SPY = GenerateSpy.class.getCanonicalName();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (TypeElement annotation : annotations) {
+			for (Element annotated : roundEnv.getElementsAnnotatedWith(annotation)) {
+				generateSpiesRequestedBy(annotated);
+			}
+		}
+		return true;
+	}
+
+	private void generateSpiesRequestedBy(Element annotated) {
+		List<TypeMirror> listedInterfaces = readListedInterfaces(annotated);
+		if (listedInterfaces.isEmpty()) {
+			generateSpyForAnnotatedInterface(annotated);
+		} else {
+			String packageName = getPackageOf(annotated).getQualifiedName().toString();
+			for (TypeMirror listedInterface : listedInterfaces) {
+				generateSpyForListedInterface(annotated, packageName, listedInterface);
+			}
+		}
+	}
+
+	private List<TypeMirror> readListedInterfaces(Element annotated) {
+		for (AnnotationMirror annotationMirror : annotated.getAnnotationMirrors()) {
+			if (isGenerateSpy(annotationMirror)) {
+				return readValue(annotationMirror);
+			}
+		}
+		return List.of();
+	}
+
+	private boolean isGenerateSpy(AnnotationMirror annotationMirror) {
+		TypeElement annotationType = (TypeElement) annotationMirror.getAnnotationType()
+				.asElement();
+		return annotationType.getQualifiedName().contentEquals(GENERATE_SPY);
+	}
+
+	private List<TypeMirror> readValue(AnnotationMirror annotationMirror) {
+		Map<? extends ExecutableElement, ? extends AnnotationValue> elementValues = annotationMirror
+				.getElementValues();
+		for (ExecutableElement element : elementValues.keySet()) {
+			if (element.getSimpleName().contentEquals("value")) {
+				return readListedTypes(elementValues.get(element));
+			}
+		}
+		return List.of();
+	}
+
+	private List<TypeMirror> readListedTypes(AnnotationValue annotationValue) {
+		@SuppressWarnings("unchecked")
+		List<? extends AnnotationValue> values = (List<? extends AnnotationValue>) annotationValue
+				.getValue();
+		return values.stream().map(value -> (TypeMirror) value.getValue()).toList();
+	}
+
+	private void generateSpyForAnnotatedInterface(Element annotated) {
+		if (annotated.getKind() != ElementKind.INTERFACE) {
+			error("GenerateSpy without values can only be used on interfaces", annotated);
+			return;
+		}
+		TypeElement spiedInterface = (TypeElement) annotated;
+		String packageName = getPackageOf(annotated).getQualifiedName().toString();
+		writeSpy(annotated, packageName, spiedInterface);
+	}
+
+	private void generateSpyForListedInterface(Element annotated, String packageName,
+			TypeMirror listedInterface) {
+		Element listedElement = processingEnv.getTypeUtils().asElement(listedInterface);
+		if (!(listedInterface instanceof DeclaredType)
+				|| listedElement.getKind() != ElementKind.INTERFACE) {
+			error("GenerateSpy can only generate spies for interfaces, not for: "
+					+ listedInterface, annotated);
+			return;
+		}
+		writeSpy(annotated, packageName, (TypeElement) listedElement);
+	}
+
+	private PackageElement getPackageOf(Element element) {
+		return processingEnv.getElementUtils().getPackageOf(element);
+	}
+
+	private void writeSpy(Element annotated, String packageName, TypeElement spiedInterface) {
+		SpySourceWriter spySourceWriter = new SpySourceWriter(processingEnv, packageName,
+				spiedInterface);
+		String source = spySourceWriter.writeSource();
+		try {
+			JavaFileObject sourceFile = processingEnv.getFiler()
+					.createSourceFile(spySourceWriter.getQualifiedSpyName(), annotated);
+			try (Writer writer = sourceFile.openWriter()) {
+				writer.write(source);
+			}
+		} catch (IOException e) {
+			error("Could not write spy: " + spySourceWriter.getQualifiedSpyName() + ", "
+					+ e.getMessage(), annotated);
+		}
+	}
+
+	private void error(String message, Element element) {
+		processingEnv.getMessager().printMessage(Kind.ERROR, message, element);
+	}
+}
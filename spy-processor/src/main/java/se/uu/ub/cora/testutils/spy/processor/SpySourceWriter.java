@@ -0,0 +1,330 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.spy.processor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+
+/**
+ * SpySourceWriter writes the source of a spy class for an interface.
+ * <p>
+ * The spy registers all methods of the interface in its MCR when it is created, with the method
+ * names and parameter names known at compile time, and records calls using the method ids, so that
+ * the method name never has to be resolved from the stack. Calls to methods returning a value are
+ * answered by the MRV, where all methods get a default return value supplier answering null,
+ * converted to zero or false for methods returning primitives.
+ * <p>
+ * Ex, for a method String read(String type, String id):
+ * 
+ * <pre>
+ * &#64;Override
+ * public String read(String type, String id) {
+ * 	return (String) this.MCR.addCallAndReturnFromMRVForMethodId(this.readId,
+ * 			new Object[] { type, id });
+ * }
+ * </pre>
+ * <p>
+ * The values are always passed as a new array, so that a single array parameter is recorded as
+ * one value and not spread out over the varargs.
+ * <p>
+ * Fields of the spy are always qualified with this, and local variables in generated methods are
+ * named so that they differ from the parameter names, so that parameters named as the fields or
+ * locals do not change what the spy does.
+ */
+class SpySourceWriter {
+	private static final String INDENT = "\t";
+	private final ProcessingEnvironment processingEnv;
+	private final Types types;
+	private final String packageName;
+	private final TypeElement spiedInterface;
+	private final String spyName;
+	private final StringBuilder source = new StringBuilder();
+	private final Map<String, Integer> numberOfMethodsWithName = new HashMap<>();
+
+	SpySourceWriter(ProcessingEnvironment processingEnv, String packageName,
+			TypeElement spiedInterface) {
+		this.processingEnv = processingEnv;
+		this.types = processingEnv.getTypeUtils();
+		this.packageName = packageName;
+		this.spiedInterface = spiedInterface;
+		spyName = spiedInterface.getSimpleName() + "Spy";
+	}
+
+	String getQualifiedSpyName() {
+		return packageName.isEmpty() ? spyName : packageName + "." + spyName;
+	}
+
+	String writeSource() {
+		List<SpiedMethod> spiedMethods = collectSpiedMethods();
+		writePackageAndImports();
+		writeClassStart();
+		writeFields(spiedMethods);
+		writeConstructor(spiedMethods);
+		for (SpiedMethod spiedMethod : spiedMethods) {
+			writeMethod(spiedMethod);
+		}
+		line("}");
+		return source.toString();
+	}
+
+	private List<SpiedMethod> collectSpiedMethods() {
+		DeclaredType interfaceType = (DeclaredType) spiedInterface.asType();
+		List<SpiedMethod> spiedMethods = new ArrayList<>();
+		Set<String> signatures = new HashSet<>();
+		for (ExecutableElement method : ElementFilter
+				.methodsIn(processingEnv.getElementUtils().getAllMembers(spiedInterface))) {
+			if (isSpiedOn(method)) {
+				ExecutableType methodType = (ExecutableType) types.asMemberOf(interfaceType,
+						method);
+				possiblyAddSpiedMethod(spiedMethods, signatures, method, methodType);
+			}
+		}
+		return spiedMethods;
+	}
+
+	private boolean isSpiedOn(ExecutableElement method) {
+		Set<Modifier> modifiers = method.getModifiers();
+		return method.getEnclosingElement().getKind() == ElementKind.INTERFACE
+				&& !modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.PRIVATE);
+	}
+
+	private void possiblyAddSpiedMethod(List<SpiedMethod> spiedMethods, Set<String> signatures,
+			ExecutableElement method, ExecutableType methodType) {
+		String signature = method.getSimpleName() + methodType.getParameterTypes().stream()
+				.map(type -> types.erasure(type).toString()).collect(Collectors.joining(","));
+		if (signatures.add(signature)) {
+			spiedMethods.add(new SpiedMethod(method, methodType, createIdName(method)));
+		}
+	}
+
+	private String createIdName(ExecutableElement method) {
+		String methodName = method.getSimpleName().toString();
+		int numberOfPrevious = numberOfMethodsWithName.merge(methodName, 1, Integer::sum) - 1;
+		return methodName + "Id" + (numberOfPrevious == 0 ? "" : numberOfPrevious + 1);
+	}
+
+	private void writePackageAndImports() {
+		if (!packageName.isEmpty()) {
+			line("package " + packageName + ";");
+			line("");
+		}
+		line("import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;");
+		line("import se.uu.ub.cora.testutils.mrv.MethodReturnValues;");
+		line("");
+	}
+
+	private void writeClassStart() {
+		String typeParameters = writeTypeParameters(spiedInterface.getTypeParameters());
+		String typeArguments = spiedInterface.getTypeParameters().isEmpty() ? ""
+				: spiedInterface.getTypeParameters().stream()
+						.map(parameter -> parameter.getSimpleName().toString())
+						.collect(Collectors.joining(", ", "<", ">"));
+		line("/**");
+		line(" * " + spyName + " is generated by " + SpyProcessor.class.getName() + ".");
+		line(" */");
+		line("@SuppressWarnings(\"unchecked\")");
+		line("public class " + spyName + typeParameters + " implements "
+				+ spiedInterface.getQualifiedName() + typeArguments + " {");
+	}
+
+	private static String writeTypeParameters(
+			List<? extends TypeParameterElement> typeParameters) {
+		if (typeParameters.isEmpty()) {
+			return "";
+		}
+		return typeParameters.stream().map(SpySourceWriter::writeTypeParameter)
+				.collect(Collectors.joining(", ", "<", ">"));
+	}
+
+	private static String writeTypeParameter(TypeParameterElement typeParameter) {
+		List<String> bounds = typeParameter.getBounds().stream().map(TypeMirror::toString)
+				.filter(bound -> !"java.lang.Object".equals(bound)).toList();
+		if (bounds.isEmpty()) {
+			return typeParameter.getSimpleName().toString();
+		}
+		return typeParameter.getSimpleName() + " extends " + String.join(" & ", bounds);
+	}
+
+	private void writeFields(List<SpiedMethod> spiedMethods) {
+		line(INDENT + "public final MethodCallRecorder MCR = new MethodCallRecorder();");
+		line(INDENT + "public final MethodReturnValues MRV = new MethodReturnValues();");
+		for (SpiedMethod spiedMethod : spiedMethods) {
+			line(INDENT + "private final int " + spiedMethod.idName + ";");
+		}
+		line("");
+	}
+
+	private void writeConstructor(List<SpiedMethod> spiedMethods) {
+		line(INDENT + "public " + spyName + "() {");
+		line(INDENT + INDENT + "this.MCR.useMRV(this.MRV);");
+		for (SpiedMethod spiedMethod : spiedMethods) {
+			line(INDENT + INDENT + "this." + spiedMethod.idName + " = this.MCR.registerMethod("
+					+ spiedMethod.writeNameAndParameterNames() + ");");
+		}
+		for (String methodName : collectNamesOfMethodsReturningValues(spiedMethods)) {
+			line(INDENT + INDENT + "this.MRV.setDefaultReturnValuesSupplier(\"" + methodName
+					+ "\", () -> null);");
+		}
+		line(INDENT + "}");
+	}
+
+	private Set<String> collectNamesOfMethodsReturningValues(List<SpiedMethod> spiedMethods) {
+		Set<String> names = new LinkedHashSet<>();
+		for (SpiedMethod spiedMethod : spiedMethods) {
+			if (spiedMethod.methodType.getReturnType().getKind() != TypeKind.VOID) {
+				names.add(spiedMethod.methodName);
+			}
+		}
+		return names;
+	}
+
+	private void writeMethod(SpiedMethod spiedMethod) {
+		line("");
+		line(INDENT + "@Override");
+		line(INDENT + "public " + spiedMethod.writeDeclaration() + " {");
+		line(INDENT + INDENT + spiedMethod.writeBody());
+		line(INDENT + "}");
+	}
+
+	private void line(String text) {
+		source.append(text).append('\n');
+	}
+
+	private static class SpiedMethod {
+		private final ExecutableElement method;
+		private final ExecutableType methodType;
+		private final String methodName;
+		private final String idName;
+		private final List<String> parameterNames;
+
+		SpiedMethod(ExecutableElement method, ExecutableType methodType, String idName) {
+			this.method = method;
+			this.methodType = methodType;
+			this.methodName = method.getSimpleName().toString();
+			this.idName = idName;
+			parameterNames = method.getParameters().stream()
+					.map(VariableElement::getSimpleName).map(Object::toString).toList();
+		}
+
+		String writeNameAndParameterNames() {
+			StringBuilder names = new StringBuilder("\"" + methodName + "\"");
+			for (String parameterName : parameterNames) {
+				names.append(", \"").append(parameterName).append('"');
+			}
+			return names.toString();
+		}
+
+		String writeDeclaration() {
+			String typeParameters = method.getTypeParameters().isEmpty() ? ""
+					: writeTypeParameters(method.getTypeParameters()) + " ";
+			return typeParameters + methodType.getReturnType() + " " + methodName + "("
+					+ writeParameters() + ")";
+		}
+
+		private String writeParameters() {
+			List<String> parameters = new ArrayList<>();
+			List<? extends TypeMirror> parameterTypes = methodType.getParameterTypes();
+			for (int i = 0; i < parameterTypes.size(); i++) {
+				parameters.add(writeParameterType(parameterTypes.get(i), i) + " "
+						+ parameterNames.get(i));
+			}
+			return String.join(", ", parameters);
+		}
+
+		private String writeParameterType(TypeMirror parameterType, int position) {
+			boolean isVarargs = method.isVarArgs() && position == parameterNames.size() - 1;
+			if (isVarargs) {
+				return ((ArrayType) parameterType).getComponentType() + "...";
+			}
+			return parameterType.toString();
+		}
+
+		String writeBody() {
+			String values = "new Object[] { " + String.join(", ", parameterNames) + " }";
+			if (parameterNames.isEmpty()) {
+				values = "new Object[] {}";
+			}
+			TypeMirror returnType = methodType.getReturnType();
+			if (returnType.getKind() == TypeKind.VOID) {
+				return "this.MCR.addCallForMethodId(this." + idName + ", " + values + ");";
+			}
+			String call = "this.MCR.addCallAndReturnFromMRVForMethodId(this." + idName + ", "
+					+ values + ")";
+			if (returnType.getKind().isPrimitive()) {
+				String returned = createLocalName("returned");
+				return "Object " + returned + " = " + call + ";\n" + INDENT + INDENT
+						+ "return null == " + returned + " ? " + zeroValueFor(returnType.getKind())
+						+ " : (" + boxedNameFor(returnType.getKind()) + ") " + returned + ";";
+			}
+			return "return (" + returnType + ") " + call + ";";
+		}
+
+		private String createLocalName(String name) {
+			String localName = name;
+			int number = 1;
+			while (parameterNames.contains(localName)) {
+				number++;
+				localName = name + number;
+			}
+			return localName;
+		}
+
+		private String zeroValueFor(TypeKind kind) {
+			return switch (kind) {
+			case BOOLEAN -> "false";
+			case LONG -> "0L";
+			case FLOAT -> "0f";
+			case DOUBLE -> "0d";
+			case CHAR -> "(char) 0";
+			case SHORT -> "(short) 0";
+			case BYTE -> "(byte) 0";
+			default -> "0";
+			};
+		}
+
+		private String boxedNameFor(TypeKind kind) {
+			return switch (kind) {
+			case INT -> "Integer";
+			case CHAR -> "Character";
+			default -> kind.name().charAt(0) + kind.name().substring(1).toLowerCase();
+			};
+		}
+	}
+}
@@ -0,0 +1,393 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.spy.processor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
+
+public class SpyProcessorTest {
+	private static final String STORAGE = """
+			package some.storage;
+
+			import se.uu.ub.cora.testutils.spy.processor.GenerateSpy;
+
+			@GenerateSpy
+			public interface Storage {
+				String read(String type, String id);
+
+				String read(int number);
+
+				void update(String type, Object data);
+
+				int count();
+
+				boolean exists(String type, String id);
+
+				default String describe(String type) {
+					return "not spied on";
+				}
+
+				static String notSpiedOn() {
+					return "static";
+				}
+			}
+			""";
+	private static final String GENERIC = """
+			package some.generic;
+
+			import java.util.List;
+
+			public interface Generic<T> {
+				T get(T value);
+
+				<S extends Comparable<S>> S first(List<S> values);
+
+				void all(String... values);
+			}
+			""";
+	private static final String STRING_GENERIC = """
+			package some.generic;
+
+			public interface StringGeneric extends Generic<String> {
+			}
+			""";
+	private static final String SPIES = """
+			package some.test;
+
+			import se.uu.ub.cora.testutils.spy.processor.GenerateSpy;
+
+			@GenerateSpy({ some.generic.Generic.class, some.generic.StringGeneric.class })
+			class Spies {
+			}
+			""";
+	private static final String COLLIDING = """
+			package some.colliding;
+
+			import se.uu.ub.cora.testutils.spy.processor.GenerateSpy;
+
+			@GenerateSpy
+			public interface Colliding {
+				String read(int readId);
+
+				String list(String type);
+
+				int count(String returned, int returned2);
+
+				void update(Object MCR, Object MRV);
+			}
+			""";
+	private Path outputDirectory;
+	private List<Diagnostic<? extends JavaFileObject>> diagnostics;
+	private URLClassLoader classLoader;
+
+	@BeforeMethod
+	public void beforeMethod() throws Exception {
+		outputDirectory = Files.createTempDirectory("spyProcessorTest");
+		classLoader = null;
+	}
+
+	@AfterMethod
+	public void afterMethod() throws Exception {
+		if (null != classLoader) {
+			classLoader.close();
+		}
+		try (Stream<Path> paths = Files.walk(outputDirectory)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Test
+	public void testSpyIsGeneratedForAnnotatedInterface() throws Exception {
+		assertTrue(compile(Map.of("some.storage.Storage", STORAGE)));
+
+		Object spy = createSpy("some.storage.StorageSpy");
+
+		assertTrue(loadClass("some.storage.Storage").isInstance(spy));
+	}
+
+	@Test
+	public void testCallsAreRecordedWithParameterNamesFromSource() throws Exception {
+		compile(Map.of("some.storage.Storage", STORAGE));
+		Object spy = createSpy("some.storage.StorageSpy");
+
+		call(spy, "read", new Class<?>[] { String.class, String.class }, "someType", "someId");
+		call(spy, "read", new Class<?>[] { int.class }, 5);
+
+		MethodCallRecorder MCR = getMCR(spy);
+		MCR.assertParameter("read", 0, "type", "someType");
+		MCR.assertParameter("read", 0, "id", "someId");
+		MCR.assertParameter("read", 1, "number", 5);
+	}
+
+	@Test
+	public void testReturnValuesFromMRV() throws Exception {
+		compile(Map.of("some.storage.Storage", STORAGE));
+		Object spy = createSpy("some.storage.StorageSpy");
+		getMRV(spy).setDefaultReturnValuesSupplier("read", () -> "someValue");
+		getMRV(spy).setDefaultReturnValuesSupplier("count", () -> 7);
+
+		Object value = call(spy, "read", new Class<?>[] { String.class, String.class }, "a",
+				"b");
+
+		assertEquals(value, "someValue");
+		assertEquals(call(spy, "count", new Class<?>[] {}), 7);
+		getMCR(spy).assertReturn("read", 0, "someValue");
+	}
+
+	@Test
+	public void testDefaultReturnValues() throws Exception {
+		compile(Map.of("some.storage.Storage", STORAGE));
+		Object spy = createSpy("some.storage.StorageSpy");
+
+		assertNull(call(spy, "read", new Class<?>[] { int.class }, 5));
+		assertEquals(call(spy, "count", new Class<?>[] {}), 0);
+		assertEquals(call(spy, "exists", new Class<?>[] { String.class, String.class }, "a",
+				"b"), false);
+	}
+
+	@Test
+	public void testVoidAndDefaultMethodsAreRecorded() throws Exception {
+		compile(Map.of("some.storage.Storage", STORAGE));
+		Object spy = createSpy("some.storage.StorageSpy");
+		Object data = new Object();
+
+		call(spy, "update", new Class<?>[] { String.class, Object.class }, "someType", data);
+		Object description = call(spy, "describe", new Class<?>[] { String.class }, "someType");
+
+		assertNull(description);
+		getMCR(spy).assertParameters("update", 0, "someType", data);
+		getMCR(spy).assertParameters("describe", 0, "someType");
+	}
+
+	@Test
+	public void testMethodsAreRecordedUsingMethodIds() throws Exception {
+		compile(Map.of("some.storage.Storage", STORAGE));
+
+		String source = Files
+				.readString(outputDirectory.resolve("some/storage/StorageSpy.java"));
+
+		assertTrue(source.contains(
+				"this.readId = this.MCR.registerMethod(\"read\", \"type\", \"id\");"));
+		assertTrue(source
+				.contains("this.readId2 = this.MCR.registerMethod(\"read\", \"number\");"));
+		assertTrue(source.contains("this.MCR.addCallAndReturnFromMRVForMethodId(this.readId, "
+				+ "new Object[] { type, id })"));
+		assertFalse(source.contains("notSpiedOn"));
+	}
+
+	@Test
+	public void testParameterNamedAsIdFieldDoesNotChangeCalledMethod() throws Exception {
+		assertTrue(compile(Map.of("some.colliding.Colliding", COLLIDING)));
+		Object spy = createSpy("some.colliding.CollidingSpy");
+		getMRV(spy).setDefaultReturnValuesSupplier("read", () -> "readValue");
+		getMRV(spy).setDefaultReturnValuesSupplier("list", () -> "listValue");
+
+		Object value = call(spy, "read", new Class<?>[] { int.class }, 1);
+
+		assertEquals(value, "readValue");
+		getMCR(spy).assertParameters("read", 0, 1);
+		getMCR(spy).assertMethodNotCalled("list");
+	}
+
+	@Test
+	public void testParametersNamedAsLocalOfPrimitiveMethod() throws Exception {
+		compile(Map.of("some.colliding.Colliding", COLLIDING));
+		Object spy = createSpy("some.colliding.CollidingSpy");
+		getMRV(spy).setDefaultReturnValuesSupplier("count", () -> 7);
+
+		Object value = call(spy, "count", new Class<?>[] { String.class, int.class }, "a", 2);
+
+		assertEquals(value, 7);
+		getMCR(spy).assertParameters("count", 0, "a", 2);
+	}
+
+	@Test
+	public void testParametersNamedAsMCRAndMRV() throws Exception {
+		compile(Map.of("some.colliding.Colliding", COLLIDING));
+		Object spy = createSpy("some.colliding.CollidingSpy");
+
+		call(spy, "update", new Class<?>[] { Object.class, Object.class }, null, "someValue");
+
+		getMCR(spy).assertParameters("update", 0, null, "someValue");
+	}
+
+	@Test
+	public void testSpiesForListedInterfacesInPackageOfAnnotatedType() throws Exception {
+		assertTrue(compile(Map.of("some.generic.Generic", GENERIC, "some.generic.StringGeneric",
+				STRING_GENERIC, "some.test.Spies", SPIES)));
+
+		Object genericSpy = createSpy("some.test.GenericSpy");
+		Object stringSpy = createSpy("some.test.StringGenericSpy");
+
+		assertTrue(loadClass("some.generic.Generic").isInstance(genericSpy));
+		assertTrue(loadClass("some.generic.StringGeneric").isInstance(stringSpy));
+	}
+
+	@Test
+	public void testGenericMethodsAndVarargs() throws Exception {
+		compile(Map.of("some.generic.Generic", GENERIC, "some.generic.StringGeneric",
+				STRING_GENERIC, "some.test.Spies", SPIES));
+		Object spy = createSpy("some.test.StringGenericSpy");
+		getMRV(spy).setDefaultReturnValuesSupplier("get", () -> "someValue");
+		String[] values = { "a", "b" };
+
+		Object value = call(spy, "get", new Class<?>[] { Object.class }, "first");
+		call(spy, "first", new Class<?>[] { List.class }, List.of("a"));
+		call(spy, "all", new Class<?>[] { String[].class }, (Object) values);
+
+		assertEquals(value, "someValue");
+		getMCR(spy).assertParameters("get", 0, "first");
+		getMCR(spy).assertNumberOfCallsToMethod("first", 1);
+		getMCR(spy).assertParameters("all", 0, (Object) values);
+	}
+
+	@Test
+	public void testErrorWhenAnnotatedClassHasNoValues() throws Exception {
+		boolean compiled = compile(Map.of("some.test.NotInterface", """
+				package some.test;
+
+				@se.uu.ub.cora.testutils.spy.processor.GenerateSpy
+				class NotInterface {
+				}
+				"""));
+
+		assertFalse(compiled);
+		assertError("GenerateSpy without values can only be used on interfaces");
+	}
+
+	@Test
+	public void testErrorWhenListedTypeIsNotInterface() throws Exception {
+		boolean compiled = compile(Map.of("some.test.Spies", """
+				package some.test;
+
+				@se.uu.ub.cora.testutils.spy.processor.GenerateSpy(String.class)
+				class Spies {
+				}
+				"""));
+
+		assertFalse(compiled);
+		assertError("GenerateSpy can only generate spies for interfaces, not for: "
+				+ "java.lang.String");
+	}
+
+	private void assertError(String message) {
+		assertTrue(diagnostics.stream()
+				.anyMatch(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR
+						&& diagnostic.getMessage(null).equals(message)),
+				diagnostics.toString());
+	}
+
+	private boolean compile(Map<String, String> sources) throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+		try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(collector,
+				null, null)) {
+			fileManager.setLocation(StandardLocation.CLASS_OUTPUT,
+					List.of(outputDirectory.toFile()));
+			fileManager.setLocation(StandardLocation.SOURCE_OUTPUT,
+					List.of(outputDirectory.toFile()));
+			List<String> options = List.of("-classpath", System.getProperty("java.class.path"));
+			CompilationTask task = compiler.getTask(null, fileManager, collector, options, null,
+					createSourceFiles(sources));
+			task.setProcessors(List.of(new SpyProcessor()));
+			boolean compiled = task.call();
+			diagnostics = collector.getDiagnostics();
+			return compiled;
+		}
+	}
+
+	private List<JavaFileObject> createSourceFiles(Map<String, String> sources) {
+		List<JavaFileObject> sourceFiles = new ArrayList<>();
+		sources.forEach((className, source) -> sourceFiles.add(new SourceFile(className, source)));
+		return sourceFiles;
+	}
+
+	private Class<?> loadClass(String className) throws Exception {
+		if (null == classLoader) {
+			classLoader = new URLClassLoader(new URL[] { outputDirectory.toUri().toURL() },
+					getClass().getClassLoader());
+		}
+		return classLoader.loadClass(className);
+	}
+
+	private Object createSpy(String className) throws Exception {
+		return loadClass(className).getConstructor().newInstance();
+	}
+
+	private Object call(Object spy, String methodName, Class<?>[] parameterTypes,
+			Object... values) throws Exception {
+		Method method = spy.getClass().getMethod(methodName, parameterTypes);
+		return method.invoke(spy, values);
+	}
+
+	private MethodCallRecorder getMCR(Object spy) throws Exception {
+		return (MethodCallRecorder) spy.getClass().getField("MCR").get(spy);
+	}
+
+	private MethodReturnValues getMRV(Object spy) throws Exception {
+		return (MethodReturnValues) spy.getClass().getField("MRV").get(spy);
+	}
+
+	private static class SourceFile extends SimpleJavaFileObject {
+		private final String source;
+
+		SourceFile(String className, String source) {
+			super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension),
+					Kind.SOURCE);
+			this.source = source;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return source;
+		}
+	}
+}
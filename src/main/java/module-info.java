@@ -7,5 +7,6 @@ module se.uu.ub.cora.testutils {
 
 	exports se.uu.ub.cora.testutils.mcr;
 	exports se.uu.ub.cora.testutils.mrv;
+	exports se.uu.ub.cora.testutils.spy;
 
 }
\ No newline at end of file
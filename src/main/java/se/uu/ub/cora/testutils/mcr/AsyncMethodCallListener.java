@@ -0,0 +1,272 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AsyncMethodCallListener is a {@link MethodCallListener} that hands recorded calls and returned
+ * values over to another listener on a background thread, so that slow listeners, such as loggers
+ * or statistics aggregators, do not slow down the code under test.
+ * <p>
+ * Recorded calls and returned values are put in a bounded queue, and delivered to the wrapped
+ * listener in batches, in the order they were put in the queue, from one background thread. If
+ * the queue is full, recording waits until there is room in the queue, so no calls are lost and
+ * the memory used is bounded.
+ * <p>
+ * {@link #flush()} waits until all calls recorded so far have been delivered, and {@link #close()}
+ * delivers the remaining calls and stops the background thread. Both throw a runtime exception if
+ * the wrapped listener has thrown an exception, so errors in listeners are not silently lost.
+ * <p>
+ * Ex:
+ * 
+ * <pre>
+ * try (AsyncMethodCallListener listener = new AsyncMethodCallListener(statistics)) {
+ * 	spy.MCR.useListener(listener);
+ * 	runSoakTest();
+ * }
+ * </pre>
+ */
+public final class AsyncMethodCallListener implements MethodCallListener, AutoCloseable {
+	private static final int DEFAULT_QUEUE_CAPACITY = 8192;
+	private static final int DEFAULT_MAX_BATCH_SIZE = 256;
+	private static final long POLL_TIMEOUT_IN_MILLISECONDS = 10;
+	private final MethodCallListener listener;
+	private final BlockingQueue<RecordedEvent> queue;
+	private final int maxBatchSize;
+	private final Thread drainThread;
+	private final AtomicLong numberOfQueued = new AtomicLong();
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition eventsDelivered = lock.newCondition();
+	private long numberOfDelivered = 0;
+	private RuntimeException listenerError;
+	private volatile boolean closed = false;
+
+	/**
+	 * Creates an AsyncMethodCallListener with room for 8192 recorded calls and returned values in
+	 * its queue, delivered in batches of at most 256.
+	 * 
+	 * @param listener
+	 *            The {@link MethodCallListener} to deliver recorded calls and returned values to
+	 */
+	public AsyncMethodCallListener(MethodCallListener listener) {
+		this(listener, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH_SIZE);
+	}
+
+	/**
+	 * Creates an AsyncMethodCallListener with the specified queue capacity and max batch size.
+	 * 
+	 * @param listener
+	 *            The {@link MethodCallListener} to deliver recorded calls and returned values to
+	 * @param queueCapacity
+	 *            An int with the number of recorded calls and returned values that can wait in the
+	 *            queue, must be larger than 0
+	 * @param maxBatchSize
+	 *            An int with the max number of recorded calls and returned values to take from the
+	 *            queue at a time, must be larger than 0
+	 */
+	public AsyncMethodCallListener(MethodCallListener listener, int queueCapacity,
+			int maxBatchSize) {
+		throwErrorIfNotPositive("Queue capacity", queueCapacity);
+		throwErrorIfNotPositive("Max batch size", maxBatchSize);
+		this.listener = listener;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.maxBatchSize = maxBatchSize;
+		drainThread = new Thread(this::drainQueue, "AsyncMethodCallListener");
+		drainThread.setDaemon(true);
+		drainThread.start();
+	}
+
+	private static void throwErrorIfNotPositive(String name, int value) {
+		if (value < 1) {
+			throw new RuntimeException(name + " must be larger than 0, was: " + value);
+		}
+	}
+
+	@Override
+	public void callRecorded(String methodName, String[] parameterNames, Object[] values) {
+		queueEvent(new CallEvent(methodName, parameterNames, values));
+	}
+
+	@Override
+	public void returnedValueRecorded(String methodName, Object returnedValue) {
+		queueEvent(new ReturnedValueEvent(methodName, returnedValue));
+	}
+
+	private void queueEvent(RecordedEvent event) {
+		if (closed) {
+			throw new RuntimeException("AsyncMethodCallListener is closed");
+		}
+		try {
+			queue.put(event);
+			numberOfQueued.incrementAndGet();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for room in the queue", e);
+		}
+	}
+
+	private void drainQueue() {
+		List<RecordedEvent> batch = new ArrayList<>(maxBatchSize);
+		while (!closed || !queue.isEmpty()) {
+			possiblyTakeBatch(batch);
+			deliverBatch(batch);
+			batch.clear();
+		}
+	}
+
+	private void possiblyTakeBatch(List<RecordedEvent> batch) {
+		try {
+			RecordedEvent first = queue.poll(POLL_TIMEOUT_IN_MILLISECONDS, TimeUnit.MILLISECONDS);
+			if (null != first) {
+				batch.add(first);
+				queue.drainTo(batch, maxBatchSize - 1);
+			}
+		} catch (InterruptedException e) {
+			// the background thread is only stopped using close, so interrupts are ignored
+		}
+	}
+
+	private void deliverBatch(List<RecordedEvent> batch) {
+		RuntimeException error = null;
+		for (RecordedEvent event : batch) {
+			try {
+				event.deliverTo(listener);
+			} catch (RuntimeException e) {
+				error = e;
+			}
+		}
+		markBatchAsDelivered(batch.size(), error);
+	}
+
+	private void markBatchAsDelivered(int batchSize, RuntimeException error) {
+		lock.lock();
+		try {
+			numberOfDelivered += batchSize;
+			if (null == listenerError) {
+				listenerError = error;
+			}
+			eventsDelivered.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * flush waits until all calls and returned values recorded before flush was called have been
+	 * delivered to the wrapped listener.
+	 * <p>
+	 * If the wrapped listener has thrown an exception will a runtime exception be thrown, with the
+	 * first thrown exception as cause.
+	 */
+	public void flush() {
+		long numberToDeliver = numberOfQueued.get();
+		lock.lock();
+		try {
+			while (numberOfDelivered < numberToDeliver && drainThread.isAlive()) {
+				eventsDelivered.await(POLL_TIMEOUT_IN_MILLISECONDS, TimeUnit.MILLISECONDS);
+			}
+			throwErrorIfListenerFailed();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for calls to be delivered", e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void throwErrorIfListenerFailed() {
+		if (null != listenerError) {
+			throw new RuntimeException("Listener failed when delivering recorded calls",
+					listenerError);
+		}
+	}
+
+	/**
+	 * close delivers all calls and returned values already recorded to the wrapped listener, and
+	 * stops the background thread. Calls recorded after close throw a runtime exception, so close
+	 * is expected to be called when the code under test has stopped recording calls.
+	 * <p>
+	 * If the wrapped listener has thrown an exception will a runtime exception be thrown, with the
+	 * first thrown exception as cause.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		try {
+			drainThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for calls to be delivered", e);
+		}
+		lock.lock();
+		try {
+			throwErrorIfListenerFailed();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private abstract static class RecordedEvent {
+		protected final String methodName;
+
+		RecordedEvent(String methodName) {
+			this.methodName = methodName;
+		}
+
+		abstract void deliverTo(MethodCallListener listener);
+	}
+
+	private static final class CallEvent extends RecordedEvent {
+		private final String[] parameterNames;
+		private final Object[] values;
+
+		CallEvent(String methodName, String[] parameterNames, Object[] values) {
+			super(methodName);
+			this.parameterNames = parameterNames;
+			this.values = values;
+		}
+
+		@Override
+		void deliverTo(MethodCallListener listener) {
+			listener.callRecorded(methodName, parameterNames, values);
+		}
+	}
+
+	private static final class ReturnedValueEvent extends RecordedEvent {
+		private final Object returnedValue;
+
+		ReturnedValueEvent(String methodName, Object returnedValue) {
+			super(methodName);
+			this.returnedValue = returnedValue;
+		}
+
+		@Override
+		void deliverTo(MethodCallListener listener) {
+			listener.returnedValueRecorded(methodName, returnedValue);
+		}
+	}
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+/**
+ * CallSequence hands out the sequence numbers given to recorded calls in a
+ * {@link MethodCallRecorder}. It is shared by all {@link MethodCallLog}s in the recorder, so that
+ * the sequence numbers give the order calls were recorded in, across all methods.
+ * <p>
+ * CallSequence also numbers the marks made in the recorder, see
+ * {@link MethodCallRecorder#mark()}. Marks are numbered from 1, and {@link #NO_MARK} is the
+ * current mark until the first mark is made.
+ */
+class CallSequence {
+	static final int NO_MARK = 0;
+	private long nextSequenceNumber = 0;
+	private int currentMark = NO_MARK;
+
+	long next() {
+		return nextSequenceNumber++;
+	}
+
+	int nextMark() {
+		return ++currentMark;
+	}
+
+	int getCurrentMark() {
+		return currentMark;
+	}
+}
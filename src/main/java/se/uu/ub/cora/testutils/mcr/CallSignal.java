@@ -0,0 +1,80 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * CallSignal lets threads wait for calls to be recorded in a {@link MethodCallRecorder}, without
+ * polling. Waiting threads park on a {@link Condition}, and are woken up each time a call is
+ * recorded, to check if what they wait for has happened.
+ * <p>
+ * Recording a call only reads the number of waiting threads, and the lock is only taken to wake
+ * them up when there are threads waiting, so recording is not slowed down when no one waits.
+ * {@link ReentrantLock} is used instead of synchronized, so that waiting virtual threads do not
+ * pin their carrier threads.
+ */
+class CallSignal {
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition callRecorded = lock.newCondition();
+	private final AtomicInteger numberOfWaitingThreads = new AtomicInteger();
+
+	void callRecorded() {
+		if (numberOfWaitingThreads.get() > 0) {
+			signalWaitingThreads();
+		}
+	}
+
+	private void signalWaitingThreads() {
+		lock.lock();
+		try {
+			callRecorded.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * awaitCondition waits until the condition is true, checking it again each time a call is
+	 * recorded, or until the timeout has passed.
+	 * 
+	 * @return true if the condition became true, false if the timeout passed first
+	 */
+	boolean awaitCondition(BooleanSupplier condition, long timeoutInNanos)
+			throws InterruptedException {
+		lock.lock();
+		numberOfWaitingThreads.incrementAndGet();
+		try {
+			long nanosLeft = timeoutInNanos;
+			while (!condition.getAsBoolean()) {
+				if (nanosLeft <= 0) {
+					return false;
+				}
+				nanosLeft = callRecorded.awaitNanos(nanosLeft);
+			}
+			return true;
+		} finally {
+			numberOfWaitingThreads.decrementAndGet();
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import java.util.function.LongSupplier;
+
+/**
+ * CallTimer measures the time between recorded calls and returned values in a
+ * {@link MethodCallRecorder} that uses call timing. A call is expected to be followed by its
+ * returned value, if any, before the next call is recorded, as is the case when spies record a call
+ * and then the value they return.
+ * <p>
+ * The duration of a call is the time from when the call was recorded until its returned value was
+ * recorded. The time before a call is the time since the previous call or returned value was
+ * recorded, which is the time spent in the code under test between calls to spies.
+ */
+class CallTimer {
+	static final long NO_TIME = -1;
+	private final LongSupplier clock;
+	private final TimerState state = new TimerState();
+
+	CallTimer(LongSupplier clock) {
+		this.clock = clock;
+	}
+
+	/**
+	 * startCall notes that a call is recorded, and returns the time since the previous call or
+	 * returned value was recorded, or {@link #NO_TIME} if this is the first.
+	 */
+	long startCall() {
+		long now = clock.getAsLong();
+		TimerState currentState = getStateForCurrentThread();
+		long timeBeforeCall = currentState.timeRecorded ? now - currentState.lastRecordedTime
+				: NO_TIME;
+		currentState.startOfCall = now;
+		currentState.callStarted = true;
+		currentState.noteRecordedTime(now);
+		return timeBeforeCall;
+	}
+
+	/**
+	 * endCall notes that a returned value is recorded, and returns the time since the call was
+	 * recorded, or {@link #NO_TIME} if there is no started call to end.
+	 */
+	long endCall() {
+		long now = clock.getAsLong();
+		TimerState currentState = getStateForCurrentThread();
+		long duration = currentState.callStarted ? now - currentState.startOfCall : NO_TIME;
+		currentState.callStarted = false;
+		currentState.noteRecordedTime(now);
+		return duration;
+	}
+
+	TimerState getStateForCurrentThread() {
+		return state;
+	}
+
+	static class TimerState {
+		private long startOfCall;
+		private boolean callStarted = false;
+		private long lastRecordedTime;
+		private boolean timeRecorded = false;
+
+		private void noteRecordedTime(long time) {
+			lastRecordedTime = time;
+			timeRecorded = true;
+		}
+	}
+}
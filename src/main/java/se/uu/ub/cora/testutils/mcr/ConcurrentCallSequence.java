@@ -0,0 +1,46 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ConcurrentCallSequence is a {@link CallSequence} that can hand out sequence numbers and mark
+ * numbers to several threads at the same time.
+ */
+class ConcurrentCallSequence extends CallSequence {
+	private final AtomicLong nextSequenceNumber = new AtomicLong();
+	private final AtomicInteger currentMark = new AtomicInteger(NO_MARK);
+
+	@Override
+	long next() {
+		return nextSequenceNumber.getAndIncrement();
+	}
+
+	@Override
+	int nextMark() {
+		return currentMark.incrementAndGet();
+	}
+
+	@Override
+	int getCurrentMark() {
+		return currentMark.get();
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import java.util.function.LongSupplier;
+
+/**
+ * ConcurrentCallTimer is a {@link CallTimer} that keeps the started call for each thread, so that
+ * calls and returned values recorded from different threads at the same time are paired correctly.
+ */
+class ConcurrentCallTimer extends CallTimer {
+	private final ThreadLocal<TimerState> states = ThreadLocal.withInitial(TimerState::new);
+
+	ConcurrentCallTimer(LongSupplier clock) {
+		super(clock);
+	}
+
+	@Override
+	TimerState getStateForCurrentThread() {
+		return states.get();
+	}
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ConcurrentMethodCallLog is a {@link MethodCallLog} that can be recorded to and read from by
+ * several threads at the same time. Each method has its own lock, so calls to different methods
+ * never wait for each other.
+ * <p>
+ * Every recorded call gets a number from a {@link ConcurrentCallSequence} shared by all methods in
+ * the recorder. The number is taken while holding the lock of the method, so the calls for one
+ * method are always stored in the order of their sequence numbers.
+ * <p>
+ * A returned value is paired with the last call recorded by the same thread, and returned values
+ * are stored in the order of the calls they belong to, even if the calls return in another order
+ * than they were made. When every call returns a value, the returned value with a number belongs to
+ * the call with the same number, as when the calls are made one at a time. A returned value is held
+ * back until all earlier calls have returned, or are known to have ended without returning a value,
+ * which is when an error is thrown from the {@link MethodCallRecorder} or when the same thread
+ * records a new call to the method. A returned value recorded by a thread without a call of its own
+ * is stored directly, as in {@link MethodCallLog}.
+ */
+class ConcurrentMethodCallLog extends MethodCallLog {
+	private static final int NO_OPEN_CALL = -1;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final ThreadLocal<OpenCall> openCalls = new ThreadLocal<>();
+	private final Map<Integer, Object> heldBackReturned = new HashMap<>();
+	private final Set<Integer> callsEndedWithoutReturned = new HashSet<>();
+	private int nextCallToReturn = 0;
+	private int numberOfResets = 0;
+
+	ConcurrentMethodCallLog(CallSequence callSequence, int retentionLimit) {
+		super(callSequence, retentionLimit);
+	}
+
+	@Override
+	Object[] addCall(Object[] parameters) {
+		lock.lock();
+		try {
+			Object[] parameterValues = super.addCall(parameters);
+			openCallForCurrentThread();
+			return parameterValues;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	Object[] addCallWithPaddedNames(Object[] values, String name1, String name2, String name3,
+			String name4, String name5, String name6) {
+		lock.lock();
+		try {
+			Object[] parameterValues = super.addCallWithPaddedNames(values, name1, name2, name3,
+					name4, name5, name6);
+			openCallForCurrentThread();
+			return parameterValues;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	Object[] addCallWithParameterNames(String[] parameterNames, Object[] values) {
+		lock.lock();
+		try {
+			Object[] parameterValues = super.addCallWithParameterNames(parameterNames, values);
+			openCallForCurrentThread();
+			return parameterValues;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	void addPrimitiveCall(String parameterName, PrimitiveKind kind, long value) {
+		lock.lock();
+		try {
+			super.addPrimitiveCall(parameterName, kind, value);
+			openCallForCurrentThread();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	void countCall() {
+		lock.lock();
+		try {
+			super.countCall();
+			openCallForCurrentThread();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	long getSequenceNumber(int callNumber) {
+		lock.lock();
+		try {
+			return super.getSequenceNumber(callNumber);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	int findFirstCallAfter(long sequenceNumber) {
+		lock.lock();
+		try {
+			return super.findFirstCallAfter(sequenceNumber);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	int getNumberOfCalls() {
+		lock.lock();
+		try {
+			return super.getNumberOfCalls();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	int getNumberOfCallsAtMark(int mark) {
+		lock.lock();
+		try {
+			return super.getNumberOfCallsAtMark(mark);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	int getNumberOfReturnedAtMark(int mark) {
+		lock.lock();
+		try {
+			return super.getNumberOfReturnedAtMark(mark);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	Map<String, Object> getCall(int callNumber) {
+		lock.lock();
+		try {
+			return super.getCall(callNumber);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	String[] getParameterNames(int callNumber) {
+		lock.lock();
+		try {
+			return super.getParameterNames(callNumber);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	Object[] getCallValues(int callNumber) {
+		lock.lock();
+		try {
+			return super.getCallValues(callNumber);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	Object[] getParameterValues(int callNumber) {
+		lock.lock();
+		try {
+			return super.getParameterValues(callNumber);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	int getPositionOfParameter(int callNumber, String parameterName) {
+		lock.lock();
+		try {
+			return super.getPositionOfParameter(callNumber, parameterName);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	Object getParameterValue(int callNumber, int position) {
+		lock.lock();
+		try {
+			return super.getParameterValue(callNumber, position);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	int findFirstMatchingCallFrom(Object[] expectedValues, int fromCallNumber) {
+		lock.lock();
+		try {
+			return super.findFirstMatchingCallFrom(expectedValues, fromCallNumber);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	void addReturned(Object returnedValue) {
+		lock.lock();
+		try {
+			timeReturnedCall();
+			storeReturnedForCall(takeOpenCallForCurrentThread(), returnedValue);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void openCallForCurrentThread() {
+		int callNumber = super.getNumberOfCalls() - 1;
+		OpenCall previous = openCalls.get();
+		if (null != previous && previous.callNumber != callNumber) {
+			endCall(callNumberIfCurrent(previous));
+		}
+		openCalls.set(new OpenCall(numberOfResets, callNumber));
+	}
+
+	private int takeOpenCallForCurrentThread() {
+		OpenCall openCall = openCalls.get();
+		openCalls.remove();
+		return null == openCall ? NO_OPEN_CALL : callNumberIfCurrent(openCall);
+	}
+
+	private int callNumberIfCurrent(OpenCall openCall) {
+		return openCall.numberOfResets == numberOfResets ? openCall.callNumber : NO_OPEN_CALL;
+	}
+
+	private void storeReturnedForCall(int callNumber, Object returnedValue) {
+		if (NO_OPEN_CALL != callNumber && callNumber < nextCallToReturn) {
+			storeReturned(returnedValue);
+		} else if (NO_OPEN_CALL == callNumber || callNumber == nextCallToReturn) {
+			storeReturned(returnedValue);
+			nextCallToReturn++;
+			storeHeldBackReturned();
+		} else {
+			heldBackReturned.put(callNumber, returnedValue);
+		}
+	}
+
+	private void endCall(int callNumber) {
+		if (callNumber == nextCallToReturn) {
+			nextCallToReturn++;
+			storeHeldBackReturned();
+		} else if (callNumber > nextCallToReturn) {
+			callsEndedWithoutReturned.add(callNumber);
+		}
+	}
+
+	private void storeHeldBackReturned() {
+		boolean moreToStore = true;
+		while (moreToStore) {
+			if (heldBackReturned.containsKey(nextCallToReturn)) {
+				storeReturned(heldBackReturned.remove(nextCallToReturn));
+				nextCallToReturn++;
+			} else if (callsEndedWithoutReturned.remove(nextCallToReturn)) {
+				nextCallToReturn++;
+			} else {
+				moreToStore = false;
+			}
+		}
+	}
+
+	@Override
+	void endCallWithoutReturned() {
+		lock.lock();
+		try {
+			int callNumber = takeOpenCallForCurrentThread();
+			if (NO_OPEN_CALL != callNumber) {
+				endCall(callNumber);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	int getNumberOfReturned() {
+		lock.lock();
+		try {
+			return super.getNumberOfReturned();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	Object getReturned(int callNumber) {
+		lock.lock();
+		try {
+			return super.getReturned(callNumber);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	List<Object> getReturnedValues() {
+		lock.lock();
+		try {
+			return Collections.unmodifiableList(new ArrayList<>(super.getReturnedValues()));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	void reset() {
+		lock.lock();
+		try {
+			super.reset();
+			heldBackReturned.clear();
+			callsEndedWithoutReturned.clear();
+			nextCallToReturn = 0;
+			numberOfResets++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static final class OpenCall {
+		private final int numberOfResets;
+		private final int callNumber;
+
+		OpenCall(int numberOfResets, int callNumber) {
+			this.numberOfResets = numberOfResets;
+			this.callNumber = callNumber;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * ConcurrentMethodCallRecorder is a {@link MethodCallRecorder} that can be used by spies that are
+ * called from several threads at the same time, for instance when the code under test hands work
+ * over to an executor or to virtual threads.
+ * <p>
+ * It has the same API as MethodCallRecorder and can be used wherever a MethodCallRecorder is
+ * expected. Calls to different methods are recorded without waiting for each other, and calls to
+ * the same method are recorded in a well defined order, so that call numbers used in
+ * {@link #assertParameters(String, int, Object...)} and the result from
+ * {@link #getNumberOfCallsToMethod(String)} are consistent even while recording is going on.
+ * <p>
+ * The sequence numbers given to recorded calls are taken from a sequence shared by all threads, so
+ * {@link #getSequenceNumberForMethodAndCallNumber(String, int)},
+ * {@link #assertCalledBefore(String, int, String, int)} and {@link #assertCallOrder(String...)}
+ * give the order the calls were recorded in, also when they were made from different threads.
+ * <p>
+ * When using call timing, see {@link #useCallTiming()}, are calls and returned values paired per
+ * thread, so durations are measured correctly also for calls made from different threads.
+ */
+public class ConcurrentMethodCallRecorder extends MethodCallRecorder {
+
+	public ConcurrentMethodCallRecorder() {
+		super(new ConcurrentHashMap<>(), new ConcurrentCallSequence());
+	}
+
+	@Override
+	MethodCallLog createMethodCallLog(CallSequence callSequence, int retentionLimit) {
+		return new ConcurrentMethodCallLog(callSequence, retentionLimit);
+	}
+
+	@Override
+	CallTimer createCallTimer(LongSupplier clock) {
+		return new ConcurrentCallTimer(clock);
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import java.util.Arrays;
+
+/**
+ * CountsAtMarks holds the number of calls and returned values one {@link MethodCallLog} had when
+ * marks were made in the recorder, see {@link MethodCallRecorder#mark()}.
+ * <p>
+ * Making a mark only increases the mark number in the {@link CallSequence} of the recorder. The
+ * counts are stored by the log the first time it records something after a new mark, as they are
+ * the same as when the mark was made. The counts at a mark are then the first stored counts for
+ * that mark or a later one, or the current counts if nothing has been recorded since the mark.
+ */
+class CountsAtMarks {
+	private static final int INITIAL_CAPACITY = 4;
+	private int[] marks = new int[INITIAL_CAPACITY];
+	private int[] numbersOfCalls = new int[INITIAL_CAPACITY];
+	private int[] numbersOfReturned = new int[INITIAL_CAPACITY];
+	private int size = 0;
+
+	void add(int mark, int numberOfCalls, int numberOfReturned) {
+		if (size == marks.length) {
+			marks = Arrays.copyOf(marks, size * 2);
+			numbersOfCalls = Arrays.copyOf(numbersOfCalls, size * 2);
+			numbersOfReturned = Arrays.copyOf(numbersOfReturned, size * 2);
+		}
+		marks[size] = mark;
+		numbersOfCalls[size] = numberOfCalls;
+		numbersOfReturned[size] = numberOfReturned;
+		size++;
+	}
+
+	int getNumberOfCalls(int mark, int currentNumberOfCalls) {
+		int position = findFirstPositionAtOrAfter(mark);
+		return position == size ? currentNumberOfCalls : numbersOfCalls[position];
+	}
+
+	int getNumberOfReturned(int mark, int currentNumberOfReturned) {
+		int position = findFirstPositionAtOrAfter(mark);
+		return position == size ? currentNumberOfReturned : numbersOfReturned[position];
+	}
+
+	private int findFirstPositionAtOrAfter(int mark) {
+		int position = Arrays.binarySearch(marks, 0, size, mark);
+		return position >= 0 ? position : -position - 1;
+	}
+}
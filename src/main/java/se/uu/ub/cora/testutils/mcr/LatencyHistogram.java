@@ -0,0 +1,175 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram holds the distribution of durations measured for calls to one method in a
+ * {@link MethodCallRecorder}, with all durations in nanoseconds.
+ * <p>
+ * Durations are counted in log-linear buckets, where each power of two is split into 32 buckets of
+ * equal width. This keeps the memory used by a histogram fixed, regardless of the number of
+ * recorded durations, while values read from the histogram are at most about 3% larger than the
+ * recorded durations. Durations below 64 ns are counted exactly, and the max duration is always
+ * kept exactly.
+ * <p>
+ * Durations are recorded without locking, so a histogram can be read while durations are being
+ * recorded from other threads, but the values read are then not guaranteed to be from the same
+ * moment.
+ */
+public final class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+	private static final int NUMBER_OF_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+	private static final double MAX_PERCENTILE = 100.0;
+	private final AtomicLongArray counts = new AtomicLongArray(NUMBER_OF_BUCKETS);
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong max = new AtomicLong();
+
+	LatencyHistogram() {
+		// only created by the method call logs
+	}
+
+	void record(long duration) {
+		long value = Math.max(0, duration);
+		counts.incrementAndGet(bucketForValue(value));
+		total.addAndGet(value);
+		if (value < min.get()) {
+			min.accumulateAndGet(value, Math::min);
+		}
+		if (value > max.get()) {
+			max.accumulateAndGet(value, Math::max);
+		}
+	}
+
+	void reset() {
+		for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+			counts.set(bucket, 0);
+		}
+		total.set(0);
+		min.set(Long.MAX_VALUE);
+		max.set(0);
+	}
+
+	static int bucketForValue(long value) {
+		int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		if (magnitude < SUB_BUCKET_BITS) {
+			return (int) value;
+		}
+		int shift = magnitude - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift) & SUB_BUCKET_MASK;
+		return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	static long highestValueInBucket(int bucket) {
+		if (bucket < SUB_BUCKET_COUNT) {
+			return bucket;
+		}
+		int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+		long lowestValue = (long) (SUB_BUCKET_COUNT + (bucket & SUB_BUCKET_MASK)) << shift;
+		return lowestValue + (1L << shift) - 1;
+	}
+
+	/**
+	 * getCount returns the number of recorded durations, by adding up the counts in all buckets
+	 * 
+	 * @return A long with the number of recorded durations
+	 */
+	public long getCount() {
+		long numberOfDurations = 0;
+		for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+			numberOfDurations += counts.get(bucket);
+		}
+		return numberOfDurations;
+	}
+
+	/**
+	 * getMin returns the shortest recorded duration, or 0 if no durations are recorded
+	 * 
+	 * @return A long with the shortest duration in nanoseconds
+	 */
+	public long getMin() {
+		return getCount() == 0 ? 0 : min.get();
+	}
+
+	/**
+	 * getMax returns the longest recorded duration, or 0 if no durations are recorded
+	 * 
+	 * @return A long with the longest duration in nanoseconds
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * getMean returns the mean of the recorded durations, or 0 if no durations are recorded
+	 * 
+	 * @return A double with the mean duration in nanoseconds
+	 */
+	public double getMean() {
+		long numberOfDurations = getCount();
+		return numberOfDurations == 0 ? 0 : (double) total.get() / numberOfDurations;
+	}
+
+	/**
+	 * getValueAtPercentile returns a duration that the specified percentage of the recorded
+	 * durations are shorter than or equal to. The returned duration is the highest duration
+	 * counted in the same bucket as the duration at the percentile, but never larger than the max
+	 * recorded duration.
+	 * <p>
+	 * Ex: getValueAtPercentile(99.0) returns the 99th percentile of the recorded durations
+	 * 
+	 * @param percentile
+	 *            A double with the percentile, larger than 0 and at most 100
+	 * @return A long with the duration at the percentile in nanoseconds, or 0 if no durations are
+	 *         recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		throwErrorIfPercentileOutOfRange(percentile);
+		long numberOfDurations = getCount();
+		if (numberOfDurations == 0) {
+			return 0;
+		}
+		long countAtPercentile = Math.max(1,
+				(long) Math.ceil(percentile / MAX_PERCENTILE * numberOfDurations));
+		return findValueForCount(countAtPercentile);
+	}
+
+	private void throwErrorIfPercentileOutOfRange(double percentile) {
+		if (!(percentile > 0 && percentile <= MAX_PERCENTILE)) {
+			throw new RuntimeException(
+					"Percentile must be larger than 0 and at most 100, was: " + percentile);
+		}
+	}
+
+	private long findValueForCount(long countAtPercentile) {
+		long countSoFar = 0;
+		for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+			countSoFar += counts.get(bucket);
+			if (countSoFar >= countAtPercentile) {
+				return Math.min(highestValueInBucket(bucket), getMax());
+			}
+		}
+		return getMax();
+	}
+}
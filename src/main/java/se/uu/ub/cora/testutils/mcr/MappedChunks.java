@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * MappedChunks maps a file into memory as a number of chunks, so that files larger than the 2 GB
+ * that can be mapped into one buffer can be read. Values are read using positions in the file,
+ * and values that cross the border between two chunks are read one byte at a time.
+ * <p>
+ * Mapped memory is only read from the file as it is used, so only the parts of the file that are
+ * read are loaded into memory.
+ */
+class MappedChunks {
+	private static final int BYTE_MASK = 0xFF;
+	private final int chunkSize;
+	private final long size;
+	private final MappedByteBuffer[] chunks;
+
+	MappedChunks(FileChannel channel, int chunkSize) throws IOException {
+		this.chunkSize = chunkSize;
+		size = channel.size();
+		int numberOfChunks = (int) ((size + chunkSize - 1) / chunkSize);
+		chunks = new MappedByteBuffer[numberOfChunks];
+		for (int i = 0; i < numberOfChunks; i++) {
+			long start = (long) i * chunkSize;
+			chunks[i] = channel.map(MapMode.READ_ONLY, start, Math.min(chunkSize, size - start));
+		}
+	}
+
+	long size() {
+		return size;
+	}
+
+	byte getByte(long position) {
+		return chunkForPosition(position).get(offsetInChunk(position));
+	}
+
+	private MappedByteBuffer chunkForPosition(long position) {
+		return chunks[(int) (position / chunkSize)];
+	}
+
+	private int offsetInChunk(long position) {
+		return (int) (position % chunkSize);
+	}
+
+	int getInt(long position) {
+		MappedByteBuffer chunk = chunkForPosition(position);
+		int offset = offsetInChunk(position);
+		if (offset + Integer.BYTES <= chunk.limit()) {
+			return chunk.getInt(offset);
+		}
+		return (int) getAcrossChunks(position, Integer.BYTES);
+	}
+
+	long getLong(long position) {
+		MappedByteBuffer chunk = chunkForPosition(position);
+		int offset = offsetInChunk(position);
+		if (offset + Long.BYTES <= chunk.limit()) {
+			return chunk.getLong(offset);
+		}
+		return getAcrossChunks(position, Long.BYTES);
+	}
+
+	short getShort(long position) {
+		return (short) getAcrossChunks(position, Short.BYTES);
+	}
+
+	private long getAcrossChunks(long position, int numberOfBytes) {
+		long value = 0;
+		for (int i = 0; i < numberOfBytes; i++) {
+			value = (value << Byte.SIZE) | (getByte(position + i) & BYTE_MASK);
+		}
+		return value;
+	}
+
+	String getString(long position, int length) {
+		byte[] bytes = new byte[length];
+		int copied = 0;
+		while (copied < length) {
+			long currentPosition = position + copied;
+			MappedByteBuffer chunk = chunkForPosition(currentPosition);
+			int offset = offsetInChunk(currentPosition);
+			int toCopy = Math.min(length - copied, chunk.limit() - offset);
+			chunk.get(offset, bytes, copied, toCopy);
+			copied += toCopy;
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import java.util.Arrays;
+
+/**
+ * MethodCallCursor walks the calls recorded for one method in a {@link MethodCallRecorder}, in
+ * the order they were recorded, and is created using
+ * {@link MethodCallRecorder#cursorForMethod(String)}.
+ * <p>
+ * Each step asserts or skips the next call, without looking up the method or creating a map of
+ * the parameters, so asserting all calls in a long recording takes time in proportion to the
+ * number of calls.
+ * <p>
+ * Ex: MethodCallCursor writes = MCR.cursorForMethod("write");<br>
+ * writes.assertNext("header");<br>
+ * writes.skip(100);<br>
+ * writes.assertNext("footer");<br>
+ * writes.assertNoMore();
+ */
+public final class MethodCallCursor {
+	private final MethodCallRecorder recorder;
+	private final String methodName;
+	private MethodCallLog methodCallLog;
+	private int callNumber = 0;
+
+	MethodCallCursor(MethodCallRecorder recorder, String methodName) {
+		this.recorder = recorder;
+		this.methodName = methodName;
+	}
+
+	/**
+	 * getCallNumber returns the call number of the next call the cursor will assert or skip
+	 * 
+	 * @return An int with the call number of the next call, starting on 0
+	 */
+	public int getCallNumber() {
+		return callNumber;
+	}
+
+	/**
+	 * assertNext asserts that the next call to the method was made with the expected values, in
+	 * the same way as {@link MethodCallRecorder#assertParameters(String, int, Object...)}, and
+	 * moves the cursor past the call.
+	 * <p>
+	 * If there are no more calls to the method will an assertion error be thrown.
+	 * 
+	 * @param expectedValues
+	 *            A Varargs Object with the expected parameter values in the order they are used in
+	 *            the method.
+	 */
+	public void assertNext(Object... expectedValues) {
+		recorder.throwErrorIfCountingOnly(MethodCallRecorder.PARAMETERS, methodName, callNumber);
+		if (getNumberOfCalls() <= callNumber) {
+			throw new AssertionError(
+					"No more calls to method: %s, expected callNumber: %s with values: %s"
+							.formatted(methodName, callNumber, Arrays.toString(expectedValues)));
+		}
+		recorder.throwErrorIfCallNumberNoLongerRetained(methodName, callNumber,
+				methodCallLog.getFirstRetainedCallNumber(), methodCallLog);
+		recorder.assertAllParameters(methodName, callNumber,
+				methodCallLog.getParameterValues(callNumber), expectedValues);
+		callNumber++;
+	}
+
+	/**
+	 * skip moves the cursor past the next call to the method, without asserting it.
+	 * <p>
+	 * If there are no more calls to the method will an assertion error be thrown.
+	 */
+	public void skip() {
+		skip(1);
+	}
+
+	/**
+	 * skip moves the cursor past the specified number of calls to the method, without asserting
+	 * them.
+	 * <p>
+	 * If there are fewer calls left to the method will an assertion error be thrown.
+	 * 
+	 * @param numberOfCallsToSkip
+	 *            An int with the number of calls to skip, must be larger than 0
+	 */
+	public void skip(int numberOfCallsToSkip) {
+		if (numberOfCallsToSkip < 1) {
+			throw new RuntimeException("Number of calls to skip must be larger than 0, was: "
+					+ numberOfCallsToSkip);
+		}
+		int numberOfCallsLeft = getNumberOfCalls() - callNumber;
+		if (numberOfCallsLeft < numberOfCallsToSkip) {
+			throw new AssertionError(("Not enough calls to method: %s to skip: %s, only %s calls "
+					+ "left after callNumber: %s").formatted(methodName, numberOfCallsToSkip,
+							numberOfCallsLeft, callNumber));
+		}
+		callNumber += numberOfCallsToSkip;
+	}
+
+	/**
+	 * assertNoMore asserts that the cursor has moved past all calls recorded for the method.
+	 */
+	public void assertNoMore() {
+		int numberOfCalls = getNumberOfCalls();
+		if (callNumber < numberOfCalls) {
+			throw new AssertionError(
+					"More calls to method: %s, next callNumber: %s of: %s calls".formatted(
+							methodName, callNumber, numberOfCalls));
+		}
+	}
+
+	private int getNumberOfCalls() {
+		if (null == methodCallLog) {
+			methodCallLog = recorder.getMethodCallLog(methodName);
+		}
+		return null == methodCallLog ? 0 : methodCallLog.getNumberOfCalls();
+	}
+}
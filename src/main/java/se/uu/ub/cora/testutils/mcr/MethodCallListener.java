@@ -0,0 +1,58 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+/**
+ * MethodCallListener receives each call and returned value as it is recorded in a
+ * {@link MethodCallRecorder}, see {@link MethodCallRecorder#useListener(MethodCallListener)}.
+ * <p>
+ * Listeners make it possible to push recorded calls out to loggers, statistics aggregators and
+ * similar consumers as they happen, for instance in soak tests where the recorder is set to only
+ * count calls using {@link MethodCallRecorder#useCountingOnly()}.
+ * <p>
+ * Listeners are called from the thread recording the call, while the spy is running. Listeners
+ * that are slow or that need to be called from one thread at a time can be wrapped in an
+ * {@link AsyncMethodCallListener}.
+ */
+public interface MethodCallListener {
+
+	/**
+	 * callRecorded is called each time a call is recorded.
+	 * <p>
+	 * The arrays may be shared with the recorder and with other calls, and must not be changed.
+	 * 
+	 * @param methodName
+	 *            A String with the name of the called method
+	 * @param parameterNames
+	 *            A String array with the names of the parameters of the call
+	 * @param values
+	 *            An Object array with the values of the parameters, in the same order as the names
+	 */
+	void callRecorded(String methodName, String[] parameterNames, Object[] values);
+
+	/**
+	 * returnedValueRecorded is called each time a returned value is recorded.
+	 * 
+	 * @param methodName
+	 *            A String with the name of the method that returned the value
+	 * @param returnedValue
+	 *            The value returned from the method
+	 */
+	void returnedValueRecorded(String methodName, Object returnedValue);
+}
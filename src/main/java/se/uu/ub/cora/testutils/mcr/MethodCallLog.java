@@ -0,0 +1,664 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.uu.ub.cora.testutils.mcr.ParameterValueIndex.CallNumbers;
+
+/**
+ * MethodCallLog holds the recorded calls and returned values for one method in a
+ * {@link MethodCallRecorder}.
+ * <p>
+ * Calls are stored compactly as one array of values per call, and a reference to the array of
+ * parameter names used in the call. Parameter name arrays are shared between all calls made with
+ * the same parameter names, so that the names are only stored once per method signature. Maps
+ * with parameter names and values are only created when requested using {@link #getCall(int)}.
+ * <p>
+ * Calls with one primitive value can be stored unboxed, in a separate column with the kind of
+ * primitive and the value as a long. The value is boxed first when the call is read.
+ * <p>
+ * A log can be created with a retention limit, in which case only the last calls and returned
+ * values up to the limit are kept, in ring buffers. The total number of calls and returned values
+ * are always counted exactly.
+ * <p>
+ * A log created with the retention limit {@link #COUNTING_ONLY} keeps no calls or returned values
+ * at all, and only counts them.
+ * <p>
+ * Each stored call also gets a sequence number from the {@link CallSequence} shared by all logs in
+ * the recorder, stored in a column of longs next to the values. As calls are stored in the order
+ * they get their sequence numbers, the sequence numbers of the retained calls are sorted, and the
+ * first call made after a given sequence number can be found using a binary search.
+ * <p>
+ * The number of calls and returned values the log had when a mark was made in the recorder is
+ * stored in {@link CountsAtMarks}, the first time something is recorded after the mark, so that
+ * making a mark does not need to visit the logs.
+ */
+class MethodCallLog {
+	static final int UNLIMITED = -1;
+	static final int COUNTING_ONLY = 0;
+	static final int PARAMETER_NOT_FOUND = -1;
+	private static final int ENTRIES_PER_PARAMETER = 2;
+	private static final int MIN_NUMBER_OF_CALLS_TO_USE_INDEX = 16;
+	private static final int INITIAL_CAPACITY = 4;
+	private static final int NO_MATCHING_CALL = -1;
+	static final int NO_CALL = -1;
+	private static final int MAX_NUMBER_OF_PADDED_NAMES = 6;
+	private final int retentionLimit;
+	private final CallSequence callSequence;
+	private final List<String[]> knownParameterNames = new ArrayList<>(1);
+	private String[][] parameterNamesForCalls;
+	private Object[][] valuesForCalls;
+	private PrimitiveKind[] primitiveKindsForCalls;
+	private long[] primitiveValuesForCalls;
+	private long[] sequenceNumbersForCalls;
+	private MethodCallTimings timings;
+	private final String[] paddedNames = new String[MAX_NUMBER_OF_PADDED_NAMES];
+	private int numberOfCalls = 0;
+	private Object[] returnedValues;
+	private int numberOfReturned = 0;
+	private ParameterValueIndex valueIndex;
+	private int lastMark = CallSequence.NO_MARK;
+	private CountsAtMarks countsAtMarks;
+
+	MethodCallLog() {
+		this(UNLIMITED);
+	}
+
+	MethodCallLog(int retentionLimit) {
+		this(new CallSequence(), retentionLimit);
+	}
+
+	MethodCallLog(CallSequence callSequence, int retentionLimit) {
+		this.callSequence = callSequence;
+		this.retentionLimit = retentionLimit;
+		int initialCapacity = calculateInitialCapacity();
+		parameterNamesForCalls = new String[initialCapacity][];
+		valuesForCalls = new Object[initialCapacity][];
+		sequenceNumbersForCalls = new long[initialCapacity];
+		returnedValues = new Object[initialCapacity];
+	}
+
+	private int calculateInitialCapacity() {
+		if (retentionLimit == UNLIMITED) {
+			return INITIAL_CAPACITY;
+		}
+		return Math.min(INITIAL_CAPACITY, retentionLimit);
+	}
+
+	/**
+	 * useTimings makes this log measure the time before each recorded call and the duration of each
+	 * call, into the specified timings. It is expected to be called before the log is used.
+	 */
+	void useTimings(MethodCallTimings timings) {
+		this.timings = timings;
+	}
+
+	MethodCallTimings getTimings() {
+		return timings;
+	}
+
+	/**
+	 * addCall records a call with parameters given as alternating parameter names and values, and
+	 * returns the recorded values.
+	 */
+	Object[] addCall(Object[] parameters) {
+		Object[] values = extractValues(parameters);
+		if (!isCountingOnly()) {
+			storeCall(getSharedParameterNames(parameters), values);
+		}
+		countRecordedCall();
+		return values;
+	}
+
+	/**
+	 * addCallWithPaddedNames records a call with the given values, and with parameter names given
+	 * one by one, where the names after the number of values are ignored. This makes it possible to
+	 * record calls with up to six parameters without creating an array of parameter names, once the
+	 * same names have been used before. The given values array is stored and returned.
+	 */
+	Object[] addCallWithPaddedNames(Object[] values, String name1, String name2, String name3,
+			String name4, String name5, String name6) {
+		if (!isCountingOnly()) {
+			setPaddedNames(name1, name2, name3, name4, name5, name6);
+			storeCall(getSharedPaddedNames(values.length), values);
+		}
+		countRecordedCall();
+		return values;
+	}
+
+	private void setPaddedNames(String name1, String name2, String name3, String name4,
+			String name5, String name6) {
+		paddedNames[0] = name1;
+		paddedNames[1] = name2;
+		paddedNames[2] = name3;
+		paddedNames[3] = name4;
+		paddedNames[4] = name5;
+		paddedNames[5] = name6;
+	}
+
+	private String[] getSharedPaddedNames(int numberOfNames) {
+		for (String[] parameterNames : knownParameterNames) {
+			if (sameAsPaddedNames(parameterNames, numberOfNames)) {
+				return parameterNames;
+			}
+		}
+		String[] parameterNames = Arrays.copyOf(paddedNames, numberOfNames);
+		knownParameterNames.add(parameterNames);
+		return parameterNames;
+	}
+
+	private boolean sameAsPaddedNames(String[] parameterNames, int numberOfNames) {
+		if (parameterNames.length != numberOfNames) {
+			return false;
+		}
+		for (int i = 0; i < numberOfNames; i++) {
+			if (!parameterNames[i].equals(paddedNames[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * addCallWithParameterNames records a call with the given values and an array of parameter
+	 * names that is shared by all calls using the same names. Both arrays are stored as they are,
+	 * and must not be changed.
+	 */
+	Object[] addCallWithParameterNames(String[] parameterNames, Object[] values) {
+		if (!isCountingOnly()) {
+			storeCall(parameterNames, values);
+		}
+		countRecordedCall();
+		return values;
+	}
+
+	/**
+	 * addPrimitiveCall records a call with one primitive parameter, without boxing the value.
+	 */
+	void addPrimitiveCall(String parameterName, PrimitiveKind kind, long value) {
+		if (!isCountingOnly()) {
+			setPaddedNames(parameterName, null, null, null, null, null);
+			storePrimitiveCall(getSharedPaddedNames(1), kind, value);
+		}
+		countRecordedCall();
+	}
+
+	private void storePrimitiveCall(String[] parameterNames, PrimitiveKind kind, long value) {
+		storeCall(parameterNames, null);
+		possiblyCreatePrimitiveStorage();
+		int slot = slotForCallNumber(numberOfCalls);
+		primitiveKindsForCalls[slot] = kind;
+		primitiveValuesForCalls[slot] = value;
+	}
+
+	private void possiblyCreatePrimitiveStorage() {
+		if (null == primitiveKindsForCalls) {
+			primitiveKindsForCalls = new PrimitiveKind[valuesForCalls.length];
+			primitiveValuesForCalls = new long[valuesForCalls.length];
+		}
+	}
+
+	/**
+	 * countCall counts a call without recording anything about it, and is only intended to be used
+	 * for logs that are counting only.
+	 */
+	void countCall() {
+		countRecordedCall();
+	}
+
+	private void countRecordedCall() {
+		possiblyStoreCountsForNewMark();
+		numberOfCalls++;
+		if (null != timings) {
+			timings.callStarted();
+		}
+	}
+
+	private void possiblyStoreCountsForNewMark() {
+		int currentMark = callSequence.getCurrentMark();
+		if (currentMark != lastMark) {
+			storeCountsForMark(currentMark);
+		}
+	}
+
+	private void storeCountsForMark(int mark) {
+		if (null == countsAtMarks) {
+			countsAtMarks = new CountsAtMarks();
+		}
+		countsAtMarks.add(mark, numberOfCalls, numberOfReturned);
+		lastMark = mark;
+	}
+
+	boolean isCountingOnly() {
+		return retentionLimit == COUNTING_ONLY;
+	}
+
+	private void storeCall(String[] parameterNames, Object[] values) {
+		possiblyGrowCallStorage();
+		int slot = slotForCallNumber(numberOfCalls);
+		parameterNamesForCalls[slot] = parameterNames;
+		valuesForCalls[slot] = values;
+		sequenceNumbersForCalls[slot] = callSequence.next();
+		if (null != primitiveKindsForCalls) {
+			primitiveKindsForCalls[slot] = null;
+		}
+	}
+
+	private String[] getSharedParameterNames(Object[] parameters) {
+		for (String[] parameterNames : knownParameterNames) {
+			if (sameParameterNames(parameterNames, parameters)) {
+				return parameterNames;
+			}
+		}
+		String[] parameterNames = extractParameterNames(parameters);
+		knownParameterNames.add(parameterNames);
+		return parameterNames;
+	}
+
+	private boolean sameParameterNames(String[] parameterNames, Object[] parameters) {
+		if (parameterNames.length * ENTRIES_PER_PARAMETER != parameters.length) {
+			return false;
+		}
+		for (int i = 0; i < parameterNames.length; i++) {
+			if (!parameterNames[i].equals(parameters[i * ENTRIES_PER_PARAMETER])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static String[] extractParameterNames(Object[] parameters) {
+		String[] parameterNames = new String[parameters.length / ENTRIES_PER_PARAMETER];
+		for (int i = 0; i < parameterNames.length; i++) {
+			parameterNames[i] = (String) parameters[i * ENTRIES_PER_PARAMETER];
+		}
+		return parameterNames;
+	}
+
+	static Object[] extractValues(Object[] parameters) {
+		Object[] values = new Object[parameters.length / ENTRIES_PER_PARAMETER];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = parameters[i * ENTRIES_PER_PARAMETER + 1];
+		}
+		return values;
+	}
+
+	private void possiblyGrowCallStorage() {
+		if (numberOfCalls == valuesForCalls.length && canGrow(valuesForCalls.length)) {
+			int newCapacity = calculateNewCapacity(valuesForCalls.length);
+			parameterNamesForCalls = Arrays.copyOf(parameterNamesForCalls, newCapacity);
+			valuesForCalls = Arrays.copyOf(valuesForCalls, newCapacity);
+			sequenceNumbersForCalls = Arrays.copyOf(sequenceNumbersForCalls, newCapacity);
+			possiblyGrowPrimitiveStorage(newCapacity);
+		}
+	}
+
+	private void possiblyGrowPrimitiveStorage(int newCapacity) {
+		if (null != primitiveKindsForCalls) {
+			primitiveKindsForCalls = Arrays.copyOf(primitiveKindsForCalls, newCapacity);
+			primitiveValuesForCalls = Arrays.copyOf(primitiveValuesForCalls, newCapacity);
+		}
+	}
+
+	private boolean canGrow(int capacity) {
+		return retentionLimit == UNLIMITED || capacity < retentionLimit;
+	}
+
+	private int calculateNewCapacity(int capacity) {
+		if (retentionLimit == UNLIMITED) {
+			return capacity * 2;
+		}
+		return Math.min(capacity * 2, retentionLimit);
+	}
+
+	int slotForCallNumber(int callNumber) {
+		if (retentionLimit == UNLIMITED) {
+			return callNumber;
+		}
+		return callNumber % retentionLimit;
+	}
+
+	int getNumberOfCalls() {
+		return numberOfCalls;
+	}
+
+	/**
+	 * getNumberOfCallsAtMark returns the number of calls this log had when the specified mark was
+	 * made.
+	 */
+	int getNumberOfCallsAtMark(int mark) {
+		if (null == countsAtMarks) {
+			return numberOfCalls;
+		}
+		return countsAtMarks.getNumberOfCalls(mark, numberOfCalls);
+	}
+
+	/**
+	 * getNumberOfReturnedAtMark returns the number of returned values this log had when the
+	 * specified mark was made.
+	 */
+	int getNumberOfReturnedAtMark(int mark) {
+		if (null == countsAtMarks) {
+			return numberOfReturned;
+		}
+		return countsAtMarks.getNumberOfReturned(mark, numberOfReturned);
+	}
+
+	int getRetentionLimit() {
+		return retentionLimit;
+	}
+
+	/**
+	 * getFirstRetainedCallNumber returns the number of the oldest call that is still kept in this
+	 * log.
+	 */
+	int getFirstRetainedCallNumber() {
+		return firstRetainedNumber(numberOfCalls);
+	}
+
+	private int firstRetainedNumber(int numberRecorded) {
+		if (retentionLimit == UNLIMITED) {
+			return 0;
+		}
+		return Math.max(0, numberRecorded - retentionLimit);
+	}
+
+	/**
+	 * getCall creates a map with parameter names as keys and the recorded values as values, for the
+	 * specified call.
+	 */
+	Map<String, Object> getCall(int callNumber) {
+		throwErrorIfCallNumberNotRetained(callNumber);
+		int slot = slotForCallNumber(callNumber);
+		String[] parameterNames = parameterNamesForCalls[slot];
+		Object[] values = getValuesInSlot(slot);
+		Map<String, Object> parameters = new LinkedHashMap<>();
+		for (int i = 0; i < parameterNames.length; i++) {
+			parameters.put(parameterNames[i], values[i]);
+		}
+		return parameters;
+	}
+
+	/**
+	 * getSequenceNumber returns the sequence number the specified call got when it was recorded.
+	 */
+	long getSequenceNumber(int callNumber) {
+		throwErrorIfCallNumberNotRetained(callNumber);
+		return sequenceNumbersForCalls[slotForCallNumber(callNumber)];
+	}
+
+	/**
+	 * findFirstCallAfter returns the number of the first retained call with a sequence number
+	 * higher than the specified sequence number, or {@link #NO_CALL} if there is no such call.
+	 */
+	int findFirstCallAfter(long sequenceNumber) {
+		int low = getFirstRetainedCallNumber();
+		int high = numberOfCalls;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sequenceNumbersForCalls[slotForCallNumber(middle)] <= sequenceNumber) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low == numberOfCalls ? NO_CALL : low;
+	}
+
+	private void throwErrorIfCallNumberNotRetained(int callNumber) {
+		if (callNumber < getFirstRetainedCallNumber() || numberOfCalls <= callNumber) {
+			throw new IndexOutOfBoundsException(callNumber);
+		}
+	}
+
+	/**
+	 * getParameterNames returns the parameter names for the specified call. The returned array is
+	 * shared with other calls and must not be changed.
+	 */
+	String[] getParameterNames(int callNumber) {
+		throwErrorIfCallNumberNotRetained(callNumber);
+		return parameterNamesForCalls[slotForCallNumber(callNumber)];
+	}
+
+	/**
+	 * getCallValues returns the recorded values for the specified call. The returned array is the
+	 * stored array and must not be changed, except for calls with a primitive value, where a new
+	 * array with the boxed value is returned.
+	 */
+	Object[] getCallValues(int callNumber) {
+		throwErrorIfCallNumberNotRetained(callNumber);
+		return getValuesInSlot(slotForCallNumber(callNumber));
+	}
+
+	/**
+	 * getParameterValues returns the values for the specified call, in the same way as the values
+	 * of the map returned from {@link #getCall(int)}, but without creating the map. The stored
+	 * array is returned, unless the call has a primitive value or was recorded with the same
+	 * parameter name more than once.
+	 */
+	Object[] getParameterValues(int callNumber) {
+		throwErrorIfCallNumberNotRetained(callNumber);
+		int slot = slotForCallNumber(callNumber);
+		if (hasDuplicateNames(parameterNamesForCalls[slot])) {
+			return getCall(callNumber).values().toArray();
+		}
+		return getValuesInSlot(slot);
+	}
+
+	private boolean hasDuplicateNames(String[] parameterNames) {
+		for (int i = 1; i < parameterNames.length; i++) {
+			if (positionOfName(parameterNames, parameterNames[i], i) != PARAMETER_NOT_FOUND) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int positionOfName(String[] parameterNames, String parameterName, int before) {
+		for (int position = before - 1; position >= 0; position--) {
+			if (parameterNames[position].equals(parameterName)) {
+				return position;
+			}
+		}
+		return PARAMETER_NOT_FOUND;
+	}
+
+	/**
+	 * getPositionOfParameter returns the position of the value for the parameter with the
+	 * specified name in the specified call, or {@link #PARAMETER_NOT_FOUND}. If the same name is
+	 * used more than once in the call, the position of the last value is returned, as that is the
+	 * value found in the map returned from {@link #getCall(int)}.
+	 */
+	int getPositionOfParameter(int callNumber, String parameterName) {
+		throwErrorIfCallNumberNotRetained(callNumber);
+		String[] parameterNames = parameterNamesForCalls[slotForCallNumber(callNumber)];
+		return positionOfName(parameterNames, parameterName, parameterNames.length);
+	}
+
+	/**
+	 * getParameterValue returns the value at the specified position in the specified call.
+	 */
+	Object getParameterValue(int callNumber, int position) {
+		throwErrorIfCallNumberNotRetained(callNumber);
+		int slot = slotForCallNumber(callNumber);
+		if (isPrimitiveInSlot(slot)) {
+			return primitiveKindsForCalls[slot].box(primitiveValuesForCalls[slot]);
+		}
+		return valuesForCalls[slot][position];
+	}
+
+	private boolean isPrimitiveInSlot(int slot) {
+		return null != primitiveKindsForCalls && null != primitiveKindsForCalls[slot];
+	}
+
+	private Object[] getValuesInSlot(int slot) {
+		if (isPrimitiveInSlot(slot)) {
+			return new Object[] { primitiveKindsForCalls[slot].box(primitiveValuesForCalls[slot]) };
+		}
+		return valuesForCalls[slot];
+	}
+
+	/**
+	 * findFirstMatchingCall returns the number of the first retained call whose values match the
+	 * expected values according to {@link ParameterMatcher}, or -1 if no call matches.
+	 * <p>
+	 * When the method has been called many times, and all calls are retained, the calls are indexed
+	 * on their first value, and only the calls with a matching first value are checked.
+	 */
+	int findFirstMatchingCall(Object[] expectedValues) {
+		return findFirstMatchingCallFrom(expectedValues, 0);
+	}
+
+	/**
+	 * findFirstMatchingCallFrom works as {@link #findFirstMatchingCall(Object[])}, but only checks
+	 * calls with the specified call number or later.
+	 */
+	int findFirstMatchingCallFrom(Object[] expectedValues, int fromCallNumber) {
+		if (expectedValues.length == 0 || numberOfCalls < MIN_NUMBER_OF_CALLS_TO_USE_INDEX
+				|| retentionLimit != UNLIMITED) {
+			return scanForFirstMatchingCall(expectedValues, fromCallNumber);
+		}
+		return findFirstMatchingCallUsingIndex(expectedValues, fromCallNumber);
+	}
+
+	private int scanForFirstMatchingCall(Object[] expectedValues, int fromCallNumber) {
+		int firstToCheck = Math.max(fromCallNumber, getFirstRetainedCallNumber());
+		for (int callNumber = firstToCheck; callNumber < numberOfCalls; callNumber++) {
+			if (ParameterMatcher.callMatches(getCallValues(callNumber), expectedValues)) {
+				return callNumber;
+			}
+		}
+		return NO_MATCHING_CALL;
+	}
+
+	private int findFirstMatchingCallUsingIndex(Object[] expectedValues, int fromCallNumber) {
+		ParameterValueIndex index = getUpdatedValueIndex();
+		CallNumbers candidates = index.candidateCallNumbers(expectedValues);
+		for (int position = 0; position < candidates.size(); position++) {
+			int callNumber = candidates.get(position);
+			if (callNumber >= fromCallNumber
+					&& ParameterMatcher.callMatches(getCallValues(callNumber), expectedValues)) {
+				return callNumber;
+			}
+		}
+		return NO_MATCHING_CALL;
+	}
+
+	private ParameterValueIndex getUpdatedValueIndex() {
+		if (null == valueIndex) {
+			valueIndex = new ParameterValueIndex();
+		}
+		for (int callNumber = valueIndex
+				.getNumberOfIndexedCalls(); callNumber < numberOfCalls; callNumber++) {
+			valueIndex.indexCall(getCallValues(callNumber));
+		}
+		return valueIndex;
+	}
+
+	void addReturned(Object returnedValue) {
+		storeReturned(returnedValue);
+		timeReturnedCall();
+	}
+
+	void storeReturned(Object returnedValue) {
+		possiblyStoreCountsForNewMark();
+		if (!isCountingOnly()) {
+			possiblyGrowReturnedStorage();
+			returnedValues[slotForCallNumber(numberOfReturned)] = returnedValue;
+		}
+		numberOfReturned++;
+	}
+
+	void timeReturnedCall() {
+		if (null != timings) {
+			timings.callReturned();
+		}
+	}
+
+	/**
+	 * endCallWithoutReturned notes that the last call recorded by the current thread ended without
+	 * returning a value, as when an error is thrown. Only logs that pair returned values with the
+	 * calls of each thread need to know this.
+	 */
+	void endCallWithoutReturned() {
+		// only needed when returned values are paired with calls
+	}
+
+	private void possiblyGrowReturnedStorage() {
+		if (numberOfReturned == returnedValues.length && canGrow(returnedValues.length)) {
+			returnedValues = Arrays.copyOf(returnedValues,
+					calculateNewCapacity(returnedValues.length));
+		}
+	}
+
+	int getNumberOfReturned() {
+		return numberOfReturned;
+	}
+
+	int getFirstRetainedReturnedNumber() {
+		return firstRetainedNumber(numberOfReturned);
+	}
+
+	Object getReturned(int callNumber) {
+		if (callNumber < getFirstRetainedReturnedNumber() || numberOfReturned <= callNumber) {
+			throw new IndexOutOfBoundsException(callNumber);
+		}
+		return returnedValues[slotForCallNumber(callNumber)];
+	}
+
+	/**
+	 * getReturnedValues returns a list with the retained returned values, in the order they were
+	 * returned.
+	 */
+	List<Object> getReturnedValues() {
+		List<Object> retained = new ArrayList<>();
+		for (int number = getFirstRetainedReturnedNumber(); number < numberOfReturned; number++) {
+			retained.add(returnedValues[slotForCallNumber(number)]);
+		}
+		return retained;
+	}
+
+	/**
+	 * reset forgets all recorded calls and returned values, and the counts stored for marks, while
+	 * keeping the arrays used to store them, so that recording can start over without growing the
+	 * storage again. Measured timings are cleared as well.
+	 */
+	void reset() {
+		int usedCallSlots = Math.min(numberOfCalls, valuesForCalls.length);
+		Arrays.fill(parameterNamesForCalls, 0, usedCallSlots, null);
+		Arrays.fill(valuesForCalls, 0, usedCallSlots, null);
+		if (null != primitiveKindsForCalls) {
+			Arrays.fill(primitiveKindsForCalls, 0, usedCallSlots, null);
+		}
+		Arrays.fill(returnedValues, 0, Math.min(numberOfReturned, returnedValues.length), null);
+		numberOfCalls = 0;
+		numberOfReturned = 0;
+		valueIndex = null;
+		countsAtMarks = null;
+		lastMark = CallSequence.NO_MARK;
+		if (null != timings) {
+			timings.reset();
+		}
+	}
+}
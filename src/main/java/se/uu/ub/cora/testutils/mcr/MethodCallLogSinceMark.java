@@ -0,0 +1,155 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MethodCallLogSinceMark is a read only view of a {@link MethodCallLog}, with only the calls and
+ * returned values recorded after a mark was made, numbered from 0. Call numbers are translated to
+ * the call numbers in the viewed log, and all reads are made in the viewed log, so the view sees
+ * calls recorded after it was created.
+ * <p>
+ * Timings are not available in the view, as the measured durations are not kept per call.
+ */
+final class MethodCallLogSinceMark extends MethodCallLog {
+	private final MethodCallLog methodCallLog;
+	private final int callOffset;
+	private final int returnedOffset;
+
+	MethodCallLogSinceMark(MethodCallLog methodCallLog, int mark) {
+		super(COUNTING_ONLY);
+		this.methodCallLog = methodCallLog;
+		callOffset = methodCallLog.getNumberOfCallsAtMark(mark);
+		returnedOffset = methodCallLog.getNumberOfReturnedAtMark(mark);
+	}
+
+	@Override
+	boolean isCountingOnly() {
+		return methodCallLog.isCountingOnly();
+	}
+
+	@Override
+	int getRetentionLimit() {
+		return methodCallLog.getRetentionLimit();
+	}
+
+	@Override
+	MethodCallTimings getTimings() {
+		return null;
+	}
+
+	@Override
+	int getNumberOfCalls() {
+		return methodCallLog.getNumberOfCalls() - callOffset;
+	}
+
+	@Override
+	int getFirstRetainedCallNumber() {
+		return Math.max(0, methodCallLog.getFirstRetainedCallNumber() - callOffset);
+	}
+
+	private int toLogCallNumber(int callNumber) {
+		if (callNumber < 0) {
+			throw new IndexOutOfBoundsException(callNumber);
+		}
+		return callNumber + callOffset;
+	}
+
+	@Override
+	Map<String, Object> getCall(int callNumber) {
+		return methodCallLog.getCall(toLogCallNumber(callNumber));
+	}
+
+	@Override
+	long getSequenceNumber(int callNumber) {
+		return methodCallLog.getSequenceNumber(toLogCallNumber(callNumber));
+	}
+
+	@Override
+	int findFirstCallAfter(long sequenceNumber) {
+		int callNumber = methodCallLog.findFirstCallAfter(sequenceNumber);
+		if (callNumber == NO_CALL || callOffset >= methodCallLog.getNumberOfCalls()) {
+			return NO_CALL;
+		}
+		return Math.max(callNumber, callOffset) - callOffset;
+	}
+
+	@Override
+	String[] getParameterNames(int callNumber) {
+		return methodCallLog.getParameterNames(toLogCallNumber(callNumber));
+	}
+
+	@Override
+	Object[] getCallValues(int callNumber) {
+		return methodCallLog.getCallValues(toLogCallNumber(callNumber));
+	}
+
+	@Override
+	Object[] getParameterValues(int callNumber) {
+		return methodCallLog.getParameterValues(toLogCallNumber(callNumber));
+	}
+
+	@Override
+	int getPositionOfParameter(int callNumber, String parameterName) {
+		return methodCallLog.getPositionOfParameter(toLogCallNumber(callNumber), parameterName);
+	}
+
+	@Override
+	Object getParameterValue(int callNumber, int position) {
+		return methodCallLog.getParameterValue(toLogCallNumber(callNumber), position);
+	}
+
+	@Override
+	int findFirstMatchingCallFrom(Object[] expectedValues, int fromCallNumber) {
+		int callNumber = methodCallLog.findFirstMatchingCallFrom(expectedValues,
+				callOffset + fromCallNumber);
+		return callNumber < 0 ? callNumber : callNumber - callOffset;
+	}
+
+	@Override
+	int getNumberOfReturned() {
+		return methodCallLog.getNumberOfReturned() - returnedOffset;
+	}
+
+	@Override
+	int getFirstRetainedReturnedNumber() {
+		return Math.max(0, methodCallLog.getFirstRetainedReturnedNumber() - returnedOffset);
+	}
+
+	@Override
+	Object getReturned(int callNumber) {
+		if (callNumber < 0) {
+			throw new IndexOutOfBoundsException(callNumber);
+		}
+		return methodCallLog.getReturned(callNumber + returnedOffset);
+	}
+
+	@Override
+	List<Object> getReturnedValues() {
+		List<Object> retained = new ArrayList<>();
+		int numberOfReturned = getNumberOfReturned();
+		for (int number = getFirstRetainedReturnedNumber(); number < numberOfReturned; number++) {
+			retained.add(getReturned(number));
+		}
+		return retained;
+	}
+}
@@ -24,16 +24,22 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.lang.StackWalker.StackFrame;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
 
+import se.uu.ub.cora.testutils.mcr.MethodRegistration.MRVBinding;
 import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
+import se.uu.ub.cora.testutils.mrv.VirtualClock;
 
 /**
  * MethodCallRecorder is a test helper class used to record and validate calls to methods in spies
@@ -56,15 +62,75 @@ import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
  * {@link #getNumberOfCallsToMethod(String)} method or that a method has been called using the
  * {@link #methodWasCalled(String)} method.
  * <p>
+ * For soak and load tests where spies are called a very large number of times, can the recorder be
+ * set to only keep the last calls for each method using the
+ * {@link #retainOnlyLastCallsPerMethod(int)} method. Or set to only count calls using the
+ * {@link #useCountingOnly()} method, for spies left in performance sensitive tests.
+ * <p>
+ * Performance budgets can be enforced by measuring how long calls take using the
+ * {@link #useCallTiming()} method, and asserting on the measured durations using the
+ * {@link #assertMaxLatency(String, Duration)} and
+ * {@link #assertPercentile(String, double, Duration)} methods.
+ * <p>
+ * Recorded calls and returned values can be pushed out as they happen to a
+ * {@link MethodCallListener}, set using the {@link #useListener(MethodCallListener)} method. Or
+ * exported to a file using the {@link #exportRecording(Path)} method, to be inspected using a
+ * {@link RecordingReader} after the test has finished.
+ * <p>
+ * Spies that are called very often can register their methods once using the
+ * {@link #registerMethod(String, String...)} method, and then record calls using the returned
+ * method ids, without resolving or looking up method names for each call. The recorded calls are
+ * asserted using method names, as for all other calls.
+ * <p>
+ * Each recorded call gets a sequence number, that is unique within the recorder and that gives the
+ * order the calls were recorded in, across all methods. The order of calls to different methods can
+ * be asserted using the {@link #assertCalledBefore(String, int, String, int)} and
+ * {@link #assertCallOrder(String...)} methods.
+ * <p>
+ * Long sequences of calls can be asserted one call at a time using a cursor, for one method
+ * returned from the {@link #cursorForMethod(String)} method, or for all methods returned from the
+ * {@link #cursorForAllCalls()} method.
+ * <p>
+ * Tests where spies are called from other threads can wait for the calls using the
+ * {@link #awaitNumberOfCallsToMethod(String, int, Duration)} and
+ * {@link #awaitCalledParameters(String, Duration, Object...)} methods.
+ * <p>
+ * Tests with several phases can assert only on the calls made in the current phase, using a mark
+ * made with the {@link #mark()} method and the recorder returned from the
+ * {@link #since(RecordingMark)} method. Or start over using the {@link #reset()} method.
+ * <p>
  * This class is intended to be used in combination with {@link MethodReturnValues}.
  */
 public class MethodCallRecorder {
 	private static final String CALL_NUMBER_TEXT = ", callNumber: ";
-	private static final int NUMBER_OF_CALLS_BACKWARD_TO_FIND_CALLING_METHOD = 3;
-	private static final int NO_OF_PARAMETERS_FOR_ONE_RECORDED_PARAMETER = 2;
-	private Map<String, List<Map<String, Object>>> calledMethods = new HashMap<>();
-	private Map<String, List<Object>> returnedValues = new HashMap<>();
+	static final String PARAMETERS = "Parameters";
+	private static final String RETURN_VALUES = "Return values";
+	private static final String SEQUENCE_NUMBERS = "Sequence numbers";
+	private static final String METHOD_NAME_TEXT = "(methodName: ";
+	private static final int NUMBER_OF_FRAMES_TO_SKIP_TO_FIND_CALLING_METHOD = 2;
+	private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+	private static final int NO_MATCHING_CALL = -1;
+	private static final Object[] NO_VALUES = new Object[0];
+	private static final int INITIAL_NUMBER_OF_METHODS = 8;
+	private final Map<String, MethodCallLog> methodCallLogs;
+	private final CallSequence callSequence;
 	private MethodReturnValues MRV;
+	private int retentionLimit = MethodCallLog.UNLIMITED;
+	private CallTimer callTimer;
+	private volatile MethodCallListener listener;
+	private MethodRegistration[] registrations = new MethodRegistration[INITIAL_NUMBER_OF_METHODS];
+	private int numberOfRegistrations = 0;
+	private int numberOfResets = 0;
+	private final CallSignal callSignal = new CallSignal();
+
+	public MethodCallRecorder() {
+		this(new HashMap<>(), new CallSequence());
+	}
+
+	MethodCallRecorder(Map<String, MethodCallLog> methodCallLogs, CallSequence callSequence) {
+		this.methodCallLogs = methodCallLogs;
+		this.callSequence = callSequence;
+	}
 
 	/**
 	 * addCall is expected to be used by spies and similar test helper classes to record calls made
@@ -74,7 +140,8 @@ public class MethodCallRecorder {
 	 * parameters, so it can be used when later using the assert and get methods in this class.
 	 * <p>
 	 * If there is a connected {@link MethodReturnValues} will this method throw errors set using
-	 * set errors methods in MRV.
+	 * set errors methods in MRV. Calls are not delayed by this method, delays set in MRV are
+	 * applied once, when the value to return is fetched from MRV.
 	 * 
 	 * @param parameters
 	 *            An Object Varargs with the respective methods and their values. For each parameter
@@ -87,38 +154,648 @@ public class MethodCallRecorder {
 		addCallForMethodNameAndParameters(methodName, parameters);
 	}
 
+	/**
+	 * addCall without parameters is the same as {@link #addCall(Object...)}, for methods without
+	 * parameters, but does not create a varargs array.
+	 */
+	public void addCall() {
+		String methodName = getMethodNameFromCall();
+		recordCallWithPaddedNames(methodName, NO_VALUES, null, null, null, null, null, null);
+	}
+
+	/**
+	 * addCall with a fixed number of parameters is the same as {@link #addCall(Object...)}, but
+	 * does not create a varargs array, and only creates an array of parameter names the first time
+	 * the method is called with these parameter names. Overloads exist for one to six parameters.
+	 * <p>
+	 * Ex: addCall("parameter1Name", parameter1Value)
+	 */
+	public void addCall(String parameterName1, Object value1) {
+		String methodName = getMethodNameFromCall();
+		Object[] values = { value1 };
+		recordCallWithPaddedNames(methodName, values, parameterName1, null, null, null, null, null);
+	}
+
+	/**
+	 * addCall with 2 parameters, see {@link #addCall(String, Object)}
+	 */
+	public void addCall(String parameterName1, Object value1, String parameterName2,
+			Object value2) {
+		String methodName = getMethodNameFromCall();
+		Object[] values = { value1, value2 };
+		recordCallWithPaddedNames(methodName, values, parameterName1, parameterName2, null, null,
+				null, null);
+	}
+
+	/**
+	 * addCall with 3 parameters, see {@link #addCall(String, Object)}
+	 */
+	public void addCall(String parameterName1, Object value1, String parameterName2, Object value2,
+			String parameterName3, Object value3) {
+		String methodName = getMethodNameFromCall();
+		Object[] values = { value1, value2, value3 };
+		recordCallWithPaddedNames(methodName, values, parameterName1, parameterName2,
+				parameterName3, null, null, null);
+	}
+
+	/**
+	 * addCall with 4 parameters, see {@link #addCall(String, Object)}
+	 */
+	public void addCall(String parameterName1, Object value1, String parameterName2, Object value2,
+			String parameterName3, Object value3, String parameterName4, Object value4) {
+		String methodName = getMethodNameFromCall();
+		Object[] values = { value1, value2, value3, value4 };
+		recordCallWithPaddedNames(methodName, values, parameterName1, parameterName2,
+				parameterName3, parameterName4, null, null);
+	}
+
+	/**
+	 * addCall with 5 parameters, see {@link #addCall(String, Object)}
+	 */
+	public void addCall(String parameterName1, Object value1, String parameterName2, Object value2,
+			String parameterName3, Object value3, String parameterName4, Object value4,
+			String parameterName5, Object value5) {
+		String methodName = getMethodNameFromCall();
+		Object[] values = { value1, value2, value3, value4, value5 };
+		recordCallWithPaddedNames(methodName, values, parameterName1, parameterName2,
+				parameterName3, parameterName4, parameterName5, null);
+	}
+
+	/**
+	 * addCall with 6 parameters, see {@link #addCall(String, Object)}
+	 */
+	public void addCall(String parameterName1, Object value1, String parameterName2, Object value2,
+			String parameterName3, Object value3, String parameterName4, Object value4,
+			String parameterName5, Object value5, String parameterName6, Object value6) {
+		String methodName = getMethodNameFromCall();
+		Object[] values = { value1, value2, value3, value4, value5, value6 };
+		recordCallWithPaddedNames(methodName, values, parameterName1, parameterName2,
+				parameterName3, parameterName4, parameterName5, parameterName6);
+	}
+
+	/**
+	 * addCall with one int parameter is the same as {@link #addCall(Object...)}, but stores the
+	 * value without boxing it. The value is boxed to an Integer when read, so asserts work as if
+	 * the value had been boxed when recorded. Overloads exist for int, long, boolean, short, byte
+	 * and char.
+	 * <p>
+	 * Ex: addCall("parameterName", 42)
+	 */
+	public void addCall(String parameterName, int value) {
+		String methodName = getMethodNameFromCall();
+		recordPrimitiveCall(methodName, parameterName, PrimitiveKind.INT, value);
+	}
+
+	/**
+	 * addCall with one long parameter, see {@link #addCall(String, int)}
+	 */
+	public void addCall(String parameterName, long value) {
+		String methodName = getMethodNameFromCall();
+		recordPrimitiveCall(methodName, parameterName, PrimitiveKind.LONG, value);
+	}
+
+	/**
+	 * addCall with one boolean parameter, see {@link #addCall(String, int)}
+	 */
+	public void addCall(String parameterName, boolean value) {
+		String methodName = getMethodNameFromCall();
+		recordPrimitiveCall(methodName, parameterName, PrimitiveKind.BOOLEAN, value ? 1 : 0);
+	}
+
+	/**
+	 * addCall with one short parameter, see {@link #addCall(String, int)}
+	 */
+	public void addCall(String parameterName, short value) {
+		String methodName = getMethodNameFromCall();
+		recordPrimitiveCall(methodName, parameterName, PrimitiveKind.SHORT, value);
+	}
+
+	/**
+	 * addCall with one byte parameter, see {@link #addCall(String, int)}
+	 */
+	public void addCall(String parameterName, byte value) {
+		String methodName = getMethodNameFromCall();
+		recordPrimitiveCall(methodName, parameterName, PrimitiveKind.BYTE, value);
+	}
+
+	/**
+	 * addCall with one char parameter, see {@link #addCall(String, int)}
+	 */
+	public void addCall(String parameterName, char value) {
+		String methodName = getMethodNameFromCall();
+		recordPrimitiveCall(methodName, parameterName, PrimitiveKind.CHAR, value);
+	}
+
+	private Object[] recordCallWithPaddedNames(String methodName, Object[] values, String name1,
+			String name2, String name3, String name4, String name5, String name6) {
+		MethodCallLog methodCallLog = possiblyAddMethodCallLog(methodName);
+		methodCallLog.addCallWithPaddedNames(values, name1, name2, name3, name4, name5, name6);
+		callSignal.callRecorded();
+		MethodCallListener currentListener = listener;
+		if (null != currentListener) {
+			String[] parameterNames = { name1, name2, name3, name4, name5, name6 };
+			currentListener.callRecorded(methodName, Arrays.copyOf(parameterNames, values.length),
+					values);
+		}
+		possiblyThrowErrorFromMRV(methodCallLog, methodName, values);
+		return values;
+	}
+
+	private void possiblyThrowErrorFromMRV(MethodCallLog methodCallLog, String methodName,
+			Object[] values) {
+		if (null != MRV) {
+			try {
+				MRV.possiblyThrowErrorForMethodNameAndParameters(methodName, values);
+			} catch (RuntimeException e) {
+				methodCallLog.endCallWithoutReturned();
+				throw e;
+			}
+		}
+	}
+
+	private void recordPrimitiveCall(String methodName, String parameterName, PrimitiveKind kind,
+			long value) {
+		MethodCallLog methodCallLog = possiblyAddMethodCallLog(methodName);
+		methodCallLog.addPrimitiveCall(parameterName, kind, value);
+		callSignal.callRecorded();
+		MethodCallListener currentListener = listener;
+		if (null != currentListener) {
+			currentListener.callRecorded(methodName, new String[] { parameterName },
+					new Object[] { kind.box(value) });
+		}
+		if (null != MRV) {
+			possiblyThrowErrorFromMRV(methodCallLog, methodName,
+					new Object[] { kind.box(value) });
+		}
+	}
+
+	/**
+	 * registerMethod registers a method with its parameter names, and returns an id that can be
+	 * used to record calls to the method using {@link #addCallForMethodId(int, Object...)},
+	 * {@link #addReturnedForMethodId(int, Object)} and
+	 * {@link #addCallAndReturnFromMRVForMethodId(int, Object...)}. Calls recorded using the id are
+	 * asserted using the method name, in the same way as calls recorded using
+	 * {@link #addCall(Object...)}.
+	 * <p>
+	 * Methods are expected to be registered once, when the spy is created, and before the spy is
+	 * used from other threads.
+	 * <p>
+	 * Ex: int readId = MCR.registerMethod("read", "type", "id")
+	 * 
+	 * @param methodName
+	 *            A String with the method name
+	 * @param parameterNames
+	 *            A String Varargs with the parameter names of the method, in the order their values
+	 *            are given when recording calls
+	 * @return An int with the id of the registered method
+	 */
+	public int registerMethod(String methodName, String... parameterNames) {
+		if (numberOfRegistrations == registrations.length) {
+			registrations = Arrays.copyOf(registrations, registrations.length * 2);
+		}
+		MethodRegistration registration = new MethodRegistration(methodName,
+				parameterNames.clone());
+		registration.bindMRV(MRV);
+		registrations[numberOfRegistrations] = registration;
+		return numberOfRegistrations++;
+	}
+
+	/**
+	 * addCallForMethodId is the same method as {@link #addCall(Object...)}, but for a method
+	 * registered using {@link #registerMethod(String, String...)}, and with only the values of the
+	 * parameters, in the order the parameter names were registered.
+	 * <p>
+	 * The array of values is stored as it is, and must not be changed after the call is recorded.
+	 * <p>
+	 * Ex: MCR.addCallForMethodId(readId, type, id)
+	 * 
+	 * @param methodId
+	 *            An int with the id returned when the method was registered
+	 * @param values
+	 *            An Object Varargs with the values of the parameters
+	 */
+	public void addCallForMethodId(int methodId, Object... values) {
+		MethodRegistration registration = getRegistrationForMethodId(methodId);
+		recordCallForRegistration(registration, values);
+	}
+
+	private MethodRegistration getRegistrationForMethodId(int methodId) {
+		if (methodId < 0 || methodId >= numberOfRegistrations) {
+			throw new RuntimeException(
+					"MethodId not registered for (methodId: %s)".formatted(methodId));
+		}
+		return registrations[methodId];
+	}
+
+	private void recordCallForRegistration(MethodRegistration registration, Object[] values) {
+		throwErrorIfWrongNumberOfValues(registration, values);
+		MethodCallLog methodCallLog = getOrBindMethodCallLog(registration);
+		methodCallLog.addCallWithParameterNames(registration.getParameterNames(), values);
+		callSignal.callRecorded();
+		MethodCallListener currentListener = listener;
+		if (null != currentListener) {
+			currentListener.callRecorded(registration.getMethodName(),
+					registration.getParameterNames(), values);
+		}
+		MRVBinding mrvBinding = registration.getMRVBinding();
+		if (null != mrvBinding) {
+			possiblyThrowErrorFromMRVForMethodId(methodCallLog, mrvBinding, values);
+		}
+	}
+
+	private void possiblyThrowErrorFromMRVForMethodId(MethodCallLog methodCallLog,
+			MRVBinding mrvBinding, Object[] values) {
+		try {
+			mrvBinding.getMRV().possiblyThrowErrorForMethodId(mrvBinding.getMethodIdInMRV(),
+					values);
+		} catch (RuntimeException e) {
+			methodCallLog.endCallWithoutReturned();
+			throw e;
+		}
+	}
+
+	private void throwErrorIfWrongNumberOfValues(MethodRegistration registration,
+			Object[] values) {
+		if (registration.getParameterNames().length != values.length) {
+			throw new RuntimeException(
+					"Wrong number of values for (methodName: %s), expected: %s but was: %s"
+							.formatted(registration.getMethodName(),
+									registration.getParameterNames().length, values.length));
+		}
+	}
+
+	private MethodCallLog getOrBindMethodCallLog(MethodRegistration registration) {
+		MethodCallLog methodCallLog = registration.getMethodCallLog();
+		if (null == methodCallLog) {
+			methodCallLog = possiblyAddMethodCallLog(registration.getMethodName());
+			registration.setMethodCallLog(methodCallLog);
+		}
+		return methodCallLog;
+	}
+
+	/**
+	 * addReturnedForMethodId is the same method as {@link #addReturned(Object)}, but for a method
+	 * registered using {@link #registerMethod(String, String...)}.
+	 * 
+	 * @param methodId
+	 *            An int with the id returned when the method was registered
+	 * @param returnedValue
+	 *            The value returned from the method
+	 */
+	public void addReturnedForMethodId(int methodId, Object returnedValue) {
+		MethodRegistration registration = getRegistrationForMethodId(methodId);
+		getOrBindMethodCallLog(registration).addReturned(returnedValue);
+		possiblyNotifyListenerOfReturnedValue(registration.getMethodName(), returnedValue);
+	}
+
+	private void possiblyNotifyListenerOfReturnedValue(String methodName, Object returnedValue) {
+		MethodCallListener currentListener = listener;
+		if (null != currentListener) {
+			currentListener.returnedValueRecorded(methodName, returnedValue);
+		}
+	}
+
+	/**
+	 * addCallAndReturnFromMRVForMethodId is the same method as
+	 * {@link #addCallAndReturnFromMRV(Object...)}, but for a method registered using
+	 * {@link #registerMethod(String, String...)}, and with only the values of the parameters, in
+	 * the order the parameter names were registered. The return value is looked up in the MRV
+	 * using the id of the method in the MRV, which is registered when the method is registered or
+	 * the MRV is set.
+	 * <p>
+	 * Ex: return MCR.addCallAndReturnFromMRVForMethodId(readId, type, id);
+	 * 
+	 * @param methodId
+	 *            An int with the id returned when the method was registered
+	 * @param values
+	 *            An Object Varargs with the values of the parameters
+	 * @return An Object with the value returned from the MRV
+	 */
+	public Object addCallAndReturnFromMRVForMethodId(int methodId, Object... values) {
+		MethodRegistration registration = getRegistrationForMethodId(methodId);
+		throwErrorIfNoMRV();
+		recordCallForRegistration(registration, values);
+		MRVBinding mrvBinding = registration.getMRVBinding();
+		MethodCallLog methodCallLog = registration.getMethodCallLog();
+		MethodReturnValues boundMRV = mrvBinding.getMRV();
+		int methodIdInMRV = mrvBinding.getMethodIdInMRV();
+		Object returnValue;
+		try {
+			boundMRV.delayForMethodId(methodIdInMRV, values);
+			returnValue = boundMRV.getReturnValueForMethodId(methodIdInMRV, values);
+		} catch (RuntimeException e) {
+			methodCallLog.endCallWithoutReturned();
+			throw e;
+		}
+		methodCallLog.addReturned(returnValue);
+		possiblyNotifyListenerOfReturnedValue(registration.getMethodName(), returnValue);
+		return returnValue;
+	}
+
 	/**
 	 * addCallForMethodNameAndParameters is the same method as {@link #addCall(Object...)} but you
 	 * can manually specify the method name. This method is intended to build utilitity methods such
 	 * as {@link MethodCallRecorder#addCallAndReturnFromMRV(Object...)} to reduce boilerplate code
 	 */
 	public void addCallForMethodNameAndParameters(String methodName, Object... parameters) {
-		List<Map<String, Object>> list = possiblyAddMethodName(methodName);
-		Map<String, Object> parameter = new LinkedHashMap<>();
-		recordParameterNameAndValue(parameter, parameters);
-		list.add(parameter);
-		if (null != MRV) {
-			Object[] parameterValues = extractValuesFromParameters(parameters);
-			MRV.possiblyThrowErrorForMethodNameAndParameters(methodName, parameterValues);
+		if (countingOnlyWithoutMRV()) {
+			possiblyAddMethodCallLog(methodName).countCall();
+			callSignal.callRecorded();
+			possiblyNotifyListenerOfCall(methodName, parameters);
+		} else {
+			recordCallAndPossiblyThrowErrorFromMRV(methodName, parameters);
 		}
 	}
 
-	private void recordParameterNameAndValue(Map<String, Object> parameter, Object... parameters) {
-		int position = 0;
-		while (position < parameters.length) {
-			parameter.put((String) parameters[position], parameters[position + 1]);
-			position = position + NO_OF_PARAMETERS_FOR_ONE_RECORDED_PARAMETER;
+	private boolean countingOnlyWithoutMRV() {
+		return isCountingOnly() && null == MRV;
+	}
+
+	boolean isCountingOnly() {
+		return retentionLimit == MethodCallLog.COUNTING_ONLY;
+	}
+
+	private Object[] recordCallAndPossiblyThrowErrorFromMRV(String methodName,
+			Object... parameters) {
+		MethodCallLog methodCallLog = possiblyAddMethodCallLog(methodName);
+		Object[] parameterValues = methodCallLog.addCall(parameters);
+		callSignal.callRecorded();
+		possiblyNotifyListenerOfCall(methodName, parameters);
+		possiblyThrowErrorFromMRV(methodCallLog, methodName, parameterValues);
+		return parameterValues;
+	}
+
+	private void possiblyNotifyListenerOfCall(String methodName, Object[] parameters) {
+		MethodCallListener currentListener = listener;
+		if (null != currentListener) {
+			currentListener.callRecorded(methodName,
+					MethodCallLog.extractParameterNames(parameters),
+					MethodCallLog.extractValues(parameters));
 		}
 	}
 
 	protected String getMethodNameFromCall() {
-		StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-		StackTraceElement stackTraceElement = stackTrace[NUMBER_OF_CALLS_BACKWARD_TO_FIND_CALLING_METHOD];
-		return stackTraceElement.getMethodName();
+		return STACK_WALKER.walk(this::getMethodNameOfCallingFrame);
+	}
+
+	private String getMethodNameOfCallingFrame(Stream<StackFrame> frames) {
+		return frames.skip(NUMBER_OF_FRAMES_TO_SKIP_TO_FIND_CALLING_METHOD).findFirst().get()
+				.getMethodName();
+	}
+
+	MethodCallLog possiblyAddMethodCallLog(String methodName) {
+		MethodCallLog methodCallLog = methodCallLogs.get(methodName);
+		if (null != methodCallLog) {
+			return methodCallLog;
+		}
+		return methodCallLogs.computeIfAbsent(methodName,
+				key -> createPossiblyTimedMethodCallLog());
+	}
+
+	private MethodCallLog createPossiblyTimedMethodCallLog() {
+		MethodCallLog methodCallLog = createMethodCallLog(callSequence, retentionLimit);
+		if (null != callTimer) {
+			methodCallLog.useTimings(new MethodCallTimings(callTimer));
+		}
+		return methodCallLog;
+	}
+
+	MethodCallLog createMethodCallLog(CallSequence callSequence, int retentionLimit) {
+		return new MethodCallLog(callSequence, retentionLimit);
+	}
+
+	/**
+	 * retainOnlyLastCallsPerMethod makes this recorder keep only the last recorded calls and the
+	 * last returned values for each method, up to the specified number. This makes it possible to
+	 * use spies that are called millions of times, for instance in soak and load tests, without
+	 * running out of memory.
+	 * <p>
+	 * The number of calls is still counted exactly, so {@link #getNumberOfCallsToMethod(String)},
+	 * {@link #methodWasCalled(String)} and the assert methods based on them work as before. Call
+	 * numbers keep counting from the first call, and asking for parameters or return values for a
+	 * call that is no longer kept throws a runtime exception.
+	 * <p>
+	 * This method must be called before any calls are recorded.
+	 * 
+	 * @param numberOfCallsToRetain
+	 *            An int with the number of calls and returned values to keep for each method, must
+	 *            be larger than 0
+	 */
+	public void retainOnlyLastCallsPerMethod(int numberOfCallsToRetain) {
+		if (numberOfCallsToRetain < 1) {
+			throw new RuntimeException("Number of calls to retain must be larger than 0, was: "
+					+ numberOfCallsToRetain);
+		}
+		throwErrorIfCallsAlreadyRecorded("retainOnlyLastCallsPerMethod");
+		retentionLimit = numberOfCallsToRetain;
+	}
+
+	/**
+	 * useCountingOnly makes this recorder only count the calls and returned values for each method,
+	 * without keeping any parameters or returned values. This makes it possible to leave spies in
+	 * performance sensitive tests, as recording a call only increases a counter, without creating
+	 * any objects, when no {@link MethodReturnValues} is used.
+	 * <p>
+	 * {@link #getNumberOfCallsToMethod(String)}, {@link #methodWasCalled(String)} and the assert
+	 * methods based on them work as before, while methods that need recorded parameters or return
+	 * values throw a runtime exception.
+	 * <p>
+	 * This method must be called before any calls are recorded.
+	 */
+	public void useCountingOnly() {
+		throwErrorIfCallsAlreadyRecorded("useCountingOnly");
+		retentionLimit = MethodCallLog.COUNTING_ONLY;
+	}
+
+	/**
+	 * useCallTiming makes this recorder measure, for each method, how long each call took and how
+	 * long the code under test spent before each call. The duration of a call is the time from when
+	 * the call was recorded until its returned value was recorded, so durations are only measured
+	 * for methods that record returned values. The time before a call is the time since the
+	 * previous call or returned value was recorded from the same thread.
+	 * <p>
+	 * The measured durations are kept in a {@link LatencyHistogram} per method, using a fixed
+	 * amount of memory, so call timing can be combined with {@link #useCountingOnly()} and
+	 * {@link #retainOnlyLastCallsPerMethod(int)} for spies called a very large number of times.
+	 * <p>
+	 * This method must be called before any calls are recorded.
+	 */
+	public void useCallTiming() {
+		useCallTiming(System::nanoTime);
+	}
+
+	/**
+	 * useCallTiming with a clock is the same method as {@link #useCallTiming()}, but measures the
+	 * durations on the specified {@link VirtualClock} instead of in real time. Calls delayed by a
+	 * {@link MethodReturnValues} bound to the same clock, see
+	 * {@link MethodReturnValues#useVirtualClock(VirtualClock)}, are then measured to take exactly
+	 * their delay.
+	 * <p>
+	 * This method must be called before any calls are recorded.
+	 * 
+	 * @param clock
+	 *            A VirtualClock to measure durations on
+	 */
+	public void useCallTiming(VirtualClock clock) {
+		useCallTiming(clock::nanoTime);
+	}
+
+	void useCallTiming(LongSupplier clock) {
+		throwErrorIfCallsAlreadyRecorded("useCallTiming");
+		callTimer = createCallTimer(clock);
+	}
+
+	CallTimer createCallTimer(LongSupplier clock) {
+		return new CallTimer(clock);
+	}
+
+	/**
+	 * useListener makes this recorder push each recorded call and returned value to the specified
+	 * listener, as they are recorded, in addition to keeping them as set using
+	 * {@link #retainOnlyLastCallsPerMethod(int)} or {@link #useCountingOnly()}. For soak tests can
+	 * calls be pushed to a listener while the recorder only counts them.
+	 * <p>
+	 * The listener is called from the thread recording the call. Listeners that are slow can be
+	 * wrapped in an {@link AsyncMethodCallListener}, to be called from a background thread.
+	 * <p>
+	 * The listener can be set or removed while other threads record calls, in a
+	 * {@link ConcurrentMethodCallRecorder}. Each recorded call is then pushed to either the old or
+	 * the new listener.
+	 * 
+	 * @param listener
+	 *            A {@link MethodCallListener} to push calls to, or null to stop pushing calls
+	 */
+	public void useListener(MethodCallListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * exportRecording writes the calls and returned values kept in this recorder to a compact
+	 * binary file, that can be read using a {@link RecordingReader}. The number of calls and
+	 * returned values is exported for all methods, while only the calls and returned values kept
+	 * by the recorder, see {@link #retainOnlyLastCallsPerMethod(int)} and
+	 * {@link #useCountingOnly()}, can be exported.
+	 * <p>
+	 * Strings, numbers, booleans and characters are exported as they are, while values of other
+	 * types are exported as the String returned from their toString method.
+	 * <p>
+	 * This method is expected to be called when no more calls are recorded. If the file can not be
+	 * written will a runtime exception be thrown.
+	 * 
+	 * @param path
+	 *            A Path to the file to write, an existing file is replaced
+	 */
+	public void exportRecording(Path path) {
+		try (RecordingWriter writer = new RecordingWriter(path)) {
+			writer.writeRecording(getMethodCallLogs());
+		} catch (IOException e) {
+			throw new RuntimeException("Could not export recording to: " + path, e);
+		}
+	}
+
+	/**
+	 * mark marks the current point in the recording, so that the calls recorded after it can be
+	 * asserted using the recorder returned from {@link #since(RecordingMark)}. This makes it
+	 * possible to assert on one phase of a test at a time, without creating new spies or
+	 * calculating call numbers by hand.
+	 * <p>
+	 * Making a mark takes the same time regardless of how many methods or calls that have been
+	 * recorded, as each method stores its number of calls and returned values the first time it is
+	 * recorded to after the mark.
+	 * 
+	 * @return A RecordingMark for the current point in the recording
+	 */
+	public RecordingMark mark() {
+		return new RecordingMark(this, callSequence.nextMark(), numberOfResets);
+	}
+
+	/**
+	 * since returns a recorder with the same assert and get methods as this recorder, but that
+	 * only sees the calls and returned values recorded after the specified mark was made, see
+	 * {@link #mark()}. Calls in the returned recorder are numbered from 0 at the mark, so
+	 * assertParameters("read", 0, "someId") asserts the first call to read after the mark.
+	 * <p>
+	 * The returned recorder is a view of this recorder, and also sees calls recorded after it was
+	 * returned. Calls can not be recorded in the view, it can not be configured, and call timings
+	 * are not available in it.
+	 * <p>
+	 * If the mark was made in another recorder, or before this recorder was reset using
+	 * {@link #reset()}, will a runtime exception be thrown.
+	 * 
+	 * @param mark
+	 *            A RecordingMark returned from {@link #mark()}
+	 * @return A MethodCallRecorder with the calls recorded after the mark
+	 */
+	public MethodCallRecorder since(RecordingMark mark) {
+		if (mark.getRecorder() != this) {
+			throw new RuntimeException("Mark not made in this recorder");
+		}
+		throwErrorIfResetAfterMark(mark);
+		return new MethodCallRecorderSinceMark(this, mark);
+	}
+
+	void throwErrorIfResetAfterMark(RecordingMark mark) {
+		if (mark.getResetNumber() != numberOfResets) {
+			throw new RuntimeException("Mark made before the recorder was reset");
+		}
+	}
+
+	/**
+	 * reset forgets all calls and returned values recorded so far, so that the recorder can be
+	 * used again as if no calls had been recorded, while the configuration of the recorder, such
+	 * as {@link #retainOnlyLastCallsPerMethod(int)}, {@link #useMRV(MethodReturnValues)} and
+	 * registered methods, is kept.
+	 * <p>
+	 * The storage used for each method is kept and reused, so recording after a reset does not
+	 * need to allocate it again. Sequence numbers keep increasing after a reset, and marks made
+	 * before the reset can no longer be used.
+	 * <p>
+	 * This method is expected to be called when no calls are being recorded.
+	 */
+	public void reset() {
+		for (MethodCallLog methodCallLog : methodCallLogs.values()) {
+			methodCallLog.reset();
+		}
+		numberOfResets++;
+	}
+
+	void throwErrorIfCountingOnly(String recordedData, String methodName, int callNumber) {
+		if (isCountingOnly()) {
+			throw new RuntimeException(("%s are not recorded when counting only calls, for "
+					+ "(methodName: %s, callNumber: %s)").formatted(recordedData, methodName,
+							callNumber));
+		}
+	}
+
+	void throwErrorIfCountingOnly(String recordedData, String methodName) {
+		if (isCountingOnly()) {
+			throw new RuntimeException(
+					"%s are not recorded when counting only calls, for (methodName: %s)"
+							.formatted(recordedData, methodName));
+		}
+	}
+
+	void throwErrorIfCallsAlreadyRecorded(String configurationMethodName) {
+		if (!methodCallLogs.isEmpty()) {
+			throw new RuntimeException(configurationMethodName
+					+ " must be called before any calls are recorded");
+		}
+	}
+
+	MethodCallLog getMethodCallLog(String methodName) {
+		return methodCallLogs.get(methodName);
+	}
+
+	Map<String, MethodCallLog> getMethodCallLogs() {
+		return methodCallLogs;
+	}
+
+	private boolean callsRecordedInLog(MethodCallLog methodCallLog) {
+		return null != methodCallLog && methodCallLog.getNumberOfCalls() > 0;
 	}
 
-	private List<Map<String, Object>> possiblyAddMethodName(String methodName) {
-		return calledMethods.computeIfAbsent(methodName, key -> new ArrayList<>());
+	private boolean returnedValuesRecordedInLog(MethodCallLog methodCallLog) {
+		return null != methodCallLog && methodCallLog.getNumberOfReturned() > 0;
 	}
 
 	/**
@@ -143,12 +820,9 @@ public class MethodCallRecorder {
 	 * code
 	 */
 	public void addReturnedForMethodNameAndReturnValue(String methodName, Object returnedValue) {
-		List<Object> list = possiblyAddMethodNameToReturnedValues(methodName);
-		list.add(returnedValue);
-	}
-
-	private List<Object> possiblyAddMethodNameToReturnedValues(String methodName) {
-		return returnedValues.computeIfAbsent(methodName, key -> new ArrayList<>());
+		MethodCallLog methodCallLog = possiblyAddMethodCallLog(methodName);
+		methodCallLog.addReturned(returnedValue);
+		possiblyNotifyListenerOfReturnedValue(methodName, returnedValue);
 	}
 
 	/**
@@ -161,16 +835,19 @@ public class MethodCallRecorder {
 	 * @return An Object with the recorded return value
 	 */
 	public Object getReturnValue(String methodName, int callNumber) {
-		try {
-			List<Object> returnedValuesForMethod = returnedValues.get(methodName);
-			return returnedValuesForMethod.get(callNumber);
-		} catch (NullPointerException ex) {
+		throwErrorIfCountingOnly(RETURN_VALUES, methodName, callNumber);
+		MethodCallLog methodCallLog = getMethodCallLog(methodName);
+		if (!returnedValuesRecordedInLog(methodCallLog)) {
 			throw new RuntimeException("MethodName not found for (methodName: %s, callNumber: %s)"
 					.formatted(methodName, callNumber));
-		} catch (IndexOutOfBoundsException ex) {
+		}
+		if (callNumber < 0 || methodCallLog.getNumberOfReturned() <= callNumber) {
 			throw new RuntimeException("CallNumber not found for (methodName: %s, callNumber: %s)"
 					.formatted(methodName, callNumber));
 		}
+		throwErrorIfCallNumberNoLongerRetained(methodName, callNumber,
+				methodCallLog.getFirstRetainedReturnedNumber(), methodCallLog);
+		return methodCallLog.getReturned(callNumber);
 	}
 
 	/**
@@ -182,11 +859,13 @@ public class MethodCallRecorder {
 	 *         returned
 	 */
 	public Collection<Object> getReturnValues(String methodName) {
-		if (!returnedValues.containsKey(methodName)) {
+		throwErrorIfCountingOnly(RETURN_VALUES, methodName);
+		MethodCallLog methodCallLog = getMethodCallLog(methodName);
+		if (!returnedValuesRecordedInLog(methodCallLog)) {
 			throw new RuntimeException(
 					"MethodName not found for (methodName: %s)".formatted(methodName));
 		}
-		return returnedValues.get(methodName);
+		return methodCallLog.getReturnedValues();
 	}
 
 	/**
@@ -216,10 +895,11 @@ public class MethodCallRecorder {
 	 * @return An int with the number of calls made
 	 */
 	public int getNumberOfCallsToMethod(String methodName) {
-		if (null == calledMethods.get(methodName)) {
+		MethodCallLog methodCallLog = getMethodCallLog(methodName);
+		if (null == methodCallLog) {
 			return 0;
 		}
-		return calledMethods.get(methodName).size();
+		return methodCallLog.getNumberOfCalls();
 	}
 
 	/**
@@ -238,20 +918,20 @@ public class MethodCallRecorder {
 	 */
 	public Map<String, Object> getParametersForMethodAndCallNumber(String methodName,
 			int callNumber) {
-		String messageEnd = createNotFoundMessageForMethodNameAndCallNumber(methodName, callNumber)
-				+ ")";
-
-		return getParametersOrThrowErrorForMethodNameAndCallNumber(methodName, callNumber,
-				messageEnd);
+		MethodCallLog methodCallLog = getMethodCallLogWithRetainedCallOrThrowError(PARAMETERS,
+				methodName, callNumber, null);
+		return methodCallLog.getCall(callNumber);
 	}
 
-	private Map<String, Object> getParametersOrThrowErrorForMethodNameAndCallNumber(
-			String methodName, int callNumber, String messageEnd) {
-		throwErrorIfMethodNameNotRecorded(methodName, messageEnd);
-		List<Map<String, Object>> methodCalls = calledMethods.get(methodName);
-
-		throwErrorIfCallNumberNotRecorded(callNumber, messageEnd, methodCalls);
-		return methodCalls.get(callNumber);
+	private MethodCallLog getMethodCallLogWithRetainedCallOrThrowError(String recordedData,
+			String methodName, int callNumber, String parameterName) {
+		throwErrorIfCountingOnly(recordedData, methodName, callNumber);
+		MethodCallLog methodCallLog = getMethodCallLog(methodName);
+		throwErrorIfMethodNameNotRecorded(methodName, callNumber, parameterName, methodCallLog);
+		throwErrorIfCallNumberNotRecorded(methodName, callNumber, parameterName, methodCallLog);
+		throwErrorIfCallNumberNoLongerRetained(methodName, callNumber,
+				methodCallLog.getFirstRetainedCallNumber(), methodCallLog);
+		return methodCallLog;
 	}
 
 	/**
@@ -296,45 +976,53 @@ public class MethodCallRecorder {
 	 */
 	public Object getParameterForMethodAndCallNumberAndParameter(String methodName, int callNumber,
 			String parameterName) {
-		String messageEnd = createNotFoundMessageForMethodNameAndCallNumberAndParameterName(
+		MethodCallLog methodCallLog = getMethodCallLogWithRetainedCallOrThrowError(PARAMETERS,
 				methodName, callNumber, parameterName);
-
-		Map<String, Object> parameters = getParametersOrThrowErrorForMethodNameAndCallNumber(
-				methodName, callNumber, messageEnd);
-
-		throwErrorIfParameterNameNotRecorded(parameterName, messageEnd, parameters);
-
-		return parameters.get(parameterName);
+		int position = methodCallLog.getPositionOfParameter(callNumber, parameterName);
+		throwErrorIfParameterNameNotRecorded(methodName, callNumber, parameterName, position);
+		return methodCallLog.getParameterValue(callNumber, position);
 	}
 
-	private String createNotFoundMessageForMethodNameAndCallNumberAndParameterName(
-			String methodName, int callNumber, String parameterName) {
-		return createNotFoundMessageForMethodNameAndCallNumber(methodName, callNumber) + ""
-				+ " and parameterName: " + parameterName + ")";
+	private String createNotFoundMessage(String methodName, int callNumber,
+			String parameterName) {
+		String message = " not found for (methodName: " + methodName + CALL_NUMBER_TEXT
+				+ callNumber;
+		if (parameterName != null) {
+			message += " and parameterName: " + parameterName;
+		}
+		return message + ")";
 	}
 
-	private String createNotFoundMessageForMethodNameAndCallNumber(String methodName,
-			int callNumber) {
-		return " not found for (methodName: " + methodName + CALL_NUMBER_TEXT + callNumber;
+	private void throwErrorIfParameterNameNotRecorded(String methodName, int callNumber,
+			String parameterName, int position) {
+		if (position == MethodCallLog.PARAMETER_NOT_FOUND) {
+			throw new RuntimeException("ParameterName"
+					+ createNotFoundMessage(methodName, callNumber, parameterName));
+		}
 	}
 
-	private void throwErrorIfParameterNameNotRecorded(String parameterName, String messageEnd,
-			Map<String, Object> parameters) {
-		if (!parameters.containsKey(parameterName)) {
-			throw new RuntimeException("ParameterName" + messageEnd);
+	private void throwErrorIfCallNumberNotRecorded(String methodName, int callNumber,
+			String parameterName, MethodCallLog methodCallLog) {
+		if (methodCallLog.getNumberOfCalls() <= callNumber) {
+			throw new RuntimeException("CallNumber"
+					+ createNotFoundMessage(methodName, callNumber, parameterName));
 		}
 	}
 
-	private void throwErrorIfCallNumberNotRecorded(int callNumber, String messageEnd,
-			List<Map<String, Object>> methodCalls) {
-		if (methodCalls.size() <= callNumber) {
-			throw new RuntimeException("CallNumber" + messageEnd);
+	void throwErrorIfCallNumberNoLongerRetained(String methodName, int callNumber,
+			int firstRetainedCallNumber, MethodCallLog methodCallLog) {
+		if (callNumber >= 0 && callNumber < firstRetainedCallNumber) {
+			throw new RuntimeException(("CallNumber no longer retained, only the last %s calls are "
+					+ "kept, for (methodName: %s, callNumber: %s)").formatted(
+							methodCallLog.getRetentionLimit(), methodName, callNumber));
 		}
 	}
 
-	private void throwErrorIfMethodNameNotRecorded(String methodName, String messageEnd) {
-		if (!calledMethods.containsKey(methodName)) {
-			throw new RuntimeException("MethodName" + messageEnd);
+	private void throwErrorIfMethodNameNotRecorded(String methodName, int callNumber,
+			String parameterName, MethodCallLog methodCallLog) {
+		if (!callsRecordedInLog(methodCallLog)) {
+			throw new RuntimeException("MethodName"
+					+ createNotFoundMessage(methodName, callNumber, parameterName));
 		}
 	}
 
@@ -346,7 +1034,354 @@ public class MethodCallRecorder {
 	 * @return A boolean, true if the method has been called else false
 	 */
 	public boolean methodWasCalled(String methodName) {
-		return calledMethods.containsKey(methodName);
+		return callsRecordedInLog(getMethodCallLog(methodName));
+	}
+
+	/**
+	 * getSequenceNumberForMethodAndCallNumber returns the sequence number given to the specified
+	 * call when it was recorded. Sequence numbers start on 0 and are increased by one for each call
+	 * recorded in this recorder, regardless of which method that was called.
+	 * <p>
+	 * If no call is recorded for the specified method and callNumber will a runtime exception be
+	 * thrown.
+	 * 
+	 * @param methodName
+	 *            A String with the method name
+	 * @param callNumber
+	 *            An int with the order number of the call, starting on 0
+	 * @return A long with the sequence number of the call
+	 */
+	public long getSequenceNumberForMethodAndCallNumber(String methodName, int callNumber) {
+		throwErrorIfNegativeCallNumber(methodName, callNumber);
+		MethodCallLog methodCallLog = getMethodCallLogWithRetainedCallOrThrowError(
+				SEQUENCE_NUMBERS, methodName, callNumber, null);
+		return methodCallLog.getSequenceNumber(callNumber);
+	}
+
+	private void throwErrorIfNegativeCallNumber(String methodName, int callNumber) {
+		if (callNumber < 0) {
+			throw new RuntimeException(
+					"CallNumber" + createNotFoundMessage(methodName, callNumber, null));
+		}
+	}
+
+	/**
+	 * assertCalledBefore is used to assert that a specific call to one method was made before a
+	 * specific call to another (or the same) method.
+	 * <p>
+	 * The check compares the sequence numbers of the two calls, and takes the same time regardless
+	 * of how many calls that have been recorded.
+	 * 
+	 * @param firstMethodName
+	 *            A String with the name of the method expected to be called first
+	 * @param firstCallNumber
+	 *            An int with the order number of the call expected to be made first
+	 * @param secondMethodName
+	 *            A String with the name of the method expected to be called second
+	 * @param secondCallNumber
+	 *            An int with the order number of the call expected to be made second
+	 */
+	public void assertCalledBefore(String firstMethodName, int firstCallNumber,
+			String secondMethodName, int secondCallNumber) {
+		long firstSequenceNumber = getSequenceNumberForMethodAndCallNumber(firstMethodName,
+				firstCallNumber);
+		long secondSequenceNumber = getSequenceNumberForMethodAndCallNumber(secondMethodName,
+				secondCallNumber);
+		if (firstSequenceNumber > secondSequenceNumber) {
+			throw createCalledBeforeError(firstMethodName, firstCallNumber, secondMethodName,
+					secondCallNumber);
+		}
+	}
+
+	private AssertionError createCalledBeforeError(String firstMethodName, int firstCallNumber,
+			String secondMethodName, int secondCallNumber) {
+		return new AssertionError(("Call to method: %s (callNumber: %s) not made before call to "
+				+ "method: %s (callNumber: %s)").formatted(firstMethodName, firstCallNumber,
+						secondMethodName, secondCallNumber));
+	}
+
+	/**
+	 * assertCalledBefore is used to assert that the first call to one method was made before the
+	 * first call to another method, such as a connection being opened before anything is written
+	 * to it.
+	 * <p>
+	 * If the recorder only retains the last calls for each method, see
+	 * {@link #retainOnlyLastCallsPerMethod(int)}, are the first retained calls compared.
+	 * 
+	 * @param firstMethodName
+	 *            A String with the name of the method expected to be called first
+	 * @param secondMethodName
+	 *            A String with the name of the method expected to be called second
+	 */
+	public void assertCalledBefore(String firstMethodName, String secondMethodName) {
+		assertCalledBefore(firstMethodName, getFirstRetainedCallNumber(firstMethodName),
+				secondMethodName, getFirstRetainedCallNumber(secondMethodName));
+	}
+
+	private int getFirstRetainedCallNumber(String methodName) {
+		MethodCallLog methodCallLog = getMethodCallLog(methodName);
+		if (null == methodCallLog) {
+			return 0;
+		}
+		return methodCallLog.getFirstRetainedCallNumber();
+	}
+
+	/**
+	 * assertCallOrder is used to assert that the specified methods have been called in the
+	 * specified order. Other calls may have been made in between, and the same method name can be
+	 * specified more than once, so that assertCallOrder("open", "write", "close", "open") asserts
+	 * that a connection has been opened again after it was closed.
+	 * <p>
+	 * For each method name is the first call made after the call found for the previous method name
+	 * searched for, using a binary search among the calls recorded for the method. This makes the
+	 * assert usable also for recordings of millions of calls.
+	 * 
+	 * @param methodNames
+	 *            Strings with the method names, in the order they are expected to have been called
+	 */
+	public void assertCallOrder(String... methodNames) {
+		throwErrorIfCountingOnly(SEQUENCE_NUMBERS, Arrays.toString(methodNames));
+		long previousSequenceNumber = -1;
+		int previousCallNumber = MethodCallLog.NO_CALL;
+		for (int i = 0; i < methodNames.length; i++) {
+			int callNumber = findFirstCallAfter(methodNames[i], previousSequenceNumber);
+			if (callNumber == MethodCallLog.NO_CALL) {
+				throw createCallOrderError(methodNames, i, previousCallNumber);
+			}
+			previousSequenceNumber = getMethodCallLog(methodNames[i])
+					.getSequenceNumber(callNumber);
+			previousCallNumber = callNumber;
+		}
+	}
+
+	private int findFirstCallAfter(String methodName, long sequenceNumber) {
+		MethodCallLog methodCallLog = getMethodCallLog(methodName);
+		if (null == methodCallLog) {
+			return MethodCallLog.NO_CALL;
+		}
+		return methodCallLog.findFirstCallAfter(sequenceNumber);
+	}
+
+	private AssertionError createCallOrderError(String[] methodNames, int position,
+			int previousCallNumber) {
+		String message = "Methods: " + Arrays.toString(methodNames)
+				+ " not called in order, no call to method: " + methodNames[position];
+		if (position > 0) {
+			message += " after call to method: " + methodNames[position - 1] + " (callNumber: "
+					+ previousCallNumber + ")";
+		}
+		return new AssertionError(message);
+	}
+
+	/**
+	 * awaitNumberOfCallsToMethod waits until the specified method has been called at least the
+	 * specified number of times, and is intended for tests where spies are called from other
+	 * threads. The waiting thread is woken up when calls are recorded, so the method returns as
+	 * soon as the expected calls have been made, without polling.
+	 * <p>
+	 * Spies called from other threads should use a {@link ConcurrentMethodCallRecorder}.
+	 * <p>
+	 * If the method has not been called enough times before the timeout has passed will an
+	 * assertion error be thrown.
+	 * 
+	 * @param methodName
+	 *            A String with the method name
+	 * @param numberOfCalls
+	 *            An int with the number of calls to wait for
+	 * @param timeout
+	 *            A Duration with the longest time to wait
+	 */
+	public void awaitNumberOfCallsToMethod(String methodName, int numberOfCalls,
+			Duration timeout) {
+		boolean called = awaitCalls(methodName,
+				() -> getNumberOfCallsToMethod(methodName) >= numberOfCalls, timeout);
+		if (!called) {
+			throw new AssertionError(
+					"Method: %s called: %s times, expected at least: %s calls within: %s"
+							.formatted(methodName, getNumberOfCallsToMethod(methodName),
+									numberOfCalls, timeout));
+		}
+	}
+
+	private boolean awaitCalls(String methodName, BooleanSupplier condition, Duration timeout) {
+		try {
+			return getCallSignal().awaitCondition(condition, timeout.toNanos());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(
+					"Interrupted while waiting for calls to " + METHOD_NAME_TEXT + methodName + ")",
+					e);
+		}
+	}
+
+	CallSignal getCallSignal() {
+		return callSignal;
+	}
+
+	/**
+	 * awaitCalledParameters waits until the specified method has been called with the specified
+	 * values, compared in the same way as in {@link #assertCalledParameters(String, Object...)}.
+	 * The waiting thread is woken up when calls are recorded, see
+	 * {@link #awaitNumberOfCallsToMethod(String, int, Duration)}.
+	 * <p>
+	 * If the method has not been called with the values before the timeout has passed will an
+	 * assertion error be thrown.
+	 * 
+	 * @param methodName
+	 *            A String with the methodName to check parameters for
+	 * @param timeout
+	 *            A Duration with the longest time to wait
+	 * @param expectedValues
+	 *            A Varargs Object with the expected parameter values in the order they are used in
+	 *            the method.
+	 */
+	public void awaitCalledParameters(String methodName, Duration timeout,
+			Object... expectedValues) {
+		throwErrorIfCountingOnly(PARAMETERS, methodName);
+		boolean called = awaitCalls(methodName, () -> findPositionOfFirstMatchingCall(methodName,
+				expectedValues) != NO_MATCHING_CALL, timeout);
+		if (!called) {
+			throw new AssertionError("Method: %s not called with values: %s within: %s"
+					.formatted(methodName, Arrays.toString(expectedValues), timeout));
+		}
+	}
+
+	/**
+	 * cursorForMethod returns a cursor that walks the calls recorded for the specified method, in
+	 * the order they were recorded, starting on callNumber 0. Each call can be asserted using
+	 * {@link MethodCallCursor#assertNext(Object...)} or skipped, and it can be asserted that no
+	 * calls are left, at a constant cost per call regardless of how many calls that have been
+	 * recorded.
+	 * <p>
+	 * The cursor also sees calls recorded after it was returned.
+	 * 
+	 * @param methodName
+	 *            A String with the method name
+	 * @return A MethodCallCursor positioned before the first call to the method
+	 */
+	public MethodCallCursor cursorForMethod(String methodName) {
+		return new MethodCallCursor(this, methodName);
+	}
+
+	/**
+	 * cursorForAllCalls returns a cursor that walks all calls recorded in this recorder, across all
+	 * methods, in the order they were recorded. Each call can be asserted using
+	 * {@link RecordingCursor#assertNext(String, Object...)} or skipped, and it can be asserted that
+	 * no calls are left.
+	 * <p>
+	 * If the recorder only retains the last calls for each method, see
+	 * {@link #retainOnlyLastCallsPerMethod(int)}, are only the retained calls walked.
+	 * 
+	 * @return A RecordingCursor positioned before the first recorded call
+	 */
+	public RecordingCursor cursorForAllCalls() {
+		return new RecordingCursor(this);
+	}
+
+	/**
+	 * getCallDurations returns the durations measured for calls to the specified method, see
+	 * {@link #useCallTiming()}.
+	 * <p>
+	 * If call timing is not used, or the method has not been called, will a runtime exception be
+	 * thrown.
+	 * 
+	 * @param methodName
+	 *            A String with the method name
+	 * @return A LatencyHistogram with the durations of the calls in nanoseconds
+	 */
+	public LatencyHistogram getCallDurations(String methodName) {
+		return getTimingsForMethod(methodName).getCallDurations();
+	}
+
+	/**
+	 * getTimesBeforeCalls returns the times spent in the code under test before each call to the
+	 * specified method, see {@link #useCallTiming()}.
+	 * <p>
+	 * If call timing is not used, or the method has not been called, will a runtime exception be
+	 * thrown.
+	 * 
+	 * @param methodName
+	 *            A String with the method name
+	 * @return A LatencyHistogram with the times before the calls in nanoseconds
+	 */
+	public LatencyHistogram getTimesBeforeCalls(String methodName) {
+		return getTimingsForMethod(methodName).getTimesBeforeCalls();
+	}
+
+	private MethodCallTimings getTimingsForMethod(String methodName) {
+		throwErrorIfNotUsingCallTiming(methodName);
+		MethodCallLog methodCallLog = getMethodCallLog(methodName);
+		if (null == methodCallLog) {
+			throw new RuntimeException("MethodName not found for " + METHOD_NAME_TEXT
+					+ methodName + ")");
+		}
+		return methodCallLog.getTimings();
+	}
+
+	private void throwErrorIfNotUsingCallTiming(String methodName) {
+		if (null == callTimer) {
+			throw new RuntimeException("Call timings are only recorded when using call timing, for "
+					+ METHOD_NAME_TEXT + methodName + ")");
+		}
+	}
+
+	/**
+	 * assertMaxLatency is used to assert that no call to the specified method took longer than the
+	 * specified duration, see {@link #useCallTiming()}.
+	 * <p>
+	 * If no call durations are recorded for the method will a runtime exception be thrown.
+	 * 
+	 * @param methodName
+	 *            A String with the method name
+	 * @param maxLatency
+	 *            A Duration with the longest duration allowed for a call
+	 */
+	public void assertMaxLatency(String methodName, Duration maxLatency) {
+		LatencyHistogram callDurations = getRecordedCallDurations(methodName);
+		long max = callDurations.getMax();
+		if (max > maxLatency.toNanos()) {
+			throw new AssertionError(
+					"Max latency for method: %s was: %s ns, expected at most: %s ns"
+							.formatted(methodName, max, maxLatency.toNanos()));
+		}
+	}
+
+	private LatencyHistogram getRecordedCallDurations(String methodName) {
+		LatencyHistogram callDurations = getCallDurations(methodName);
+		if (callDurations.getCount() == 0) {
+			throw new RuntimeException("Call durations not found for " + METHOD_NAME_TEXT
+					+ methodName + ")");
+		}
+		return callDurations;
+	}
+
+	/**
+	 * assertPercentile is used to assert that the specified percentage of the calls to the
+	 * specified method took at most the specified duration, see {@link #useCallTiming()}.
+	 * <p>
+	 * The duration at the percentile is read from a {@link LatencyHistogram}, and can be up to
+	 * about 3% larger than the actual duration, see
+	 * {@link LatencyHistogram#getValueAtPercentile(double)}.
+	 * <p>
+	 * If no call durations are recorded for the method will a runtime exception be thrown.
+	 * <p>
+	 * Ex: assertPercentile("read", 99.0, Duration.ofMillis(5))
+	 * 
+	 * @param methodName
+	 *            A String with the method name
+	 * @param percentile
+	 *            A double with the percentile, larger than 0 and at most 100
+	 * @param maxLatency
+	 *            A Duration with the longest duration allowed at the percentile
+	 */
+	public void assertPercentile(String methodName, double percentile, Duration maxLatency) {
+		LatencyHistogram callDurations = getRecordedCallDurations(methodName);
+		long valueAtPercentile = callDurations.getValueAtPercentile(percentile);
+		if (valueAtPercentile > maxLatency.toNanos()) {
+			throw new AssertionError(("Latency at percentile: %s for method: %s was: %s ns, "
+					+ "expected at most: %s ns").formatted(percentile, methodName,
+							valueAtPercentile, maxLatency.toNanos()));
+		}
 	}
 
 	/**
@@ -366,14 +1401,7 @@ public class MethodCallRecorder {
 	 */
 	public void assertParameters(String methodName, int callNumber, Object... expectedValues) {
 		Object[] inParameters = getInParametersAsArray(methodName, callNumber);
-
-		try {
-			assertAllParameters(inParameters, expectedValues);
-		} catch (ArrayIndexOutOfBoundsException e) {
-			String message = "Too many values to compare for (methodName: " + methodName
-					+ CALL_NUMBER_TEXT + callNumber + ")";
-			throw new RuntimeException(message);
-		}
+		assertAllParameters(methodName, callNumber, inParameters, expectedValues);
 	}
 
 	/**
@@ -381,6 +1409,11 @@ public class MethodCallRecorder {
 	 * specified method has not been called at least once with the specified values vill the
 	 * assertion fail.
 	 * <p>
+	 * Values are compared using the same rules as in
+	 * {@link #assertParameters(String, int, Object...)}, but calls that do not match are skipped
+	 * without creating any assertion errors, and calls are looked up using an index on their first
+	 * value when the method has been called many times.
+	 * <p>
 	 * If the called method return values and you are intrested in the returned answer use
 	 * {@link MethodCallRecorder#assertCalledParametersReturn(String, Object...)} instead.
 	 * 
@@ -424,18 +1457,22 @@ public class MethodCallRecorder {
 
 	private int getPositionOfFirstMatchingCallOrThrowErrorIfNone(String methodName,
 			Object... expectedValues) {
-		int size = calledMethods.get(methodName).size();
-		for (int i = 0; i < size; i++) {
-			try {
-				assertParameters(methodName, i, expectedValues);
-				return i;
-			} catch (AssertionError | RuntimeException e) {
-				// Try to match next recorded call
-			}
+		throwErrorIfCountingOnly(PARAMETERS, methodName);
+		int position = findPositionOfFirstMatchingCall(methodName, expectedValues);
+		if (position == NO_MATCHING_CALL) {
+			String message = "Method: %s not called with values: %s".formatted(methodName,
+					Arrays.toString(expectedValues));
+			throw new AssertionError(message);
 		}
-		String message = "Method: %s not called with values: %s".formatted(methodName,
-				Arrays.toString(expectedValues));
-		throw new AssertionError(message);
+		return position;
+	}
+
+	private int findPositionOfFirstMatchingCall(String methodName, Object... expectedValues) {
+		MethodCallLog methodCallLog = getMethodCallLog(methodName);
+		if (null == methodCallLog) {
+			return NO_MATCHING_CALL;
+		}
+		return methodCallLog.findFirstMatchingCall(expectedValues);
 	}
 
 	private Optional<Object> getReturnValueOrThrowAnExceptionIfNoReturnValueExisits(
@@ -447,14 +1484,25 @@ public class MethodCallRecorder {
 		}
 	}
 
-	private void assertAllParameters(Object[] inParameters, Object... expectedValues) {
+	void assertAllParameters(String methodName, int callNumber, Object[] inParameters,
+			Object... expectedValues) {
 		int position = 0;
 		for (Object expectedValue : expectedValues) {
+			throwErrorIfTooManyValuesToCompare(methodName, callNumber, inParameters, position);
 			assertParameterForPosition(inParameters, position, expectedValue);
 			position++;
 		}
 	}
 
+	private void throwErrorIfTooManyValuesToCompare(String methodName, int callNumber,
+			Object[] inParameters, int position) {
+		if (position >= inParameters.length) {
+			String message = "Too many values to compare for (methodName: " + methodName
+					+ CALL_NUMBER_TEXT + callNumber + ")";
+			throw new RuntimeException(message);
+		}
+	}
+
 	private void assertParameterForPosition(Object[] inParameters, int position,
 			Object expectedValue) {
 		Object value = inParameters[position];
@@ -562,7 +1610,9 @@ public class MethodCallRecorder {
 	}
 
 	private Object[] getInParametersAsArray(String methodName, int callNumber) {
-		return getParametersForMethodAndCallNumber(methodName, callNumber).values().toArray();
+		MethodCallLog methodCallLog = getMethodCallLogWithRetainedCallOrThrowError(PARAMETERS,
+				methodName, callNumber, null);
+		return methodCallLog.getParameterValues(callNumber);
 	}
 
 	/**
@@ -588,12 +1638,19 @@ public class MethodCallRecorder {
 	/**
 	 * useMRV makes this MethodCallRecorder use the supplied MethodReturnValues, to enable the use
 	 * of addCallReturnFromMRV to reduce boilerplate code in spies and similar test classes.
+	 * <p>
+	 * Methods registered using {@link #registerMethod(String, String...)} are registered in the
+	 * MRV by this method, so it is expected to be called before the spy is used from other
+	 * threads.
 	 * 
 	 * @param MRV
 	 *            A {@link MethodReturnValues} to use to get return values from
 	 */
 	public void useMRV(MethodReturnValues MRV) {
 		this.MRV = MRV;
+		for (int methodId = 0; methodId < numberOfRegistrations; methodId++) {
+			registrations[methodId].bindMRV(MRV);
+		}
 	}
 
 	/**
@@ -617,34 +1674,125 @@ public class MethodCallRecorder {
 		String methodName = getMethodNameFromCall();
 		throwErrorIfNoMRV();
 
-		addCallForMethodNameAndParameters(methodName, parameters);
-		Object returnValue = getReturnValueForMethodNameAndParameters(methodName, parameters);
-		addReturnedForMethodNameAndReturnValue(methodName, returnValue);
+		Object[] parameterValues = recordCallAndPossiblyThrowErrorFromMRV(methodName, parameters);
+		return getAndRecordReturnValueFromMRV(methodName, parameterValues);
+	}
 
+	private Object getAndRecordReturnValueFromMRV(String methodName, Object[] parameterValues) {
+		Object returnValue;
+		try {
+			MRV.delayForMethodNameAndParameters(methodName, parameterValues);
+			returnValue = MRV.getReturnValueForMethodNameAndParameters(methodName,
+					parameterValues);
+		} catch (RuntimeException e) {
+			possiblyAddMethodCallLog(methodName).endCallWithoutReturned();
+			throw e;
+		}
+		addReturnedForMethodNameAndReturnValue(methodName, returnValue);
 		return returnValue;
 	}
 
-	private void throwErrorIfNoMRV() {
-		if (null == MRV) {
-			throw new RuntimeException("Method addCallAndReturnFromMRV can not be used before "
-					+ "a MVR has been set using the method useMRV");
-		}
+	/**
+	 * addCallAndReturnFromMRV without parameters is the same as
+	 * {@link #addCallAndReturnFromMRV(Object...)}, for methods without parameters, but does not
+	 * create a varargs array.
+	 */
+	public Object addCallAndReturnFromMRV() {
+		String methodName = getMethodNameFromCall();
+		return recordCallWithPaddedNamesAndReturnFromMRV(methodName, NO_VALUES, null, null, null,
+				null, null, null);
 	}
 
-	private Object getReturnValueForMethodNameAndParameters(String methodName,
-			Object... parameters) {
-		Object[] parameterValues = extractValuesFromParameters(parameters);
-		return MRV.getReturnValueForMethodNameAndParameters(methodName, parameterValues);
+	/**
+	 * addCallAndReturnFromMRV with a fixed number of parameters is the same as
+	 * {@link #addCallAndReturnFromMRV(Object...)}, but does not create a varargs array. Overloads
+	 * exist for one to six parameters.
+	 * <p>
+	 * Ex: return MCR.addCallAndReturnFromMRV("parameter1", parameter1);
+	 */
+	public Object addCallAndReturnFromMRV(String parameterName1, Object value1) {
+		String methodName = getMethodNameFromCall();
+		Object[] values = { value1 };
+		return recordCallWithPaddedNamesAndReturnFromMRV(methodName, values, parameterName1, null,
+				null, null, null, null);
 	}
 
-	private Object[] extractValuesFromParameters(Object... parameters) {
-		int position = 0;
-		List<Object> parameterValues = new ArrayList<>();
-		while (position < parameters.length) {
-			parameterValues.add(parameters[position + 1]);
-			position = position + NO_OF_PARAMETERS_FOR_ONE_RECORDED_PARAMETER;
+	/**
+	 * addCallAndReturnFromMRV with 2 parameters, see
+	 * {@link #addCallAndReturnFromMRV(String, Object)}
+	 */
+	public Object addCallAndReturnFromMRV(String parameterName1, Object value1,
+			String parameterName2, Object value2) {
+		String methodName = getMethodNameFromCall();
+		Object[] values = { value1, value2 };
+		return recordCallWithPaddedNamesAndReturnFromMRV(methodName, values, parameterName1,
+				parameterName2, null, null, null, null);
+	}
+
+	/**
+	 * addCallAndReturnFromMRV with 3 parameters, see
+	 * {@link #addCallAndReturnFromMRV(String, Object)}
+	 */
+	public Object addCallAndReturnFromMRV(String parameterName1, Object value1,
+			String parameterName2, Object value2, String parameterName3, Object value3) {
+		String methodName = getMethodNameFromCall();
+		Object[] values = { value1, value2, value3 };
+		return recordCallWithPaddedNamesAndReturnFromMRV(methodName, values, parameterName1,
+				parameterName2, parameterName3, null, null, null);
+	}
+
+	/**
+	 * addCallAndReturnFromMRV with 4 parameters, see
+	 * {@link #addCallAndReturnFromMRV(String, Object)}
+	 */
+	public Object addCallAndReturnFromMRV(String parameterName1, Object value1,
+			String parameterName2, Object value2, String parameterName3, Object value3,
+			String parameterName4, Object value4) {
+		String methodName = getMethodNameFromCall();
+		Object[] values = { value1, value2, value3, value4 };
+		return recordCallWithPaddedNamesAndReturnFromMRV(methodName, values, parameterName1,
+				parameterName2, parameterName3, parameterName4, null, null);
+	}
+
+	/**
+	 * addCallAndReturnFromMRV with 5 parameters, see
+	 * {@link #addCallAndReturnFromMRV(String, Object)}
+	 */
+	public Object addCallAndReturnFromMRV(String parameterName1, Object value1,
+			String parameterName2, Object value2, String parameterName3, Object value3,
+			String parameterName4, Object value4, String parameterName5, Object value5) {
+		String methodName = getMethodNameFromCall();
+		Object[] values = { value1, value2, value3, value4, value5 };
+		return recordCallWithPaddedNamesAndReturnFromMRV(methodName, values, parameterName1,
+				parameterName2, parameterName3, parameterName4, parameterName5, null);
+	}
+
+	/**
+	 * addCallAndReturnFromMRV with 6 parameters, see
+	 * {@link #addCallAndReturnFromMRV(String, Object)}
+	 */
+	public Object addCallAndReturnFromMRV(String parameterName1, Object value1,
+			String parameterName2, Object value2, String parameterName3, Object value3,
+			String parameterName4, Object value4, String parameterName5, Object value5,
+			String parameterName6, Object value6) {
+		String methodName = getMethodNameFromCall();
+		Object[] values = { value1, value2, value3, value4, value5, value6 };
+		return recordCallWithPaddedNamesAndReturnFromMRV(methodName, values, parameterName1,
+				parameterName2, parameterName3, parameterName4, parameterName5, parameterName6);
+	}
+
+	private Object recordCallWithPaddedNamesAndReturnFromMRV(String methodName, Object[] values,
+			String name1, String name2, String name3, String name4, String name5, String name6) {
+		throwErrorIfNoMRV();
+		recordCallWithPaddedNames(methodName, values, name1, name2, name3, name4, name5, name6);
+		return getAndRecordReturnValueFromMRV(methodName, values);
+	}
+
+	private void throwErrorIfNoMRV() {
+		if (null == MRV) {
+			throw new RuntimeException("Method addCallAndReturnFromMRV can not be used before "
+					+ "a MVR has been set using the method useMRV");
 		}
-		return parameterValues.toArray();
 	}
 
 	public Object onlyForTestGetMRV() {
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * MethodCallRecorderSinceMark is the recorder returned from
+ * {@link MethodCallRecorder#since(RecordingMark)}. It has the assert and get methods of the
+ * recorder the mark was made in, but only sees the calls and returned values recorded after the
+ * mark, numbered from 0, see {@link MethodCallLogSinceMark}.
+ * <p>
+ * Calls can not be recorded in the view, and the view can not be configured, as it has no calls
+ * of its own.
+ */
+final class MethodCallRecorderSinceMark extends MethodCallRecorder {
+	private final MethodCallRecorder recorder;
+	private final RecordingMark mark;
+
+	MethodCallRecorderSinceMark(MethodCallRecorder recorder, RecordingMark mark) {
+		super(new HashMap<>(), new CallSequence());
+		this.recorder = recorder;
+		this.mark = mark;
+	}
+
+	@Override
+	MethodCallLog getMethodCallLog(String methodName) {
+		recorder.throwErrorIfResetAfterMark(mark);
+		MethodCallLog methodCallLog = recorder.getMethodCallLog(methodName);
+		if (null == methodCallLog) {
+			return null;
+		}
+		return new MethodCallLogSinceMark(methodCallLog, mark.getMarkNumber());
+	}
+
+	@Override
+	Map<String, MethodCallLog> getMethodCallLogs() {
+		Map<String, MethodCallLog> methodCallLogs = new LinkedHashMap<>();
+		for (Entry<String, MethodCallLog> entry : recorder.getMethodCallLogs().entrySet()) {
+			methodCallLogs.put(entry.getKey(), getMethodCallLog(entry.getKey()));
+		}
+		return methodCallLogs;
+	}
+
+	@Override
+	MethodCallLog possiblyAddMethodCallLog(String methodName) {
+		throw new RuntimeException(
+				"Calls can not be recorded in a view since a mark, for (methodName: %s)"
+						.formatted(methodName));
+	}
+
+	@Override
+	CallSignal getCallSignal() {
+		return recorder.getCallSignal();
+	}
+
+	@Override
+	boolean isCountingOnly() {
+		return recorder.isCountingOnly();
+	}
+
+	@Override
+	void throwErrorIfCallsAlreadyRecorded(String configurationMethodName) {
+		throw new RuntimeException(
+				configurationMethodName + " can not be used in a view since a mark");
+	}
+
+	@Override
+	public RecordingMark mark() {
+		return recorder.mark();
+	}
+
+	@Override
+	public MethodCallRecorder since(RecordingMark mark) {
+		return recorder.since(mark);
+	}
+
+	@Override
+	public void reset() {
+		throwErrorIfCallsAlreadyRecorded("reset");
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+/**
+ * MethodCallTimings holds the durations measured for calls to one method, when the
+ * {@link MethodCallRecorder} uses call timing.
+ */
+class MethodCallTimings {
+	private final CallTimer callTimer;
+	private final LatencyHistogram callDurations = new LatencyHistogram();
+	private final LatencyHistogram timesBeforeCalls = new LatencyHistogram();
+
+	MethodCallTimings(CallTimer callTimer) {
+		this.callTimer = callTimer;
+	}
+
+	void callStarted() {
+		long timeBeforeCall = callTimer.startCall();
+		if (timeBeforeCall != CallTimer.NO_TIME) {
+			timesBeforeCalls.record(timeBeforeCall);
+		}
+	}
+
+	void callReturned() {
+		long duration = callTimer.endCall();
+		if (duration != CallTimer.NO_TIME) {
+			callDurations.record(duration);
+		}
+	}
+
+	void reset() {
+		callDurations.reset();
+		timesBeforeCalls.reset();
+	}
+
+	LatencyHistogram getCallDurations() {
+		return callDurations;
+	}
+
+	LatencyHistogram getTimesBeforeCalls() {
+		return timesBeforeCalls;
+	}
+}
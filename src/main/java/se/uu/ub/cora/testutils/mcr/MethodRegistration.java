@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
+
+/**
+ * MethodRegistration holds what {@link MethodCallRecorder} knows about a method registered using
+ * {@link MethodCallRecorder#registerMethod(String, String...)}, so that calls recorded using the
+ * method id do not need to look anything up by method name.
+ * <p>
+ * The {@link MethodCallLog} is bound the first time a call is recorded, so that settings such as
+ * {@link MethodCallRecorder#useCountingOnly()} can be made after the methods are registered. The
+ * method is registered in a {@link MethodReturnValues} when the method is registered with an MRV
+ * in use, or when an MRV is set using {@link MethodCallRecorder#useMRV(MethodReturnValues)}, so
+ * that it is done by the thread configuring the spy and not by threads recording calls.
+ * <p>
+ * Both bindings are volatile, so that they are safely published to threads recording calls at the
+ * same time in a {@link ConcurrentMethodCallRecorder}.
+ */
+class MethodRegistration {
+	private final String methodName;
+	private final String[] parameterNames;
+	private volatile MethodCallLog methodCallLog;
+	private volatile MRVBinding mrvBinding;
+
+	MethodRegistration(String methodName, String[] parameterNames) {
+		this.methodName = methodName;
+		this.parameterNames = parameterNames;
+	}
+
+	String getMethodName() {
+		return methodName;
+	}
+
+	String[] getParameterNames() {
+		return parameterNames;
+	}
+
+	MethodCallLog getMethodCallLog() {
+		return methodCallLog;
+	}
+
+	void setMethodCallLog(MethodCallLog methodCallLog) {
+		this.methodCallLog = methodCallLog;
+	}
+
+	void bindMRV(MethodReturnValues mrv) {
+		mrvBinding = null == mrv ? null : new MRVBinding(mrv, mrv.registerMethod(methodName));
+	}
+
+	/**
+	 * getMRVBinding returns the MRV the method is registered in together with the id of the method
+	 * in that MRV, or null if no MRV is used.
+	 */
+	MRVBinding getMRVBinding() {
+		return mrvBinding;
+	}
+
+	static final class MRVBinding {
+		private final MethodReturnValues mrv;
+		private final int methodIdInMRV;
+
+		private MRVBinding(MethodReturnValues mrv, int methodIdInMRV) {
+			this.mrv = mrv;
+			this.methodIdInMRV = methodIdInMRV;
+		}
+
+		MethodReturnValues getMRV() {
+			return mrv;
+		}
+
+		int getMethodIdInMRV() {
+			return methodIdInMRV;
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+/**
+ * ParameterMatcher decides if recorded values match expected values, using the same rules as the
+ * assert methods in {@link MethodCallRecorder}, but without throwing errors when they do not.
+ * <p>
+ * Values match if both are null, or if they are of the same class and either are Strings, Integers
+ * or Longs that are equal, or are any other type and are the same instance.
+ */
+final class ParameterMatcher {
+
+	private ParameterMatcher() {
+	}
+
+	static boolean callMatches(Object[] recordedValues, Object[] expectedValues) {
+		if (expectedValues.length > recordedValues.length) {
+			return false;
+		}
+		for (int position = 0; position < expectedValues.length; position++) {
+			if (!valuesMatch(expectedValues[position], recordedValues[position])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static boolean valuesMatch(Object expectedValue, Object actualValue) {
+		if (null == expectedValue || null == actualValue) {
+			return expectedValue == actualValue;
+		}
+		if (expectedValue.getClass() != actualValue.getClass()) {
+			return false;
+		}
+		if (isComparedByEquality(expectedValue)) {
+			return expectedValue.equals(actualValue);
+		}
+		return expectedValue == actualValue;
+	}
+
+	static boolean isComparedByEquality(Object value) {
+		return value instanceof String || value instanceof Integer || value instanceof Long;
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * ParameterValueIndex indexes the calls to one method by the value of their first parameter, so
+ * that the calls that can match a set of expected values are found without scanning all recorded
+ * calls.
+ * <p>
+ * Values are indexed following the rules in {@link ParameterMatcher}, Strings, Integers and Longs by
+ * equality and all other values by identity. The index only narrows down the calls to check, the
+ * caller must still check the candidates using {@link ParameterMatcher#callMatches}.
+ */
+class ParameterValueIndex {
+	private static final CallNumbers NO_CALLS = new CallNumbers();
+	private final Map<Object, CallNumbers> byEquality = new HashMap<>();
+	private final Map<Object, CallNumbers> byIdentity = new IdentityHashMap<>();
+	private final CallNumbers nullValues = new CallNumbers();
+	private int numberOfIndexedCalls = 0;
+
+	int getNumberOfIndexedCalls() {
+		return numberOfIndexedCalls;
+	}
+
+	void indexCall(Object[] recordedValues) {
+		if (recordedValues.length > 0) {
+			callNumbersForValue(recordedValues[0]).add(numberOfIndexedCalls);
+		}
+		numberOfIndexedCalls++;
+	}
+
+	private CallNumbers callNumbersForValue(Object value) {
+		if (null == value) {
+			return nullValues;
+		}
+		return mapForValue(value).computeIfAbsent(value, key -> new CallNumbers());
+	}
+
+	private Map<Object, CallNumbers> mapForValue(Object value) {
+		if (ParameterMatcher.isComparedByEquality(value)) {
+			return byEquality;
+		}
+		return byIdentity;
+	}
+
+	/**
+	 * candidateCallNumbers returns the numbers, in ascending order, of the indexed calls whose first
+	 * value matches the first of the expected values. Expected values must contain at least one
+	 * value.
+	 */
+	CallNumbers candidateCallNumbers(Object[] expectedValues) {
+		Object firstValue = expectedValues[0];
+		if (null == firstValue) {
+			return nullValues;
+		}
+		CallNumbers callNumbers = mapForValue(firstValue).get(firstValue);
+		if (null == callNumbers) {
+			return NO_CALLS;
+		}
+		return callNumbers;
+	}
+
+	static class CallNumbers {
+		private int[] numbers = new int[1];
+		private int size = 0;
+
+		void add(int callNumber) {
+			if (size == numbers.length) {
+				numbers = Arrays.copyOf(numbers, size * 2);
+			}
+			numbers[size] = callNumber;
+			size++;
+		}
+
+		int size() {
+			return size;
+		}
+
+		int get(int position) {
+			return numbers[position];
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+/**
+ * PrimitiveKind is the type of a primitive value recorded unboxed in a {@link MethodCallLog}. All
+ * kinds are stored in a long, and are boxed to the same type as autoboxing would have given, when
+ * the value is read.
+ */
+enum PrimitiveKind {
+	INT {
+		@Override
+		Object box(long value) {
+			return Integer.valueOf((int) value);
+		}
+	},
+	LONG {
+		@Override
+		Object box(long value) {
+			return Long.valueOf(value);
+		}
+	},
+	BOOLEAN {
+		@Override
+		Object box(long value) {
+			return Boolean.valueOf(value != 0);
+		}
+	},
+	SHORT {
+		@Override
+		Object box(long value) {
+			return Short.valueOf((short) value);
+		}
+	},
+	BYTE {
+		@Override
+		Object box(long value) {
+			return Byte.valueOf((byte) value);
+		}
+	},
+	CHAR {
+		@Override
+		Object box(long value) {
+			return Character.valueOf((char) value);
+		}
+	};
+
+	abstract Object box(long value);
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * RecordingCursor walks all calls recorded in a {@link MethodCallRecorder}, across all methods,
+ * in the order given by their sequence numbers, and is created using
+ * {@link MethodCallRecorder#cursorForAllCalls()}. It is intended for protocol style tests, where
+ * the order of calls to different methods matters.
+ * <p>
+ * The cursor keeps the number of the next call for each method it has seen. As sequence numbers
+ * are handed out one by one, a call with the sequence number directly after the previous call is
+ * known to be the next call, and is found without looking at other methods. Only when there is a
+ * gap, such as after calls that are no longer retained, are the next calls of all methods
+ * compared.
+ * <p>
+ * When using {@link MethodCallRecorder#retainOnlyLastCallsPerMethod(int)}, calls the cursor has
+ * not yet moved past can be dropped from the recording. The cursor then moves on to the first call
+ * still retained for the method, in the same way as calls dropped before the cursor was created
+ * are left out.
+ * <p>
+ * Ex: RecordingCursor calls = MCR.cursorForAllCalls();<br>
+ * calls.assertNext("open", "someFile");<br>
+ * calls.assertNext("write", "someData");<br>
+ * calls.assertNext("close");<br>
+ * calls.assertNoMore();
+ */
+public final class RecordingCursor {
+	private final MethodCallRecorder recorder;
+	private final Map<String, MethodPosition> positions = new HashMap<>();
+	private long previousSequenceNumber = -1;
+
+	RecordingCursor(MethodCallRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	/**
+	 * assertNext asserts that the next recorded call was made to the specified method, with the
+	 * expected values compared in the same way as in
+	 * {@link MethodCallRecorder#assertParameters(String, int, Object...)}, and moves the cursor
+	 * past the call.
+	 * <p>
+	 * If the next call was made to another method, or there are no more calls, will an assertion
+	 * error be thrown.
+	 * 
+	 * @param methodName
+	 *            A String with the name of the method expected to be called next
+	 * @param expectedValues
+	 *            A Varargs Object with the expected parameter values in the order they are used in
+	 *            the method.
+	 */
+	public void assertNext(String methodName, Object... expectedValues) {
+		recorder.throwErrorIfCountingOnly(MethodCallRecorder.PARAMETERS, methodName);
+		MethodPosition position = getPosition(methodName);
+		if (!isNextInRecording(position)) {
+			throw createNotNextError(methodName, expectedValues);
+		}
+		int callNumber = position.nextCallNumber;
+		recorder.assertAllParameters(methodName, callNumber,
+				position.methodCallLog.getParameterValues(callNumber), expectedValues);
+		moveCursorPast(position);
+	}
+
+	private boolean isNextInRecording(MethodPosition position) {
+		if (null == position || !position.hasNextCall()) {
+			return false;
+		}
+		return position.getNextSequenceNumber() == previousSequenceNumber + 1
+				|| findNextPosition() == position;
+	}
+
+	private AssertionError createNotNextError(String methodName, Object[] expectedValues) {
+		String expected = "expected call to method: %s with values: %s".formatted(methodName,
+				Arrays.toString(expectedValues));
+		MethodPosition next = findNextPosition();
+		if (null == next) {
+			return new AssertionError("No more calls, " + expected);
+		}
+		return new AssertionError("Next call is to method: %s (callNumber: %s), %s"
+				.formatted(next.methodName, next.nextCallNumber, expected));
+	}
+
+	private void moveCursorPast(MethodPosition position) {
+		previousSequenceNumber = position.getNextSequenceNumber();
+		position.nextCallNumber++;
+	}
+
+	/**
+	 * skip moves the cursor past the next recorded call, regardless of which method it was made
+	 * to, without asserting it.
+	 * <p>
+	 * If there are no more calls will an assertion error be thrown.
+	 */
+	public void skip() {
+		throwErrorIfCountingOnly();
+		MethodPosition next = findNextPosition();
+		if (null == next) {
+			throw new AssertionError("No more calls to skip");
+		}
+		moveCursorPast(next);
+	}
+
+	/**
+	 * assertNoMore asserts that the cursor has moved past all recorded calls.
+	 */
+	public void assertNoMore() {
+		throwErrorIfCountingOnly();
+		MethodPosition next = findNextPosition();
+		if (null != next) {
+			throw new AssertionError("More calls, next call is to method: %s (callNumber: %s)"
+					.formatted(next.methodName, next.nextCallNumber));
+		}
+	}
+
+	private void throwErrorIfCountingOnly() {
+		if (recorder.isCountingOnly()) {
+			throw new RuntimeException(
+					"Sequence numbers are not recorded when counting only calls");
+		}
+	}
+
+	private MethodPosition findNextPosition() {
+		MethodPosition next = null;
+		for (String methodName : recorder.getMethodCallLogs().keySet()) {
+			MethodPosition position = getPosition(methodName);
+			if (position.hasNextCall() && (null == next
+					|| position.getNextSequenceNumber() < next.getNextSequenceNumber())) {
+				next = position;
+			}
+		}
+		return next;
+	}
+
+	private MethodPosition getPosition(String methodName) {
+		MethodPosition position = positions.get(methodName);
+		if (null == position) {
+			return possiblyCreatePosition(methodName);
+		}
+		position.moveToFirstRetainedCall();
+		return position;
+	}
+
+	private MethodPosition possiblyCreatePosition(String methodName) {
+		MethodCallLog methodCallLog = recorder.getMethodCallLog(methodName);
+		if (null == methodCallLog) {
+			return null;
+		}
+		MethodPosition position = new MethodPosition(methodName, methodCallLog,
+				findFirstCallAfterPrevious(methodCallLog));
+		positions.put(methodName, position);
+		return position;
+	}
+
+	private int findFirstCallAfterPrevious(MethodCallLog methodCallLog) {
+		int callNumber = methodCallLog.findFirstCallAfter(previousSequenceNumber);
+		return callNumber == MethodCallLog.NO_CALL ? methodCallLog.getNumberOfCalls()
+				: callNumber;
+	}
+
+	private static final class MethodPosition {
+		private final String methodName;
+		private final MethodCallLog methodCallLog;
+		private int nextCallNumber;
+
+		MethodPosition(String methodName, MethodCallLog methodCallLog, int nextCallNumber) {
+			this.methodName = methodName;
+			this.methodCallLog = methodCallLog;
+			this.nextCallNumber = nextCallNumber;
+		}
+
+		void moveToFirstRetainedCall() {
+			nextCallNumber = Math.max(nextCallNumber, methodCallLog.getFirstRetainedCallNumber());
+		}
+
+		boolean hasNextCall() {
+			return nextCallNumber < methodCallLog.getNumberOfCalls();
+		}
+
+		long getNextSequenceNumber() {
+			return methodCallLog.getSequenceNumber(nextCallNumber);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+/**
+ * RecordingFormat holds the constants of the binary format used when exporting recordings from a
+ * {@link MethodCallRecorder}, written by {@link RecordingWriter} and read by
+ * {@link RecordingReader}. All numbers are big endian, and all strings are written as an int with
+ * the number of bytes followed by the string encoded as UTF-8.
+ * <p>
+ * A recording file consists of:
+ * <ol>
+ * <li>A header, with the magic number and the format version as ints.</li>
+ * <li>The records, one for each exported call and returned value. A call record holds an int with
+ * the number of parameters, followed by the id of the parameter name and the value, for each
+ * parameter. A returned value record holds only the value. A value is a type tag byte, followed by
+ * the value for strings, numbers, booleans and characters, the toString of the value for other
+ * types and nothing for null.</li>
+ * <li>The indexes, one long with the position of each exported call and returned value, per
+ * method.</li>
+ * <li>The directory, with the dictionary of method and parameter names, followed by an entry for
+ * each method with the id of the method name, the number of recorded calls and returned values,
+ * the first exported call and returned value numbers, the number of exported calls and returned
+ * values, and the positions of the indexes.</li>
+ * <li>A footer, with the position of the directory as a long and the magic number.</li>
+ * </ol>
+ */
+final class RecordingFormat {
+	static final int MAGIC = 0x4D435231;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 2 * Integer.BYTES;
+	static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES;
+	static final byte TAG_NULL = 0;
+	static final byte TAG_STRING = 1;
+	static final byte TAG_INTEGER = 2;
+	static final byte TAG_LONG = 3;
+	static final byte TAG_BOOLEAN = 4;
+	static final byte TAG_SHORT = 5;
+	static final byte TAG_BYTE = 6;
+	static final byte TAG_CHARACTER = 7;
+	static final byte TAG_FLOAT = 8;
+	static final byte TAG_DOUBLE = 9;
+	static final byte TAG_TO_STRING = 10;
+
+	private RecordingFormat() {
+		// only constants
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+/**
+ * RecordingMark marks a point in the recording of a {@link MethodCallRecorder}, and is created
+ * using {@link MethodCallRecorder#mark()}. The calls recorded after the mark can be asserted using
+ * the recorder returned from {@link MethodCallRecorder#since(RecordingMark)}.
+ */
+public final class RecordingMark {
+	private final MethodCallRecorder recorder;
+	private final int markNumber;
+	private final int resetNumber;
+
+	RecordingMark(MethodCallRecorder recorder, int markNumber, int resetNumber) {
+		this.recorder = recorder;
+		this.markNumber = markNumber;
+		this.resetNumber = resetNumber;
+	}
+
+	MethodCallRecorder getRecorder() {
+		return recorder;
+	}
+
+	int getMarkNumber() {
+		return markNumber;
+	}
+
+	int getResetNumber() {
+		return resetNumber;
+	}
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * RecordingReader reads a recording exported from a {@link MethodCallRecorder} using
+ * {@link MethodCallRecorder#exportRecording(Path)}, so that the calls and returned values can be
+ * inspected after the test that recorded them has finished.
+ * <p>
+ * The file is mapped into memory, and only the names of the methods and parameters are read when
+ * the recording is opened. Calls and returned values are read from the file as they are asked
+ * for, using an index with the position of each call, so recordings of tens of millions of calls
+ * can be queried without loading them into memory.
+ * <p>
+ * Strings, numbers, booleans and characters are read back as the same types as they were recorded
+ * as. Values of other types are read back as the String returned from their toString method when
+ * the recording was exported.
+ * <p>
+ * Ex:
+ * 
+ * <pre>
+ * try (RecordingReader recording = RecordingReader.open(path)) {
+ * 	Map&lt;String, Object&gt; parameters = recording.getParametersForMethodAndCallNumber("read", 0);
+ * }
+ * </pre>
+ */
+public final class RecordingReader implements AutoCloseable {
+	private static final int DEFAULT_CHUNK_SIZE = 1 << 30;
+	private static final String CALL_NUMBER_TEXT = ", callNumber: ";
+	private final FileChannel channel;
+	private final MappedChunks chunks;
+	private final Map<String, ExportedMethod> exportedMethods = new LinkedHashMap<>();
+	private String[] names;
+
+	private RecordingReader(FileChannel channel, MappedChunks chunks) {
+		this.channel = channel;
+		this.chunks = chunks;
+	}
+
+	/**
+	 * open opens a recording exported from a {@link MethodCallRecorder}.
+	 * <p>
+	 * If the file can not be read, or is not an exported recording, will a runtime exception be
+	 * thrown.
+	 * 
+	 * @param path
+	 *            A Path to the exported recording
+	 * @return A RecordingReader to query the recording with
+	 */
+	public static RecordingReader open(Path path) {
+		return open(path, DEFAULT_CHUNK_SIZE);
+	}
+
+	static RecordingReader open(Path path, int chunkSize) {
+		FileChannel channel = openChannel(path);
+		try {
+			MappedChunks chunks = new MappedChunks(channel, chunkSize);
+			throwErrorIfNotARecording(path, chunks);
+			RecordingReader reader = new RecordingReader(channel, chunks);
+			reader.readDirectory();
+			return reader;
+		} catch (IOException e) {
+			closeAfterFailedOpen(channel, e);
+			throw createOpenException(path, e);
+		} catch (RuntimeException e) {
+			closeAfterFailedOpen(channel, e);
+			throw e;
+		}
+	}
+
+	private static FileChannel openChannel(Path path) {
+		try {
+			return FileChannel.open(path, StandardOpenOption.READ);
+		} catch (IOException e) {
+			throw createOpenException(path, e);
+		}
+	}
+
+	private static void throwErrorIfNotARecording(Path path, MappedChunks chunks) {
+		long size = chunks.size();
+		if (size < RecordingFormat.HEADER_SIZE + RecordingFormat.FOOTER_SIZE
+				|| chunks.getInt(0) != RecordingFormat.MAGIC
+				|| chunks.getInt(Integer.BYTES) != RecordingFormat.VERSION
+				|| chunks.getInt(size - Integer.BYTES) != RecordingFormat.MAGIC) {
+			throw new RuntimeException("Not a recording: " + path);
+		}
+	}
+
+	private static void closeAfterFailedOpen(FileChannel channel, Exception e) {
+		try {
+			channel.close();
+		} catch (IOException closeException) {
+			e.addSuppressed(closeException);
+		}
+	}
+
+	private static RuntimeException createOpenException(Path path, IOException e) {
+		return new RuntimeException("Could not open recording: " + path, e);
+	}
+
+	private void readDirectory() {
+		long footerPosition = chunks.size() - RecordingFormat.FOOTER_SIZE;
+		Cursor cursor = new Cursor(chunks.getLong(footerPosition));
+		names = new String[cursor.readInt()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = cursor.readString();
+		}
+		int numberOfMethods = cursor.readInt();
+		for (int i = 0; i < numberOfMethods; i++) {
+			ExportedMethod exportedMethod = new ExportedMethod(cursor);
+			exportedMethods.put(names[exportedMethod.methodNameId], exportedMethod);
+		}
+	}
+
+	/**
+	 * getMethodNames returns the names of all methods in the recording
+	 * 
+	 * @return A Set with the method names
+	 */
+	public Set<String> getMethodNames() {
+		return Collections.unmodifiableSet(exportedMethods.keySet());
+	}
+
+	/**
+	 * getNumberOfCallsToMethod returns the number of calls recorded for a method, including calls
+	 * that were not kept in the recorder when the recording was exported
+	 * 
+	 * @param methodName
+	 *            A String with the method name
+	 * @return An int with the number of calls made
+	 */
+	public int getNumberOfCallsToMethod(String methodName) {
+		ExportedMethod exportedMethod = exportedMethods.get(methodName);
+		if (null == exportedMethod) {
+			return 0;
+		}
+		return exportedMethod.numberOfCalls;
+	}
+
+	/**
+	 * getParametersForMethodAndCallNumber returns the parameters for a specific call, in the same
+	 * way as {@link MethodCallRecorder#getParametersForMethodAndCallNumber(String, int)}.
+	 * <p>
+	 * If the call is not in the recording will a runtime exception be thrown.
+	 * 
+	 * @param methodName
+	 *            A String with the method name
+	 * @param callNumber
+	 *            An int with the order number of the call, starting on 0
+	 * @return a Map with with the parameter name as key and the parameter value as value
+	 */
+	public Map<String, Object> getParametersForMethodAndCallNumber(String methodName,
+			int callNumber) {
+		Cursor cursor = getCursorForCall(methodName, callNumber);
+		int numberOfParameters = cursor.readInt();
+		Map<String, Object> parameters = new LinkedHashMap<>();
+		for (int i = 0; i < numberOfParameters; i++) {
+			String parameterName = names[cursor.readInt()];
+			parameters.put(parameterName, cursor.readValue());
+		}
+		return parameters;
+	}
+
+	private Cursor getCursorForCall(String methodName, int callNumber) {
+		ExportedMethod exportedMethod = getExportedMethodWithCalls(methodName, callNumber);
+		int indexInMethod = callNumber - exportedMethod.firstCallNumber;
+		if (indexInMethod < 0 || indexInMethod >= exportedMethod.numberOfExportedCalls) {
+			throw createNotFoundException("CallNumber", methodName, callNumber);
+		}
+		return new Cursor(chunks
+				.getLong(exportedMethod.callIndexPosition + (long) indexInMethod * Long.BYTES));
+	}
+
+	private ExportedMethod getExportedMethodWithCalls(String methodName, int callNumber) {
+		ExportedMethod exportedMethod = exportedMethods.get(methodName);
+		if (null == exportedMethod || exportedMethod.numberOfCalls == 0) {
+			throw createNotFoundException("MethodName", methodName, callNumber);
+		}
+		return exportedMethod;
+	}
+
+	private RuntimeException createNotFoundException(String notFound, String methodName,
+			int callNumber) {
+		return new RuntimeException(notFound + " not found for (methodName: " + methodName
+				+ CALL_NUMBER_TEXT + callNumber + ")");
+	}
+
+	/**
+	 * getParameterForMethodAndCallNumberAndParameter returns the value of a parameter for a
+	 * specific call, in the same way as
+	 * {@link MethodCallRecorder#getParameterForMethodAndCallNumberAndParameter}.
+	 * <p>
+	 * If the call or parameter is not in the recording will a runtime exception be thrown.
+	 * 
+	 * @param methodName
+	 *            A String with the method name
+	 * @param callNumber
+	 *            An int with the order number of the call, starting on 0
+	 * @param parameterName
+	 *            A String with the parameter name to get the value for
+	 * @return An Object with the recorded value
+	 */
+	public Object getParameterForMethodAndCallNumberAndParameter(String methodName, int callNumber,
+			String parameterName) {
+		Map<String, Object> parameters = getParametersForMethodAndCallNumber(methodName,
+				callNumber);
+		if (!parameters.containsKey(parameterName)) {
+			throw new RuntimeException("ParameterName not found for (methodName: " + methodName
+					+ CALL_NUMBER_TEXT + callNumber + " and parameterName: " + parameterName + ")");
+		}
+		return parameters.get(parameterName);
+	}
+
+	/**
+	 * getReturnValue returns the value returned from a specific call, in the same way as
+	 * {@link MethodCallRecorder#getReturnValue(String, int)}.
+	 * <p>
+	 * If the returned value is not in the recording will a runtime exception be thrown.
+	 * 
+	 * @param methodName
+	 *            A String with the method name
+	 * @param callNumber
+	 *            An int with the order number of the call, starting on 0
+	 * @return An Object with the recorded return value
+	 */
+	public Object getReturnValue(String methodName, int callNumber) {
+		ExportedMethod exportedMethod = exportedMethods.get(methodName);
+		if (null == exportedMethod || exportedMethod.numberOfReturned == 0) {
+			throw createNotFoundException("MethodName", methodName, callNumber);
+		}
+		int indexInMethod = callNumber - exportedMethod.firstReturnedNumber;
+		if (indexInMethod < 0 || indexInMethod >= exportedMethod.numberOfExportedReturned) {
+			throw createNotFoundException("CallNumber", methodName, callNumber);
+		}
+		return new Cursor(chunks.getLong(
+				exportedMethod.returnedIndexPosition + (long) indexInMethod * Long.BYTES))
+				.readValue();
+	}
+
+	/**
+	 * close closes the file. The memory mapped from the file is released when the reader is
+	 * garbage collected.
+	 */
+	@Override
+	public void close() {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			throw new RuntimeException("Could not close recording", e);
+		}
+	}
+
+	private class Cursor {
+		private long position;
+
+		Cursor(long position) {
+			this.position = position;
+		}
+
+		byte readByte() {
+			return chunks.getByte(position++);
+		}
+
+		int readInt() {
+			int value = chunks.getInt(position);
+			position += Integer.BYTES;
+			return value;
+		}
+
+		long readLong() {
+			long value = chunks.getLong(position);
+			position += Long.BYTES;
+			return value;
+		}
+
+		short readShort() {
+			short value = chunks.getShort(position);
+			position += Short.BYTES;
+			return value;
+		}
+
+		String readString() {
+			int length = readInt();
+			String value = chunks.getString(position, length);
+			position += length;
+			return value;
+		}
+
+		Object readValue() {
+			byte tag = readByte();
+			return switch (tag) {
+				case RecordingFormat.TAG_NULL -> null;
+				case RecordingFormat.TAG_STRING, RecordingFormat.TAG_TO_STRING -> readString();
+				case RecordingFormat.TAG_INTEGER -> readInt();
+				case RecordingFormat.TAG_LONG -> readLong();
+				case RecordingFormat.TAG_BOOLEAN -> readByte() != 0;
+				case RecordingFormat.TAG_SHORT -> readShort();
+				case RecordingFormat.TAG_BYTE -> readByte();
+				case RecordingFormat.TAG_CHARACTER -> (char) readShort();
+				case RecordingFormat.TAG_FLOAT -> Float.intBitsToFloat(readInt());
+				case RecordingFormat.TAG_DOUBLE -> Double.longBitsToDouble(readLong());
+				default -> throw new RuntimeException("Unknown value type tag: " + tag
+						+ " at position: " + (position - 1));
+			};
+		}
+	}
+
+	private static class ExportedMethod {
+		private final int methodNameId;
+		private final int numberOfCalls;
+		private final int firstCallNumber;
+		private final int numberOfExportedCalls;
+		private final long callIndexPosition;
+		private final int numberOfReturned;
+		private final int firstReturnedNumber;
+		private final int numberOfExportedReturned;
+		private final long returnedIndexPosition;
+
+		ExportedMethod(Cursor cursor) {
+			methodNameId = cursor.readInt();
+			numberOfCalls = cursor.readInt();
+			firstCallNumber = cursor.readInt();
+			numberOfExportedCalls = cursor.readInt();
+			callIndexPosition = cursor.readLong();
+			numberOfReturned = cursor.readInt();
+			firstReturnedNumber = cursor.readInt();
+			numberOfExportedReturned = cursor.readInt();
+			returnedIndexPosition = cursor.readLong();
+		}
+	}
+}
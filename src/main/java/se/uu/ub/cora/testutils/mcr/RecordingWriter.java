@@ -0,0 +1,243 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * RecordingWriter writes the calls and returned values kept in the method call logs of a
+ * {@link MethodCallRecorder} to a file, in the format described in {@link RecordingFormat}.
+ * <p>
+ * Records are written as the logs are read, so only the positions of the records are kept in
+ * memory while writing.
+ */
+class RecordingWriter implements AutoCloseable {
+	private static final int BUFFER_SIZE = 1 << 16;
+	private final OutputStream out;
+	private final byte[] numberBytes = new byte[Long.BYTES];
+	private final Map<String, Integer> nameIds = new HashMap<>();
+	private final List<String> names = new ArrayList<>();
+	private final List<ExportedMethod> exportedMethods = new ArrayList<>();
+	private long position = 0;
+
+	RecordingWriter(Path path) throws IOException {
+		out = new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE);
+	}
+
+	void writeRecording(Map<String, MethodCallLog> methodCallLogs) throws IOException {
+		writeInt(RecordingFormat.MAGIC);
+		writeInt(RecordingFormat.VERSION);
+		for (Entry<String, MethodCallLog> entry : methodCallLogs.entrySet()) {
+			exportedMethods.add(writeRecordsForMethod(entry.getKey(), entry.getValue()));
+		}
+		for (ExportedMethod exportedMethod : exportedMethods) {
+			writeIndexes(exportedMethod);
+		}
+		long directoryPosition = position;
+		writeDirectory();
+		writeLong(directoryPosition);
+		writeInt(RecordingFormat.MAGIC);
+	}
+
+	private ExportedMethod writeRecordsForMethod(String methodName, MethodCallLog methodCallLog)
+			throws IOException {
+		ExportedMethod exportedMethod = new ExportedMethod(idForName(methodName), methodCallLog);
+		if (!methodCallLog.isCountingOnly()) {
+			writeCallRecords(methodCallLog, exportedMethod);
+			writeReturnedValueRecords(methodCallLog, exportedMethod);
+		}
+		return exportedMethod;
+	}
+
+	private void writeCallRecords(MethodCallLog methodCallLog, ExportedMethod exportedMethod)
+			throws IOException {
+		int numberOfCalls = exportedMethod.numberOfCalls;
+		int firstCallNumber = methodCallLog.getFirstRetainedCallNumber();
+		exportedMethod.firstCallNumber = firstCallNumber;
+		exportedMethod.callPositions = new long[numberOfCalls - firstCallNumber];
+		for (int callNumber = firstCallNumber; callNumber < numberOfCalls; callNumber++) {
+			exportedMethod.callPositions[callNumber - firstCallNumber] = position;
+			writeCall(methodCallLog.getParameterNames(callNumber),
+					methodCallLog.getCallValues(callNumber));
+		}
+	}
+
+	private void writeCall(String[] parameterNames, Object[] values) throws IOException {
+		writeInt(parameterNames.length);
+		for (int i = 0; i < parameterNames.length; i++) {
+			writeInt(idForName(parameterNames[i]));
+			writeValue(values[i]);
+		}
+	}
+
+	private void writeReturnedValueRecords(MethodCallLog methodCallLog,
+			ExportedMethod exportedMethod) throws IOException {
+		int numberOfReturned = exportedMethod.numberOfReturned;
+		int firstReturnedNumber = methodCallLog.getFirstRetainedReturnedNumber();
+		exportedMethod.firstReturnedNumber = firstReturnedNumber;
+		exportedMethod.returnedPositions = new long[numberOfReturned - firstReturnedNumber];
+		for (int number = firstReturnedNumber; number < numberOfReturned; number++) {
+			exportedMethod.returnedPositions[number - firstReturnedNumber] = position;
+			writeValue(methodCallLog.getReturned(number));
+		}
+	}
+
+	private int idForName(String name) {
+		return nameIds.computeIfAbsent(name, key -> {
+			names.add(key);
+			return names.size() - 1;
+		});
+	}
+
+	private void writeValue(Object value) throws IOException {
+		if (value == null) {
+			writeByte(RecordingFormat.TAG_NULL);
+		} else if (value instanceof String string) {
+			writeByte(RecordingFormat.TAG_STRING);
+			writeString(string);
+		} else if (value instanceof Integer integer) {
+			writeByte(RecordingFormat.TAG_INTEGER);
+			writeInt(integer);
+		} else if (value instanceof Long longValue) {
+			writeByte(RecordingFormat.TAG_LONG);
+			writeLong(longValue);
+		} else {
+			writeOtherValue(value);
+		}
+	}
+
+	private void writeOtherValue(Object value) throws IOException {
+		if (value instanceof Boolean booleanValue) {
+			writeByte(RecordingFormat.TAG_BOOLEAN);
+			writeByte(booleanValue ? 1 : 0);
+		} else if (value instanceof Short shortValue) {
+			writeByte(RecordingFormat.TAG_SHORT);
+			writeNumber(shortValue, Short.BYTES);
+		} else if (value instanceof Byte byteValue) {
+			writeByte(RecordingFormat.TAG_BYTE);
+			writeByte(byteValue);
+		} else if (value instanceof Character character) {
+			writeByte(RecordingFormat.TAG_CHARACTER);
+			writeNumber(character, Character.BYTES);
+		} else if (value instanceof Float floatValue) {
+			writeByte(RecordingFormat.TAG_FLOAT);
+			writeInt(Float.floatToRawIntBits(floatValue));
+		} else if (value instanceof Double doubleValue) {
+			writeByte(RecordingFormat.TAG_DOUBLE);
+			writeLong(Double.doubleToRawLongBits(doubleValue));
+		} else {
+			writeByte(RecordingFormat.TAG_TO_STRING);
+			writeString(String.valueOf(value));
+		}
+	}
+
+	private void writeIndexes(ExportedMethod exportedMethod) throws IOException {
+		exportedMethod.callIndexPosition = position;
+		for (long callPosition : exportedMethod.callPositions) {
+			writeLong(callPosition);
+		}
+		exportedMethod.returnedIndexPosition = position;
+		for (long returnedPosition : exportedMethod.returnedPositions) {
+			writeLong(returnedPosition);
+		}
+	}
+
+	private void writeDirectory() throws IOException {
+		writeInt(names.size());
+		for (String name : names) {
+			writeString(name);
+		}
+		writeInt(exportedMethods.size());
+		for (ExportedMethod exportedMethod : exportedMethods) {
+			writeInt(exportedMethod.methodNameId);
+			writeInt(exportedMethod.numberOfCalls);
+			writeInt(exportedMethod.firstCallNumber);
+			writeInt(exportedMethod.callPositions.length);
+			writeLong(exportedMethod.callIndexPosition);
+			writeInt(exportedMethod.numberOfReturned);
+			writeInt(exportedMethod.firstReturnedNumber);
+			writeInt(exportedMethod.returnedPositions.length);
+			writeLong(exportedMethod.returnedIndexPosition);
+		}
+	}
+
+	private void writeString(String string) throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		writeInt(bytes.length);
+		out.write(bytes);
+		position += bytes.length;
+	}
+
+	private void writeByte(int value) throws IOException {
+		out.write(value);
+		position++;
+	}
+
+	private void writeInt(int value) throws IOException {
+		writeNumber(value, Integer.BYTES);
+	}
+
+	private void writeLong(long value) throws IOException {
+		writeNumber(value, Long.BYTES);
+	}
+
+	private void writeNumber(long value, int numberOfBytes) throws IOException {
+		for (int i = 0; i < numberOfBytes; i++) {
+			numberBytes[i] = (byte) (value >>> (Byte.SIZE * (numberOfBytes - 1 - i)));
+		}
+		out.write(numberBytes, 0, numberOfBytes);
+		position += numberOfBytes;
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	private static class ExportedMethod {
+		private static final long[] NO_POSITIONS = new long[0];
+		private final int methodNameId;
+		private final int numberOfCalls;
+		private final int numberOfReturned;
+		private int firstCallNumber;
+		private long[] callPositions = NO_POSITIONS;
+		private long callIndexPosition;
+		private int firstReturnedNumber;
+		private long[] returnedPositions = NO_POSITIONS;
+		private long returnedIndexPosition;
+
+		ExportedMethod(int methodNameId, MethodCallLog methodCallLog) {
+			this.methodNameId = methodNameId;
+			numberOfCalls = methodCallLog.getNumberOfCalls();
+			numberOfReturned = methodCallLog.getNumberOfReturned();
+			firstCallNumber = numberOfCalls;
+			firstReturnedNumber = numberOfReturned;
+		}
+	}
+}
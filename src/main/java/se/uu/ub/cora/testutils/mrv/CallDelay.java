@@ -0,0 +1,123 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mrv;
+
+import java.time.Duration;
+import java.util.function.ToLongFunction;
+import java.util.random.RandomGenerator;
+
+import se.uu.ub.cora.testutils.mcr.LatencyHistogram;
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+
+/**
+ * CallDelay describes how long calls to a method in spies using {@link MethodReturnValues} should
+ * be delayed, to simulate slow dependencies. A delay is set for a method using
+ * {@link MethodReturnValues#setDefaultDelay(String, CallDelay)} or for a combination of method
+ * name and parameter values using
+ * {@link MethodReturnValues#setSpecificDelay(String, CallDelay, Object...)}.
+ * <p>
+ * A CallDelay is immutable and can be used for several methods, and by several MethodReturnValues
+ * at the same time.
+ */
+public final class CallDelay {
+	private static final int NUMBER_OF_PERCENTILES = 1000;
+	private static final double MAX_PERCENTILE = 100.0;
+	private final ToLongFunction<RandomGenerator> delaySampler;
+
+	private CallDelay(ToLongFunction<RandomGenerator> delaySampler) {
+		this.delaySampler = delaySampler;
+	}
+
+	/**
+	 * fixed creates a CallDelay that delays each call the specified duration.
+	 * <p>
+	 * If the duration is negative will a runtime exception be thrown.
+	 * 
+	 * @param delay
+	 *            A Duration to delay each call
+	 * @return A CallDelay with the fixed delay
+	 */
+	public static CallDelay fixed(Duration delay) {
+		long delayInNanos = toNanosThrowErrorIfNegative(delay);
+		return new CallDelay(random -> delayInNanos);
+	}
+
+	private static long toNanosThrowErrorIfNegative(Duration delay) {
+		if (delay.isNegative()) {
+			throw new RuntimeException("Delay can not be negative, was: " + delay);
+		}
+		return delay.toNanos();
+	}
+
+	/**
+	 * uniform creates a CallDelay that delays each call a duration picked at random between min
+	 * and max, both included, with all durations in between equally likely.
+	 * <p>
+	 * If min is negative or max is shorter than min will a runtime exception be thrown.
+	 * 
+	 * @param min
+	 *            A Duration with the shortest delay
+	 * @param max
+	 *            A Duration with the longest delay
+	 * @return A CallDelay with delays uniformly spread between min and max
+	 */
+	public static CallDelay uniform(Duration min, Duration max) {
+		long minInNanos = toNanosThrowErrorIfNegative(min);
+		long maxInNanos = max.toNanos();
+		if (maxInNanos < minInNanos) {
+			throw new RuntimeException(
+					"Max delay must be at least min delay, was min: %s and max: %s"
+							.formatted(min, max));
+		}
+		return new CallDelay(random -> random.nextLong(minInNanos, maxInNanos + 1));
+	}
+
+	/**
+	 * fromHistogram creates a CallDelay that delays calls with durations following the
+	 * distribution of the durations recorded in the specified histogram, for instance the
+	 * durations measured for calls to a real dependency, see
+	 * {@link MethodCallRecorder#getCallDurations(String)}.
+	 * <p>
+	 * The distribution is read from the histogram when this method is called, as the durations at
+	 * every tenth of a percentile, durations recorded in the histogram after that do not change the
+	 * created delay.
+	 * <p>
+	 * If no durations are recorded in the histogram will a runtime exception be thrown.
+	 * 
+	 * @param histogram
+	 *            A LatencyHistogram with the durations to follow
+	 * @return A CallDelay with delays following the distribution of the histogram
+	 */
+	public static CallDelay fromHistogram(LatencyHistogram histogram) {
+		if (histogram.getCount() == 0) {
+			throw new RuntimeException("Histogram has no recorded durations");
+		}
+		long[] delaysAtPercentiles = new long[NUMBER_OF_PERCENTILES];
+		for (int i = 0; i < NUMBER_OF_PERCENTILES; i++) {
+			double percentile = (i + 1) * MAX_PERCENTILE / NUMBER_OF_PERCENTILES;
+			delaysAtPercentiles[i] = histogram.getValueAtPercentile(percentile);
+		}
+		return new CallDelay(
+				random -> delaysAtPercentiles[random.nextInt(NUMBER_OF_PERCENTILES)]);
+	}
+
+	long nextDelayInNanos(RandomGenerator random) {
+		return delaySampler.applyAsLong(random);
+	}
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mrv;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ConcurrentMethodReturnValues is a {@link MethodReturnValues} that can be used by spies that are
+ * called from several threads at the same time, for instance in tests of parallel request
+ * handling.
+ * <p>
+ * It has the same API as MethodReturnValues and can be used wherever a MethodReturnValues is
+ * expected. Each value set using {@link #setReturnValues(String, java.util.List, Object...)} is
+ * returned to exactly one caller, and return values, suppliers and exceptions can be set while
+ * calls are in flight.
+ */
+public class ConcurrentMethodReturnValues extends MethodReturnValues {
+
+	public ConcurrentMethodReturnValues() {
+		super(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+	}
+
+	@Override
+	ReturnRule createReturnRule(MethodFallback methodFallback) {
+		return new ConcurrentReturnRule(methodFallback);
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mrv;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ConcurrentReturnRule is a {@link ReturnRule} that hands out each queued value to exactly one
+ * caller, also when several threads poll the rule at the same time.
+ * <p>
+ * The queued values and their cursor are replaced together when new values are set, so a caller
+ * either gets a value from the old or from the new queue, never a mix of them.
+ */
+class ConcurrentReturnRule extends ReturnRule {
+	private volatile QueuedValues queuedValues;
+
+	ConcurrentReturnRule(MethodFallback methodFallback) {
+		super(methodFallback);
+	}
+
+	@Override
+	void setQueuedValues(List<Object> values) {
+		queuedValues = new QueuedValues(values);
+	}
+
+	@Override
+	Object pollQueuedValue() {
+		QueuedValues currentQueuedValues = queuedValues;
+		if (null == currentQueuedValues) {
+			return NO_QUEUED_VALUE;
+		}
+		return currentQueuedValues.poll();
+	}
+
+	private static final class QueuedValues {
+		private final List<Object> values;
+		private final AtomicInteger numberOfReturned = new AtomicInteger();
+
+		QueuedValues(List<Object> values) {
+			this.values = values;
+		}
+
+		Object poll() {
+			int position;
+			do {
+				position = numberOfReturned.get();
+				if (position >= values.size()) {
+					return NO_QUEUED_VALUE;
+				}
+			} while (!numberOfReturned.compareAndSet(position, position + 1));
+			return values.get(position);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mrv;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * MethodFallback holds what is set in {@link MethodReturnValues} for a method regardless of
+ * parameter values, the default supplier and the exception to always throw. Both can be changed
+ * while other threads use the fallback.
+ * <p>
+ * The fallback also knows if any {@link ReturnRule} has been set for its method, so that calls to
+ * methods without rules can skip looking for a rule.
+ * <p>
+ * The total delay injected into calls to the method, from its own delay or from delays set in its
+ * rules, is also kept in the fallback.
+ */
+class MethodFallback {
+	private final String methodName;
+	private volatile boolean hasReturnRules = false;
+	private volatile Supplier<?> defaultSupplier;
+	private volatile RuntimeException alwaysThrow;
+	private volatile CallDelay defaultDelay;
+	private final AtomicLong totalDelayInNanos = new AtomicLong();
+
+	MethodFallback(String methodName) {
+		this.methodName = methodName;
+	}
+
+	String getMethodName() {
+		return methodName;
+	}
+
+	void setHasReturnRules() {
+		hasReturnRules = true;
+	}
+
+	boolean hasReturnRules() {
+		return hasReturnRules;
+	}
+
+	void setDefaultSupplier(Supplier<?> defaultSupplier) {
+		this.defaultSupplier = defaultSupplier;
+	}
+
+	Supplier<?> getDefaultSupplier() {
+		return defaultSupplier;
+	}
+
+	void setAlwaysThrow(RuntimeException alwaysThrow) {
+		this.alwaysThrow = alwaysThrow;
+	}
+
+	RuntimeException getAlwaysThrow() {
+		return alwaysThrow;
+	}
+
+	void setDefaultDelay(CallDelay defaultDelay) {
+		this.defaultDelay = defaultDelay;
+	}
+
+	CallDelay getDefaultDelay() {
+		return defaultDelay;
+	}
+
+	void addDelay(long delayInNanos) {
+		totalDelayInNanos.addAndGet(delayInNanos);
+	}
+
+	long getTotalDelayInNanos() {
+		return totalDelayInNanos.get();
+	}
+}
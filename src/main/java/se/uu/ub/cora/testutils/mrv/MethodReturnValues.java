@@ -19,11 +19,17 @@
 
 package se.uu.ub.cora.testutils.mrv;
 
+import java.lang.StackWalker.StackFrame;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
 
@@ -40,16 +46,41 @@ import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
  * {@link #setReturnValues(String, List, Object...)},
  * {@link #setSpecificReturnValuesSupplier(String, Supplier, Object...)}
  * <p>
+ * Everything set for a combination of method name and parameter values is kept in one rule, and
+ * everything set for a method regardless of parameter values in one fallback, so that getting a
+ * return value only needs one lookup.
+ * <p>
+ * Calls can be delayed to simulate slow dependencies, using
+ * {@link #setDefaultDelay(String, CallDelay)} and
+ * {@link #setSpecificDelay(String, CallDelay, Object...)}. Delayed threads are parked, not kept
+ * busy, so many calls, also from virtual threads, can be delayed at the same time. The total delay
+ * injected into calls to a method can be read using {@link #getTotalDelayForMethod(String)}.
+ * Delays can be waited out on a {@link VirtualClock} instead of in real time, see
+ * {@link #useVirtualClock(VirtualClock)}.
+ * <p>
  * This class is intended to be used in combination with {@link MethodCallRecorder}.
  */
 public class MethodReturnValues {
-	private static final int NUMBER_OF_CALLS_BACKWARD_TO_FIND_CALLING_METHOD = 3;
-	private Map<NameValues, List<Object>> valuesToReturn = new HashMap<>();
-	private Map<NameValues, Integer> noOfReturnedNameValues = new HashMap<>();
-	private Map<NameValues, Supplier<?>> specificReturnSuppliers = new HashMap<>();
-	private Map<String, Supplier<?>> defaultReturnSuppliers = new HashMap<>();
-	private Map<NameValues, RuntimeException> exceptionToThrow = new HashMap<>();
-	private Map<String, RuntimeException> alwaysThrow = new HashMap<>();
+	private static final int NUMBER_OF_FRAMES_TO_SKIP_TO_FIND_CALLING_METHOD = 2;
+	private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+	private static final int INITIAL_NUMBER_OF_METHODS = 8;
+	private final Map<NameValues, ReturnRule> returnRules;
+	private final Map<String, MethodFallback> methodFallbacks;
+	private MethodFallback[] methodFallbacksForIds = new MethodFallback[INITIAL_NUMBER_OF_METHODS];
+	private int numberOfRegisteredMethods = 0;
+	private volatile boolean hasDelays = false;
+	private volatile Random randomForDelays = new Random();
+	private volatile VirtualClock virtualClock;
+
+	public MethodReturnValues() {
+		this(new HashMap<>(), new HashMap<>());
+	}
+
+	MethodReturnValues(Map<NameValues, ReturnRule> returnRules,
+			Map<String, MethodFallback> methodFallbacks) {
+		this.returnRules = returnRules;
+		this.methodFallbacks = methodFallbacks;
+	}
 
 	/**
 	 * setReturnValues is expected to be used by tests to set desired return values for spies and
@@ -73,9 +104,22 @@ public class MethodReturnValues {
 	 */
 	public void setReturnValues(String methodName, List<Object> returnValues,
 			Object... parameterValues) {
-		NameValues nameValues = new NameValues(methodName, parameterValues);
-		valuesToReturn.put(nameValues, returnValues);
-		noOfReturnedNameValues.put(nameValues, 0);
+		getOrCreateReturnRule(methodName, parameterValues).setQueuedValues(returnValues);
+	}
+
+	private ReturnRule getOrCreateReturnRule(String methodName, Object... parameterValues) {
+		MethodFallback methodFallback = getOrCreateMethodFallback(methodName);
+		methodFallback.setHasReturnRules();
+		NameValues nameValues = NameValues.forStoring(methodName, parameterValues);
+		return returnRules.computeIfAbsent(nameValues, key -> createReturnRule(methodFallback));
+	}
+
+	ReturnRule createReturnRule(MethodFallback methodFallback) {
+		return new ReturnRule(methodFallback);
+	}
+
+	private MethodFallback getOrCreateMethodFallback(String methodName) {
+		return methodFallbacks.computeIfAbsent(methodName, MethodFallback::new);
 	}
 
 	/**
@@ -97,8 +141,7 @@ public class MethodReturnValues {
 	 */
 	public void setThrowException(String methodName, RuntimeException returnException,
 			Object... parameterValues) {
-		NameValues nameValues = new NameValues(methodName, parameterValues);
-		exceptionToThrow.put(nameValues, returnException);
+		getOrCreateReturnRule(methodName, parameterValues).setException(returnException);
 	}
 
 	/**
@@ -117,7 +160,7 @@ public class MethodReturnValues {
 	 *            A RuntimeException to throw
 	 */
 	public void setAlwaysThrowException(String methodName, RuntimeException returnException) {
-		alwaysThrow.put(methodName, returnException);
+		getOrCreateMethodFallback(methodName).setAlwaysThrow(returnException);
 	}
 
 	/**
@@ -143,6 +186,9 @@ public class MethodReturnValues {
 	 * <li>As a last resort is a runtime error thrown explaingin that nothing can be found to return
 	 * for the specified method and parameter values.</li>
 	 * </ol>
+	 * <p>
+	 * If a delay is set for the call, see {@link #setDefaultDelay(String, CallDelay)}, is the call
+	 * delayed before anything is returned or thrown.
 	 * 
 	 * @param parameterValues
 	 *            An Object Varargs with the methods values.<br>
@@ -153,6 +199,7 @@ public class MethodReturnValues {
 	 */
 	public Object getReturnValue(Object... parameterValues) {
 		String methodName = getMethodNameFromCall();
+		delayForMethodNameAndParameters(methodName, parameterValues);
 		return getReturnValueForMethodNameAndParameters(methodName, parameterValues);
 	}
 
@@ -161,21 +208,123 @@ public class MethodReturnValues {
 	 * {@link #getMethodNameFromCall()} but you can manually specify the method name. This method is
 	 * intended to build utilitity methods such as
 	 * {@link MethodCallRecorder#addCallAndReturnFromMRV(Object...)} to reduce boilerplate code
+	 * <p>
+	 * Calls are not delayed by this method, utility methods are expected to delay each call once
+	 * using {@link #delayForMethodNameAndParameters(String, Object[])}.
 	 */
 	public Object getReturnValueForMethodNameAndParameters(String methodName,
 			Object... parameterValues) {
-		NameValues nameValues = new NameValues(methodName, parameterValues);
-		if (specificNotUsedReturnValuesExist(nameValues)) {
-			Integer numberOfCalls = noOfReturnedNameValues.get(nameValues);
-			noOfReturnedNameValues.put(nameValues, numberOfCalls + 1);
-			return valuesToReturn.get(nameValues).get(numberOfCalls);
+		ReturnRule returnRule = findReturnRule(methodName, parameterValues);
+		if (null != returnRule) {
+			return getReturnValueUsingRule(returnRule, methodName, parameterValues);
+		}
+		return getReturnValueUsingFallback(methodFallbacks.get(methodName), methodName,
+				parameterValues);
+	}
+
+	/**
+	 * registerMethod registers a method and returns an id that can be used to get return values
+	 * for the method using {@link #getReturnValueForMethodId(int, Object...)}, without looking up
+	 * anything by method name. Values, suppliers and exceptions are still set using the method
+	 * name.
+	 * <p>
+	 * Methods are expected to be registered once, when the spy is created, and before the spy is
+	 * used from other threads.
+	 * 
+	 * @param methodName
+	 *            A String with the method name
+	 * @return An int with the id of the registered method
+	 */
+	public int registerMethod(String methodName) {
+		if (numberOfRegisteredMethods == methodFallbacksForIds.length) {
+			methodFallbacksForIds = Arrays.copyOf(methodFallbacksForIds,
+					methodFallbacksForIds.length * 2);
 		}
-		if (specificReturnSuppliers.containsKey(nameValues)) {
-			return specificReturnSuppliers.get(nameValues).get();
+		methodFallbacksForIds[numberOfRegisteredMethods] = getOrCreateMethodFallback(methodName);
+		return numberOfRegisteredMethods++;
+	}
+
+	/**
+	 * getReturnValueForMethodId is the same method as
+	 * {@link #getReturnValueForMethodNameAndParameters(String, Object...)}, but for a method
+	 * registered using {@link #registerMethod(String)}. Calls to methods that only have a default
+	 * supplier are answered without creating any objects.
+	 * 
+	 * @param methodId
+	 *            An int with the id returned when the method was registered
+	 * @param parameterValues
+	 *            An Object Varargs with the methods values.
+	 * @return An Object with the value to return
+	 */
+	public Object getReturnValueForMethodId(int methodId, Object... parameterValues) {
+		MethodFallback methodFallback = getMethodFallbackForMethodId(methodId);
+		String methodName = methodFallback.getMethodName();
+		ReturnRule returnRule = findReturnRuleForMethod(methodFallback, parameterValues);
+		if (null != returnRule) {
+			return getReturnValueUsingRule(returnRule, methodName, parameterValues);
 		}
-		possiblyThrowErrorForMethodNameAndParameters(methodName, parameterValues);
-		if (defaultReturnSuppliers.containsKey(methodName)) {
-			return defaultReturnSuppliers.get(methodName).get();
+		return getReturnValueUsingFallback(methodFallback, methodName, parameterValues);
+	}
+
+	private MethodFallback getMethodFallbackForMethodId(int methodId) {
+		if (methodId < 0 || methodId >= numberOfRegisteredMethods) {
+			throw new RuntimeException(
+					"MethodId not registered for (methodId: %s)".formatted(methodId));
+		}
+		return methodFallbacksForIds[methodId];
+	}
+
+	private ReturnRule findReturnRuleForMethod(MethodFallback methodFallback,
+			Object[] parameterValues) {
+		if (!methodFallback.hasReturnRules()) {
+			return null;
+		}
+		return returnRules
+				.get(NameValues.forLookup(methodFallback.getMethodName(), parameterValues));
+	}
+
+	/**
+	 * possiblyThrowErrorForMethodId is the same method as
+	 * {@link #possiblyThrowErrorForMethodNameAndParameters(String, Object[])}, but for a method
+	 * registered using {@link #registerMethod(String)}.
+	 */
+	public void possiblyThrowErrorForMethodId(int methodId, Object[] parameterValues) {
+		MethodFallback methodFallback = getMethodFallbackForMethodId(methodId);
+		ReturnRule returnRule = findReturnRuleForMethod(methodFallback, parameterValues);
+		if (null != returnRule) {
+			possiblyThrowErrorFromRule(returnRule);
+		}
+		possiblyThrowErrorFromFallback(methodFallback);
+	}
+
+	private ReturnRule findReturnRule(String methodName, Object[] parameterValues) {
+		if (returnRules.isEmpty()) {
+			return null;
+		}
+		return returnRules.get(NameValues.forLookup(methodName, parameterValues));
+	}
+
+	private Object getReturnValueUsingRule(ReturnRule returnRule, String methodName,
+			Object[] parameterValues) {
+		Object queuedValue = returnRule.pollQueuedValue();
+		if (queuedValue != ReturnRule.NO_QUEUED_VALUE) {
+			return queuedValue;
+		}
+		if (null != returnRule.getSupplier()) {
+			return returnRule.getSupplier().get();
+		}
+		possiblyThrowErrorFromRule(returnRule);
+		return getReturnValueUsingFallback(returnRule.getMethodFallback(), methodName,
+				parameterValues);
+	}
+
+	private Object getReturnValueUsingFallback(MethodFallback methodFallback, String methodName,
+			Object[] parameterValues) {
+		if (null != methodFallback) {
+			possiblyThrowErrorFromFallback(methodFallback);
+			if (null != methodFallback.getDefaultSupplier()) {
+				return methodFallback.getDefaultSupplier().get();
+			}
 		}
 		List<String> par = createListFromValues(parameterValues);
 		throw new RuntimeException("No return value found for methodName: " + methodName
@@ -183,39 +332,42 @@ public class MethodReturnValues {
 	}
 
 	private String getMethodNameFromCall() {
-		StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-		StackTraceElement stackTraceElement = stackTrace[NUMBER_OF_CALLS_BACKWARD_TO_FIND_CALLING_METHOD];
-		return stackTraceElement.getMethodName();
-	}
-
-	private boolean specificNotUsedReturnValuesExist(NameValues nameValues) {
-		if (returnValuesExistForCall(nameValues)) {
-			Integer numberOfCalls = noOfReturnedNameValues.get(nameValues);
-			return valuesToReturn.get(nameValues).size() > numberOfCalls;
-		}
-		return false;
+		return STACK_WALKER.walk(this::getMethodNameOfCallingFrame);
 	}
 
-	private boolean returnValuesExistForCall(NameValues nameValues) {
-		return valuesToReturn.containsKey(nameValues);
+	private String getMethodNameOfCallingFrame(Stream<StackFrame> frames) {
+		return frames.skip(NUMBER_OF_FRAMES_TO_SKIP_TO_FIND_CALLING_METHOD).findFirst().get()
+				.getMethodName();
 	}
 
 	private List<String> createListFromValues(Object... parameterValues) {
 		List<String> par = new ArrayList<>();
 		for (Object object : parameterValues) {
-			par.add(object.toString());
+			par.add(String.valueOf(object));
 		}
 		return par;
 	}
 
 	public void possiblyThrowErrorForMethodNameAndParameters(String methodName,
 			Object[] parameterValues) {
-		NameValues nameValues = new NameValues(methodName, parameterValues);
-		if (exceptionToThrow.containsKey(nameValues)) {
-			throw exceptionToThrow.get(nameValues);
+		ReturnRule returnRule = findReturnRule(methodName, parameterValues);
+		if (null != returnRule) {
+			possiblyThrowErrorFromRule(returnRule);
+			possiblyThrowErrorFromFallback(returnRule.getMethodFallback());
+		} else {
+			possiblyThrowErrorFromFallback(methodFallbacks.get(methodName));
 		}
-		if (alwaysThrow.containsKey(methodName)) {
-			throw alwaysThrow.get(methodName);
+	}
+
+	private void possiblyThrowErrorFromRule(ReturnRule returnRule) {
+		if (null != returnRule.getException()) {
+			throw returnRule.getException();
+		}
+	}
+
+	private void possiblyThrowErrorFromFallback(MethodFallback methodFallback) {
+		if (null != methodFallback && null != methodFallback.getAlwaysThrow()) {
+			throw methodFallback.getAlwaysThrow();
 		}
 	}
 
@@ -238,8 +390,7 @@ public class MethodReturnValues {
 	 */
 	public void setSpecificReturnValuesSupplier(String methodName, Supplier<?> supplier,
 			Object... parameterValues) {
-		NameValues nameValues = new NameValues(methodName, parameterValues);
-		specificReturnSuppliers.put(nameValues, supplier);
+		getOrCreateReturnRule(methodName, parameterValues).setSupplier(supplier);
 	}
 
 	/**
@@ -258,7 +409,162 @@ public class MethodReturnValues {
 	 *            A Supplier that can supply instances to return
 	 */
 	public void setDefaultReturnValuesSupplier(String methodName, Supplier<?> supplier) {
-		defaultReturnSuppliers.put(methodName, supplier);
+		getOrCreateMethodFallback(methodName).setDefaultSupplier(supplier);
+	}
+
+	/**
+	 * setDefaultDelay is expected to be used by tests, to delay all calls to a method in spies and
+	 * similar test helper classes, for instance to test how code handles slow dependencies.
+	 * <p>
+	 * A delay set for specific parameter values using
+	 * {@link #setSpecificDelay(String, CallDelay, Object...)} is used instead of this delay, for
+	 * calls with those values.
+	 * <p>
+	 * Ex: MRV.setDefaultDelay("methodName", CallDelay.fixed(Duration.ofMillis(20)))
+	 * 
+	 * @param methodName
+	 *            A String with the method name
+	 * @param delay
+	 *            A CallDelay with the delay for each call
+	 */
+	public void setDefaultDelay(String methodName, CallDelay delay) {
+		getOrCreateMethodFallback(methodName).setDefaultDelay(delay);
+		hasDelays = true;
+	}
+
+	/**
+	 * setSpecificDelay is expected to be used by tests, to delay calls with the specified
+	 * parameterValues to a method in spies and similar test helper classes.
+	 * <p>
+	 * Ex: MRV.setSpecificDelay("methodName", CallDelay.uniform(Duration.ofMillis(10),
+	 * Duration.ofMillis(30)), "parameterValue")
+	 * 
+	 * @param methodName
+	 *            A String with the method name
+	 * @param delay
+	 *            A CallDelay with the delay for each call
+	 * @param parameterValues
+	 *            An Object Varargs with the methods values.
+	 */
+	public void setSpecificDelay(String methodName, CallDelay delay, Object... parameterValues) {
+		getOrCreateReturnRule(methodName, parameterValues).setDelay(delay);
+		hasDelays = true;
+	}
+
+	/**
+	 * useSeedForDelays makes delays picked at random, see {@link CallDelay#uniform(Duration,
+	 * Duration)}, follow the same sequence each time a test is run. The sequence starts over each
+	 * time this method is called.
+	 * <p>
+	 * Calls made from several threads at the same time get delays from the sequence in the order
+	 * they happen to be made, so the delay of each call is then not repeatable.
+	 * 
+	 * @param seed
+	 *            A long with the seed for the random delays
+	 */
+	public void useSeedForDelays(long seed) {
+		randomForDelays = new Random(seed);
+	}
+
+	/**
+	 * useVirtualClock makes delayed calls wait for the specified clock to be advanced, instead of
+	 * waiting in real time, so that tests with delays run at full speed and with the same result
+	 * each time. See {@link VirtualClock}.
+	 * 
+	 * @param clock
+	 *            A VirtualClock to wait out delays on
+	 */
+	public void useVirtualClock(VirtualClock clock) {
+		virtualClock = clock;
+	}
+
+	/**
+	 * delayForMethodNameAndParameters delays the calling thread as set for the method and
+	 * parameter values, using {@link #setDefaultDelay(String, CallDelay)} or
+	 * {@link #setSpecificDelay(String, CallDelay, Object...)}. This method is intended to build
+	 * utility methods such as {@link MethodCallRecorder#addCallAndReturnFromMRV(Object...)}, that
+	 * delay each call once, before getting the value to return. Recording a call using
+	 * {@link MethodCallRecorder#addCall(Object...)} does not delay it, so a spy that records its
+	 * call and then uses {@link #getReturnValue(Object...)} is delayed once.
+	 * <p>
+	 * If the thread is interrupted while delayed, does this method return without waiting for the
+	 * rest of the delay, keeping the interrupted status of the thread.
+	 * 
+	 * @param methodName
+	 *            A String with the method name
+	 * @param parameterValues
+	 *            An Object array with the methods values.
+	 */
+	public void delayForMethodNameAndParameters(String methodName, Object[] parameterValues) {
+		if (hasDelays) {
+			MethodFallback methodFallback = methodFallbacks.get(methodName);
+			if (null != methodFallback) {
+				possiblyDelay(methodFallback, parameterValues);
+			}
+		}
+	}
+
+	/**
+	 * delayForMethodId is the same method as
+	 * {@link #delayForMethodNameAndParameters(String, Object[])}, but for a method registered
+	 * using {@link #registerMethod(String)}.
+	 */
+	public void delayForMethodId(int methodId, Object[] parameterValues) {
+		MethodFallback methodFallback = getMethodFallbackForMethodId(methodId);
+		if (hasDelays) {
+			possiblyDelay(methodFallback, parameterValues);
+		}
+	}
+
+	private void possiblyDelay(MethodFallback methodFallback, Object[] parameterValues) {
+		CallDelay delay = findDelay(methodFallback, parameterValues);
+		if (null != delay) {
+			long delayInNanos = delay.nextDelayInNanos(randomForDelays);
+			methodFallback.addDelay(delayInNanos);
+			waitForDelay(delayInNanos);
+		}
+	}
+
+	private CallDelay findDelay(MethodFallback methodFallback, Object[] parameterValues) {
+		ReturnRule returnRule = findReturnRuleForMethod(methodFallback, parameterValues);
+		if (null != returnRule && null != returnRule.getDelay()) {
+			return returnRule.getDelay();
+		}
+		return methodFallback.getDefaultDelay();
+	}
+
+	private void waitForDelay(long delayInNanos) {
+		VirtualClock clock = virtualClock;
+		if (null != clock) {
+			clock.waitFor(delayInNanos);
+		} else {
+			waitInRealTimeFor(delayInNanos);
+		}
+	}
+
+	private static void waitInRealTimeFor(long delayInNanos) {
+		long deadline = System.nanoTime() + delayInNanos;
+		long remainingNanos = delayInNanos;
+		while (remainingNanos > 0 && !Thread.currentThread().isInterrupted()) {
+			LockSupport.parkNanos(remainingNanos);
+			remainingNanos = deadline - System.nanoTime();
+		}
+	}
+
+	/**
+	 * getTotalDelayForMethod returns the sum of the delays injected into calls to the specified
+	 * method, from delays set both for the method and for specific parameter values.
+	 * 
+	 * @param methodName
+	 *            A String with the method name
+	 * @return A Duration with the total delay, {@link Duration#ZERO} if no calls have been delayed
+	 */
+	public Duration getTotalDelayForMethod(String methodName) {
+		MethodFallback methodFallback = methodFallbacks.get(methodName);
+		if (null == methodFallback) {
+			return Duration.ZERO;
+		}
+		return Duration.ofNanos(methodFallback.getTotalDelayInNanos());
 	}
 
 }
@@ -18,54 +18,83 @@
  */
 package se.uu.ub.cora.testutils.mrv;
 
+import java.util.Arrays;
 import java.util.Objects;
 
-class NameValues {
-	private String methodName;
-	private Object[] parameterValues;
+/**
+ * NameValues is an immutable key made from a method name and the parameter values of a call, used
+ * to look up what {@link MethodReturnValues} should return or throw for the call.
+ * <p>
+ * The hash is calculated once, when the key is created, by combining the hashes of the method name
+ * and the values in the same way as the 32 bit MurmurHash3. It depends on the order of the values,
+ * and keys with similar values are spread over the buckets of a HashMap. Values
+ * are compared using equals, and null values are allowed.
+ */
+final class NameValues {
+	private final String methodName;
+	private final Object[] parameterValues;
+	private final int hash;
 
-	public NameValues(String methodName, Object... parameterValues) {
+	private NameValues(String methodName, Object[] parameterValues) {
 		this.methodName = methodName;
 		this.parameterValues = parameterValues;
+		this.hash = calculateHash(methodName, parameterValues);
+	}
+
+	/**
+	 * forStoring creates a key with a copy of the given values, so that the key is not changed if
+	 * the array is changed later. It is intended for keys that are stored in a map.
+	 */
+	static NameValues forStoring(String methodName, Object... parameterValues) {
+		return new NameValues(methodName, parameterValues.clone());
+	}
+
+	/**
+	 * forLookup creates a key that uses the given array without copying it. It is only intended to
+	 * be used for keys that are looked up in a map and never stored.
+	 */
+	static NameValues forLookup(String methodName, Object[] parameterValues) {
+		return new NameValues(methodName, parameterValues);
+	}
+
+	private static int calculateHash(String methodName, Object[] parameterValues) {
+		int hashForValues = Objects.hashCode(methodName);
+		for (Object parameterValue : parameterValues) {
+			hashForValues = combine(hashForValues, Objects.hashCode(parameterValue));
+		}
+		return mixBits(hashForValues ^ parameterValues.length);
+	}
+
+	private static int combine(int hashSoFar, int valueHash) {
+		int scrambled = Integer.rotateLeft(valueHash * 0xcc9e2d51, 15) * 0x1b873593;
+		return Integer.rotateLeft(hashSoFar ^ scrambled, 13) * 5 + 0xe6546b64;
+	}
+
+	private static int mixBits(int hashToMix) {
+		int mixed = hashToMix;
+		mixed ^= mixed >>> 16;
+		mixed *= 0x85ebca6b;
+		mixed ^= mixed >>> 13;
+		mixed *= 0xc2b2ae35;
+		mixed ^= mixed >>> 16;
+		return mixed;
 	}
 
 	@Override
 	public boolean equals(Object obj) {
-		if (null == obj) {
-			return false;
-		}
 		if (this == obj) {
 			return true;
 		}
-		if (getClass() != obj.getClass()) {
+		if (null == obj || getClass() != obj.getClass()) {
 			return false;
 		}
-
 		NameValues nameValues = (NameValues) obj;
-		return Objects.equals(methodName, nameValues.methodName)
-				&& parametersTheSame(nameValues.parameterValues);
-	}
-
-	private boolean parametersTheSame(Object[] pValues) {
-		if (parameterValues.length != pValues.length) {
-			return false;
-		}
-		int no = 0;
-		for (Object parameterValue : parameterValues) {
-			if (!parameterValue.equals(pValues[no])) {
-				return false;
-			}
-			no++;
-		}
-		return true;
+		return hash == nameValues.hash && Objects.equals(methodName, nameValues.methodName)
+				&& Arrays.equals(parameterValues, nameValues.parameterValues);
 	}
 
 	@Override
 	public int hashCode() {
-		int parametersHash = 0;
-		for (Object parameterValue : parameterValues) {
-			parametersHash += Objects.hash(parameterValue);
-		}
-		return Objects.hash(methodName, parametersHash);
+		return hash;
 	}
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mrv;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * ReturnRule holds everything set in {@link MethodReturnValues} for one combination of method name
+ * and parameter values, so that a call only needs one lookup to find what to return or throw.
+ * <p>
+ * Queued return values are returned in order, using a cursor, until all of them have been
+ * returned. Each rule also refers to the {@link MethodFallback} of its method.
+ * <p>
+ * The supplier and exception can be changed while other threads use the rule, queued values are
+ * only handed out safely to several threads by {@link ConcurrentReturnRule}.
+ */
+class ReturnRule {
+	static final Object NO_QUEUED_VALUE = new Object();
+	private final MethodFallback methodFallback;
+	private List<Object> queuedValues;
+	private int numberOfReturnedQueuedValues = 0;
+	private volatile Supplier<?> supplier;
+	private volatile RuntimeException exception;
+	private volatile CallDelay delay;
+
+	ReturnRule(MethodFallback methodFallback) {
+		this.methodFallback = methodFallback;
+	}
+
+	MethodFallback getMethodFallback() {
+		return methodFallback;
+	}
+
+	void setQueuedValues(List<Object> queuedValues) {
+		this.queuedValues = queuedValues;
+		numberOfReturnedQueuedValues = 0;
+	}
+
+	/**
+	 * pollQueuedValue returns the next queued value, or {@link #NO_QUEUED_VALUE} if there are no
+	 * queued values left to return.
+	 */
+	Object pollQueuedValue() {
+		if (null == queuedValues || numberOfReturnedQueuedValues >= queuedValues.size()) {
+			return NO_QUEUED_VALUE;
+		}
+		Object value = queuedValues.get(numberOfReturnedQueuedValues);
+		numberOfReturnedQueuedValues++;
+		return value;
+	}
+
+	void setSupplier(Supplier<?> supplier) {
+		this.supplier = supplier;
+	}
+
+	Supplier<?> getSupplier() {
+		return supplier;
+	}
+
+	void setException(RuntimeException exception) {
+		this.exception = exception;
+	}
+
+	RuntimeException getException() {
+		return exception;
+	}
+
+	void setDelay(CallDelay delay) {
+		this.delay = delay;
+	}
+
+	CallDelay getDelay() {
+		return delay;
+	}
+}
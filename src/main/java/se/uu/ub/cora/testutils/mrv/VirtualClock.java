@@ -0,0 +1,189 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mrv;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+
+/**
+ * VirtualClock is a clock for tests, where time only moves when the test advances it, so that
+ * code with slow dependencies, timeouts and retries can be tested at full speed and with the same
+ * result each time.
+ * <p>
+ * Delays set in a {@link MethodReturnValues} are waited out on a virtual clock bound to it using
+ * {@link MethodReturnValues#useVirtualClock(VirtualClock)}, and a {@link MethodCallRecorder} can
+ * measure call timing on the same clock using
+ * {@link MethodCallRecorder#useCallTiming(VirtualClock)}. Code under test that takes the time as a
+ * LongSupplier can be given {@link #nanoTime()} of the clock.
+ * <p>
+ * Delayed calls wait until the test advances the clock past the end of their delay, using
+ * {@link #advance(Duration)}. A test can wait for calls made from other threads to start waiting,
+ * using {@link #awaitNumberOfWaitingCalls(int, Duration)}, before it advances the clock. When
+ * using {@link #useAutoAdvance()} are delayed calls not waiting, instead each delayed call
+ * advances the clock by its delay, which suits tests where the code under test runs in the test
+ * thread.
+ * <p>
+ * Waiting calls park on a {@link Condition} of a {@link ReentrantLock}, so that waiting virtual
+ * threads do not pin their carrier threads.
+ */
+public final class VirtualClock {
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition timeAdvanced = lock.newCondition();
+	private final Condition callWaiting = lock.newCondition();
+	private volatile long currentNanos = 0;
+	private int numberOfWaitingCalls = 0;
+	private boolean autoAdvance = false;
+
+	/**
+	 * useAutoAdvance makes delayed calls advance the clock by their delay and return directly,
+	 * instead of waiting for the test to advance the clock.
+	 */
+	public void useAutoAdvance() {
+		lock.lock();
+		try {
+			autoAdvance = true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * nanoTime returns the time of this clock in nanoseconds. The clock starts at 0 and only moves
+	 * forward when it is advanced.
+	 * 
+	 * @return A long with the current time in nanoseconds
+	 */
+	public long nanoTime() {
+		return currentNanos;
+	}
+
+	/**
+	 * advance moves the time of this clock forward by the specified duration, and lets the calls
+	 * with delays ending at or before the new time return.
+	 * <p>
+	 * If the duration is negative will a runtime exception be thrown.
+	 * 
+	 * @param duration
+	 *            A Duration to move the time forward
+	 */
+	public void advance(Duration duration) {
+		if (duration.isNegative()) {
+			throw new RuntimeException(
+					"Time can not be advanced by a negative duration, was: " + duration);
+		}
+		lock.lock();
+		try {
+			currentNanos += duration.toNanos();
+			timeAdvanced.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * getNumberOfWaitingCalls returns the number of delayed calls waiting for the clock to be
+	 * advanced.
+	 * 
+	 * @return An int with the number of waiting calls
+	 */
+	public int getNumberOfWaitingCalls() {
+		lock.lock();
+		try {
+			return numberOfWaitingCalls;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * awaitNumberOfWaitingCalls waits until at least the specified number of delayed calls are
+	 * waiting for the clock to be advanced. The timeout is measured in real time.
+	 * <p>
+	 * If not enough calls are waiting before the timeout has passed will an assertion error be
+	 * thrown.
+	 * 
+	 * @param numberOfCalls
+	 *            An int with the number of calls to wait for
+	 * @param timeout
+	 *            A Duration with the longest time to wait
+	 */
+	public void awaitNumberOfWaitingCalls(int numberOfCalls, Duration timeout) {
+		lock.lock();
+		try {
+			long remainingNanos = timeout.toNanos();
+			while (numberOfWaitingCalls < numberOfCalls) {
+				if (remainingNanos <= 0) {
+					throw new AssertionError(
+							"Waiting calls: %s, expected at least: %s waiting calls within: %s"
+									.formatted(numberOfWaitingCalls, numberOfCalls, timeout));
+				}
+				remainingNanos = callWaiting.awaitNanos(remainingNanos);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for waiting calls", e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * waitFor waits until this clock has been advanced by the specified delay, or advances the
+	 * clock by the delay when using auto advance. If the thread is interrupted, does this method
+	 * return without waiting for the rest of the delay, keeping the interrupted status of the
+	 * thread.
+	 */
+	void waitFor(long delayInNanos) {
+		lock.lock();
+		try {
+			long endOfDelay = currentNanos + delayInNanos;
+			if (autoAdvance) {
+				advanceTo(endOfDelay);
+			} else {
+				waitUntil(endOfDelay);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void advanceTo(long endOfDelay) {
+		if (endOfDelay > currentNanos) {
+			currentNanos = endOfDelay;
+			timeAdvanced.signalAll();
+		}
+	}
+
+	private void waitUntil(long endOfDelay) {
+		numberOfWaitingCalls++;
+		callWaiting.signalAll();
+		try {
+			while (currentNanos < endOfDelay) {
+				timeAdvanced.await();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			numberOfWaitingCalls--;
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.spy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+
+import se.uu.ub.cora.testutils.mcr.ConcurrentMethodCallRecorder;
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+import se.uu.ub.cora.testutils.mrv.ConcurrentMethodReturnValues;
+import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
+
+/**
+ * AutoSpy creates spies for interfaces, without having to write a spy class. The spy records all
+ * calls in a {@link MethodCallRecorder} and answers them using a {@link MethodReturnValues}, in
+ * the same way as a hand written spy using
+ * {@link MethodCallRecorder#addCallAndReturnFromMRV(Object...)} in all its methods.
+ * <p>
+ * Ex:
+ * 
+ * <pre>
+ * AutoSpy&lt;RecordStorage&gt; storage = AutoSpy.createSpyFor(RecordStorage.class);
+ * storage.MRV.setDefaultReturnValuesSupplier("read", DataRecordGroupSpy::new);
+ * 
+ * codeUnderTest(storage.getSpy());
+ * 
+ * storage.MCR.assertParameters("read", 0, "someType", "someId");
+ * </pre>
+ * <p>
+ * Calls are recorded with the parameter names read using reflection. The real names are only
+ * available if the interface is compiled with the -parameters flag to javac, otherwise are the
+ * parameters named arg0, arg1 and so on, and are best asserted using
+ * {@link MethodCallRecorder#assertParameters(String, int, Object...)}.
+ * <p>
+ * All methods returning a value get a default return value supplier when the spy is created, that
+ * answers null for methods returning objects and zero or false for methods returning primitives.
+ * Return values for methods are set in the MRV as for any other spy, after the spy is created.
+ * Calls to methods with void return type are recorded without asking the MRV for a return value,
+ * but the MRV can still be set to throw exceptions for them.
+ * <p>
+ * What is read about an interface using reflection is read once and shared between all spies for
+ * the interface, and each spy registers the methods of the interface in its MCR, so that calls to
+ * the spy are recorded using method ids, without resolving the method name from the stack.
+ * <p>
+ * Spies created using {@link #createGeneratedSpyFor(Class)} are instances of a class generated for
+ * the interface instead of proxies, and cost about as much per call as a hand written spy using
+ * {@link MethodCallRecorder#addCallAndReturnFromMRVForMethodId(int, Object...)}.
+ */
+public final class AutoSpy<T> {
+	public final MethodCallRecorder MCR;
+	public final MethodReturnValues MRV;
+	private final T spy;
+
+	/**
+	 * createSpyFor creates a spy for the specified interface, using a new
+	 * {@link MethodCallRecorder} and a new {@link MethodReturnValues}.
+	 * 
+	 * @param interfaceToSpyOn
+	 *            The Class of the interface to create a spy for
+	 * @return An AutoSpy holding the spy and the MCR and MRV it uses
+	 */
+	public static <T> AutoSpy<T> createSpyFor(Class<T> interfaceToSpyOn) {
+		return createSpyFor(interfaceToSpyOn, new MethodCallRecorder(),
+				new MethodReturnValues());
+	}
+
+	/**
+	 * createConcurrentSpyFor creates a spy for the specified interface that can be called from
+	 * several threads at the same time, using a new {@link ConcurrentMethodCallRecorder} and a new
+	 * {@link ConcurrentMethodReturnValues}.
+	 * 
+	 * @param interfaceToSpyOn
+	 *            The Class of the interface to create a spy for
+	 * @return An AutoSpy holding the spy and the MCR and MRV it uses
+	 */
+	public static <T> AutoSpy<T> createConcurrentSpyFor(Class<T> interfaceToSpyOn) {
+		return createSpyFor(interfaceToSpyOn, new ConcurrentMethodCallRecorder(),
+				new ConcurrentMethodReturnValues());
+	}
+
+	/**
+	 * createSpyFor creates a spy for the specified interface, using the specified MCR and MRV. The
+	 * MCR is set to use the MRV, and the MRV gets a default return value supplier for all methods
+	 * returning a value, replacing any default supplier set before.
+	 * 
+	 * @param interfaceToSpyOn
+	 *            The Class of the interface to create a spy for
+	 * @param MCR
+	 *            The {@link MethodCallRecorder} to record calls in
+	 * @param MRV
+	 *            The {@link MethodReturnValues} to get return values from
+	 * @return An AutoSpy holding the spy and the MCR and MRV it uses
+	 */
+	public static <T> AutoSpy<T> createSpyFor(Class<T> interfaceToSpyOn, MethodCallRecorder MCR,
+			MethodReturnValues MRV) {
+		throwErrorIfNotAnInterface(interfaceToSpyOn);
+		return new AutoSpy<>(interfaceToSpyOn, MCR, MRV, false);
+	}
+
+	private static void throwErrorIfNotAnInterface(Class<?> interfaceToSpyOn) {
+		if (!interfaceToSpyOn.isInterface()) {
+			throw new RuntimeException("Spies can only be created for interfaces, not for: "
+					+ interfaceToSpyOn.getName());
+		}
+	}
+
+	/**
+	 * createGeneratedSpyFor creates a spy for the specified interface, using a new
+	 * {@link MethodCallRecorder} and a new {@link MethodReturnValues}, in the same way as
+	 * {@link #createSpyFor(Class)}, but with a spy class generated for the interface instead of a
+	 * proxy.
+	 * <p>
+	 * The generated spy records its calls with fixed method ids and without boxing them in a
+	 * proxy's argument array, so that the JIT can inline the whole path from the spy method to the
+	 * MCR. The spy class is generated once per interface. If no class can be generated for the
+	 * interface, because it, or a type in its methods, is not public or not visible from this
+	 * module, is a proxy used instead.
+	 * 
+	 * @param interfaceToSpyOn
+	 *            The Class of the interface to create a spy for
+	 * @return An AutoSpy holding the spy and the MCR and MRV it uses
+	 */
+	public static <T> AutoSpy<T> createGeneratedSpyFor(Class<T> interfaceToSpyOn) {
+		return createGeneratedSpyFor(interfaceToSpyOn, new MethodCallRecorder(),
+				new MethodReturnValues());
+	}
+
+	/**
+	 * createGeneratedSpyFor creates a spy for the specified interface, using the specified MCR and
+	 * MRV, in the same way as {@link #createSpyFor(Class, MethodCallRecorder, MethodReturnValues)},
+	 * but with a spy class generated for the interface, see {@link #createGeneratedSpyFor(Class)}.
+	 * 
+	 * @param interfaceToSpyOn
+	 *            The Class of the interface to create a spy for
+	 * @param MCR
+	 *            The {@link MethodCallRecorder} to record calls in
+	 * @param MRV
+	 *            The {@link MethodReturnValues} to get return values from
+	 * @return An AutoSpy holding the spy and the MCR and MRV it uses
+	 */
+	public static <T> AutoSpy<T> createGeneratedSpyFor(Class<T> interfaceToSpyOn,
+			MethodCallRecorder MCR, MethodReturnValues MRV) {
+		throwErrorIfNotAnInterface(interfaceToSpyOn);
+		return new AutoSpy<>(interfaceToSpyOn, MCR, MRV, true);
+	}
+
+	private AutoSpy(Class<T> interfaceToSpyOn, MethodCallRecorder MCR, MethodReturnValues MRV,
+			boolean useGeneratedSpyClass) {
+		this.MCR = MCR;
+		this.MRV = MRV;
+		MCR.useMRV(MRV);
+		SpiedInterface spiedInterface = SpiedInterface.forInterface(interfaceToSpyOn);
+		int[] methodIds = registerMethods(spiedInterface);
+		Optional<MethodHandle> generatedSpyConstructor = useGeneratedSpyClass
+				? spiedInterface.getGeneratedSpyConstructor()
+				: Optional.empty();
+		if (generatedSpyConstructor.isPresent() && idsAreConsecutive(methodIds)) {
+			spy = createGeneratedSpy(interfaceToSpyOn, generatedSpyConstructor.get(), methodIds);
+		} else {
+			spy = createProxy(interfaceToSpyOn, spiedInterface, methodIds);
+		}
+	}
+
+	private boolean idsAreConsecutive(int[] methodIds) {
+		for (int i = 1; i < methodIds.length; i++) {
+			if (methodIds[i] != methodIds[0] + i) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private T createGeneratedSpy(Class<T> interfaceToSpyOn, MethodHandle constructor,
+			int[] methodIds) {
+		int firstMethodId = methodIds.length == 0 ? 0 : methodIds[0];
+		try {
+			return interfaceToSpyOn.cast(
+					(Object) constructor.invoke(MCR, firstMethodId, interfaceToSpyOn.getName()));
+		} catch (Throwable e) {
+			throw new RuntimeException(
+					"Could not create spy for: " + interfaceToSpyOn.getName(), e);
+		}
+	}
+
+	private T createProxy(Class<T> interfaceToSpyOn, SpiedInterface spiedInterface,
+			int[] methodIds) {
+		SpyInvocationHandler handler = new SpyInvocationHandler(spiedInterface, MCR, methodIds);
+		return interfaceToSpyOn.cast(Proxy.newProxyInstance(interfaceToSpyOn.getClassLoader(),
+				new Class<?>[] { interfaceToSpyOn }, handler));
+	}
+
+	private int[] registerMethods(SpiedInterface spiedInterface) {
+		int[] methodIds = new int[spiedInterface.getNumberOfMethods()];
+		for (int i = 0; i < methodIds.length; i++) {
+			SpiedMethod spiedMethod = spiedInterface.getSpiedMethod(i);
+			methodIds[i] = MCR.registerMethod(spiedMethod.getMethodName(),
+					spiedMethod.getParameterNames());
+			possiblySetDefaultReturnValueSupplier(spiedMethod);
+		}
+		return methodIds;
+	}
+
+	private void possiblySetDefaultReturnValueSupplier(SpiedMethod spiedMethod) {
+		if (!spiedMethod.returnsVoid()) {
+			MRV.setDefaultReturnValuesSupplier(spiedMethod.getMethodName(), () -> null);
+		}
+	}
+
+	/**
+	 * getSpy returns the spy, to hand over to the code under test.
+	 * 
+	 * @return The spy, implementing the spied interface
+	 */
+	public T getSpy() {
+		return spy;
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.spy;
+
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+
+/**
+ * GeneratedSpyBase is the superclass of the spy classes generated by {@link SpyClassGenerator}.
+ * <p>
+ * A generated method only creates the array of parameter values and calls
+ * {@link #recordCall(int, Object[])} or {@link #recordCallAndReturn(int, Object[])} with the
+ * position of the method as a constant, so that the JIT can inline the whole recording path into
+ * the spy method. The id of a method in the MCR is the position of the method added to the id of
+ * the first method, as the methods are registered in order when the spy is created.
+ * <p>
+ * The methods converting return values to primitives are static, so that generated methods can use
+ * them without knowing the boxed types. A null return value is converted to the zero value.
+ */
+abstract class GeneratedSpyBase {
+	private final MethodCallRecorder MCR;
+	private final int firstMethodId;
+	private final String spiedInterfaceName;
+
+	GeneratedSpyBase(MethodCallRecorder MCR, int firstMethodId, String spiedInterfaceName) {
+		this.MCR = MCR;
+		this.firstMethodId = firstMethodId;
+		this.spiedInterfaceName = spiedInterfaceName;
+	}
+
+	final void recordCall(int position, Object[] values) {
+		MCR.addCallForMethodId(firstMethodId + position, values);
+	}
+
+	final Object recordCallAndReturn(int position, Object[] values) {
+		return MCR.addCallAndReturnFromMRVForMethodId(firstMethodId + position, values);
+	}
+
+	static int toInt(Object value) {
+		return null == value ? 0 : (Integer) value;
+	}
+
+	static long toLong(Object value) {
+		return null == value ? 0L : (Long) value;
+	}
+
+	static boolean toBoolean(Object value) {
+		return null != value && (Boolean) value;
+	}
+
+	static short toShort(Object value) {
+		return null == value ? 0 : (Short) value;
+	}
+
+	static byte toByte(Object value) {
+		return null == value ? 0 : (Byte) value;
+	}
+
+	static char toChar(Object value) {
+		return null == value ? 0 : (Character) value;
+	}
+
+	static float toFloat(Object value) {
+		return null == value ? 0f : (Float) value;
+	}
+
+	static double toDouble(Object value) {
+		return null == value ? 0d : (Double) value;
+	}
+
+	@Override
+	public String toString() {
+		return "AutoSpy for " + spiedInterfaceName;
+	}
+}
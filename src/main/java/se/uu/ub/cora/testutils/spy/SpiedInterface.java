@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.spy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * SpiedInterface holds the {@link SpiedMethod}s for an interface, read once per interface and
+ * shared by all {@link AutoSpy}s created for it.
+ * <p>
+ * Finding the SpiedMethod for a called method is done by comparing the called method with the
+ * known methods by identity. A proxy class passes the same Method instances for all its calls, but
+ * they are not the instances returned when the interface was read, so the first call to each
+ * method falls back to comparing using equals, and then keeps the instance used by the proxy class
+ * so that all later calls are found by identity.
+ * <p>
+ * The spy class generated for the interface by {@link SpyClassGenerator} is generated the first
+ * time it is needed, and kept here. Two threads asking for it at the same time can both generate a
+ * class, which only wastes the class that is not kept.
+ */
+class SpiedInterface {
+	static final int METHOD_NOT_FOUND = -1;
+	private static final ClassValue<SpiedInterface> SPIED_INTERFACES = new ClassValue<>() {
+		@Override
+		protected SpiedInterface computeValue(Class<?> interfaceToSpyOn) {
+			return new SpiedInterface(interfaceToSpyOn);
+		}
+	};
+
+	private final Class<?> spiedInterface;
+	private final Method[] methods;
+	private final SpiedMethod[] spiedMethods;
+	private volatile Optional<MethodHandle> generatedSpyConstructor;
+
+	static SpiedInterface forInterface(Class<?> interfaceToSpyOn) {
+		return SPIED_INTERFACES.get(interfaceToSpyOn);
+	}
+
+	private SpiedInterface(Class<?> interfaceToSpyOn) {
+		spiedInterface = interfaceToSpyOn;
+		methods = readSpiedMethods(interfaceToSpyOn);
+		spiedMethods = new SpiedMethod[methods.length];
+		for (int i = 0; i < methods.length; i++) {
+			spiedMethods[i] = new SpiedMethod(methods[i]);
+		}
+	}
+
+	private Method[] readSpiedMethods(Class<?> interfaceToSpyOn) {
+		return Arrays.stream(interfaceToSpyOn.getMethods())
+				.filter(method -> !Modifier.isStatic(method.getModifiers()))
+				.toArray(Method[]::new);
+	}
+
+	Class<?> getSpiedInterface() {
+		return spiedInterface;
+	}
+
+	int getNumberOfMethods() {
+		return spiedMethods.length;
+	}
+
+	SpiedMethod getSpiedMethod(int position) {
+		return spiedMethods[position];
+	}
+
+	Method getMethod(int position) {
+		return methods[position];
+	}
+
+	/**
+	 * getGeneratedSpyConstructor returns the constructor of the spy class generated for the
+	 * interface, see {@link SpyClassGenerator#generateSpyClassFor(SpiedInterface)}.
+	 * 
+	 * @return An Optional with the constructor, empty if no class can be generated for the
+	 *         interface
+	 */
+	Optional<MethodHandle> getGeneratedSpyConstructor() {
+		Optional<MethodHandle> constructor = generatedSpyConstructor;
+		if (null == constructor) {
+			constructor = Optional.ofNullable(SpyClassGenerator.generateSpyClassFor(this));
+			generatedSpyConstructor = constructor;
+		}
+		return constructor;
+	}
+
+	int getPositionOfMethod(Method method) {
+		for (int i = 0; i < methods.length; i++) {
+			if (methods[i] == method) {
+				return i;
+			}
+		}
+		return getPositionOfEqualMethodAndKeepInstance(method);
+	}
+
+	private int getPositionOfEqualMethodAndKeepInstance(Method method) {
+		for (int i = 0; i < methods.length; i++) {
+			if (methods[i].equals(method)) {
+				methods[i] = method;
+				return i;
+			}
+		}
+		return METHOD_NOT_FOUND;
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.spy;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+
+/**
+ * SpiedMethod holds what {@link AutoSpy} needs to know about a method on a spied interface, read
+ * once using reflection, so that calls to the spy do not use reflection.
+ */
+class SpiedMethod {
+	private final String methodName;
+	private final String[] parameterNames;
+	private final boolean returnsVoid;
+	private final Object defaultReturnValue;
+
+	SpiedMethod(Method method) {
+		methodName = method.getName();
+		parameterNames = readParameterNames(method);
+		Class<?> returnType = method.getReturnType();
+		returnsVoid = void.class == returnType;
+		defaultReturnValue = createDefaultReturnValue(returnType);
+	}
+
+	private String[] readParameterNames(Method method) {
+		Parameter[] parameters = method.getParameters();
+		String[] names = new String[parameters.length];
+		for (int i = 0; i < parameters.length; i++) {
+			names[i] = parameters[i].getName();
+		}
+		return names;
+	}
+
+	private Object createDefaultReturnValue(Class<?> returnType) {
+		if (!returnType.isPrimitive() || returnsVoid) {
+			return null;
+		}
+		if (boolean.class == returnType) {
+			return false;
+		}
+		if (char.class == returnType) {
+			return (char) 0;
+		}
+		return createDefaultNumber(returnType);
+	}
+
+	private Object createDefaultNumber(Class<?> returnType) {
+		if (int.class == returnType) {
+			return 0;
+		}
+		if (long.class == returnType) {
+			return 0L;
+		}
+		if (double.class == returnType) {
+			return 0d;
+		}
+		if (float.class == returnType) {
+			return 0f;
+		}
+		if (short.class == returnType) {
+			return (short) 0;
+		}
+		return (byte) 0;
+	}
+
+	String getMethodName() {
+		return methodName;
+	}
+
+	String[] getParameterNames() {
+		return parameterNames;
+	}
+
+	boolean returnsVoid() {
+		return returnsVoid;
+	}
+
+	/**
+	 * getDefaultReturnValue returns the value to return when no other value is set for the method,
+	 * null for methods returning objects and the zero value for methods returning primitives.
+	 */
+	Object getDefaultReturnValue() {
+		return defaultReturnValue;
+	}
+}
@@ -0,0 +1,484 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.spy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+
+/**
+ * SpyClassGenerator generates spy classes for interfaces, as hidden classes extending
+ * {@link GeneratedSpyBase}. The class file is written directly, as the generated methods only
+ * need a handful of instructions and no branches.
+ * <p>
+ * Each generated method puts its parameter values, boxed if needed, in a new array and calls
+ * {@link GeneratedSpyBase#recordCall(int, Object[])} or
+ * {@link GeneratedSpyBase#recordCallAndReturn(int, Object[])} with the position of the method in
+ * the {@link SpiedInterface} as a constant, and then casts or unboxes the returned value. The array
+ * is the only object created for a call with object parameters, and it is the array the MCR stores.
+ * <p>
+ * The hidden classes are defined in this package, in the class loader and module of this module.
+ * Spy classes can therefore only be generated for public interfaces that are visible from this
+ * class loader, where all types in the method signatures are public and visible as well. For other
+ * interfaces {@link #generateSpyClassFor(SpiedInterface)} returns null, and a proxy is used
+ * instead.
+ */
+class SpyClassGenerator {
+	private static final int CLASS_FILE_VERSION_JAVA_17 = 61;
+	private static final int ACC_PUBLIC = 0x0001;
+	private static final int ACC_FINAL = 0x0010;
+	private static final int ACC_SUPER = 0x0020;
+	private static final int ACC_SYNTHETIC = 0x1000;
+	private static final int MAX_STACK_FOR_METHOD = 7;
+	private static final int MAX_STACK_FOR_CONSTRUCTOR = 4;
+
+	private static final int ALOAD_0 = 0x2a;
+	private static final int ALOAD = 0x19;
+	private static final int ILOAD = 0x15;
+	private static final int LLOAD = 0x16;
+	private static final int FLOAD = 0x17;
+	private static final int DLOAD = 0x18;
+	private static final int ICONST_0 = 0x03;
+	private static final int BIPUSH = 0x10;
+	private static final int SIPUSH = 0x11;
+	private static final int ANEWARRAY = 0xbd;
+	private static final int DUP = 0x59;
+	private static final int AASTORE = 0x53;
+	private static final int CHECKCAST = 0xc0;
+	private static final int INVOKEVIRTUAL = 0xb6;
+	private static final int INVOKESPECIAL = 0xb7;
+	private static final int INVOKESTATIC = 0xb8;
+	private static final int RETURN = 0xb1;
+	private static final int ARETURN = 0xb0;
+	private static final int IRETURN = 0xac;
+	private static final int LRETURN = 0xad;
+	private static final int FRETURN = 0xae;
+	private static final int DRETURN = 0xaf;
+
+	private static final String OBJECT = "java/lang/Object";
+	private static final String BASE = GeneratedSpyBase.class.getName().replace('.', '/');
+	private static final String SPY_CLASS_NAME = BASE.replace("GeneratedSpyBase", "GeneratedSpy");
+	private static final String CONSTRUCTOR_DESCRIPTOR = "(Lse/uu/ub/cora/testutils/mcr/"
+			+ "MethodCallRecorder;ILjava/lang/String;)V";
+	private static final String RECORD_CALL_DESCRIPTOR = "(I[Ljava/lang/Object;)V";
+	private static final String RECORD_CALL_AND_RETURN_DESCRIPTOR = "(I[Ljava/lang/Object;)"
+			+ "Ljava/lang/Object;";
+	private static final Module THIS_MODULE = GeneratedSpyBase.class.getModule();
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(void.class,
+			MethodCallRecorder.class, int.class, String.class);
+
+	private final SpiedInterface spiedInterface;
+	private final ConstantPool constantPool = new ConstantPool();
+
+	private SpyClassGenerator(SpiedInterface spiedInterface) {
+		this.spiedInterface = spiedInterface;
+	}
+
+	/**
+	 * generateSpyClassFor generates a spy class for the interface and returns a MethodHandle for
+	 * its constructor, taking the MCR the spy records calls in, the id the first method of the
+	 * interface is registered with in the MCR, and the name of the interface.
+	 * 
+	 * @return A MethodHandle for the constructor, or null if no class can be generated for the
+	 *         interface
+	 */
+	static MethodHandle generateSpyClassFor(SpiedInterface spiedInterface) {
+		Set<Class<?>> types = collectTypesUsedBy(spiedInterface);
+		if (!allTypesAreAccessibleFromThisModule(types)) {
+			return null;
+		}
+		readModulesOfTypes(types);
+		byte[] classBytes = new SpyClassGenerator(spiedInterface).writeClass();
+		return defineSpyClass(spiedInterface, classBytes);
+	}
+
+	private static boolean allTypesAreAccessibleFromThisModule(Set<Class<?>> types) {
+		for (Class<?> type : types) {
+			if (!isAccessibleFromThisModule(type)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void readModulesOfTypes(Set<Class<?>> types) {
+		for (Class<?> type : types) {
+			THIS_MODULE.addReads(type.getModule());
+		}
+	}
+
+	private static Set<Class<?>> collectTypesUsedBy(SpiedInterface spiedInterface) {
+		Set<Class<?>> types = new HashSet<>();
+		types.add(spiedInterface.getSpiedInterface());
+		for (int i = 0; i < spiedInterface.getNumberOfMethods(); i++) {
+			Method method = spiedInterface.getMethod(i);
+			possiblyAddType(types, method.getReturnType());
+			for (Class<?> parameterType : method.getParameterTypes()) {
+				possiblyAddType(types, parameterType);
+			}
+		}
+		return types;
+	}
+
+	private static void possiblyAddType(Set<Class<?>> types, Class<?> type) {
+		Class<?> elementType = type;
+		while (elementType.isArray()) {
+			elementType = elementType.getComponentType();
+		}
+		if (!elementType.isPrimitive()) {
+			types.add(elementType);
+		}
+	}
+
+	private static boolean isAccessibleFromThisModule(Class<?> type) {
+		return Modifier.isPublic(type.getModifiers()) && !type.isHidden()
+				&& type.getModule().isExported(type.getPackageName(), THIS_MODULE)
+				&& isVisibleFromThisClassLoader(type);
+	}
+
+	private static boolean isVisibleFromThisClassLoader(Class<?> type) {
+		try {
+			return type == Class.forName(type.getName(), false,
+					GeneratedSpyBase.class.getClassLoader());
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	private static MethodHandle defineSpyClass(SpiedInterface spiedInterface, byte[] classBytes) {
+		try {
+			Lookup spyClassLookup = MethodHandles.lookup().defineHiddenClass(classBytes, true);
+			return spyClassLookup.findConstructor(spyClassLookup.lookupClass(), CONSTRUCTOR_TYPE);
+		} catch (ReflectiveOperationException e) {
+			throw new RuntimeException("Could not generate spy class for: "
+					+ spiedInterface.getSpiedInterface().getName(), e);
+		}
+	}
+
+	private byte[] writeClass() {
+		ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+		int numberOfMethods = writeMethods(new DataOutputStream(methodBytes));
+		int thisClass = constantPool.classReference(SPY_CLASS_NAME);
+		int superClass = constantPool.classReference(BASE);
+		int spiedInterfaceClass = constantPool.classReference(
+				internalName(spiedInterface.getSpiedInterface()));
+
+		ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+		try {
+			DataOutputStream out = new DataOutputStream(classBytes);
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0);
+			out.writeShort(CLASS_FILE_VERSION_JAVA_17);
+			constantPool.writeTo(out);
+			out.writeShort(ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC);
+			out.writeShort(thisClass);
+			out.writeShort(superClass);
+			out.writeShort(1);
+			out.writeShort(spiedInterfaceClass);
+			out.writeShort(0);
+			out.writeShort(numberOfMethods);
+			methodBytes.writeTo(out);
+			out.writeShort(0);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return classBytes.toByteArray();
+	}
+
+	private int writeMethods(DataOutputStream out) {
+		try {
+			writeConstructor(out);
+			return 1 + writeSpiedMethods(out);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void writeConstructor(DataOutputStream out) throws IOException {
+		Code code = new Code();
+		code.op(ALOAD_0);
+		code.op(ALOAD, 1);
+		code.op(ILOAD, 2);
+		code.op(ALOAD, 3);
+		code.opWithIndex(INVOKESPECIAL,
+				constantPool.methodReference(BASE, "<init>", CONSTRUCTOR_DESCRIPTOR));
+		code.op(RETURN);
+		writeMethod(out, 0, "<init>", CONSTRUCTOR_DESCRIPTOR, code, MAX_STACK_FOR_CONSTRUCTOR, 4);
+	}
+
+	private int writeSpiedMethods(DataOutputStream out) throws IOException {
+		Set<String> writtenSignatures = new HashSet<>();
+		for (int position = 0; position < spiedInterface.getNumberOfMethods(); position++) {
+			Method method = spiedInterface.getMethod(position);
+			String descriptor = MethodType
+					.methodType(method.getReturnType(), method.getParameterTypes())
+					.toMethodDescriptorString();
+			if (writtenSignatures.add(method.getName() + descriptor)) {
+				writeSpiedMethod(out, position, method, descriptor);
+			}
+		}
+		return writtenSignatures.size();
+	}
+
+	private void writeSpiedMethod(DataOutputStream out, int position, Method method,
+			String descriptor) throws IOException {
+		Code code = new Code();
+		code.op(ALOAD_0);
+		code.pushInt(position);
+		int numberOfLocals = writeParameterValuesArray(code, method.getParameterTypes());
+		writeRecordCallAndReturn(code, method.getReturnType());
+		writeMethod(out, ACC_PUBLIC | ACC_FINAL, method.getName(), descriptor, code,
+				MAX_STACK_FOR_METHOD, numberOfLocals);
+	}
+
+	private int writeParameterValuesArray(Code code, Class<?>[] parameterTypes) {
+		code.pushInt(parameterTypes.length);
+		code.opWithIndex(ANEWARRAY, constantPool.classReference(OBJECT));
+		int slot = 1;
+		for (int i = 0; i < parameterTypes.length; i++) {
+			code.op(DUP);
+			code.pushInt(i);
+			slot += loadAndBoxParameter(code, parameterTypes[i], slot);
+			code.op(AASTORE);
+		}
+		return slot;
+	}
+
+	private int loadAndBoxParameter(Code code, Class<?> type, int slot) {
+		if (!type.isPrimitive()) {
+			code.op(ALOAD, slot);
+			return 1;
+		}
+		code.op(loadInstructionFor(type), slot);
+		Class<?> boxedType = MethodType.methodType(type).wrap().returnType();
+		String descriptor = "(" + type.descriptorString() + ")" + boxedType.descriptorString();
+		code.opWithIndex(INVOKESTATIC,
+				constantPool.methodReference(internalName(boxedType), "valueOf", descriptor));
+		return long.class == type || double.class == type ? 2 : 1;
+	}
+
+	private int loadInstructionFor(Class<?> type) {
+		if (long.class == type) {
+			return LLOAD;
+		}
+		if (float.class == type) {
+			return FLOAD;
+		}
+		if (double.class == type) {
+			return DLOAD;
+		}
+		return ILOAD;
+	}
+
+	private void writeRecordCallAndReturn(Code code, Class<?> returnType) {
+		if (void.class == returnType) {
+			code.opWithIndex(INVOKEVIRTUAL,
+					constantPool.methodReference(BASE, "recordCall", RECORD_CALL_DESCRIPTOR));
+			code.op(RETURN);
+			return;
+		}
+		code.opWithIndex(INVOKEVIRTUAL, constantPool.methodReference(BASE, "recordCallAndReturn",
+				RECORD_CALL_AND_RETURN_DESCRIPTOR));
+		if (returnType.isPrimitive()) {
+			writeUnboxAndReturn(code, returnType);
+		} else {
+			writeCastAndReturn(code, returnType);
+		}
+	}
+
+	private void writeUnboxAndReturn(Code code, Class<?> returnType) {
+		String typeName = returnType.getName();
+		String methodName = "to" + Character.toUpperCase(typeName.charAt(0))
+				+ typeName.substring(1);
+		String descriptor = "(Ljava/lang/Object;)" + returnType.descriptorString();
+		code.opWithIndex(INVOKESTATIC, constantPool.methodReference(BASE, methodName, descriptor));
+		code.op(returnInstructionFor(returnType));
+	}
+
+	private int returnInstructionFor(Class<?> returnType) {
+		if (long.class == returnType) {
+			return LRETURN;
+		}
+		if (float.class == returnType) {
+			return FRETURN;
+		}
+		if (double.class == returnType) {
+			return DRETURN;
+		}
+		return IRETURN;
+	}
+
+	private void writeCastAndReturn(Code code, Class<?> returnType) {
+		if (Object.class != returnType) {
+			code.opWithIndex(CHECKCAST, constantPool.classReference(internalName(returnType)));
+		}
+		code.op(ARETURN);
+	}
+
+	private void writeMethod(DataOutputStream out, int accessFlags, String name,
+			String descriptor, Code code, int maxStack, int maxLocals) throws IOException {
+		out.writeShort(accessFlags);
+		out.writeShort(constantPool.utf8(name));
+		out.writeShort(constantPool.utf8(descriptor));
+		out.writeShort(1);
+		out.writeShort(constantPool.utf8("Code"));
+		byte[] instructions = code.toByteArray();
+		out.writeInt(12 + instructions.length);
+		out.writeShort(maxStack);
+		out.writeShort(maxLocals);
+		out.writeInt(instructions.length);
+		out.write(instructions);
+		out.writeShort(0);
+		out.writeShort(0);
+	}
+
+	private static String internalName(Class<?> type) {
+		if (type.isArray()) {
+			return type.descriptorString();
+		}
+		return type.getName().replace('.', '/');
+	}
+
+	private static class Code {
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		void op(int opcode) {
+			bytes.write(opcode);
+		}
+
+		void op(int opcode, int operand) {
+			bytes.write(opcode);
+			bytes.write(operand);
+		}
+
+		void opWithIndex(int opcode, int index) {
+			bytes.write(opcode);
+			writeShort(index);
+		}
+
+		void pushInt(int value) {
+			if (value <= 5) {
+				bytes.write(ICONST_0 + value);
+			} else if (value <= Byte.MAX_VALUE) {
+				op(BIPUSH, value);
+			} else {
+				opWithIndex(SIPUSH, value);
+			}
+		}
+
+		private void writeShort(int value) {
+			bytes.write(value >>> 8);
+			bytes.write(value);
+		}
+
+		byte[] toByteArray() {
+			return bytes.toByteArray();
+		}
+	}
+
+	private static class ConstantPool {
+		private static final int CONSTANT_UTF8 = 1;
+		private static final int CONSTANT_CLASS = 7;
+		private static final int CONSTANT_METHODREF = 10;
+		private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream out = new DataOutputStream(bytes);
+		private final Map<String, Integer> entries = new HashMap<>();
+		private int nextIndex = 1;
+
+		int utf8(String value) {
+			return entries.computeIfAbsent("utf8:" + value, key -> {
+				write(out -> {
+					out.writeByte(CONSTANT_UTF8);
+					out.writeUTF(value);
+				});
+				return nextIndex++;
+			});
+		}
+
+		int classReference(String internalName) {
+			int name = utf8(internalName);
+			return entries.computeIfAbsent("class:" + internalName, key -> {
+				write(out -> {
+					out.writeByte(CONSTANT_CLASS);
+					out.writeShort(name);
+				});
+				return nextIndex++;
+			});
+		}
+
+		int methodReference(String owner, String name, String descriptor) {
+			int ownerClass = classReference(owner);
+			int nameAndType = nameAndType(name, descriptor);
+			return entries.computeIfAbsent("method:" + owner + "." + name + descriptor, key -> {
+				write(out -> {
+					out.writeByte(CONSTANT_METHODREF);
+					out.writeShort(ownerClass);
+					out.writeShort(nameAndType);
+				});
+				return nextIndex++;
+			});
+		}
+
+		private int nameAndType(String name, String descriptor) {
+			int nameIndex = utf8(name);
+			int descriptorIndex = utf8(descriptor);
+			return entries.computeIfAbsent("nameAndType:" + name + descriptor, key -> {
+				write(out -> {
+					out.writeByte(CONSTANT_NAME_AND_TYPE);
+					out.writeShort(nameIndex);
+					out.writeShort(descriptorIndex);
+				});
+				return nextIndex++;
+			});
+		}
+
+		private void write(Entry entry) {
+			try {
+				entry.writeTo(out);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		void writeTo(DataOutputStream classOut) throws IOException {
+			classOut.writeShort(nextIndex);
+			bytes.writeTo(classOut);
+		}
+
+		@FunctionalInterface
+		private interface Entry {
+			void writeTo(DataOutputStream out) throws IOException;
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.spy;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+
+/**
+ * SpyInvocationHandler records calls to a proxy created by {@link AutoSpy} in a
+ * {@link MethodCallRecorder}, using the method ids registered for the spied methods when the spy
+ * was created, and answers the calls using the MethodReturnValues the recorder uses.
+ * <p>
+ * The methods equals, hashCode and toString from Object are answered by the handler and are not
+ * recorded.
+ */
+class SpyInvocationHandler implements InvocationHandler {
+	private static final Object[] NO_VALUES = new Object[0];
+	private final SpiedInterface spiedInterface;
+	private final MethodCallRecorder MCR;
+	private final int[] methodIds;
+
+	SpyInvocationHandler(SpiedInterface spiedInterface, MethodCallRecorder MCR, int[] methodIds) {
+		this.spiedInterface = spiedInterface;
+		this.MCR = MCR;
+		this.methodIds = methodIds;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) {
+		int position = spiedInterface.getPositionOfMethod(method);
+		if (position == SpiedInterface.METHOD_NOT_FOUND) {
+			return invokeObjectMethod(proxy, method, args);
+		}
+		Object[] values = null == args ? NO_VALUES : args;
+		return recordCallAndReturn(spiedInterface.getSpiedMethod(position), methodIds[position],
+				values);
+	}
+
+	private Object recordCallAndReturn(SpiedMethod spiedMethod, int methodId, Object[] values) {
+		if (spiedMethod.returnsVoid()) {
+			MCR.addCallForMethodId(methodId, values);
+			return null;
+		}
+		Object returnValue = MCR.addCallAndReturnFromMRVForMethodId(methodId, values);
+		if (null == returnValue) {
+			return spiedMethod.getDefaultReturnValue();
+		}
+		return returnValue;
+	}
+
+	private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+		String methodName = method.getName();
+		if ("equals".equals(methodName)) {
+			return proxy == args[0];
+		}
+		if ("hashCode".equals(methodName)) {
+			return System.identityHashCode(proxy);
+		}
+		if ("toString".equals(methodName)) {
+			return "AutoSpy for " + spiedInterface.getSpiedInterface().getName();
+		}
+		throw new RuntimeException(
+				"Method not spied on for (methodName: %s)".formatted(methodName));
+	}
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class AsyncMethodCallListenerTest {
+	private MethodCallListenerSpy listenerSpy;
+	private AsyncMethodCallListener asyncListener;
+
+	@BeforeMethod
+	public void beforeMethod() {
+		listenerSpy = new MethodCallListenerSpy();
+		asyncListener = new AsyncMethodCallListener(listenerSpy);
+	}
+
+	@AfterMethod
+	public void afterMethod() {
+		try {
+			asyncListener.close();
+		} catch (RuntimeException e) {
+			// some tests close the listener with an error
+		}
+	}
+
+	@Test
+	public void testCallsAreDeliveredOnBackgroundThread() throws Exception {
+		ThreadRecordingListener threadRecordingListener = new ThreadRecordingListener();
+		asyncListener = new AsyncMethodCallListener(threadRecordingListener);
+
+		asyncListener.callRecorded("read", new String[] { "id" }, new Object[] { "someId" });
+		asyncListener.close();
+
+		assertEquals(threadRecordingListener.threadNames, List.of("AsyncMethodCallListener"));
+	}
+
+	private static class ThreadRecordingListener implements MethodCallListener {
+		List<String> threadNames = new ArrayList<>();
+
+		@Override
+		public void callRecorded(String methodName, String[] parameterNames, Object[] values) {
+			threadNames.add(Thread.currentThread().getName());
+		}
+
+		@Override
+		public void returnedValueRecorded(String methodName, Object returnedValue) {
+			threadNames.add(Thread.currentThread().getName());
+		}
+	}
+
+	@Test
+	public void testCallsAndReturnedValuesAreDeliveredInOrder() throws Exception {
+		String[] parameterNames = { "id" };
+		for (int i = 0; i < 1000; i++) {
+			Object[] values = { i };
+			asyncListener.callRecorded("read", parameterNames, values);
+			asyncListener.returnedValueRecorded("read", i);
+		}
+
+		asyncListener.close();
+
+		listenerSpy.MCR.assertNumberOfCallsToMethod("callRecorded", 1000);
+		listenerSpy.MCR.assertNumberOfCallsToMethod("returnedValueRecorded", 1000);
+		for (int i = 0; i < 1000; i++) {
+			listenerSpy.MCR.assertCalledBefore("callRecorded", i, "returnedValueRecorded", i);
+			listenerSpy.MCR.assertParameters("returnedValueRecorded", i, "read", i);
+		}
+	}
+
+	@Test
+	public void testDeliveredArraysAreTheRecordedArrays() throws Exception {
+		String[] parameterNames = { "id" };
+		Object[] values = { "someId" };
+
+		asyncListener.callRecorded("read", parameterNames, values);
+		asyncListener.flush();
+
+		listenerSpy.MCR.assertParameters("callRecorded", 0, "read", parameterNames, values);
+	}
+
+	@Test
+	public void testFlushWaitsForDelivery() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		BlockingListener blockingListener = new BlockingListener(release);
+		asyncListener = new AsyncMethodCallListener(blockingListener);
+		asyncListener.returnedValueRecorded("read", "value");
+
+		Thread flushThread = new Thread(asyncListener::flush);
+		flushThread.start();
+		flushThread.join(50);
+		assertTrue(flushThread.isAlive());
+
+		release.countDown();
+		flushThread.join(5000);
+		assertFalse(flushThread.isAlive());
+		assertEquals(blockingListener.numberOfDelivered, 1);
+	}
+
+	private static class BlockingListener implements MethodCallListener {
+		private final CountDownLatch release;
+		volatile int numberOfDelivered = 0;
+
+		BlockingListener(CountDownLatch release) {
+			this.release = release;
+		}
+
+		@Override
+		public void callRecorded(String methodName, String[] parameterNames, Object[] values) {
+			waitForRelease();
+			numberOfDelivered++;
+		}
+
+		@Override
+		public void returnedValueRecorded(String methodName, Object returnedValue) {
+			waitForRelease();
+			numberOfDelivered++;
+		}
+
+		private void waitForRelease() {
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	@Test
+	public void testFullQueueMakesRecordingWait() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		BlockingListener blockingListener = new BlockingListener(release);
+		asyncListener = new AsyncMethodCallListener(blockingListener, 1, 1);
+		Thread recordingThread = new Thread(() -> {
+			for (int i = 0; i < 3; i++) {
+				asyncListener.returnedValueRecorded("read", i);
+			}
+		});
+
+		recordingThread.start();
+		recordingThread.join(50);
+		assertTrue(recordingThread.isAlive());
+
+		release.countDown();
+		recordingThread.join(5000);
+		asyncListener.close();
+		assertEquals(blockingListener.numberOfDelivered, 3);
+	}
+
+	@Test
+	public void testErrorInListenerIsThrownFromFlush() throws Exception {
+		RuntimeException error = new RuntimeException("listenerError");
+		asyncListener = new AsyncMethodCallListener(new FailingListener(error));
+		asyncListener.returnedValueRecorded("read", "value");
+
+		try {
+			asyncListener.flush();
+			fail();
+		} catch (RuntimeException e) {
+			assertEquals(e.getMessage(), "Listener failed when delivering recorded calls");
+			assertEquals(e.getCause(), error);
+		}
+	}
+
+	private static class FailingListener implements MethodCallListener {
+		private final RuntimeException error;
+
+		FailingListener(RuntimeException error) {
+			this.error = error;
+		}
+
+		@Override
+		public void callRecorded(String methodName, String[] parameterNames, Object[] values) {
+			throw error;
+		}
+
+		@Override
+		public void returnedValueRecorded(String methodName, Object returnedValue) {
+			throw error;
+		}
+	}
+
+	@Test
+	public void testErrorInListenerIsThrownFromClose() throws Exception {
+		RuntimeException error = new RuntimeException("listenerError");
+		asyncListener = new AsyncMethodCallListener(new FailingListener(error));
+		asyncListener.callRecorded("read", new String[0], new Object[0]);
+
+		try {
+			asyncListener.close();
+			fail();
+		} catch (RuntimeException e) {
+			assertEquals(e.getMessage(), "Listener failed when delivering recorded calls");
+			assertEquals(e.getCause(), error);
+		}
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "AsyncMethodCallListener is closed")
+	public void testRecordingAfterClose() throws Exception {
+		asyncListener.close();
+
+		asyncListener.returnedValueRecorded("read", "value");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Queue capacity must be larger than 0, was: 0")
+	public void testQueueCapacityMustBePositive() throws Exception {
+		new AsyncMethodCallListener(listenerSpy, 0, 1);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Max batch size must be larger than 0, was: 0")
+	public void testMaxBatchSizeMustBePositive() throws Exception {
+		new AsyncMethodCallListener(listenerSpy, 1, 0);
+	}
+
+	@Test
+	public void testUsedByConcurrentRecorder() throws Exception {
+		ConcurrentMethodCallRecorder MCR = new ConcurrentMethodCallRecorder();
+		MCR.useCountingOnly();
+		MCR.useListener(asyncListener);
+		List<Thread> threads = new ArrayList<>();
+		for (int thread = 0; thread < 8; thread++) {
+			Thread recordingThread = new Thread(() -> recordCalls(MCR));
+			recordingThread.start();
+			threads.add(recordingThread);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		asyncListener.close();
+
+		listenerSpy.MCR.assertNumberOfCallsToMethod("callRecorded", 8 * 1000);
+		listenerSpy.MCR.assertNumberOfCallsToMethod("returnedValueRecorded", 8 * 1000);
+	}
+
+	private void recordCalls(MethodCallRecorder MCR) {
+		for (int call = 0; call < 1000; call++) {
+			MCR.addCallForMethodNameAndParameters("read", "call", call);
+			MCR.addReturnedForMethodNameAndReturnValue("read", call);
+		}
+	}
+}
@@ -0,0 +1,542 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.testutils.mrv.ConcurrentMethodReturnValues;
+import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
+
+public class ConcurrentMethodCallRecorderTest {
+	private static final int NUMBER_OF_THREADS = 16;
+	private static final int CALLS_PER_THREAD = 2000;
+	private ConcurrentMethodCallRecorder MCR;
+	private ExecutorService executor;
+
+	@BeforeMethod
+	public void beforeMethod() {
+		MCR = new ConcurrentMethodCallRecorder();
+		executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+	}
+
+	@AfterMethod
+	public void afterMethod() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testIsMethodCallRecorder() throws Exception {
+		assertTrue(MCR instanceof MethodCallRecorder);
+	}
+
+	@Test
+	public void testAddCallUsesCallingMethodName() throws Exception {
+		MCR.addCall("param", "value");
+		MCR.addReturned("returned");
+
+		MCR.assertParameters("testAddCallUsesCallingMethodName", 0, "value");
+		MCR.assertReturn("testAddCallUsesCallingMethodName", 0, "returned");
+	}
+
+	@Test
+	public void testNoCallsLostWhenRecordingFromManyThreads() throws Exception {
+		runInAllThreads(this::recordCallsForThread);
+
+		assertEquals(MCR.getNumberOfCallsToMethod("sharedMethod"),
+				NUMBER_OF_THREADS * CALLS_PER_THREAD);
+		assertEquals(MCR.getReturnValues("sharedMethod").size(),
+				NUMBER_OF_THREADS * CALLS_PER_THREAD);
+		for (int thread = 0; thread < NUMBER_OF_THREADS; thread++) {
+			assertEquals(MCR.getNumberOfCallsToMethod("method" + thread), CALLS_PER_THREAD);
+		}
+	}
+
+	private void recordCallsForThread(int thread) {
+		for (int call = 0; call < CALLS_PER_THREAD; call++) {
+			MCR.addCallForMethodNameAndParameters("sharedMethod", "thread", thread, "call", call);
+			MCR.addReturnedForMethodNameAndReturnValue("sharedMethod", call);
+			MCR.addCallForMethodNameAndParameters("method" + thread, "call", call);
+		}
+	}
+
+	@Test
+	public void testCallsFromOneThreadKeepTheirOrder() throws Exception {
+		runInAllThreads(this::recordCallsForThread);
+
+		int[] nextCallForThread = new int[NUMBER_OF_THREADS];
+		for (int callNumber = 0; callNumber < NUMBER_OF_THREADS
+				* CALLS_PER_THREAD; callNumber++) {
+			int thread = (int) MCR.getParameterForMethodAndCallNumberAndParameter("sharedMethod",
+					callNumber, "thread");
+			MCR.assertParameter("sharedMethod", callNumber, "call", nextCallForThread[thread]);
+			nextCallForThread[thread]++;
+		}
+	}
+
+	@Test
+	public void testReturnedValueBelongsToCallWithSameNumber() throws Exception {
+		runInAllThreads(thread -> {
+			for (int call = 0; call < CALLS_PER_THREAD; call++) {
+				MCR.addCallForMethodNameAndParameters("sharedMethod", "thread", thread, "call",
+						call);
+				if (call % 2 == 0) {
+					Thread.yield();
+				}
+				MCR.addReturnedForMethodNameAndReturnValue("sharedMethod", thread + "/" + call);
+			}
+		});
+
+		for (int callNumber = 0; callNumber < NUMBER_OF_THREADS
+				* CALLS_PER_THREAD; callNumber++) {
+			assertEquals(MCR.getReturnValue("sharedMethod", callNumber),
+					getThreadAndCall(callNumber));
+		}
+	}
+
+	@Test
+	public void testReturnedValueHeldBackUntilEarlierCallReturns() throws Exception {
+		MCR.addCallForMethodNameAndParameters("sharedMethod", "call", 0);
+		executor.submit(() -> {
+			MCR.addCallForMethodNameAndParameters("sharedMethod", "call", 1);
+			MCR.addReturnedForMethodNameAndReturnValue("sharedMethod", "second");
+		}).get(30, TimeUnit.SECONDS);
+		MCR.addReturnedForMethodNameAndReturnValue("sharedMethod", "first");
+
+		assertEquals(MCR.getReturnValues("sharedMethod"), List.of("first", "second"));
+	}
+
+	@Test
+	public void testReturnedValueNotHeldBackByCallEndedWithoutReturned() throws Exception {
+		MCR.addCallForMethodNameAndParameters("sharedMethod", "call", 0);
+		executor.submit(() -> {
+			MCR.addCallForMethodNameAndParameters("sharedMethod", "call", 1);
+			MCR.addReturnedForMethodNameAndReturnValue("sharedMethod", "second");
+		}).get(30, TimeUnit.SECONDS);
+
+		MCR.addCallForMethodNameAndParameters("sharedMethod", "call", 2);
+		MCR.addReturnedForMethodNameAndReturnValue("sharedMethod", "third");
+
+		assertEquals(MCR.getReturnValues("sharedMethod"), List.of("second", "third"));
+	}
+
+	private String getThreadAndCall(int callNumber) {
+		Object thread = MCR.getParameterForMethodAndCallNumberAndParameter("sharedMethod",
+				callNumber, "thread");
+		Object call = MCR.getParameterForMethodAndCallNumberAndParameter("sharedMethod",
+				callNumber, "call");
+		return thread + "/" + call;
+	}
+
+	@Test
+	public void testReturnedValueFromMRVKeepsCallOrderWhenSomeCallsThrow() throws Exception {
+		ThreadLocal<String> currentCall = new ThreadLocal<>();
+		MethodReturnValues MRV = new ConcurrentMethodReturnValues();
+		MRV.setDefaultReturnValuesSupplier("sharedMethod",
+				() -> returnOrThrowForCall(currentCall.get()));
+		MCR.useMRV(MRV);
+
+		runInAllThreads(thread -> {
+			for (int call = 0; call < CALLS_PER_THREAD; call++) {
+				currentCall.set(thread + "/" + call);
+				try {
+					sharedMethod(thread, call);
+				} catch (RuntimeException e) {
+					assertEquals(e.getMessage(), "thrown for " + thread + "/" + call);
+				}
+			}
+		});
+
+		int returnedNumber = 0;
+		for (int callNumber = 0; callNumber < NUMBER_OF_THREADS
+				* CALLS_PER_THREAD; callNumber++) {
+			String threadAndCall = getThreadAndCall(callNumber);
+			if (!threadAndCall.endsWith("0")) {
+				assertEquals(MCR.getReturnValue("sharedMethod", returnedNumber), threadAndCall);
+				returnedNumber++;
+			}
+		}
+		assertEquals(MCR.getReturnValues("sharedMethod").size(), returnedNumber);
+	}
+
+	private Object sharedMethod(int thread, int call) {
+		return MCR.addCallAndReturnFromMRV("thread", thread, "call", call);
+	}
+
+	private String returnOrThrowForCall(String threadAndCall) {
+		if (threadAndCall.endsWith("0")) {
+			throw new RuntimeException("thrown for " + threadAndCall);
+		}
+		return threadAndCall;
+	}
+
+	@Test
+	public void testSequenceNumbersAreUniqueAndFollowCallOrder() throws Exception {
+		runInAllThreads(this::recordCallsForThread);
+
+		Set<Long> sequenceNumbers = new HashSet<>();
+		long previous = -1;
+		for (int callNumber = 0; callNumber < NUMBER_OF_THREADS
+				* CALLS_PER_THREAD; callNumber++) {
+			long sequenceNumber = MCR.getSequenceNumberForMethodAndCallNumber("sharedMethod",
+					callNumber);
+			assertTrue(sequenceNumber > previous);
+			previous = sequenceNumber;
+			sequenceNumbers.add(sequenceNumber);
+		}
+		for (int thread = 0; thread < NUMBER_OF_THREADS; thread++) {
+			for (int callNumber = 0; callNumber < CALLS_PER_THREAD; callNumber++) {
+				sequenceNumbers.add(
+						MCR.getSequenceNumberForMethodAndCallNumber("method" + thread, callNumber));
+			}
+		}
+		assertEquals(sequenceNumbers.size(), 2 * NUMBER_OF_THREADS * CALLS_PER_THREAD);
+	}
+
+	private void runInAllThreads(ThreadWork work) throws Exception {
+		waitForAll(startInAllThreads(work));
+	}
+
+	private List<Future<?>> startInAllThreads(ThreadWork work) {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int thread = 0; thread < NUMBER_OF_THREADS; thread++) {
+			int threadNumber = thread;
+			futures.add(executor.submit(() -> {
+				start.await();
+				work.run(threadNumber);
+				return null;
+			}));
+		}
+		start.countDown();
+		return futures;
+	}
+
+	private void waitForAll(List<Future<?>> futures) throws Exception {
+		for (Future<?> future : futures) {
+			future.get(30, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	public void testSequenceNumberOfSingleCalls() throws Exception {
+		MCR.addCallForMethodNameAndParameters("first");
+		MCR.addCallForMethodNameAndParameters("second");
+		MCR.addCallForMethodNameAndParameters("first");
+
+		assertEquals(MCR.getSequenceNumberForMethodAndCallNumber("first", 0), 0);
+		assertEquals(MCR.getSequenceNumberForMethodAndCallNumber("second", 0), 1);
+		assertEquals(MCR.getSequenceNumberForMethodAndCallNumber("first", 1), 2);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "MethodName not found for \\(methodName: notCalled, callNumber: 0\\)")
+	public void testSequenceNumberMethodNotFound() throws Exception {
+		MCR.getSequenceNumberForMethodAndCallNumber("notCalled", 0);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "CallNumber not found for \\(methodName: first, callNumber: 1\\)")
+	public void testSequenceNumberCallNumberNotFound() throws Exception {
+		MCR.addCallForMethodNameAndParameters("first");
+
+		MCR.getSequenceNumberForMethodAndCallNumber("first", 1);
+	}
+
+	@Test
+	public void testRetainOnlyLastCalls() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(10);
+
+		runInAllThreads(this::recordCallsForThread);
+
+		int numberOfCalls = NUMBER_OF_THREADS * CALLS_PER_THREAD;
+		assertEquals(MCR.getNumberOfCallsToMethod("sharedMethod"), numberOfCalls);
+		assertEquals(MCR.getReturnValues("sharedMethod").size(), 10);
+		long previous = -1;
+		for (int callNumber = numberOfCalls - 10; callNumber < numberOfCalls; callNumber++) {
+			long sequenceNumber = MCR.getSequenceNumberForMethodAndCallNumber("sharedMethod",
+					callNumber);
+			assertTrue(sequenceNumber > previous);
+			previous = sequenceNumber;
+		}
+	}
+
+	@Test
+	public void testUseCountingOnly() throws Exception {
+		MCR.useCountingOnly();
+
+		runInAllThreads(this::recordCallsForThread);
+
+		assertEquals(MCR.getNumberOfCallsToMethod("sharedMethod"),
+				NUMBER_OF_THREADS * CALLS_PER_THREAD);
+	}
+
+	@Test
+	public void testCallTimingPairsCallsAndReturnedValuesPerThread() throws Exception {
+		ThreadLocal<long[]> timeForThread = ThreadLocal.withInitial(() -> new long[1]);
+		MCR.useCallTiming(() -> timeForThread.get()[0] += 10);
+
+		runInAllThreads(this::recordCallsForThread);
+
+		LatencyHistogram callDurations = MCR.getCallDurations("sharedMethod");
+		assertEquals(callDurations.getCount(), NUMBER_OF_THREADS * CALLS_PER_THREAD);
+		assertEquals(callDurations.getMin(), 10);
+		assertEquals(callDurations.getMax(), 10);
+		assertEquals(MCR.getTimesBeforeCalls("sharedMethod").getMax(), 10);
+	}
+
+	@Test
+	public void testSinceMarkWhileRecordingFromManyThreads() throws Exception {
+		runInAllThreads(this::recordCallsForThread);
+		RecordingMark mark = MCR.mark();
+
+		runInAllThreads(this::recordCallsForThread);
+
+		MethodCallRecorder sinceMark = MCR.since(mark);
+		assertEquals(sinceMark.getNumberOfCallsToMethod("sharedMethod"),
+				NUMBER_OF_THREADS * CALLS_PER_THREAD);
+		assertEquals(sinceMark.getReturnValues("sharedMethod").size(),
+				NUMBER_OF_THREADS * CALLS_PER_THREAD);
+		for (int thread = 0; thread < NUMBER_OF_THREADS; thread++) {
+			sinceMark.assertNumberOfCallsToMethod("method" + thread, CALLS_PER_THREAD);
+			sinceMark.assertParameters("method" + thread, 0, 0);
+		}
+	}
+
+	@Test
+	public void testResetAndRecordFromManyThreads() throws Exception {
+		runInAllThreads(this::recordCallsForThread);
+
+		MCR.reset();
+		runInAllThreads(this::recordCallsForThread);
+
+		assertEquals(MCR.getNumberOfCallsToMethod("sharedMethod"),
+				NUMBER_OF_THREADS * CALLS_PER_THREAD);
+		assertEquals(MCR.getReturnValues("sharedMethod").size(),
+				NUMBER_OF_THREADS * CALLS_PER_THREAD);
+	}
+
+	@Test
+	public void testAwaitNumberOfCallsToMethodRecordedFromManyThreads() throws Exception {
+		List<Future<?>> futures = startInAllThreads(this::recordCallsForThread);
+
+		MCR.awaitNumberOfCallsToMethod("sharedMethod", NUMBER_OF_THREADS * CALLS_PER_THREAD,
+				Duration.ofSeconds(30));
+
+		assertEquals(MCR.getNumberOfCallsToMethod("sharedMethod"),
+				NUMBER_OF_THREADS * CALLS_PER_THREAD);
+		waitForAll(futures);
+	}
+
+	@Test
+	public void testAwaitCalledParametersRecordedFromOtherThread() throws Exception {
+		List<Future<?>> futures = startInAllThreads(this::recordCallsForThread);
+
+		MCR.awaitCalledParameters("sharedMethod", Duration.ofSeconds(30), 3,
+				CALLS_PER_THREAD - 1);
+
+		MCR.assertCalledParameters("sharedMethod", 3, CALLS_PER_THREAD - 1);
+		waitForAll(futures);
+	}
+
+	@Test
+	public void testAwaitReturnsWhenCallIsRecordedNotWhenTimeoutPasses() throws Exception {
+		Future<?> future = executor.submit(() -> {
+			Thread.sleep(50);
+			MCR.addCallForMethodNameAndParameters("read", "id", "someId");
+			return null;
+		});
+		long start = System.nanoTime();
+
+		MCR.awaitCalledParameters("read", Duration.ofSeconds(30), "someId");
+
+		assertTrue(System.nanoTime() - start < Duration.ofSeconds(10).toNanos());
+		future.get(30, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testAwaitSinceMark() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "id", "before");
+		MethodCallRecorder sinceMark = MCR.since(MCR.mark());
+		Future<?> future = executor.submit(() -> {
+			MCR.addCallForMethodNameAndParameters("read", "id", "after");
+			return null;
+		});
+
+		sinceMark.awaitNumberOfCallsToMethod("read", 1, Duration.ofSeconds(30));
+
+		sinceMark.assertParameters("read", 0, "after");
+		future.get(30, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testAwaitWhenCountingOnly() throws Exception {
+		MCR.useCountingOnly();
+		Future<?> future = executor.submit(() -> {
+			MCR.addCallForMethodNameAndParameters("read", "id", "someId");
+			return null;
+		});
+
+		MCR.awaitNumberOfCallsToMethod("read", 1, Duration.ofSeconds(30));
+
+		assertEquals(MCR.getNumberOfCallsToMethod("read"), 1);
+		future.get(30, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testAwaitNumberOfCallsToMethodTimesOut() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read");
+		try {
+			MCR.awaitNumberOfCallsToMethod("read", 2, Duration.ofMillis(50));
+			fail();
+		} catch (AssertionError e) {
+			assertEquals(e.getMessage(), "Method: read called: 1 times, expected at least: 2 "
+					+ "calls within: PT0.05S");
+		}
+	}
+
+	@Test
+	public void testAwaitCalledParametersTimesOut() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "id", "otherId");
+		try {
+			MCR.awaitCalledParameters("read", Duration.ofMillis(50), "someId");
+			fail();
+		} catch (AssertionError e) {
+			assertEquals(e.getMessage(),
+					"Method: read not called with values: [someId] within: PT0.05S");
+		}
+	}
+
+	@Test
+	public void testAwaitInterrupted() throws Exception {
+		Thread.currentThread().interrupt();
+		try {
+			MCR.awaitNumberOfCallsToMethod("read", 1, Duration.ofSeconds(30));
+			fail();
+		} catch (RuntimeException e) {
+			assertEquals(e.getMessage(),
+					"Interrupted while waiting for calls to (methodName: read)");
+			assertTrue(e.getCause() instanceof InterruptedException);
+			assertTrue(Thread.interrupted());
+		}
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Parameters are not recorded when counting only calls, for \\(methodName: read\\)")
+	public void testAwaitCalledParametersWhenCountingOnly() throws Exception {
+		MCR.useCountingOnly();
+
+		MCR.awaitCalledParameters("read", Duration.ofSeconds(30), "someId");
+	}
+
+	@Test
+	public void testFirstCallsToRegisteredMethodsFromManyThreads() throws Exception {
+		int numberOfMethods = 32;
+		for (int round = 0; round < 200; round++) {
+			MCR = new ConcurrentMethodCallRecorder();
+			MethodReturnValues MRV = new ConcurrentMethodReturnValues();
+			boolean useMRVBeforeRegistering = round % 2 == 0;
+			if (useMRVBeforeRegistering) {
+				MCR.useMRV(MRV);
+			}
+			int[] methodIds = registerMethodsWithReturnValues(MRV, numberOfMethods);
+			if (!useMRVBeforeRegistering) {
+				MCR.useMRV(MRV);
+			}
+
+			runInAllThreads(thread -> {
+				for (int method = 0; method < numberOfMethods; method++) {
+					int methodId = methodIds[(method + thread) % numberOfMethods];
+					assertEquals(MCR.addCallAndReturnFromMRVForMethodId(methodId, thread),
+							"value" + methodId);
+				}
+			});
+
+			for (int method = 0; method < numberOfMethods; method++) {
+				MCR.assertNumberOfCallsToMethod("method" + method, NUMBER_OF_THREADS);
+			}
+		}
+	}
+
+	private int[] registerMethodsWithReturnValues(MethodReturnValues MRV, int numberOfMethods) {
+		int[] methodIds = new int[numberOfMethods];
+		for (int method = 0; method < numberOfMethods; method++) {
+			methodIds[method] = MCR.registerMethod("method" + method, "thread");
+			String returnValue = "value" + methodIds[method];
+			MRV.setDefaultReturnValuesSupplier("method" + method, () -> returnValue);
+		}
+		return methodIds;
+	}
+
+	@Test
+	public void testSetAndRemoveListenerWhileRecording() throws Exception {
+		AtomicInteger numberOfPushed = new AtomicInteger();
+		MethodCallListener countingListener = createCountingListener(numberOfPushed);
+		List<Future<?>> futures = startInAllThreads(this::recordCallsForThread);
+
+		while (!futures.stream().allMatch(Future::isDone)) {
+			MCR.useListener(countingListener);
+			MCR.useListener(null);
+		}
+		waitForAll(futures);
+
+		assertTrue(numberOfPushed.get() <= 3 * NUMBER_OF_THREADS * CALLS_PER_THREAD);
+		MCR.useListener(countingListener);
+		int numberPushedBefore = numberOfPushed.get();
+		MCR.addCallForMethodNameAndParameters("sharedMethod", "thread", -1, "call", -1);
+		assertEquals(numberOfPushed.get(), numberPushedBefore + 1);
+	}
+
+	private MethodCallListener createCountingListener(AtomicInteger numberOfPushed) {
+		return new MethodCallListener() {
+			@Override
+			public void callRecorded(String methodName, String[] parameterNames,
+					Object[] values) {
+				numberOfPushed.incrementAndGet();
+			}
+
+			@Override
+			public void returnedValueRecorded(String methodName, Object returnedValue) {
+				numberOfPushed.incrementAndGet();
+			}
+		};
+	}
+
+	@FunctionalInterface
+	private interface ThreadWork {
+		void run(int thread);
+	}
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class LatencyHistogramTest {
+	private LatencyHistogram histogram;
+
+	@BeforeMethod
+	public void beforeMethod() {
+		histogram = new LatencyHistogram();
+	}
+
+	@Test
+	public void testEmptyHistogram() throws Exception {
+		assertEquals(histogram.getCount(), 0);
+		assertEquals(histogram.getMin(), 0);
+		assertEquals(histogram.getMax(), 0);
+		assertEquals(histogram.getMean(), 0.0);
+		assertEquals(histogram.getValueAtPercentile(99), 0);
+	}
+
+	@Test
+	public void testRecord() throws Exception {
+		histogram.record(10);
+		histogram.record(30);
+		histogram.record(20);
+
+		assertEquals(histogram.getCount(), 3);
+		assertEquals(histogram.getMin(), 10);
+		assertEquals(histogram.getMax(), 30);
+		assertEquals(histogram.getMean(), 20.0);
+	}
+
+	@Test
+	public void testNegativeDurationsAreRecordedAsZero() throws Exception {
+		histogram.record(-5);
+
+		assertEquals(histogram.getCount(), 1);
+		assertEquals(histogram.getMin(), 0);
+		assertEquals(histogram.getMax(), 0);
+	}
+
+	@Test
+	public void testSmallValuesHaveOwnBuckets() throws Exception {
+		for (long value = 0; value < 64; value++) {
+			int bucket = LatencyHistogram.bucketForValue(value);
+
+			assertEquals(bucket, value);
+			assertEquals(LatencyHistogram.highestValueInBucket(bucket), value);
+		}
+	}
+
+	@Test
+	public void testBucketsAreContinuous() throws Exception {
+		int previousBucket = LatencyHistogram.bucketForValue(63);
+		for (long value = 64; value < 1 << 20; value++) {
+			int bucket = LatencyHistogram.bucketForValue(value);
+			if (bucket != previousBucket) {
+				assertEquals(bucket, previousBucket + 1);
+				assertEquals(LatencyHistogram.highestValueInBucket(previousBucket), value - 1);
+				previousBucket = bucket;
+			}
+		}
+	}
+
+	@Test
+	public void testValuesInBucketAreAtMost3PercentApart() throws Exception {
+		long[] values = { 64, 100, 1_000, 123_456, 10_000_000, 987_654_321_000L,
+				Long.MAX_VALUE / 3 };
+		for (long value : values) {
+			long highestValue = LatencyHistogram
+					.highestValueInBucket(LatencyHistogram.bucketForValue(value));
+
+			assertEquals(highestValue >= value, true);
+			assertEquals((double) (highestValue - value) / value <= 1.0 / 32, true);
+		}
+	}
+
+	@Test
+	public void testLargestValue() throws Exception {
+		histogram.record(Long.MAX_VALUE);
+
+		assertEquals(histogram.getMax(), Long.MAX_VALUE);
+		assertEquals(histogram.getValueAtPercentile(100), Long.MAX_VALUE);
+	}
+
+	@Test
+	public void testValueAtPercentile() throws Exception {
+		for (int value = 1; value <= 100; value++) {
+			histogram.record(value);
+		}
+
+		assertEquals(histogram.getValueAtPercentile(1), 1);
+		assertEquals(histogram.getValueAtPercentile(50), 50);
+		assertEquals(histogram.getValueAtPercentile(99), 99);
+		assertEquals(histogram.getValueAtPercentile(99.5), 100);
+		assertEquals(histogram.getValueAtPercentile(100), 100);
+	}
+
+	@Test
+	public void testValueAtPercentileIsHighestValueInBucket() throws Exception {
+		histogram.record(1_000);
+		histogram.record(5_000);
+
+		assertEquals(histogram.getValueAtPercentile(50), 1_007);
+	}
+
+	@Test
+	public void testValueAtPercentileIsNeverLargerThanMax() throws Exception {
+		histogram.record(1_000);
+
+		assertEquals(histogram.getValueAtPercentile(50), 1_000);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Percentile must be larger than 0 and at most 100, was: 0.0")
+	public void testValueAtPercentileZero() throws Exception {
+		histogram.getValueAtPercentile(0);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Percentile must be larger than 0 and at most 100, was: 100.1")
+	public void testValueAtPercentileAbove100() throws Exception {
+		histogram.getValueAtPercentile(100.1);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Percentile must be larger than 0 and at most 100, was: NaN")
+	public void testValueAtPercentileNaN() throws Exception {
+		histogram.getValueAtPercentile(Double.NaN);
+	}
+
+	@Test
+	public void testRecordFromManyThreads() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < 8; thread++) {
+				futures.add(executor.submit(this::recordValues));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(histogram.getCount(), 8 * 10_000);
+		assertEquals(histogram.getMin(), 1);
+		assertEquals(histogram.getMax(), 10_000);
+		assertEquals(histogram.getMean(), 5_000.5);
+	}
+
+	private void recordValues() {
+		for (int value = 1; value <= 10_000; value++) {
+			histogram.record(value);
+		}
+	}
+}
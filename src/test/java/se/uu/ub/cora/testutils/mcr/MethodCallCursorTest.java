@@ -0,0 +1,269 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import static org.testng.Assert.assertEquals;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class MethodCallCursorTest {
+	private MethodCallRecorder MCR;
+
+	@BeforeMethod
+	public void beforeMethod() {
+		MCR = new MethodCallRecorder();
+	}
+
+	@Test
+	public void testAssertNextWalksCallsInOrder() throws Exception {
+		MCR.addCallForMethodNameAndParameters("write", "data", "first");
+		MCR.addCallForMethodNameAndParameters("read", "id", "someId");
+		MCR.addCallForMethodNameAndParameters("write", "data", "second");
+
+		MethodCallCursor cursor = MCR.cursorForMethod("write");
+
+		assertEquals(cursor.getCallNumber(), 0);
+		cursor.assertNext("first");
+		cursor.assertNext("second");
+		assertEquals(cursor.getCallNumber(), 2);
+		cursor.assertNoMore();
+	}
+
+	@Test
+	public void testAssertNextWithFewerValuesThanRecorded() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "type", "someType", "id", "someId");
+
+		MethodCallCursor cursor = MCR.cursorForMethod("read");
+
+		cursor.assertNext("someType");
+		cursor.assertNoMore();
+	}
+
+	@Test
+	public void testAssertNextComparesValuesAsAssertParameters() throws Exception {
+		Object someObject = new Object();
+		MCR.addCallForMethodNameAndParameters("read", "object", someObject, "number", 42);
+
+		MCR.cursorForMethod("read").assertNext(someObject, 42);
+	}
+
+	@Test(expectedExceptions = AssertionError.class)
+	public void testAssertNextWrongValue() throws Exception {
+		MCR.addCallForMethodNameAndParameters("write", "data", "first");
+
+		MCR.cursorForMethod("write").assertNext("second");
+	}
+
+	@Test(expectedExceptions = AssertionError.class)
+	public void testAssertNextSameObjectRequiredForOtherTypes() throws Exception {
+		MCR.addCallForMethodNameAndParameters("write", "data", new StringBuilder("data"));
+
+		MCR.cursorForMethod("write").assertNext(new StringBuilder("data"));
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Too many values to compare for \\(methodName: write, callNumber: 0\\)")
+	public void testAssertNextTooManyValues() throws Exception {
+		MCR.addCallForMethodNameAndParameters("write", "data", "first");
+
+		MCR.cursorForMethod("write").assertNext("first", "second");
+	}
+
+	@Test
+	public void testFailedAssertNextDoesNotMoveCursor() throws Exception {
+		MCR.addCallForMethodNameAndParameters("write", "data", "first");
+		MethodCallCursor cursor = MCR.cursorForMethod("write");
+
+		try {
+			cursor.assertNext("second");
+		} catch (AssertionError e) {
+			// expected
+		}
+
+		assertEquals(cursor.getCallNumber(), 0);
+		cursor.assertNext("first");
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "No more calls to method: write, expected callNumber: 1 with values: \\[second\\]")
+	public void testAssertNextNoMoreCalls() throws Exception {
+		MCR.addCallForMethodNameAndParameters("write", "data", "first");
+		MethodCallCursor cursor = MCR.cursorForMethod("write");
+		cursor.assertNext("first");
+
+		cursor.assertNext("second");
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "No more calls to method: notCalled, expected callNumber: 0 with values: \\[\\]")
+	public void testAssertNextMethodNotCalled() throws Exception {
+		MCR.cursorForMethod("notCalled").assertNext();
+	}
+
+	@Test
+	public void testCursorSeesCallsRecordedAfterItWasCreated() throws Exception {
+		MethodCallCursor cursor = MCR.cursorForMethod("write");
+		cursor.assertNoMore();
+
+		MCR.addCallForMethodNameAndParameters("write", "data", "first");
+
+		cursor.assertNext("first");
+		cursor.assertNoMore();
+	}
+
+	@Test
+	public void testSkip() throws Exception {
+		for (int call = 0; call < 5; call++) {
+			MCR.addCallForMethodNameAndParameters("write", "data", call);
+		}
+		MethodCallCursor cursor = MCR.cursorForMethod("write");
+
+		cursor.skip();
+		cursor.assertNext(1);
+		cursor.skip(2);
+		cursor.assertNext(4);
+		cursor.assertNoMore();
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "Not enough calls to method: write to skip: 3, only 2 calls left after "
+			+ "callNumber: 1")
+	public void testSkipMoreThanLeft() throws Exception {
+		for (int call = 0; call < 3; call++) {
+			MCR.addCallForMethodNameAndParameters("write", "data", call);
+		}
+		MethodCallCursor cursor = MCR.cursorForMethod("write");
+		cursor.skip();
+
+		cursor.skip(3);
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "Not enough calls to method: notCalled to skip: 1, only 0 calls left after "
+			+ "callNumber: 0")
+	public void testSkipMethodNotCalled() throws Exception {
+		MCR.cursorForMethod("notCalled").skip();
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Number of calls to skip must be larger than 0, was: 0")
+	public void testSkipZeroCalls() throws Exception {
+		MCR.cursorForMethod("write").skip(0);
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "More calls to method: write, next callNumber: 1 of: 2 calls")
+	public void testAssertNoMoreWhenCallsLeft() throws Exception {
+		MCR.addCallForMethodNameAndParameters("write", "data", "first");
+		MCR.addCallForMethodNameAndParameters("write", "data", "second");
+		MethodCallCursor cursor = MCR.cursorForMethod("write");
+		cursor.assertNext("first");
+
+		cursor.assertNoMore();
+	}
+
+	@Test
+	public void testCursorForRegisteredMethod() throws Exception {
+		int writeId = MCR.registerMethod("write", "data");
+		MCR.addCallForMethodId(writeId, "registered");
+		MCR.addCallForMethodNameAndParameters("write", "data", "byName");
+
+		MethodCallCursor cursor = MCR.cursorForMethod("write");
+
+		cursor.assertNext("registered");
+		cursor.assertNext("byName");
+		cursor.assertNoMore();
+	}
+
+	@Test
+	public void testCursorWhenCountingOnlySkipsAndCounts() throws Exception {
+		MCR.useCountingOnly();
+		MCR.addCallForMethodNameAndParameters("write", "data", "first");
+		MCR.addCallForMethodNameAndParameters("write", "data", "second");
+		MethodCallCursor cursor = MCR.cursorForMethod("write");
+
+		cursor.skip(2);
+
+		cursor.assertNoMore();
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Parameters are not recorded when counting only calls, for "
+			+ "\\(methodName: write, callNumber: 0\\)")
+	public void testAssertNextWhenCountingOnly() throws Exception {
+		MCR.useCountingOnly();
+		MCR.addCallForMethodNameAndParameters("write", "data", "first");
+
+		MCR.cursorForMethod("write").assertNext("first");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "CallNumber no longer retained, only the last 2 calls are kept, for "
+			+ "\\(methodName: write, callNumber: 0\\)")
+	public void testAssertNextCallNoLongerRetained() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(2);
+		for (int call = 0; call < 3; call++) {
+			MCR.addCallForMethodNameAndParameters("write", "data", call);
+		}
+
+		MCR.cursorForMethod("write").assertNext(0);
+	}
+
+	@Test
+	public void testSkipCallsNoLongerRetained() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(2);
+		for (int call = 0; call < 3; call++) {
+			MCR.addCallForMethodNameAndParameters("write", "data", call);
+		}
+		MethodCallCursor cursor = MCR.cursorForMethod("write");
+
+		cursor.skip();
+
+		cursor.assertNext(1);
+		cursor.assertNext(2);
+		cursor.assertNoMore();
+	}
+
+	@Test
+	public void testCursorSinceMark() throws Exception {
+		MCR.addCallForMethodNameAndParameters("write", "data", "before");
+		RecordingMark mark = MCR.mark();
+		MCR.addCallForMethodNameAndParameters("write", "data", "after");
+
+		MethodCallCursor cursor = MCR.since(mark).cursorForMethod("write");
+
+		cursor.assertNext("after");
+		cursor.assertNoMore();
+	}
+
+	@Test
+	public void testCursorOverManyCalls() throws Exception {
+		int writeId = MCR.registerMethod("write", "data");
+		for (int call = 0; call < 50_000; call++) {
+			MCR.addCallForMethodId(writeId, call);
+		}
+		MethodCallCursor cursor = MCR.cursorForMethod("write");
+
+		for (int call = 0; call < 50_000; call++) {
+			cursor.assertNext(call);
+		}
+		cursor.assertNoMore();
+	}
+}
@@ -0,0 +1,420 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class MethodCallRecorderSinceMarkTest {
+	private MethodCallRecorder MCR;
+
+	@BeforeMethod
+	public void beforeMethod() {
+		MCR = new MethodCallRecorder();
+	}
+
+	@Test
+	public void testSinceMarkOnlySeesCallsAfterMark() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "id", "before");
+		MCR.addReturnedForMethodNameAndReturnValue("read", "valueBefore");
+
+		RecordingMark mark = MCR.mark();
+		MCR.addCallForMethodNameAndParameters("read", "id", "after");
+		MCR.addReturnedForMethodNameAndReturnValue("read", "valueAfter");
+
+		MethodCallRecorder sinceMark = MCR.since(mark);
+		sinceMark.assertNumberOfCallsToMethod("read", 1);
+		sinceMark.assertParameters("read", 0, "after");
+		sinceMark.assertParameter("read", 0, "id", "after");
+		assertEquals(sinceMark.getParametersForMethodAndCallNumber("read", 0),
+				Map.of("id", "after"));
+		sinceMark.assertReturn("read", 0, "valueAfter");
+		assertEquals(sinceMark.getReturnValues("read"), List.of("valueAfter"));
+		MCR.assertNumberOfCallsToMethod("read", 2);
+		MCR.assertParameters("read", 1, "after");
+	}
+
+	@Test
+	public void testSinceMarkSeesCallsRecordedAfterItWasReturned() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "id", "before");
+		MethodCallRecorder sinceMark = MCR.since(MCR.mark());
+
+		MCR.addCallForMethodNameAndParameters("read", "id", "after");
+		MCR.addCallForMethodNameAndParameters("write", "id", "after");
+
+		sinceMark.assertNumberOfCallsToMethod("read", 1);
+		sinceMark.assertParameters("read", 0, "after");
+		sinceMark.assertParameters("write", 0, "after");
+	}
+
+	@Test
+	public void testSinceMarkMethodOnlyCalledBeforeMark() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "id", "before");
+
+		MethodCallRecorder sinceMark = MCR.since(MCR.mark());
+
+		assertFalse(sinceMark.methodWasCalled("read"));
+		assertEquals(sinceMark.getNumberOfCallsToMethod("read"), 0);
+		sinceMark.assertMethodNotCalled("read");
+		sinceMark.assertMethodNotCalled("notCalled");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "MethodName not found for \\(methodName: read, callNumber: 0\\)")
+	public void testSinceMarkMethodNotFound() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "id", "before");
+
+		MCR.since(MCR.mark()).getParametersForMethodAndCallNumber("read", 0);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "CallNumber not found for \\(methodName: read, callNumber: 1\\)")
+	public void testSinceMarkCallNumberNotFound() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "id", "before");
+		RecordingMark mark = MCR.mark();
+		MCR.addCallForMethodNameAndParameters("read", "id", "after");
+
+		MCR.since(mark).getParametersForMethodAndCallNumber("read", 1);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "CallNumber not found for \\(methodName: read, callNumber: -1\\)")
+	public void testSinceMarkReturnValueForCallBeforeMarkNotFound() throws Exception {
+		MCR.addReturnedForMethodNameAndReturnValue("read", "before");
+		RecordingMark mark = MCR.mark();
+		MCR.addReturnedForMethodNameAndReturnValue("read", "after");
+
+		MCR.since(mark).getReturnValue("read", -1);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "CallNumber not found for \\(methodName: read, callNumber: -1\\)")
+	public void testSinceMarkSequenceNumberForCallBeforeMarkNotFound() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "id", "before");
+		RecordingMark mark = MCR.mark();
+		MCR.addCallForMethodNameAndParameters("read", "id", "after");
+
+		MCR.since(mark).getSequenceNumberForMethodAndCallNumber("read", -1);
+	}
+
+	@Test
+	public void testSinceOlderAndNewerMarks() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "id", "first");
+		RecordingMark firstMark = MCR.mark();
+		MCR.addCallForMethodNameAndParameters("read", "id", "second");
+		RecordingMark secondMark = MCR.mark();
+		RecordingMark thirdMark = MCR.mark();
+		MCR.addCallForMethodNameAndParameters("read", "id", "third");
+
+		MethodCallRecorder sinceFirstMark = MCR.since(firstMark);
+		sinceFirstMark.assertNumberOfCallsToMethod("read", 2);
+		sinceFirstMark.assertParameters("read", 0, "second");
+		sinceFirstMark.assertParameters("read", 1, "third");
+		MCR.since(secondMark).assertNumberOfCallsToMethod("read", 1);
+		MCR.since(secondMark).assertParameters("read", 0, "third");
+		MCR.since(thirdMark).assertParameters("read", 0, "third");
+	}
+
+	@Test
+	public void testSinceMarkWithNoCallsAfterMark() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "id", "before");
+		RecordingMark mark = MCR.mark();
+
+		MCR.since(mark).assertNumberOfCallsToMethod("read", 0);
+	}
+
+	@Test
+	public void testSinceMarkForRegisteredMethod() throws Exception {
+		int readId = MCR.registerMethod("read", "id");
+		MCR.addCallForMethodId(readId, "before");
+		MCR.addReturnedForMethodId(readId, "valueBefore");
+		RecordingMark mark = MCR.mark();
+		MCR.addCallForMethodId(readId, "after");
+		MCR.addReturnedForMethodId(readId, "valueAfter");
+
+		MethodCallRecorder sinceMark = MCR.since(mark);
+		sinceMark.assertParameters("read", 0, "after");
+		sinceMark.assertReturn("read", 0, "valueAfter");
+	}
+
+	@Test
+	public void testSinceMarkForPrimitiveCalls() throws Exception {
+		MCR.addCall("id", 1);
+		RecordingMark mark = MCR.mark();
+		MCR.addCall("id", 42);
+
+		MethodCallRecorder sinceMark = MCR.since(mark);
+		sinceMark.assertNumberOfCallsToMethod("testSinceMarkForPrimitiveCalls", 1);
+		sinceMark.assertParameters("testSinceMarkForPrimitiveCalls", 0, 42);
+	}
+
+	@Test
+	public void testAssertCalledParametersSinceMark() throws Exception {
+		for (int call = 0; call < 20; call++) {
+			MCR.addCallForMethodNameAndParameters("read", "id", "someId");
+			MCR.addReturnedForMethodNameAndReturnValue("read", "before" + call);
+		}
+		RecordingMark mark = MCR.mark();
+		MCR.addCallForMethodNameAndParameters("read", "id", "otherId");
+		MCR.addReturnedForMethodNameAndReturnValue("read", "afterOther");
+		MCR.addCallForMethodNameAndParameters("read", "id", "someId");
+		MCR.addReturnedForMethodNameAndReturnValue("read", "after");
+
+		MethodCallRecorder sinceMark = MCR.since(mark);
+		sinceMark.assertCalledParameters("read", "someId");
+		assertEquals(sinceMark.assertCalledParametersReturn("read", "someId"), "after");
+		assertEquals(MCR.assertCalledParametersReturn("read", "someId"), "before0");
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "Method: read not called with values: \\[someId\\]")
+	public void testAssertCalledParametersSinceMarkOnlyCalledBeforeMark() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "id", "someId");
+		RecordingMark mark = MCR.mark();
+		MCR.addCallForMethodNameAndParameters("read", "id", "otherId");
+
+		MCR.since(mark).assertCalledParameters("read", "someId");
+	}
+
+	@Test
+	public void testAssertCallOrderSinceMark() throws Exception {
+		MCR.addCallForMethodNameAndParameters("open");
+		MCR.addCallForMethodNameAndParameters("close");
+		RecordingMark mark = MCR.mark();
+		MCR.addCallForMethodNameAndParameters("write");
+		MCR.addCallForMethodNameAndParameters("open");
+
+		MethodCallRecorder sinceMark = MCR.since(mark);
+		sinceMark.assertCallOrder("write", "open");
+		sinceMark.assertCalledBefore("write", "open");
+		sinceMark.assertCalledBefore("write", 0, "open", 0);
+		MCR.assertCallOrder("open", "write");
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "Methods: \\[open, write\\] not called in order, no call to method: write after "
+			+ "call to method: open \\(callNumber: 0\\)")
+	public void testAssertCallOrderSinceMarkFails() throws Exception {
+		MCR.addCallForMethodNameAndParameters("open");
+		RecordingMark mark = MCR.mark();
+		MCR.addCallForMethodNameAndParameters("write");
+		MCR.addCallForMethodNameAndParameters("open");
+
+		MCR.since(mark).assertCallOrder("open", "write");
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "Methods: \\[write, close\\] not called in order, no call to method: close after "
+			+ "call to method: write \\(callNumber: 0\\)")
+	public void testAssertCallOrderSinceMarkMethodOnlyCalledBeforeMark() throws Exception {
+		MCR.addCallForMethodNameAndParameters("close");
+		RecordingMark mark = MCR.mark();
+		MCR.addCallForMethodNameAndParameters("write");
+
+		MCR.since(mark).assertCallOrder("write", "close");
+	}
+
+	@Test
+	public void testSinceMarkWhenRetainingOnlyLastCalls() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(2);
+		for (int call = 0; call < 3; call++) {
+			MCR.addCallForMethodNameAndParameters("read", "call", "before" + call);
+		}
+		RecordingMark mark = MCR.mark();
+		for (int call = 0; call < 3; call++) {
+			MCR.addCallForMethodNameAndParameters("read", "call", "after" + call);
+			MCR.addReturnedForMethodNameAndReturnValue("read", "after" + call);
+		}
+
+		MethodCallRecorder sinceMark = MCR.since(mark);
+		sinceMark.assertNumberOfCallsToMethod("read", 3);
+		sinceMark.assertParameters("read", 1, "after1");
+		sinceMark.assertParameters("read", 2, "after2");
+		assertEquals(sinceMark.getReturnValues("read"), List.of("after1", "after2"));
+		sinceMark.assertCallOrder("read", "read");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "CallNumber no longer retained, only the last 2 calls are kept, for "
+			+ "\\(methodName: read, callNumber: 0\\)")
+	public void testSinceMarkCallNoLongerRetained() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(2);
+		MCR.addCallForMethodNameAndParameters("read", "call", "before");
+		RecordingMark mark = MCR.mark();
+		for (int call = 0; call < 3; call++) {
+			MCR.addCallForMethodNameAndParameters("read", "call", "after" + call);
+		}
+
+		MCR.since(mark).assertParameters("read", 0, "after0");
+	}
+
+	@Test
+	public void testSinceMarkWhenCountingOnly() throws Exception {
+		MCR.useCountingOnly();
+		MCR.addCallForMethodNameAndParameters("read", "id", "before");
+		RecordingMark mark = MCR.mark();
+		MCR.addCallForMethodNameAndParameters("read", "id", "after");
+		MCR.addCallForMethodNameAndParameters("read", "id", "after");
+
+		MCR.since(mark).assertNumberOfCallsToMethod("read", 2);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Parameters are not recorded when counting only calls, for "
+			+ "\\(methodName: read, callNumber: 0\\)")
+	public void testSinceMarkWhenCountingOnlyHasNoParameters() throws Exception {
+		MCR.useCountingOnly();
+		RecordingMark mark = MCR.mark();
+		MCR.addCallForMethodNameAndParameters("read", "id", "after");
+
+		MCR.since(mark).getParametersForMethodAndCallNumber("read", 0);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Calls can not be recorded in a view since a mark, for \\(methodName: read\\)")
+	public void testCallsCanNotBeRecordedSinceMark() throws Exception {
+		MCR.since(MCR.mark()).addCallForMethodNameAndParameters("read", "id", "someId");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Calls can not be recorded in a view since a mark, for \\(methodName: read\\)")
+	public void testReturnedValuesCanNotBeRecordedSinceMark() throws Exception {
+		MCR.since(MCR.mark()).addReturnedForMethodNameAndReturnValue("read", "value");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "useCountingOnly can not be used in a view since a mark")
+	public void testViewSinceMarkCanNotBeConfigured() throws Exception {
+		MCR.since(MCR.mark()).useCountingOnly();
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "reset can not be used in a view since a mark")
+	public void testViewSinceMarkCanNotBeReset() throws Exception {
+		MCR.since(MCR.mark()).reset();
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Call timings are only recorded when using call timing, for "
+			+ "\\(methodName: read\\)")
+	public void testNoCallTimingsSinceMark() throws Exception {
+		MCR.useCallTiming();
+		RecordingMark mark = MCR.mark();
+		MCR.addCallForMethodNameAndParameters("read");
+
+		MCR.since(mark).getCallDurations("read");
+	}
+
+	@Test
+	public void testMarkFromViewIsMarkInRecorder() throws Exception {
+		MethodCallRecorder sinceFirstMark = MCR.since(MCR.mark());
+		MCR.addCallForMethodNameAndParameters("read", "id", "first");
+
+		RecordingMark mark = sinceFirstMark.mark();
+		MCR.addCallForMethodNameAndParameters("read", "id", "second");
+
+		sinceFirstMark.assertNumberOfCallsToMethod("read", 2);
+		sinceFirstMark.since(mark).assertParameters("read", 0, "second");
+		MCR.since(mark).assertParameters("read", 0, "second");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Mark not made in this recorder")
+	public void testMarkFromOtherRecorder() throws Exception {
+		RecordingMark mark = new MethodCallRecorder().mark();
+
+		MCR.since(mark);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Mark made before the recorder was reset")
+	public void testSinceMarkMadeBeforeReset() throws Exception {
+		RecordingMark mark = MCR.mark();
+		MCR.reset();
+
+		MCR.since(mark);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Mark made before the recorder was reset")
+	public void testViewSinceMarkUsedAfterReset() throws Exception {
+		MethodCallRecorder sinceMark = MCR.since(MCR.mark());
+		MCR.addCallForMethodNameAndParameters("read");
+		MCR.reset();
+
+		sinceMark.getNumberOfCallsToMethod("read");
+	}
+
+	@Test
+	public void testSinceMarkMadeAfterReset() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "id", "beforeReset");
+		MCR.reset();
+		MCR.addCallForMethodNameAndParameters("read", "id", "before");
+		RecordingMark mark = MCR.mark();
+		MCR.addCallForMethodNameAndParameters("read", "id", "after");
+
+		MCR.since(mark).assertNumberOfCallsToMethod("read", 1);
+		MCR.since(mark).assertParameters("read", 0, "after");
+	}
+
+	@Test
+	public void testExportRecordingSinceMark() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "id", "before");
+		MCR.addCallForMethodNameAndParameters("write", "id", "before");
+		RecordingMark mark = MCR.mark();
+		MCR.addCallForMethodNameAndParameters("read", "id", "after");
+		MCR.addReturnedForMethodNameAndReturnValue("read", "value");
+		Path path = Files.createTempFile("recording", ".mcr");
+
+		try {
+			MCR.since(mark).exportRecording(path);
+			try (RecordingReader reader = RecordingReader.open(path)) {
+				assertEquals(reader.getNumberOfCallsToMethod("read"), 1);
+				assertEquals(reader.getNumberOfCallsToMethod("write"), 0);
+				assertEquals(reader.getParametersForMethodAndCallNumber("read", 0),
+						Map.of("id", "after"));
+				assertEquals(reader.getReturnValue("read", 0), "value");
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testSinceMarkInConcurrentRecorder() throws Exception {
+		MCR = new ConcurrentMethodCallRecorder();
+		MCR.addCallForMethodNameAndParameters("read", "id", "before");
+		RecordingMark mark = MCR.mark();
+		MCR.addCallForMethodNameAndParameters("read", "id", "after");
+
+		MethodCallRecorder sinceMark = MCR.since(mark);
+		sinceMark.assertNumberOfCallsToMethod("read", 1);
+		sinceMark.assertParameters("read", 0, "after");
+		assertTrue(sinceMark.methodWasCalled("read"));
+	}
+}
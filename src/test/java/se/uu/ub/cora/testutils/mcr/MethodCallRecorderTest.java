@@ -26,13 +26,17 @@ import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import se.uu.ub.cora.testutils.mrv.CallDelay;
 import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
 
 public class MethodCallRecorderTest {
@@ -70,17 +74,16 @@ public class MethodCallRecorderTest {
 	private static final String VALUE2 = "value2";
 	private static final String VALUE3 = "value3";
 	private static final String SOME_METHOD = "someMethod";
+	private static final String ADD_CALL_FOR_TEST2 = "addCallForTest2";
 	private static final long A_LONG_TO_BIG_FOR_INT = 3147483647L;
 	MethodCallRecorder MCR;
 	private Object objectParameter = new Object();
 	private MethodCallRecorderOnlyForTestAssertValues MCRforTestAV;
-	private MethodCallRecorderOnlyForTestAssertCalledParameters MCRforTestACP;
 
 	@BeforeMethod
 	public void beforeMethod() {
 		MCR = new MethodCallRecorder();
 		MCRforTestAV = new MethodCallRecorderOnlyForTestAssertValues();
-		MCRforTestACP = new MethodCallRecorderOnlyForTestAssertCalledParameters();
 	}
 
 	@Test
@@ -137,6 +140,42 @@ public class MethodCallRecorderTest {
 		}
 	}
 
+	@Test
+	public void testCallsReturningFromMRVAreDelayedOnce() throws Exception {
+		String methodName = "testCallsReturningFromMRVAreDelayedOnce";
+		MethodReturnValues MRV = new MethodReturnValues();
+		MRV.setDefaultReturnValuesSupplier(methodName, () -> "default");
+		MRV.setDefaultDelay(methodName, CallDelay.fixed(Duration.ofMillis(1)));
+		MCR.useMRV(MRV);
+
+		MCR.addCall("id", "one");
+		MCR.addCallAndReturnFromMRV("id", "one");
+		MCR.addCallAndReturnFromMRV();
+		int methodId = MCR.registerMethod(methodName, "id");
+		MCR.addCallForMethodId(methodId, "one");
+		MCR.addCallAndReturnFromMRVForMethodId(methodId, "one");
+
+		assertEquals(MRV.getTotalDelayForMethod(methodName), Duration.ofMillis(3));
+	}
+
+	@Test
+	public void testSpyUsingAddCallAndGetReturnValueIsDelayedOnce() throws Exception {
+		String methodName = "testSpyUsingAddCallAndGetReturnValueIsDelayedOnce";
+		MethodReturnValues MRV = new MethodReturnValues();
+		MRV.setDefaultReturnValuesSupplier(methodName, () -> "default");
+		MRV.setDefaultDelay(methodName, CallDelay.fixed(Duration.ofMillis(1)));
+		MCR.useMRV(MRV);
+
+		MCR.addCall("id", "one");
+		Object returnValue = MRV.getReturnValue("one");
+		MCR.addReturned(returnValue);
+		MCR.addCall((Object) "id", "two");
+		MCR.addReturned(MRV.getReturnValue("two"));
+
+		assertEquals(MRV.getTotalDelayForMethod(methodName), Duration.ofMillis(2));
+		MCR.assertReturn(methodName, 1, "default");
+	}
+
 	@Test
 	public void testAddCallWithErrorParameter() throws Exception {
 		MethodReturnValues MRV = new MethodReturnValues();
@@ -171,6 +210,24 @@ public class MethodCallRecorderTest {
 		assertEquals(MCR.getNumberOfCallsToMethod(ADD_CALL2), 3);
 	}
 
+	@Test
+	public void testAddCallWithDifferentParameterNamesForSameMethod() throws Exception {
+		MCR.addCallForMethodNameAndParameters(SOME_METHOD, PARAM1, VALUE1, PARAM2, VALUE2);
+		MCR.addCallForMethodNameAndParameters(SOME_METHOD, PARAM2, VALUE2, PARAM1, VALUE1);
+		MCR.addCallForMethodNameAndParameters(SOME_METHOD, PARAM1, VALUE3);
+		MCR.addCallForMethodNameAndParameters(SOME_METHOD, PARAM1, VALUE1, PARAM2, VALUE3);
+
+		assertEquals(MCR.getParametersForMethodAndCallNumber(SOME_METHOD, 0),
+				Map.of(PARAM1, VALUE1, PARAM2, VALUE2));
+		assertEquals(MCR.getParametersForMethodAndCallNumber(SOME_METHOD, 1).keySet(),
+				List.of(PARAM2, PARAM1));
+		assertEquals(MCR.getParametersForMethodAndCallNumber(SOME_METHOD, 2),
+				Map.of(PARAM1, VALUE3));
+		assertEquals(MCR.getParametersForMethodAndCallNumber(SOME_METHOD, 3),
+				Map.of(PARAM1, VALUE1, PARAM2, VALUE3));
+		MCR.assertParameters(SOME_METHOD, 1, VALUE2, VALUE1);
+	}
+
 	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
 			+ "MethodName not found for \\(methodName: NoMethod, callNumber: 0\\)")
 	public void testAddCallWithParametersNoMatch() throws Exception {
@@ -629,246 +686,173 @@ public class MethodCallRecorderTest {
 	}
 
 	@Test
-	public void testAssertCalledParametersCallsAssertParametersForAllAnswersThreeCalls()
-			throws Exception {
-		String methodName = "addCallForTest2";
-		addCallForTest2();
-		addCallForTest2();
-		addCallForTest2();
-		MCRforTestACP.setThrowsError(List.of("none", "none", "none"));
+	public void testAssertCalledParametersFirstCallMatches() throws Exception {
+		addCallForTest2(VALUE1, "return1");
+		addCallForTest2(VALUE2, "return2");
 
-		try {
-			MCRforTestACP.assertCalledParameters(methodName, VALUE1, VALUE2, VALUE3);
-		} catch (Exception e) {
-			fail();
-		}
+		MCR.assertCalledParameters(ADD_CALL_FOR_TEST2, VALUE1, VALUE2, VALUE3);
+	}
 
-		String[] value = new String[] { VALUE1, VALUE2, VALUE3 };
-		assertEquals(MCRforTestACP.assertParametersCallsCounter, 1);
+	@Test
+	public void testAssertCalledParametersLaterCallMatches() throws Exception {
+		addCallForTest2(VALUE2, "return1");
+		addCallForTest2(VALUE3, "return2");
+		addCallForTest2(VALUE1, "return3");
 
-		assertEquals(MCRforTestACP.methodNames.get(0), methodName);
-		assertEquals(MCRforTestACP.callNumbers.get(0), 0);
-		assertEquals(MCRforTestACP.expectedValues.get(0), value);
+		MCR.assertCalledParameters(ADD_CALL_FOR_TEST2, VALUE1, VALUE2, VALUE3);
 	}
 
 	@Test
-	public void testAssertCalledParametersCallsAssertParametersForAllAnswersThreeCallsOneAndTwoFails()
-			throws Exception {
-		String methodName = "addCallForTest2";
-		addCallForTest2();
-		addCallForTest2();
-		addCallForTest2();
-		MCRforTestACP.setThrowsError(List.of("assertion", "runtime", "none"));
+	public void testAssertCalledParametersNoCallMatches() throws Exception {
+		addCallForTest2(VALUE2, "return1");
+		addCallForTest2(VALUE3, "return2");
 
 		try {
-			MCRforTestACP.assertCalledParameters(methodName, VALUE1, VALUE2, VALUE3);
-		} catch (Exception e) {
+			MCR.assertCalledParameters(ADD_CALL_FOR_TEST2, VALUE1, VALUE2, VALUE3);
 			fail();
+		} catch (Error e) {
+			assertTrue(e instanceof AssertionError);
+			assertEquals(e.getMessage(), "Method: " + ADD_CALL_FOR_TEST2
+					+ " not called with values: [value1, value2, value3]");
 		}
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "Method: notCalled not called with values: \\[value1\\]")
+	public void testAssertCalledParametersMethodNotCalled() throws Exception {
+		MCR.assertCalledParameters("notCalled", VALUE1);
+	}
 
-		String[] value = new String[] { VALUE1, VALUE2, VALUE3 };
-		assertEquals(MCRforTestACP.assertParametersCallsCounter, 3);
+	@Test
+	public void testAssertCalledParametersLessValuesThanRecordedMatches() throws Exception {
+		addCallForTest2(VALUE1, "return1");
 
-		assertEquals(MCRforTestACP.methodNames.get(0), methodName);
-		assertEquals(MCRforTestACP.callNumbers.get(0), 0);
-		assertEquals(MCRforTestACP.expectedValues.get(0), value);
+		MCR.assertCalledParameters(ADD_CALL_FOR_TEST2, VALUE1);
+		MCR.assertCalledParameters(ADD_CALL_FOR_TEST2);
+	}
 
-		assertEquals(MCRforTestACP.methodNames.get(1), methodName);
-		assertEquals(MCRforTestACP.callNumbers.get(1), 1);
-		assertEquals(MCRforTestACP.expectedValues.get(1), value);
+	@Test(expectedExceptions = AssertionError.class)
+	public void testAssertCalledParametersMoreValuesThanRecordedDoesNotMatch() throws Exception {
+		addCallForTest2(VALUE1, "return1");
 
-		assertEquals(MCRforTestACP.methodNames.get(2), methodName);
-		assertEquals(MCRforTestACP.callNumbers.get(2), 2);
-		assertEquals(MCRforTestACP.expectedValues.get(2), value);
+		MCR.assertCalledParameters(ADD_CALL_FOR_TEST2, VALUE1, VALUE2, VALUE3, "valueNotRecorded");
 	}
 
 	@Test
-	public void testAssertCalledParametersCallsAssertParametersForAllAnswersThreeCallsAllFails()
-			throws Exception {
-		String methodName = "addCallForTest2";
-		addCallForTest2();
-		addCallForTest2();
-		addCallForTest2();
-		MCRforTestACP.setThrowsError(List.of("assertion", "runtime", "runtime"));
-
+	public void testAssertCalledParametersUsesSameRulesAsAssertParameters() throws Exception {
+		ObjectOnlyForTest sameObject = new ObjectOnlyForTest(1);
+		MCR.addCallForMethodNameAndParameters(SOME_METHOD, PARAM1, "a", PARAM2, 1, PARAM3,
+				sameObject);
+		MCR.addCallForMethodNameAndParameters(SOME_METHOD, PARAM1, null, PARAM2, 2L, PARAM3,
+				sameObject);
+
+		MCR.assertCalledParameters(SOME_METHOD, new String("a"), Integer.valueOf(1000 - 999),
+				sameObject);
+		MCR.assertCalledParameters(SOME_METHOD, null, 2L, sameObject);
+		assertNoMatch(SOME_METHOD, "a", 1, new ObjectOnlyForTest(1));
+		assertNoMatch(SOME_METHOD, "a", 1L);
+		assertNoMatch(SOME_METHOD, null, 2);
+		assertNoMatch(SOME_METHOD, "null");
+	}
+
+	private void assertNoMatch(String methodName, Object... expectedValues) {
 		try {
-			MCRforTestACP.assertCalledParameters(methodName, VALUE1, VALUE2, VALUE3);
-			fail();
-		} catch (Error e) {
-			assertTrue(e instanceof AssertionError);
-			assertEquals(e.getMessage(),
-					"Method: " + methodName + " not called with values: [value1, value2, value3]");
+			MCR.assertCalledParameters(methodName, expectedValues);
+			fail("No call should have matched");
+		} catch (AssertionError e) {
+			assertTrue(e.getMessage().startsWith("Method: " + methodName + " not called"));
 		}
+	}
 
-		String[] value = new String[] { VALUE1, VALUE2, VALUE3 };
-		assertEquals(MCRforTestACP.assertParametersCallsCounter, 3);
-
-		assertEquals(MCRforTestACP.methodNames.get(0), methodName);
-		assertEquals(MCRforTestACP.callNumbers.get(0), 0);
-		assertEquals(MCRforTestACP.expectedValues.get(0), value);
-
-		assertEquals(MCRforTestACP.methodNames.get(1), methodName);
-		assertEquals(MCRforTestACP.callNumbers.get(1), 1);
-		assertEquals(MCRforTestACP.expectedValues.get(1), value);
+	@Test
+	public void testAssertCalledParametersManyCalls() throws Exception {
+		Object[] objects = new Object[1000];
+		for (int i = 0; i < 1000; i++) {
+			objects[i] = new Object();
+			MCR.addCallForMethodNameAndParameters(SOME_METHOD, PARAM1, "value" + (i % 100), PARAM2,
+					i, PARAM3, objects[i]);
+			MCR.addCallForMethodNameAndParameters("objectFirst", PARAM1, objects[i], PARAM2, i);
+			MCR.addReturnedForMethodNameAndReturnValue(SOME_METHOD, "return" + i);
+		}
 
-		assertEquals(MCRforTestACP.methodNames.get(2), methodName);
-		assertEquals(MCRforTestACP.callNumbers.get(2), 2);
-		assertEquals(MCRforTestACP.expectedValues.get(2), value);
+		MCR.assertCalledParameters(SOME_METHOD, "value49", 749);
+		MCR.assertCalledParameters(SOME_METHOD, "value49", 749, objects[749]);
+		MCR.assertCalledParameters("objectFirst", objects[999], 999);
+		assertNoMatch(SOME_METHOD, "value49", 750);
+		assertNoMatch(SOME_METHOD, "value100");
+		assertNoMatch("objectFirst", new Object());
+		assertNoMatch("objectFirst", objects[5], 6);
+		assertEquals(MCR.assertCalledParametersReturn(SOME_METHOD, "value49"), "return49");
+		assertEquals(MCR.assertCalledParametersReturn(SOME_METHOD, "value49", 149), "return149");
 	}
 
 	@Test
-	public void testAssertCalledParametersReturnCallsAssertParametersForAllAnswersThreeCalls()
+	public void testAssertCalledParametersManyCallsFindsCallsAddedAfterFirstAssert()
 			throws Exception {
-		String methodName = "addCallForTest2";
-		addCallForTest2();
-		addCallForTest2();
-		addCallForTest2();
-		MCRforTestACP.setThrowsError(List.of("none", "none", "none"));
-
-		try {
-			Object returnValue = MCRforTestACP.assertCalledParametersReturn(methodName, VALUE1,
-					VALUE2, VALUE3);
-			assertSame(MCRforTestACP.getReturnValue(methodName, 0), returnValue);
-		} catch (Exception e) {
-			fail();
+		for (int i = 0; i < 100; i++) {
+			MCR.addCallForMethodNameAndParameters(SOME_METHOD, PARAM1, i);
 		}
+		MCR.assertCalledParameters(SOME_METHOD, 99);
+		assertNoMatch(SOME_METHOD, 100);
 
-		String[] value = new String[] { VALUE1, VALUE2, VALUE3 };
-		assertEquals(MCRforTestACP.assertParametersCallsCounter, 1);
+		MCR.addCallForMethodNameAndParameters(SOME_METHOD, PARAM1, 100);
+		MCR.addCallForMethodNameAndParameters(SOME_METHOD, PARAM1, null);
 
-		assertEquals(MCRforTestACP.methodNames.get(0), methodName);
-		assertEquals(MCRforTestACP.callNumbers.get(0), 0);
-		assertEquals(MCRforTestACP.expectedValues.get(0), value);
+		MCR.assertCalledParameters(SOME_METHOD, 100);
+		MCR.assertCalledParameters(SOME_METHOD, (Object) null);
 	}
 
 	@Test
-	public void testAssertCalledParametersReturnCallsAssertParametersForAllAnswersThreeCallsNoReturnValue()
-			throws Exception {
-		String methodName = "addCallForTest2NoReturnValue";
-		addCallForTest2NoReturnValue();
-		addCallForTest2NoReturnValue();
-		addCallForTest2NoReturnValue();
-		MCRforTestACP.setThrowsError(List.of("none", "none", "none"));
-
-		try {
-			MCRforTestACP.assertCalledParametersReturn(methodName, VALUE1, VALUE2, VALUE3);
-			fail();
-		} catch (Exception e) {
-			// fail();
-			assertTrue(e instanceof RuntimeException);
-			assertEquals(e.getMessage(), "No return value found for method: " + methodName
-					+ " called with values: [value1, value2, value3]");
-		}
+	public void testAssertCalledParametersReturnFirstMatchingCall() throws Exception {
+		addCallForTest2(VALUE2, "return1");
+		addCallForTest2(VALUE1, "return2");
+		addCallForTest2(VALUE1, "return3");
 
-		String[] value = new String[] { VALUE1, VALUE2, VALUE3 };
-		assertEquals(MCRforTestACP.assertParametersCallsCounter, 1);
+		Object returnValue = MCR.assertCalledParametersReturn(ADD_CALL_FOR_TEST2, VALUE1,
+				VALUE2, VALUE3);
 
-		assertEquals(MCRforTestACP.methodNames.get(0), methodName);
-		assertEquals(MCRforTestACP.callNumbers.get(0), 0);
-		assertEquals(MCRforTestACP.expectedValues.get(0), value);
+		assertEquals(returnValue, "return2");
 	}
 
 	@Test
-	public void testAssertCalledParametersReturnCallsAssertParametersForAllAnswersThreeCallsOneAndTwoFails()
-			throws Exception {
-		String methodName = "addCallForTest2";
-		addCallForTest2();
-		addCallForTest2();
-		addCallForTest2();
-		MCRforTestACP.setThrowsError(List.of("assertion", "runtime", "none"));
+	public void testAssertCalledParametersReturnNoReturnValue() throws Exception {
+		addCallForTest2NoReturnValue();
+		addCallForTest2NoReturnValue();
 
 		try {
-			Object returnValue = MCRforTestACP.assertCalledParametersReturn(methodName, VALUE1,
-					VALUE2, VALUE3);
-			assertSame(MCRforTestACP.getReturnValue(methodName, 0), returnValue);
-		} catch (Exception e) {
+			MCR.assertCalledParametersReturn("addCallForTest2NoReturnValue", VALUE1, VALUE2,
+					VALUE3);
 			fail();
+		} catch (Exception e) {
+			assertTrue(e instanceof RuntimeException);
+			assertEquals(e.getMessage(), "No return value found for method: "
+					+ "addCallForTest2NoReturnValue called with values: [value1, value2, value3]");
 		}
-
-		String[] value = new String[] { VALUE1, VALUE2, VALUE3 };
-		assertEquals(MCRforTestACP.assertParametersCallsCounter, 3);
-
-		assertEquals(MCRforTestACP.methodNames.get(0), methodName);
-		assertEquals(MCRforTestACP.callNumbers.get(0), 0);
-		assertEquals(MCRforTestACP.expectedValues.get(0), value);
-
-		assertEquals(MCRforTestACP.methodNames.get(1), methodName);
-		assertEquals(MCRforTestACP.callNumbers.get(1), 1);
-		assertEquals(MCRforTestACP.expectedValues.get(1), value);
-
-		assertEquals(MCRforTestACP.methodNames.get(2), methodName);
-		assertEquals(MCRforTestACP.callNumbers.get(2), 2);
-		assertEquals(MCRforTestACP.expectedValues.get(2), value);
 	}
 
 	@Test
-	public void testAssertCalledParametersReturnCallsAssertParametersForAllAnswersThreeCallsAllFails()
-			throws Exception {
-		String methodName = "addCallForTest2";
-		addCallForTest2();
-		addCallForTest2();
-		addCallForTest2();
-		MCRforTestACP.setThrowsError(List.of("assertion", "runtime", "runtime"));
+	public void testAssertCalledParametersReturnNoCallMatches() throws Exception {
+		addCallForTest2(VALUE2, "return1");
+		addCallForTest2(VALUE3, "return2");
 
 		try {
-			MCRforTestACP.assertCalledParametersReturn(methodName, VALUE1, VALUE2, VALUE3);
+			MCR.assertCalledParametersReturn(ADD_CALL_FOR_TEST2, VALUE1, VALUE2, VALUE3);
 			fail();
 		} catch (Error e) {
 			assertTrue(e instanceof AssertionError);
-			assertEquals(e.getMessage(),
-					"Method: " + methodName + " not called with values: [value1, value2, value3]");
-		}
-
-		String[] value = new String[] { VALUE1, VALUE2, VALUE3 };
-		assertEquals(MCRforTestACP.assertParametersCallsCounter, 3);
-
-		assertEquals(MCRforTestACP.methodNames.get(0), methodName);
-		assertEquals(MCRforTestACP.callNumbers.get(0), 0);
-		assertEquals(MCRforTestACP.expectedValues.get(0), value);
-
-		assertEquals(MCRforTestACP.methodNames.get(1), methodName);
-		assertEquals(MCRforTestACP.callNumbers.get(1), 1);
-		assertEquals(MCRforTestACP.expectedValues.get(1), value);
-
-		assertEquals(MCRforTestACP.methodNames.get(2), methodName);
-		assertEquals(MCRforTestACP.callNumbers.get(2), 2);
-		assertEquals(MCRforTestACP.expectedValues.get(2), value);
-	}
-
-	class MethodCallRecorderOnlyForTestAssertCalledParameters extends MethodCallRecorder {
-		int assertParametersCallsCounter = 0;
-		List<String> methodNames = new ArrayList<>();
-		private List<Integer> callNumbers = new ArrayList<>();;
-		private List<Object> expectedValues = new ArrayList<>();
-		private List<String> throwErrors = List.of("none");
-
-		@Override
-		public void assertParameters(String methodName, int callNumber, Object... expectedValues) {
-			this.methodNames.add(methodName);
-			this.callNumbers.add(callNumber);
-			this.expectedValues.add(expectedValues);
-			assertParametersCallsCounter++;
-			String typeToThrow = throwErrors.get(callNumber);
-			if (typeToThrow.equals("assertion")) {
-				throw new AssertionError("Error from MethodCallRecorderForTest2");
-			}
-			if (typeToThrow.equals("runtime")) {
-				throw new RuntimeException("Error from MethodCallRecorderForTest2");
-			}
-		}
-
-		public void setThrowsError(List<String> throwErrors) {
-			this.throwErrors = throwErrors;
+			assertEquals(e.getMessage(), "Method: " + ADD_CALL_FOR_TEST2
+					+ " not called with values: [value1, value2, value3]");
 		}
 	}
 
-	private void addCallForTest2() {
-		MCRforTestACP.addCall(PARAM1, VALUE1, PARAM2, VALUE2, PARAM3, VALUE3);
-		MCRforTestACP.addReturned("someReturnValue");
+	private void addCallForTest2(String firstValue, String returnValue) {
+		MCR.addCallForMethodNameAndParameters(ADD_CALL_FOR_TEST2, PARAM1, firstValue, PARAM2,
+				VALUE2, PARAM3, VALUE3);
+		MCR.addReturnedForMethodNameAndReturnValue(ADD_CALL_FOR_TEST2, returnValue);
 	}
 
 	private void addCallForTest2NoReturnValue() {
-		MCRforTestACP.addCall(PARAM1, VALUE1, PARAM2, VALUE2, PARAM3, VALUE3);
+		MCR.addCall(PARAM1, VALUE1, PARAM2, VALUE2, PARAM3, VALUE3);
 	}
 
 	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
@@ -1075,10 +1059,1162 @@ public class MethodCallRecorderTest {
 	}
 
 	@Test
-	public void testOnlyForTestGetMRV() throws Exception {
+	public void testRetainOnlyLastCallsCountsAllCalls() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(3);
+
+		recordCallsAndReturnsForSomeMethod(5);
+
+		assertEquals(MCR.getNumberOfCallsToMethod(SOME_METHOD), 5);
+		MCR.assertNumberOfCallsToMethod(SOME_METHOD, 5);
+		MCR.assertMethodWasCalled(SOME_METHOD);
+		MCR.assertMethodNotCalled("notCalled");
+	}
+
+	private void recordCallsAndReturnsForSomeMethod(int numberOfCalls) {
+		for (int i = 0; i < numberOfCalls; i++) {
+			MCR.addCallForMethodNameAndParameters(SOME_METHOD, PARAM1, "value" + i, PARAM2, i);
+			MCR.addReturnedForMethodNameAndReturnValue(SOME_METHOD, "return" + i);
+		}
+	}
+
+	@Test
+	public void testRetainOnlyLastCallsKeepsLastCalls() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(3);
+
+		recordCallsAndReturnsForSomeMethod(5);
+
+		MCR.assertParameters(SOME_METHOD, 2, "value2", 2);
+		MCR.assertParameters(SOME_METHOD, 4, "value4", 4);
+		MCR.assertParameter(SOME_METHOD, 3, PARAM1, "value3");
+		MCR.assertReturn(SOME_METHOD, 4, "return4");
+		assertEquals(MCR.getReturnValues(SOME_METHOD), List.of("return2", "return3", "return4"));
+		MCR.assertCalledParameters(SOME_METHOD, "value2");
+		assertEquals(MCR.assertCalledParametersReturn(SOME_METHOD, "value3"), "return3");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "CallNumber no longer retained, only the last 3 calls are kept, "
+			+ "for \\(methodName: someMethod, callNumber: 1\\)")
+	public void testRetainOnlyLastCallsEvictedCallNumber() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(3);
+		recordCallsAndReturnsForSomeMethod(5);
+
+		MCR.assertParameters(SOME_METHOD, 1, "value1", 1);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "CallNumber no longer retained, only the last 3 calls are kept, "
+			+ "for \\(methodName: someMethod, callNumber: 0\\)")
+	public void testRetainOnlyLastCallsEvictedReturnValue() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(3);
+		recordCallsAndReturnsForSomeMethod(5);
+
+		MCR.getReturnValue(SOME_METHOD, 0);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "CallNumber not found for \\(methodName: someMethod, callNumber: 5\\)")
+	public void testRetainOnlyLastCallsCallNumberNotRecorded() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(3);
+		recordCallsAndReturnsForSomeMethod(5);
+
+		MCR.getParametersForMethodAndCallNumber(SOME_METHOD, 5);
+	}
+
+	@Test(expectedExceptions = AssertionError.class)
+	public void testRetainOnlyLastCallsEvictedCallsAreNotMatched() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(3);
+		recordCallsAndReturnsForSomeMethod(50);
+
+		MCR.assertCalledParameters(SOME_METHOD, "value46");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "retainOnlyLastCallsPerMethod must be called before any calls are recorded")
+	public void testRetainOnlyLastCallsAfterCallsRecorded() throws Exception {
+		addCall1();
+
+		MCR.retainOnlyLastCallsPerMethod(3);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Number of calls to retain must be larger than 0, was: 0")
+	public void testRetainOnlyLastCallsZero() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(0);
+	}
+
+	@Test
+	public void testUseCountingOnlyCountsCalls() throws Exception {
+		MCR.useCountingOnly();
+
+		recordCallsAndReturnsForSomeMethod(5);
+		addCall1();
+
+		assertEquals(MCR.getNumberOfCallsToMethod(SOME_METHOD), 5);
+		MCR.assertNumberOfCallsToMethod(SOME_METHOD, 5);
+		MCR.assertNumberOfCallsToMethod(ADD_CALL1, 1);
+		MCR.assertMethodWasCalled(SOME_METHOD);
+		MCR.assertMethodNotCalled("notCalled");
+	}
+
+	@Test
+	public void testUseCountingOnlyWithMRV() throws Exception {
 		MethodReturnValues MRV = new MethodReturnValues();
+		MRV.setDefaultReturnValuesSupplier("testUseCountingOnlyWithMRV", () -> SOME_VALUE);
+		MCR.useCountingOnly();
 		MCR.useMRV(MRV);
 
-		assertSame(MCR.onlyForTestGetMRV(), MRV);
+		Object returnValue = MCR.addCallAndReturnFromMRV(PARAM1, "value");
+
+		assertEquals(returnValue, SOME_VALUE);
+		MCR.assertNumberOfCallsToMethod("testUseCountingOnlyWithMRV", 1);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "error from MRV")
+	public void testUseCountingOnlyStillThrowsErrorFromMRV() throws Exception {
+		MethodReturnValues MRV = new MethodReturnValues();
+		MCR.useCountingOnly();
+		MCR.useMRV(MRV);
+		MRV.setAlwaysThrowException(SOME_METHOD, new RuntimeException("error from MRV"));
+
+		MCR.addCallForMethodNameAndParameters(SOME_METHOD, PARAM1, "value");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Parameters are not recorded when counting only calls, "
+			+ "for \\(methodName: someMethod, callNumber: 0\\)")
+	public void testUseCountingOnlyAssertParameters() throws Exception {
+		MCR.useCountingOnly();
+		recordCallsAndReturnsForSomeMethod(1);
+
+		MCR.assertParameters(SOME_METHOD, 0, "value0", 0);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Parameters are not recorded when counting only calls, "
+			+ "for \\(methodName: someMethod\\)")
+	public void testUseCountingOnlyAssertCalledParameters() throws Exception {
+		MCR.useCountingOnly();
+		recordCallsAndReturnsForSomeMethod(1);
+
+		MCR.assertCalledParameters(SOME_METHOD, "value0", 0);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Return values are not recorded when counting only calls, "
+			+ "for \\(methodName: someMethod, callNumber: 0\\)")
+	public void testUseCountingOnlyGetReturnValue() throws Exception {
+		MCR.useCountingOnly();
+		recordCallsAndReturnsForSomeMethod(1);
+
+		MCR.getReturnValue(SOME_METHOD, 0);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Return values are not recorded when counting only calls, "
+			+ "for \\(methodName: someMethod\\)")
+	public void testUseCountingOnlyGetReturnValues() throws Exception {
+		MCR.useCountingOnly();
+		recordCallsAndReturnsForSomeMethod(1);
+
+		MCR.getReturnValues(SOME_METHOD);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "useCountingOnly must be called before any calls are recorded")
+	public void testUseCountingOnlyAfterCallsRecorded() throws Exception {
+		addCall1();
+
+		MCR.useCountingOnly();
+	}
+
+	@Test
+	public void testAddCallFixedNumberOfParameters() throws Exception {
+		MCR.addCall();
+		MCR.addCall("p1", 1L);
+		MCR.addCall("p1", "1", "p2", "2");
+		MCR.addCall("p1", "1", "p2", "2", "p3", "3");
+		MCR.addCall("p1", "1", "p2", "2", "p3", "3", "p4", "4");
+		MCR.addCall("p1", "1", "p2", "2", "p3", "3", "p4", "4", "p5", "5");
+		MCR.addCall("p1", "1", "p2", "2", "p3", "3", "p4", "4", "p5", "5", "p6", objectParameter);
+
+		String methodName = "testAddCallFixedNumberOfParameters";
+		MCR.assertNumberOfCallsToMethod(methodName, 7);
+		assertEquals(MCR.getParametersForMethodAndCallNumber(methodName, 0), Map.of());
+		MCR.assertParameters(methodName, 1, 1L);
+		MCR.assertParameters(methodName, 2, "1", "2");
+		MCR.assertParameters(methodName, 3, "1", "2", "3");
+		MCR.assertParameters(methodName, 4, "1", "2", "3", "4");
+		MCR.assertParameters(methodName, 5, "1", "2", "3", "4", "5");
+		MCR.assertParameters(methodName, 6, "1", "2", "3", "4", "5", objectParameter);
+		MCR.assertParameter(methodName, 6, "p6", objectParameter);
+		assertEquals(MCR.getParametersForMethodAndCallNumber(methodName, 6).keySet(),
+				Set.of("p1", "p2", "p3", "p4", "p5", "p6"));
+	}
+
+	@Test
+	public void testAddCallFixedNumberOfParametersSameAsVarargs() throws Exception {
+		MCR.addCall("p1", "1", "p2", objectParameter);
+		MCR.addCall(new Object[] { "p1", "1", "p2", objectParameter });
+		MCR.addCall("other1", "1", "other2", objectParameter);
+
+		String methodName = "testAddCallFixedNumberOfParametersSameAsVarargs";
+		assertEquals(MCR.getParametersForMethodAndCallNumber(methodName, 0),
+				MCR.getParametersForMethodAndCallNumber(methodName, 1));
+		MCR.assertParameter(methodName, 2, "other2", objectParameter);
+		assertEquals(MCR.getMethodCallLog(methodName).getCallValues(0).length, 2);
+	}
+
+	@Test
+	public void testAddCallPrimitives() throws Exception {
+		MCR.addCall("int", 1);
+		MCR.addCall("long", A_LONG_TO_BIG_FOR_INT);
+		MCR.addCall("boolean", true);
+		MCR.addCall("boolean", false);
+		MCR.addCall("short", (short) 2);
+		MCR.addCall("byte", (byte) 3);
+		MCR.addCall("char", 'c');
+
+		String methodName = "testAddCallPrimitives";
+		MCR.assertParameters(methodName, 0, 1);
+		MCR.assertParameter(methodName, 0, "int", Integer.valueOf(1));
+		MCR.assertParameters(methodName, 1, A_LONG_TO_BIG_FOR_INT);
+		MCR.assertParameters(methodName, 2, true);
+		MCR.assertParameters(methodName, 3, false);
+		assertEquals(MCR.getParameterForMethodAndCallNumberAndParameter(methodName, 4, "short"),
+				Short.valueOf((short) 2));
+		assertEquals(MCR.getParameterForMethodAndCallNumberAndParameter(methodName, 5, "byte"),
+				Byte.valueOf((byte) 3));
+		assertEquals(MCR.getParameterForMethodAndCallNumberAndParameter(methodName, 6, "char"),
+				Character.valueOf('c'));
+		MCR.assertCalledParameters(methodName, 1);
+		MCR.assertCalledParameters(methodName, false);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "expected value type is class java.lang.Long but found class java.lang.Integer")
+	public void testAddCallPrimitiveIntIsNotLong() throws Exception {
+		MCR.addCall("int", 1);
+
+		MCR.assertParameters("testAddCallPrimitiveIntIsNotLong", 0, 1L);
+	}
+
+	@Test
+	public void testAddCallPrimitivesAndObjectsWithRetention() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(2);
+
+		MCR.addCall("value", 1);
+		MCR.addCall("value", "two");
+		MCR.addCall("value", 3);
+		MCR.addCall("value", "four");
+
+		String methodName = "testAddCallPrimitivesAndObjectsWithRetention";
+		MCR.assertParameters(methodName, 2, 3);
+		MCR.assertParameters(methodName, 3, "four");
+	}
+
+	@Test
+	public void testAddCallPrimitiveThrowsErrorFromMRV() throws Exception {
+		RuntimeException exception = new RuntimeException();
+		MethodReturnValues MRV = new MethodReturnValues();
+		MRV.setThrowException("testAddCallPrimitiveThrowsErrorFromMRV", exception, 5);
+		MCR.useMRV(MRV);
+
+		MCR.addCall("value", 4);
+		try {
+			MCR.addCall("value", 5);
+			fail();
+		} catch (RuntimeException e) {
+			assertSame(e, exception);
+		}
+		MCR.assertNumberOfCallsToMethod("testAddCallPrimitiveThrowsErrorFromMRV", 2);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Too many values to compare for \\(methodName: testAssertParametersPrimitiveTooMany"
+			+ "Values, callNumber: 0\\)")
+	public void testAssertParametersPrimitiveTooManyValues() throws Exception {
+		MCR.addCall("value", 1);
+
+		MCR.assertParameters("testAssertParametersPrimitiveTooManyValues", 0, 1, 2);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "ParameterName not found for \\(methodName: testGetParameterPrimitiveNotFound"
+			+ "ParamName, callNumber: 0 and parameterName: otherName\\)")
+	public void testGetParameterPrimitiveNotFoundParamName() throws Exception {
+		MCR.addCall("value", 1);
+
+		MCR.getParameterForMethodAndCallNumberAndParameter(
+				"testGetParameterPrimitiveNotFoundParamName", 0, "otherName");
+	}
+
+	@Test
+	public void testDuplicateParameterNamesKeepFirstPositionAndLastValue() throws Exception {
+		MCR.addCall("name", "first", "other", "second", "name", "third");
+
+		String methodName = "testDuplicateParameterNamesKeepFirstPositionAndLastValue";
+		MCR.assertParameters(methodName, 0, "third", "second");
+		MCR.assertParameter(methodName, 0, "name", "third");
+		assertEquals(MCR.getParametersForMethodAndCallNumber(methodName, 0).size(), 2);
+	}
+
+	@Test
+	public void testAddCallAndReturnFromMRVFixedNumberOfParameters() throws Exception {
+		String methodName = "testAddCallAndReturnFromMRVFixedNumberOfParameters";
+		MethodReturnValues MRV = new MethodReturnValues();
+		MRV.setDefaultReturnValuesSupplier(methodName, () -> SOME_VALUE);
+		MRV.setSpecificReturnValuesSupplier(methodName, () -> SOME_VALUE2, "1", "2", "3", "4",
+				"5", "6");
+		MCR.useMRV(MRV);
+
+		assertEquals(MCR.addCallAndReturnFromMRV(), SOME_VALUE);
+		assertEquals(MCR.addCallAndReturnFromMRV("p1", "1"), SOME_VALUE);
+		assertEquals(MCR.addCallAndReturnFromMRV("p1", "1", "p2", "2"), SOME_VALUE);
+		assertEquals(MCR.addCallAndReturnFromMRV("p1", "1", "p2", "2", "p3", "3"), SOME_VALUE);
+		assertEquals(MCR.addCallAndReturnFromMRV("p1", "1", "p2", "2", "p3", "3", "p4", "4"),
+				SOME_VALUE);
+		assertEquals(MCR.addCallAndReturnFromMRV("p1", "1", "p2", "2", "p3", "3", "p4", "4", "p5",
+				"5"), SOME_VALUE);
+		assertEquals(MCR.addCallAndReturnFromMRV("p1", "1", "p2", "2", "p3", "3", "p4", "4", "p5",
+				"5", "p6", "6"), SOME_VALUE2);
+
+		MCR.assertNumberOfCallsToMethod(methodName, 7);
+		MCR.assertParameters(methodName, 6, "1", "2", "3", "4", "5", "6");
+		MCR.assertReturn(methodName, 6, SOME_VALUE2);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Method addCallAndReturnFromMRV can not be used before a MVR has been set using "
+			+ "the method useMRV")
+	public void testAddCallAndReturnFromMRVFixedNumberOfParametersNoMRV() throws Exception {
+		MCR.addCallAndReturnFromMRV("p1", "1");
+	}
+
+	@Test
+	public void testRegisterMethodReturnsIds() throws Exception {
+		assertEquals(MCR.registerMethod("first", "p1"), 0);
+		assertEquals(MCR.registerMethod("second"), 1);
+		for (int i = 2; i < 20; i++) {
+			assertEquals(MCR.registerMethod("method" + i), i);
+		}
+	}
+
+	@Test
+	public void testAddCallForMethodId() throws Exception {
+		int methodId = MCR.registerMethod(SOME_METHOD, PARAM1, PARAM2);
+
+		MCR.addCallForMethodId(methodId, "value", 1);
+		MCR.addCallForMethodId(methodId, "value2", objectParameter);
+		MCR.addReturnedForMethodId(methodId, SOME_VALUE);
+
+		MCR.assertNumberOfCallsToMethod(SOME_METHOD, 2);
+		MCR.assertParameters(SOME_METHOD, 0, "value", 1);
+		MCR.assertParameter(SOME_METHOD, 1, PARAM2, objectParameter);
+		MCR.assertCalledParameters(SOME_METHOD, "value2", objectParameter);
+		MCR.assertReturn(SOME_METHOD, 0, SOME_VALUE);
+	}
+
+	@Test
+	public void testAddCallForMethodIdAndNameRecordToSameMethod() throws Exception {
+		int methodId = MCR.registerMethod(SOME_METHOD, PARAM1);
+
+		MCR.addCallForMethodId(methodId, "value");
+		MCR.addCallForMethodNameAndParameters(SOME_METHOD, PARAM1, "value2");
+
+		MCR.assertNumberOfCallsToMethod(SOME_METHOD, 2);
+		MCR.assertParameters(SOME_METHOD, 1, "value2");
+	}
+
+	@Test
+	public void testRegisterMethodBeforeUseCountingOnly() throws Exception {
+		int methodId = MCR.registerMethod(SOME_METHOD, PARAM1);
+		MCR.useCountingOnly();
+
+		MCR.addCallForMethodId(methodId, "value");
+
+		MCR.assertNumberOfCallsToMethod(SOME_METHOD, 1);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "MethodId not registered for \\(methodId: 1\\)")
+	public void testAddCallForMethodIdNotRegistered() throws Exception {
+		MCR.registerMethod(SOME_METHOD, PARAM1);
+
+		MCR.addCallForMethodId(1, "value");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "MethodId not registered for \\(methodId: -1\\)")
+	public void testAddReturnedForMethodIdNotRegistered() throws Exception {
+		MCR.addReturnedForMethodId(-1, "value");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Wrong number of values for \\(methodName: someMethod\\), expected: 2 but was: 1")
+	public void testAddCallForMethodIdWrongNumberOfValues() throws Exception {
+		int methodId = MCR.registerMethod(SOME_METHOD, PARAM1, PARAM2);
+
+		MCR.addCallForMethodId(methodId, "value");
+	}
+
+	@Test
+	public void testAddCallForMethodIdThrowsErrorFromMRV() throws Exception {
+		RuntimeException exception = new RuntimeException();
+		MethodReturnValues MRV = new MethodReturnValues();
+		MRV.setThrowException(SOME_METHOD, exception, "error");
+		MCR.useMRV(MRV);
+		int methodId = MCR.registerMethod(SOME_METHOD, PARAM1);
+
+		MCR.addCallForMethodId(methodId, "value");
+		try {
+			MCR.addCallForMethodId(methodId, "error");
+			fail();
+		} catch (RuntimeException e) {
+			assertSame(e, exception);
+		}
+		MCR.assertNumberOfCallsToMethod(SOME_METHOD, 2);
+	}
+
+	@Test
+	public void testAddCallAndReturnFromMRVForMethodId() throws Exception {
+		MethodReturnValues MRV = new MethodReturnValues();
+		MRV.setDefaultReturnValuesSupplier(SOME_METHOD, () -> SOME_VALUE);
+		MRV.setReturnValues(SOME_METHOD, List.of(SOME_VALUE2), "specific");
+		int methodId = MCR.registerMethod(SOME_METHOD, PARAM1);
+		MCR.useMRV(MRV);
+
+		Object returned1 = MCR.addCallAndReturnFromMRVForMethodId(methodId, "specific");
+		Object returned2 = MCR.addCallAndReturnFromMRVForMethodId(methodId, "specific");
+
+		assertEquals(returned1, SOME_VALUE2);
+		assertEquals(returned2, SOME_VALUE);
+		MCR.assertParameters(SOME_METHOD, 1, "specific");
+		MCR.assertReturn(SOME_METHOD, 0, SOME_VALUE2);
+		MCR.assertReturn(SOME_METHOD, 1, SOME_VALUE);
+	}
+
+	@Test
+	public void testAddCallAndReturnFromMRVForMethodIdNewMRV() throws Exception {
+		int methodId = MCR.registerMethod(SOME_METHOD, PARAM1);
+		MethodReturnValues MRV = new MethodReturnValues();
+		MRV.setDefaultReturnValuesSupplier(SOME_METHOD, () -> SOME_VALUE);
+		MCR.useMRV(MRV);
+		MCR.addCallAndReturnFromMRVForMethodId(methodId, "value");
+		MethodReturnValues MRV2 = new MethodReturnValues();
+		MRV2.setDefaultReturnValuesSupplier(SOME_METHOD, () -> SOME_VALUE2);
+		MCR.useMRV(MRV2);
+
+		Object returned = MCR.addCallAndReturnFromMRVForMethodId(methodId, "value");
+
+		assertEquals(returned, SOME_VALUE2);
+	}
+
+	@Test
+	public void testRegisterMethodWhenUsingMRVRegistersMethodInMRV() throws Exception {
+		MethodReturnValues MRV = new MethodReturnValues();
+		MCR.useMRV(MRV);
+
+		MCR.registerMethod(SOME_METHOD, PARAM1);
+
+		assertEquals(MRV.registerMethod("otherMethod"), 1);
+	}
+
+	@Test
+	public void testUseMRVRegistersRegisteredMethodsInMRV() throws Exception {
+		MCR.registerMethod(SOME_METHOD, PARAM1);
+		MCR.registerMethod("otherMethod");
+		MethodReturnValues MRV = new MethodReturnValues();
+
+		MCR.useMRV(MRV);
+
+		assertEquals(MRV.registerMethod("thirdMethod"), 2);
+	}
+
+	@Test
+	public void testAddCallForMethodIdAfterRemovingMRV() throws Exception {
+		int methodId = MCR.registerMethod(SOME_METHOD, PARAM1);
+		MethodReturnValues MRV = new MethodReturnValues();
+		MRV.setAlwaysThrowException(SOME_METHOD, new RuntimeException());
+		MCR.useMRV(MRV);
+
+		MCR.useMRV(null);
+		MCR.addCallForMethodId(methodId, "value");
+
+		MCR.assertParameters(SOME_METHOD, 0, "value");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Method addCallAndReturnFromMRV can not be used before a MVR has been set using "
+			+ "the method useMRV")
+	public void testAddCallAndReturnFromMRVForMethodIdNoMRV() throws Exception {
+		int methodId = MCR.registerMethod(SOME_METHOD, PARAM1);
+
+		MCR.addCallAndReturnFromMRVForMethodId(methodId, "value");
+	}
+
+	@Test
+	public void testOnlyForTestGetMRV() throws Exception {
+		MethodReturnValues MRV = new MethodReturnValues();
+		MCR.useMRV(MRV);
+
+		assertSame(MCR.onlyForTestGetMRV(), MRV);
+	}
+
+	@Test
+	public void testSequenceNumbersFollowCallOrderAcrossMethods() throws Exception {
+		MCR.addCallForMethodNameAndParameters("first");
+		MCR.addCallForMethodNameAndParameters("second", "param", "value");
+		MCR.addCallForMethodNameAndParameters("first");
+
+		assertEquals(MCR.getSequenceNumberForMethodAndCallNumber("first", 0), 0);
+		assertEquals(MCR.getSequenceNumberForMethodAndCallNumber("second", 0), 1);
+		assertEquals(MCR.getSequenceNumberForMethodAndCallNumber("first", 1), 2);
+	}
+
+	@Test
+	public void testSequenceNumbersForMethodIdAndPrimitiveCalls() throws Exception {
+		int methodId = MCR.registerMethod("registered", PARAM1);
+		MCR.addCallForMethodId(methodId, "value");
+		addPrimitiveCall();
+		MCR.addCallForMethodId(methodId, "value");
+
+		assertEquals(MCR.getSequenceNumberForMethodAndCallNumber("registered", 0), 0);
+		assertEquals(MCR.getSequenceNumberForMethodAndCallNumber("addPrimitiveCall", 0), 1);
+		assertEquals(MCR.getSequenceNumberForMethodAndCallNumber("registered", 1), 2);
+	}
+
+	private void addPrimitiveCall() {
+		MCR.addCall("count", 1);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "MethodName not found for \\(methodName: notCalled, callNumber: 0\\)")
+	public void testSequenceNumberMethodNotFound() throws Exception {
+		MCR.getSequenceNumberForMethodAndCallNumber("notCalled", 0);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "CallNumber not found for \\(methodName: first, callNumber: -1\\)")
+	public void testSequenceNumberNegativeCallNumber() throws Exception {
+		MCR.addCallForMethodNameAndParameters("first");
+
+		MCR.getSequenceNumberForMethodAndCallNumber("first", -1);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "CallNumber no longer retained, only the last 2 calls are kept, for "
+			+ "\\(methodName: first, callNumber: 0\\)")
+	public void testSequenceNumberNoLongerRetained() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(2);
+		callMethods("first", "first", "first");
+
+		MCR.getSequenceNumberForMethodAndCallNumber("first", 0);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Sequence numbers are not recorded when counting only calls, for "
+			+ "\\(methodName: first, callNumber: 0\\)")
+	public void testSequenceNumberCountingOnly() throws Exception {
+		MCR.useCountingOnly();
+		callMethods("first");
+
+		MCR.getSequenceNumberForMethodAndCallNumber("first", 0);
+	}
+
+	private void callMethods(String... methodNames) {
+		for (String methodName : methodNames) {
+			MCR.addCallForMethodNameAndParameters(methodName);
+		}
+	}
+
+	@Test
+	public void testAssertCalledBefore() throws Exception {
+		callMethods("open", "write", "write", "close");
+
+		MCR.assertCalledBefore("open", 0, "write", 1);
+		MCR.assertCalledBefore("write", 0, "write", 1);
+		MCR.assertCalledBefore("write", 1, "close", 0);
+		MCR.assertCalledBefore("open", 0, "open", 0);
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "Call to method: close \\(callNumber: 0\\) not made before call to method: write "
+			+ "\\(callNumber: 1\\)")
+	public void testAssertCalledBeforeNotInOrder() throws Exception {
+		callMethods("open", "write", "write", "close");
+
+		MCR.assertCalledBefore("close", 0, "write", 1);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "CallNumber not found for \\(methodName: close, callNumber: 1\\)")
+	public void testAssertCalledBeforeCallNumberNotFound() throws Exception {
+		callMethods("open", "close");
+
+		MCR.assertCalledBefore("open", 0, "close", 1);
+	}
+
+	@Test
+	public void testAssertCalledBeforeFirstCalls() throws Exception {
+		callMethods("write", "open", "write", "close");
+
+		MCR.assertCalledBefore("open", "close");
+		MCR.assertCalledBefore("write", "open");
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "Call to method: open \\(callNumber: 0\\) not made before call to method: write "
+			+ "\\(callNumber: 0\\)")
+	public void testAssertCalledBeforeFirstCallsNotInOrder() throws Exception {
+		callMethods("write", "open", "write");
+
+		MCR.assertCalledBefore("open", "write");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "MethodName not found for \\(methodName: close, callNumber: 0\\)")
+	public void testAssertCalledBeforeFirstCallsMethodNotCalled() throws Exception {
+		callMethods("open");
+
+		MCR.assertCalledBefore("open", "close");
+	}
+
+	@Test
+	public void testAssertCalledBeforeFirstCallsComparesFirstRetainedCalls() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(1);
+		callMethods("write", "open", "write");
+
+		MCR.assertCalledBefore("open", "write");
+	}
+
+	@Test
+	public void testAssertCallOrder() throws Exception {
+		callMethods("open", "read", "write", "read", "close", "open", "close");
+
+		MCR.assertCallOrder("open", "write", "close");
+		MCR.assertCallOrder("open", "read", "read", "close", "open");
+		MCR.assertCallOrder("write", "open", "close");
+		MCR.assertCallOrder("close", "close");
+		MCR.assertCallOrder();
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "Methods: \\[open, write, read, read\\] not called in order, no call to method: "
+			+ "read after call to method: read \\(callNumber: 1\\)")
+	public void testAssertCallOrderNotInOrder() throws Exception {
+		callMethods("open", "read", "write", "read", "close");
+
+		MCR.assertCallOrder("open", "write", "read", "read");
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "Methods: \\[close, open\\] not called in order, no call to method: open after "
+			+ "call to method: close \\(callNumber: 0\\)")
+	public void testAssertCallOrderWrongOrder() throws Exception {
+		callMethods("open", "close");
+
+		MCR.assertCallOrder("close", "open");
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "Methods: \\[notCalled, open\\] not called in order, no call to method: "
+			+ "notCalled")
+	public void testAssertCallOrderFirstMethodNotCalled() throws Exception {
+		callMethods("open");
+
+		MCR.assertCallOrder("notCalled", "open");
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "Methods: \\[open, write\\] not called in order, no call to method: write after "
+			+ "call to method: open \\(callNumber: 1\\)")
+	public void testAssertCallOrderOnlyRetainedCallsAreSearched() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(1);
+		callMethods("open", "write", "write", "open");
+
+		MCR.assertCallOrder("open", "write");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Sequence numbers are not recorded when counting only calls, for "
+			+ "\\(methodName: \\[open, close\\]\\)")
+	public void testAssertCallOrderCountingOnly() throws Exception {
+		MCR.useCountingOnly();
+		callMethods("open", "close");
+
+		MCR.assertCallOrder("open", "close");
+	}
+
+	@Test
+	public void testAssertCallOrderManyCalls() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(100_000);
+		for (int i = 0; i < 100_000; i++) {
+			callMethods("write", "flush");
+		}
+		callMethods("close");
+
+		MCR.assertCallOrder("flush", "write", "flush", "close");
+		MCR.assertCallOrder("write", "close");
+	}
+
+	@Test
+	public void testCallTiming() throws Exception {
+		FakeClock clock = new FakeClock();
+		MCR.useCallTiming(clock::getTime);
+
+		clock.time = 1_000;
+		MCR.addCallForMethodNameAndParameters("read", "id", "1");
+		clock.time = 1_040;
+		MCR.addReturnedForMethodNameAndReturnValue("read", "value");
+		clock.time = 1_540;
+		MCR.addCallForMethodNameAndParameters("read", "id", "2");
+		clock.time = 1_600;
+		MCR.addReturnedForMethodNameAndReturnValue("read", "value");
+
+		LatencyHistogram callDurations = MCR.getCallDurations("read");
+		assertEquals(callDurations.getCount(), 2);
+		assertEquals(callDurations.getMin(), 40);
+		assertEquals(callDurations.getMax(), 60);
+		LatencyHistogram timesBeforeCalls = MCR.getTimesBeforeCalls("read");
+		assertEquals(timesBeforeCalls.getCount(), 1);
+		assertEquals(timesBeforeCalls.getMax(), 500);
+	}
+
+	private static class FakeClock {
+		long time = 0;
+		long tick = 0;
+
+		long getTime() {
+			long currentTime = time;
+			time += tick;
+			return currentTime;
+		}
+	}
+
+	@Test
+	public void testCallTimingTimeBeforeCallIsSinceLastRecordedCallToAnyMethod()
+			throws Exception {
+		FakeClock clock = new FakeClock();
+		MCR.useCallTiming(clock::getTime);
+
+		clock.time = 100;
+		MCR.addCallForMethodNameAndParameters("open");
+		clock.time = 300;
+		MCR.addCallForMethodNameAndParameters("write");
+		clock.time = 310;
+		MCR.addReturnedForMethodNameAndReturnValue("write", 1);
+		clock.time = 1_310;
+		MCR.addCallForMethodNameAndParameters("close");
+
+		assertEquals(MCR.getTimesBeforeCalls("open").getCount(), 0);
+		assertEquals(MCR.getTimesBeforeCalls("write").getMax(), 200);
+		assertEquals(MCR.getTimesBeforeCalls("close").getMax(), 1_000);
+		assertEquals(MCR.getCallDurations("open").getCount(), 0);
+		assertEquals(MCR.getCallDurations("write").getMax(), 10);
+	}
+
+	@Test
+	public void testCallTimingForAllWaysOfRecording() throws Exception {
+		FakeClock clock = new FakeClock();
+		clock.tick = 1;
+		MCR.useCallTiming(clock::getTime);
+		MethodReturnValues MRV = new MethodReturnValues();
+		MRV.setDefaultReturnValuesSupplier("timedMethod", () -> "value");
+		MCR.useMRV(MRV);
+		int methodId = MCR.registerMethod("timedMethod", PARAM1);
+
+		MCR.addCallAndReturnFromMRVForMethodId(methodId, "value");
+		MCR.addCallForMethodId(methodId, "value");
+		MCR.addReturnedForMethodId(methodId, "returned");
+		timedMethod();
+
+		LatencyHistogram callDurations = MCR.getCallDurations("timedMethod");
+		assertEquals(callDurations.getCount(), 3);
+		assertEquals(callDurations.getMin(), 1);
+		assertEquals(callDurations.getMax(), 1);
+		assertEquals(MCR.getTimesBeforeCalls("timedMethod").getMax(), 1);
+	}
+
+	private void timedMethod() {
+		MCR.addCall(PARAM1, 1);
+		MCR.addReturned("returned");
+	}
+
+	@Test
+	public void testCallTimingWhenCountingOnly() throws Exception {
+		FakeClock clock = new FakeClock();
+		MCR.useCountingOnly();
+		MCR.useCallTiming(clock::getTime);
+
+		MCR.addCallForMethodNameAndParameters("read");
+		clock.time = 25;
+		MCR.addReturnedForMethodNameAndReturnValue("read", "value");
+
+		assertEquals(MCR.getCallDurations("read").getMax(), 25);
+	}
+
+	@Test
+	public void testUseCallTimingUsesNanoTime() throws Exception {
+		MCR.useCallTiming();
+
+		long before = System.nanoTime();
+		MCR.addCallForMethodNameAndParameters("read");
+		MCR.addReturnedForMethodNameAndReturnValue("read", "value");
+		long after = System.nanoTime();
+
+		assertTrue(MCR.getCallDurations("read").getMax() <= after - before);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "useCallTiming must be called before any calls are recorded")
+	public void testUseCallTimingAfterCallsRecorded() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read");
+
+		MCR.useCallTiming();
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Call timings are only recorded when using call timing, for "
+			+ "\\(methodName: read\\)")
+	public void testGetCallDurationsNotUsingCallTiming() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read");
+
+		MCR.getCallDurations("read");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Call timings are only recorded when using call timing, for "
+			+ "\\(methodName: read\\)")
+	public void testGetTimesBeforeCallsNotUsingCallTiming() throws Exception {
+		MCR.getTimesBeforeCalls("read");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "MethodName not found for \\(methodName: notCalled\\)")
+	public void testGetCallDurationsMethodNotCalled() throws Exception {
+		MCR.useCallTiming();
+
+		MCR.getCallDurations("notCalled");
+	}
+
+	@Test
+	public void testAssertMaxLatency() throws Exception {
+		recordCallsWithDurations(10, 20, 30);
+
+		MCR.assertMaxLatency("read", Duration.ofNanos(30));
+	}
+
+	private void recordCallsWithDurations(long... durations) {
+		FakeClock clock = new FakeClock();
+		MCR.useCallTiming(clock::getTime);
+		for (long duration : durations) {
+			MCR.addCallForMethodNameAndParameters("read");
+			clock.time += duration;
+			MCR.addReturnedForMethodNameAndReturnValue("read", "value");
+		}
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "Max latency for method: read was: 30 ns, expected at most: 29 ns")
+	public void testAssertMaxLatencyTooSlow() throws Exception {
+		recordCallsWithDurations(10, 30, 20);
+
+		MCR.assertMaxLatency("read", Duration.ofNanos(29));
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Call durations not found for \\(methodName: read\\)")
+	public void testAssertMaxLatencyNoDurationsRecorded() throws Exception {
+		MCR.useCallTiming();
+		MCR.addCallForMethodNameAndParameters("read");
+
+		MCR.assertMaxLatency("read", Duration.ofSeconds(1));
+	}
+
+	@Test
+	public void testAssertPercentile() throws Exception {
+		long[] durations = new long[100];
+		for (int i = 0; i < 100; i++) {
+			durations[i] = i + 1;
+		}
+		durations[99] = 1_000_000;
+		recordCallsWithDurations(durations);
+
+		MCR.assertPercentile("read", 99, Duration.ofNanos(99));
+		MCR.assertPercentile("read", 50, Duration.ofNanos(50));
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "Latency at percentile: 50.0 for method: read was: 20 ns, expected at most: 19 ns")
+	public void testAssertPercentileTooSlow() throws Exception {
+		recordCallsWithDurations(10, 20, 30);
+
+		MCR.assertPercentile("read", 50, Duration.ofNanos(19));
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Call durations not found for \\(methodName: read\\)")
+	public void testAssertPercentileNoDurationsRecorded() throws Exception {
+		MCR.useCallTiming();
+		MCR.addCallForMethodNameAndParameters("read");
+
+		MCR.assertPercentile("read", 99, Duration.ofSeconds(1));
+	}
+
+	@Test
+	public void testUseListenerCallsAndReturnedValues() throws Exception {
+		MethodCallListenerSpy listener = new MethodCallListenerSpy();
+		MCR.useListener(listener);
+
+		MCR.addCallForMethodNameAndParameters("read", "type", "someType", "id", "someId");
+		MCR.addReturnedForMethodNameAndReturnValue("read", "value");
+
+		assertListenedCall(listener, 0, "read", List.of("type", "id"),
+				List.of("someType", "someId"));
+		listener.MCR.assertParameters("returnedValueRecorded", 0, "read", "value");
+	}
+
+	private void assertListenedCall(MethodCallListenerSpy listener, int callNumber,
+			String methodName, List<String> parameterNames, List<Object> values) {
+		listener.MCR.assertParameter("callRecorded", callNumber, "methodName", methodName);
+		String[] listenedNames = (String[]) listener.MCR
+				.getParameterForMethodAndCallNumberAndParameter("callRecorded", callNumber,
+						"parameterNames");
+		assertEquals(Arrays.asList(listenedNames), parameterNames);
+		Object[] listenedValues = (Object[]) listener.MCR
+				.getParameterForMethodAndCallNumberAndParameter("callRecorded", callNumber,
+						"values");
+		assertEquals(Arrays.asList(listenedValues), values);
+	}
+
+	@Test
+	public void testUseListenerForAllWaysOfRecordingCalls() throws Exception {
+		MethodCallListenerSpy listener = new MethodCallListenerSpy();
+		MCR.useListener(listener);
+		int methodId = MCR.registerMethod("registered", PARAM1, PARAM2);
+
+		listenedMethod();
+		MCR.addCallForMethodId(methodId, "value1", "value2");
+		MCR.addReturnedForMethodId(methodId, "returned");
+
+		listener.MCR.assertNumberOfCallsToMethod("callRecorded", 4);
+		assertListenedCall(listener, 0, "listenedMethod", List.of(), List.of());
+		assertListenedCall(listener, 1, "listenedMethod", List.of(PARAM1, PARAM2),
+				List.of("value1", "value2"));
+		assertListenedCall(listener, 2, "listenedMethod", List.of(PARAM1), List.of(42));
+		assertListenedCall(listener, 3, "registered", List.of(PARAM1, PARAM2),
+				List.of("value1", "value2"));
+		listener.MCR.assertParameters("returnedValueRecorded", 0, "listenedMethod", "returned");
+		listener.MCR.assertParameters("returnedValueRecorded", 1, "registered", "returned");
+	}
+
+	private void listenedMethod() {
+		MCR.addCall();
+		MCR.addCall(PARAM1, "value1", PARAM2, "value2");
+		MCR.addCall(PARAM1, 42);
+		MCR.addReturned("returned");
+	}
+
+	@Test
+	public void testUseListenerWithMRV() throws Exception {
+		MethodCallListenerSpy listener = new MethodCallListenerSpy();
+		MCR.useListener(listener);
+		MethodReturnValues MRV = new MethodReturnValues();
+		MRV.setDefaultReturnValuesSupplier("registered", () -> "fromMRV");
+		MCR.useMRV(MRV);
+		int methodId = MCR.registerMethod("registered", PARAM1);
+
+		MCR.addCallAndReturnFromMRVForMethodId(methodId, "value1");
+
+		assertListenedCall(listener, 0, "registered", List.of(PARAM1), List.of("value1"));
+		listener.MCR.assertParameters("returnedValueRecorded", 0, "registered", "fromMRV");
+	}
+
+	@Test
+	public void testUseListenerCallIsPushedBeforeErrorFromMRV() throws Exception {
+		MethodCallListenerSpy listener = new MethodCallListenerSpy();
+		MCR.useListener(listener);
+		MethodReturnValues MRV = new MethodReturnValues();
+		MRV.setAlwaysThrowException("read", new RuntimeException("errorFromMRV"));
+		MCR.useMRV(MRV);
+
+		try {
+			MCR.addCallForMethodNameAndParameters("read", "id", "someId");
+			fail();
+		} catch (RuntimeException e) {
+			assertEquals(e.getMessage(), "errorFromMRV");
+		}
+
+		assertListenedCall(listener, 0, "read", List.of("id"), List.of("someId"));
+	}
+
+	@Test
+	public void testUseListenerWhenCountingOnly() throws Exception {
+		MethodCallListenerSpy listener = new MethodCallListenerSpy();
+		MCR.useCountingOnly();
+		MCR.useListener(listener);
+
+		MCR.addCallForMethodNameAndParameters("read", "id", "someId");
+		MCR.addReturnedForMethodNameAndReturnValue("read", "value");
+
+		MCR.assertNumberOfCallsToMethod("read", 1);
+		assertListenedCall(listener, 0, "read", List.of("id"), List.of("someId"));
+		listener.MCR.assertParameters("returnedValueRecorded", 0, "read", "value");
+	}
+
+	@Test
+	public void testUseListenerNullStopsPushingCalls() throws Exception {
+		MethodCallListenerSpy listener = new MethodCallListenerSpy();
+		MCR.useListener(listener);
+		MCR.addCallForMethodNameAndParameters("read");
+
+		MCR.useListener(null);
+		MCR.addCallForMethodNameAndParameters("read");
+
+		MCR.assertNumberOfCallsToMethod("read", 2);
+		listener.MCR.assertNumberOfCallsToMethod("callRecorded", 1);
+	}
+
+	@Test
+	public void testAwaitAlreadyRecordedCallsReturnsWithoutWaiting() throws Exception {
+		MCR.addCall("id", "someId");
+		MCR.addCall("id", "otherId");
+
+		MCR.awaitNumberOfCallsToMethod(
+				"testAwaitAlreadyRecordedCallsReturnsWithoutWaiting", 2, Duration.ZERO);
+		MCR.awaitCalledParameters("testAwaitAlreadyRecordedCallsReturnsWithoutWaiting",
+				Duration.ZERO, "otherId");
+	}
+
+	@Test
+	public void testResetForgetsRecordedCalls() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "id", "before");
+		MCR.addReturnedForMethodNameAndReturnValue("read", "valueBefore");
+
+		MCR.reset();
+
+		MCR.assertMethodNotCalled("read");
+		MCR.assertNumberOfCallsToMethod("read", 0);
+		MCR.addCallForMethodNameAndParameters("read", "id", "after");
+		MCR.addReturnedForMethodNameAndReturnValue("read", "valueAfter");
+		MCR.assertNumberOfCallsToMethod("read", 1);
+		MCR.assertParameters("read", 0, "after");
+		MCR.assertReturn("read", 0, "valueAfter");
+		assertEquals(MCR.getReturnValues("read"), List.of("valueAfter"));
+	}
+
+	@Test
+	public void testResetKeepsStorageForMethods() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "id", "before");
+		MethodCallLog methodCallLog = MCR.getMethodCallLog("read");
+
+		MCR.reset();
+		MCR.addCallForMethodNameAndParameters("read", "id", "after");
+
+		assertSame(MCR.getMethodCallLog("read"), methodCallLog);
+	}
+
+	@Test
+	public void testResetForgetsIndexedCalls() throws Exception {
+		for (int call = 0; call < 20; call++) {
+			MCR.addCallForMethodNameAndParameters("read", "id", "before" + call);
+		}
+		MCR.assertCalledParameters("read", "before19");
+
+		MCR.reset();
+		for (int call = 0; call < 20; call++) {
+			MCR.addCallForMethodNameAndParameters("read", "id", "after" + call);
+		}
+
+		MCR.assertCalledParameters("read", "after19");
+		try {
+			MCR.assertCalledParameters("read", "before19");
+			fail();
+		} catch (AssertionError e) {
+			assertEquals(e.getMessage(), "Method: read not called with values: [before19]");
+		}
+	}
+
+	@Test
+	public void testResetKeepsRegisteredMethods() throws Exception {
+		int readId = MCR.registerMethod("read", "id");
+		MCR.addCallForMethodId(readId, "before");
+
+		MCR.reset();
+		MCR.addCallForMethodId(readId, "after");
+
+		MCR.assertNumberOfCallsToMethod("read", 1);
+		MCR.assertParameters("read", 0, "after");
+	}
+
+	@Test
+	public void testResetKeepsPrimitiveCallsApart() throws Exception {
+		MCR.addCall("id", 1);
+
+		MCR.reset();
+		MCR.addCallForMethodNameAndParameters("testResetKeepsPrimitiveCallsApart", "id", "after");
+
+		MCR.assertParameters("testResetKeepsPrimitiveCallsApart", 0, "after");
+	}
+
+	@Test
+	public void testResetKeepsRetainingOnlyLastCalls() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(2);
+		for (int call = 0; call < 5; call++) {
+			MCR.addCallForMethodNameAndParameters("read", "call", call);
+		}
+
+		MCR.reset();
+		for (int call = 0; call < 3; call++) {
+			MCR.addCallForMethodNameAndParameters("read", "call", call);
+		}
+
+		MCR.assertNumberOfCallsToMethod("read", 3);
+		MCR.assertParameters("read", 2, 2);
+		try {
+			MCR.assertParameters("read", 0, 0);
+			fail();
+		} catch (RuntimeException e) {
+			assertEquals(e.getMessage(), "CallNumber no longer retained, only the last 2 calls "
+					+ "are kept, for (methodName: read, callNumber: 0)");
+		}
+	}
+
+	@Test
+	public void testResetKeepsIncreasingSequenceNumbers() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read");
+		MCR.addCallForMethodNameAndParameters("write");
+
+		MCR.reset();
+		MCR.addCallForMethodNameAndParameters("read");
+
+		assertEquals(MCR.getSequenceNumberForMethodAndCallNumber("read", 0), 2);
+	}
+
+	@Test
+	public void testResetClearsCallTimings() throws Exception {
+		FakeClock clock = new FakeClock();
+		clock.tick = 10;
+		MCR.useCallTiming(clock::getTime);
+		MCR.addCallForMethodNameAndParameters("read");
+		MCR.addReturnedForMethodNameAndReturnValue("read", "value");
+
+		MCR.reset();
+
+		assertEquals(MCR.getCallDurations("read").getCount(), 0);
+		assertEquals(MCR.getTimesBeforeCalls("read").getCount(), 0);
+		assertEquals(MCR.getCallDurations("read").getMax(), 0);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "useCountingOnly must be called before any calls are recorded")
+	public void testResetKeepsConfiguration() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read");
+
+		MCR.reset();
+
+		MCR.useCountingOnly();
 	}
 }
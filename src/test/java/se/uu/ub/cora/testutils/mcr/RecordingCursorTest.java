@@ -0,0 +1,284 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class RecordingCursorTest {
+	private MethodCallRecorder MCR;
+
+	@BeforeMethod
+	public void beforeMethod() {
+		MCR = new MethodCallRecorder();
+	}
+
+	@Test
+	public void testAssertNextWalksCallsToAllMethodsInOrder() throws Exception {
+		recordOpenWriteClose();
+
+		RecordingCursor cursor = MCR.cursorForAllCalls();
+
+		cursor.assertNext("open", "someFile");
+		cursor.assertNext("write", "first");
+		cursor.assertNext("write", "second");
+		cursor.assertNext("close");
+		cursor.assertNoMore();
+	}
+
+	private void recordOpenWriteClose() {
+		MCR.addCallForMethodNameAndParameters("open", "name", "someFile");
+		MCR.addCallForMethodNameAndParameters("write", "data", "first");
+		MCR.addCallForMethodNameAndParameters("write", "data", "second");
+		MCR.addCallForMethodNameAndParameters("close");
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "Next call is to method: open \\(callNumber: 0\\), expected call to method: write "
+			+ "with values: \\[first\\]")
+	public void testAssertNextOtherMethodCalledFirst() throws Exception {
+		recordOpenWriteClose();
+
+		MCR.cursorForAllCalls().assertNext("write", "first");
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "Next call is to method: write \\(callNumber: 1\\), expected call to method: close "
+			+ "with values: \\[\\]")
+	public void testAssertNextOtherMethodCalledInBetween() throws Exception {
+		recordOpenWriteClose();
+		RecordingCursor cursor = MCR.cursorForAllCalls();
+		cursor.assertNext("open", "someFile");
+		cursor.assertNext("write", "first");
+
+		cursor.assertNext("close");
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "Next call is to method: open \\(callNumber: 0\\), expected call to method: "
+			+ "notCalled with values: \\[\\]")
+	public void testAssertNextMethodNotCalled() throws Exception {
+		recordOpenWriteClose();
+
+		MCR.cursorForAllCalls().assertNext("notCalled");
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "No more calls, expected call to method: open with values: \\[otherFile\\]")
+	public void testAssertNextNoMoreCalls() throws Exception {
+		MCR.addCallForMethodNameAndParameters("open", "name", "someFile");
+		RecordingCursor cursor = MCR.cursorForAllCalls();
+		cursor.assertNext("open", "someFile");
+
+		cursor.assertNext("open", "otherFile");
+	}
+
+	@Test(expectedExceptions = AssertionError.class)
+	public void testAssertNextWrongValue() throws Exception {
+		recordOpenWriteClose();
+
+		MCR.cursorForAllCalls().assertNext("open", "otherFile");
+	}
+
+	@Test
+	public void testSkip() throws Exception {
+		recordOpenWriteClose();
+		RecordingCursor cursor = MCR.cursorForAllCalls();
+
+		cursor.skip();
+		cursor.skip();
+
+		cursor.assertNext("write", "second");
+		cursor.skip();
+		cursor.assertNoMore();
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "No more calls to skip")
+	public void testSkipNoMoreCalls() throws Exception {
+		MCR.cursorForAllCalls().skip();
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "More calls, next call is to method: close \\(callNumber: 0\\)")
+	public void testAssertNoMoreWhenCallsLeft() throws Exception {
+		recordOpenWriteClose();
+		RecordingCursor cursor = MCR.cursorForAllCalls();
+		cursor.assertNext("open", "someFile");
+		cursor.assertNext("write", "first");
+		cursor.assertNext("write", "second");
+
+		cursor.assertNoMore();
+	}
+
+	@Test
+	public void testCursorSeesCallsRecordedAfterItWasCreated() throws Exception {
+		MCR.addCallForMethodNameAndParameters("open", "name", "someFile");
+		RecordingCursor cursor = MCR.cursorForAllCalls();
+		cursor.assertNext("open", "someFile");
+		cursor.assertNoMore();
+
+		MCR.addCallForMethodNameAndParameters("write", "data", "first");
+		MCR.addCallForMethodNameAndParameters("open", "name", "otherFile");
+
+		cursor.assertNext("write", "first");
+		cursor.assertNext("open", "otherFile");
+		cursor.assertNoMore();
+	}
+
+	@Test
+	public void testCursorWhenRetainingOnlyLastCalls() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(1);
+		recordOpenWriteClose();
+
+		RecordingCursor cursor = MCR.cursorForAllCalls();
+
+		cursor.assertNext("open", "someFile");
+		cursor.assertNext("write", "second");
+		cursor.assertNext("close");
+		cursor.assertNoMore();
+	}
+
+	@Test
+	public void testCursorMovesPastCallsDroppedAfterCursorPassedMethod() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(2);
+		MCR.addCallForMethodNameAndParameters("a", "value", 1);
+		MCR.addCallForMethodNameAndParameters("b", "value", 1);
+		RecordingCursor cursor = MCR.cursorForAllCalls();
+		cursor.assertNext("a", 1);
+		for (int value = 2; value <= 4; value++) {
+			MCR.addCallForMethodNameAndParameters("a", "value", value);
+		}
+
+		cursor.assertNext("b", 1);
+		cursor.assertNext("a", 3);
+		cursor.assertNext("a", 4);
+		cursor.assertNoMore();
+	}
+
+	@Test
+	public void testSkipAndAssertNoMoreWithCallsDroppedAfterCursorPassedMethod()
+			throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(2);
+		MCR.addCallForMethodNameAndParameters("a", "value", 1);
+		MCR.addCallForMethodNameAndParameters("b", "value", 1);
+		RecordingCursor cursor = MCR.cursorForAllCalls();
+		cursor.assertNext("a", 1);
+		cursor.assertNext("b", 1);
+		for (int value = 2; value <= 4; value++) {
+			MCR.addCallForMethodNameAndParameters("a", "value", value);
+		}
+
+		cursor.skip();
+		cursor.skip();
+		cursor.assertNoMore();
+	}
+
+	@Test(expectedExceptions = AssertionError.class, expectedExceptionsMessageRegExp = ""
+			+ "More calls, next call is to method: a \\(callNumber: 2\\)")
+	public void testAssertNoMoreWithCallsDroppedAfterCursorPassedMethod() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(2);
+		MCR.addCallForMethodNameAndParameters("a", "value", 1);
+		RecordingCursor cursor = MCR.cursorForAllCalls();
+		cursor.assertNext("a", 1);
+		for (int value = 2; value <= 4; value++) {
+			MCR.addCallForMethodNameAndParameters("a", "value", value);
+		}
+
+		cursor.assertNoMore();
+	}
+
+	@Test
+	public void testCursorAfterReset() throws Exception {
+		recordOpenWriteClose();
+		MCR.reset();
+		MCR.addCallForMethodNameAndParameters("write", "data", "afterReset");
+
+		RecordingCursor cursor = MCR.cursorForAllCalls();
+
+		cursor.assertNext("write", "afterReset");
+		cursor.assertNoMore();
+	}
+
+	@Test
+	public void testCursorSinceMark() throws Exception {
+		MCR.addCallForMethodNameAndParameters("open", "name", "someFile");
+		RecordingMark mark = MCR.mark();
+		MCR.addCallForMethodNameAndParameters("write", "data", "first");
+		MCR.addCallForMethodNameAndParameters("close");
+
+		RecordingCursor cursor = MCR.since(mark).cursorForAllCalls();
+
+		cursor.assertNext("write", "first");
+		cursor.assertNext("close");
+		cursor.assertNoMore();
+	}
+
+	@Test
+	public void testCursorInConcurrentRecorder() throws Exception {
+		MCR = new ConcurrentMethodCallRecorder();
+		recordOpenWriteClose();
+
+		RecordingCursor cursor = MCR.cursorForAllCalls();
+
+		cursor.assertNext("open", "someFile");
+		cursor.skip();
+		cursor.assertNext("write", "second");
+		cursor.assertNext("close");
+		cursor.assertNoMore();
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Parameters are not recorded when counting only calls, for \\(methodName: open\\)")
+	public void testAssertNextWhenCountingOnly() throws Exception {
+		MCR.useCountingOnly();
+		recordOpenWriteClose();
+
+		MCR.cursorForAllCalls().assertNext("open", "someFile");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Sequence numbers are not recorded when counting only calls")
+	public void testSkipWhenCountingOnly() throws Exception {
+		MCR.useCountingOnly();
+
+		MCR.cursorForAllCalls().skip();
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Sequence numbers are not recorded when counting only calls")
+	public void testAssertNoMoreWhenCountingOnly() throws Exception {
+		MCR.useCountingOnly();
+
+		MCR.cursorForAllCalls().assertNoMore();
+	}
+
+	@Test
+	public void testCursorOverManyCallsToManyMethods() throws Exception {
+		for (int call = 0; call < 50_000; call++) {
+			MCR.addCallForMethodNameAndParameters("method" + call % 10, "call", call);
+		}
+		RecordingCursor cursor = MCR.cursorForAllCalls();
+
+		for (int call = 0; call < 50_000; call++) {
+			cursor.assertNext("method" + call % 10, call);
+		}
+		cursor.assertNoMore();
+	}
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mcr;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class RecordingReaderTest {
+	private MethodCallRecorder MCR;
+	private Path path;
+	private RecordingReader reader;
+
+	@BeforeMethod
+	public void beforeMethod() throws IOException {
+		MCR = new MethodCallRecorder();
+		path = Files.createTempFile("recording", ".mcr");
+	}
+
+	@AfterMethod
+	public void afterMethod() throws IOException {
+		if (null != reader) {
+			reader.close();
+			reader = null;
+		}
+		Files.deleteIfExists(path);
+	}
+
+	@DataProvider(name = "chunkSizes")
+	public Object[][] chunkSizes() {
+		return new Object[][] { { 1 << 30 }, { 7 }, { 1 } };
+	}
+
+	private RecordingReader exportAndOpen(int chunkSize) {
+		MCR.exportRecording(path);
+		reader = RecordingReader.open(path, chunkSize);
+		return reader;
+	}
+
+	@Test(dataProvider = "chunkSizes")
+	public void testCallsAndReturnedValues(int chunkSize) throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "type", "someType", "id", "someId");
+		MCR.addReturnedForMethodNameAndReturnValue("read", "value");
+		MCR.addCallForMethodNameAndParameters("read", "type", "otherType", "id", "otherId");
+		MCR.addReturnedForMethodNameAndReturnValue("read", "otherValue");
+		MCR.addCallForMethodNameAndParameters("update");
+
+		exportAndOpen(chunkSize);
+
+		assertEquals(reader.getMethodNames(), Set.of("read", "update"));
+		assertEquals(reader.getNumberOfCallsToMethod("read"), 2);
+		assertEquals(reader.getNumberOfCallsToMethod("update"), 1);
+		assertEquals(reader.getParametersForMethodAndCallNumber("read", 0),
+				Map.of("type", "someType", "id", "someId"));
+		assertEquals(reader.getParametersForMethodAndCallNumber("read", 1),
+				Map.of("type", "otherType", "id", "otherId"));
+		assertEquals(reader.getParametersForMethodAndCallNumber("update", 0), Map.of());
+		assertEquals(reader.getReturnValue("read", 0), "value");
+		assertEquals(reader.getReturnValue("read", 1), "otherValue");
+	}
+
+	@Test(dataProvider = "chunkSizes")
+	public void testValueTypes(int chunkSize) throws Exception {
+		MCR.addCallForMethodNameAndParameters("types", "null", null, "string",
+				"\u00e5\u00e4\u00f6", "int", 42, "long", -42L, "boolean", true, "short", (short) -3,
+				"byte", (byte) -7, "char", '\u00f6', "float", 1.5f, "double", -2.25,
+				"list", List.of("a", "b"));
+
+		exportAndOpen(chunkSize);
+
+		Map<String, Object> parameters = reader.getParametersForMethodAndCallNumber("types", 0);
+		assertNull(parameters.get("null"));
+		assertEquals(parameters.get("string"), "\u00e5\u00e4\u00f6");
+		assertEquals(parameters.get("int"), 42);
+		assertEquals(parameters.get("long"), -42L);
+		assertEquals(parameters.get("boolean"), true);
+		assertEquals(parameters.get("short"), (short) -3);
+		assertEquals(parameters.get("byte"), (byte) -7);
+		assertEquals(parameters.get("char"), '\u00f6');
+		assertEquals(parameters.get("float"), 1.5f);
+		assertEquals(parameters.get("double"), -2.25);
+		assertEquals(parameters.get("list"), "[a, b]");
+	}
+
+	@Test
+	public void testPrimitiveCalls() throws Exception {
+		recordPrimitiveCalls();
+
+		exportAndOpen(7);
+
+		assertEquals(reader.getParameterForMethodAndCallNumberAndParameter("recordPrimitiveCalls",
+				0, "int"), 1);
+		assertEquals(reader.getParameterForMethodAndCallNumberAndParameter("recordPrimitiveCalls",
+				1, "long"), 2L);
+		assertEquals(reader.getParameterForMethodAndCallNumberAndParameter("recordPrimitiveCalls",
+				2, "char"), 'c');
+	}
+
+	private void recordPrimitiveCalls() {
+		MCR.addCall("int", 1);
+		MCR.addCall("long", 2L);
+		MCR.addCall("char", 'c');
+	}
+
+	@Test
+	public void testSameParameterNameTwiceKeepsLastValueAsMCR() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "id", "first", "id", "second");
+
+		exportAndOpen(7);
+
+		assertEquals(reader.getParametersForMethodAndCallNumber("read", 0),
+				MCR.getParametersForMethodAndCallNumber("read", 0));
+	}
+
+	@Test
+	public void testOnlyRetainedCallsAreExported() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(2);
+		for (int call = 0; call < 5; call++) {
+			MCR.addCallForMethodNameAndParameters("read", "call", call);
+			MCR.addReturnedForMethodNameAndReturnValue("read", call);
+		}
+
+		exportAndOpen(7);
+
+		assertEquals(reader.getNumberOfCallsToMethod("read"), 5);
+		assertEquals(reader.getParameterForMethodAndCallNumberAndParameter("read", 3, "call"), 3);
+		assertEquals(reader.getParameterForMethodAndCallNumberAndParameter("read", 4, "call"), 4);
+		assertEquals(reader.getReturnValue("read", 3), 3);
+		assertEquals(reader.getReturnValue("read", 4), 4);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "CallNumber not found for \\(methodName: read, callNumber: 2\\)")
+	public void testCallNoLongerRetained() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(2);
+		for (int call = 0; call < 5; call++) {
+			MCR.addCallForMethodNameAndParameters("read", "call", call);
+		}
+
+		exportAndOpen(7).getParametersForMethodAndCallNumber("read", 2);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "CallNumber not found for \\(methodName: read, callNumber: 2\\)")
+	public void testReturnedValueNoLongerRetained() throws Exception {
+		MCR.retainOnlyLastCallsPerMethod(2);
+		for (int call = 0; call < 5; call++) {
+			MCR.addReturnedForMethodNameAndReturnValue("read", call);
+		}
+
+		exportAndOpen(7).getReturnValue("read", 2);
+	}
+
+	@Test
+	public void testCountingOnlyExportsNumberOfCalls() throws Exception {
+		MCR.useCountingOnly();
+		MCR.addCallForMethodNameAndParameters("read", "id", "someId");
+		MCR.addCallForMethodNameAndParameters("read", "id", "someId");
+
+		exportAndOpen(7);
+
+		assertEquals(reader.getNumberOfCallsToMethod("read"), 2);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "CallNumber not found for \\(methodName: read, callNumber: 0\\)")
+	public void testCountingOnlyExportsNoCalls() throws Exception {
+		MCR.useCountingOnly();
+		MCR.addCallForMethodNameAndParameters("read", "id", "someId");
+
+		exportAndOpen(7).getParametersForMethodAndCallNumber("read", 0);
+	}
+
+	@Test
+	public void testNumberOfCallsToMethodNotCalled() throws Exception {
+		assertEquals(exportAndOpen(7).getNumberOfCallsToMethod("notCalled"), 0);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "MethodName not found for \\(methodName: notCalled, callNumber: 0\\)")
+	public void testMethodNotFound() throws Exception {
+		exportAndOpen(7).getParametersForMethodAndCallNumber("notCalled", 0);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "MethodName not found for \\(methodName: read, callNumber: 0\\)")
+	public void testReturnValueMethodNotFound() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read");
+
+		exportAndOpen(7).getReturnValue("read", 0);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "CallNumber not found for \\(methodName: read, callNumber: 1\\)")
+	public void testCallNumberNotFound() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read");
+
+		exportAndOpen(7).getParametersForMethodAndCallNumber("read", 1);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "CallNumber not found for \\(methodName: read, callNumber: -1\\)")
+	public void testNegativeCallNumber() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read");
+
+		exportAndOpen(7).getParametersForMethodAndCallNumber("read", -1);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "ParameterName not found for \\(methodName: read, callNumber: 0 and "
+			+ "parameterName: notAParameter\\)")
+	public void testParameterNotFound() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "id", "someId");
+
+		exportAndOpen(7).getParameterForMethodAndCallNumberAndParameter("read", 0,
+				"notAParameter");
+	}
+
+	@Test
+	public void testManyCallsWithChunksSmallerThanCalls() throws Exception {
+		int methodId = MCR.registerMethod("read", "type", "id");
+		for (int call = 0; call < 100_000; call++) {
+			MCR.addCallForMethodId(methodId, "type" + (call % 10), call);
+			MCR.addReturnedForMethodId(methodId, call % 2 == 0);
+		}
+
+		exportAndOpen(4096);
+
+		assertEquals(reader.getNumberOfCallsToMethod("read"), 100_000);
+		for (int call = 0; call < 100_000; call += 997) {
+			assertEquals(reader.getParametersForMethodAndCallNumber("read", call),
+					Map.of("type", "type" + (call % 10), "id", call));
+			assertEquals(reader.getReturnValue("read", call), call % 2 == 0);
+		}
+	}
+
+	@Test
+	public void testOpenUsesDefaultChunkSize() throws Exception {
+		MCR.addCallForMethodNameAndParameters("read", "id", "someId");
+		MCR.exportRecording(path);
+
+		reader = RecordingReader.open(path);
+
+		assertEquals(reader.getParameterForMethodAndCallNumberAndParameter("read", 0, "id"),
+				"someId");
+	}
+
+	@Test
+	public void testExportReplacesExistingFile() throws Exception {
+		Files.writeString(path, "some old content that is longer than the new recording"
+				+ "x".repeat(1000));
+		MCR.addCallForMethodNameAndParameters("read", "id", "someId");
+
+		exportAndOpen(7);
+
+		assertEquals(reader.getParameterForMethodAndCallNumberAndParameter("read", 0, "id"),
+				"someId");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Not a recording: .*")
+	public void testOpenNotARecording() throws Exception {
+		Files.writeString(path, "not a recording, but long enough to have a header and footer");
+
+		RecordingReader.open(path);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Not a recording: .*")
+	public void testOpenEmptyFile() throws Exception {
+		RecordingReader.open(path);
+	}
+
+	@Test
+	public void testOpenMissingFile() throws Exception {
+		Files.delete(path);
+		try {
+			RecordingReader.open(path);
+			fail();
+		} catch (RuntimeException e) {
+			assertEquals(e.getMessage(), "Could not open recording: " + path);
+			assertTrue(e.getCause() instanceof NoSuchFileException);
+		}
+	}
+
+	@Test
+	public void testExportToMissingDirectory() throws Exception {
+		Path missingPath = path.resolveSibling("missingDirectory").resolve("recording.mcr");
+		try {
+			MCR.exportRecording(missingPath);
+			fail();
+		} catch (RuntimeException e) {
+			assertEquals(e.getMessage(), "Could not export recording to: " + missingPath);
+			assertTrue(e.getCause() instanceof NoSuchFileException);
+		}
+	}
+}
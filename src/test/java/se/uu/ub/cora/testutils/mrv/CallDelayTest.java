@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mrv;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.testutils.mcr.LatencyHistogram;
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+
+public class CallDelayTest {
+
+	@Test
+	public void testFixed() throws Exception {
+		CallDelay delay = CallDelay.fixed(Duration.ofMillis(20));
+
+		assertEquals(delay.nextDelayInNanos(new Random()), 20_000_000L);
+		assertEquals(delay.nextDelayInNanos(new Random()), 20_000_000L);
+	}
+
+	@Test
+	public void testFixedZero() throws Exception {
+		CallDelay delay = CallDelay.fixed(Duration.ZERO);
+
+		assertEquals(delay.nextDelayInNanos(new Random()), 0L);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Delay can not be negative, was: PT-1S")
+	public void testFixedNegative() throws Exception {
+		CallDelay.fixed(Duration.ofSeconds(-1));
+	}
+
+	@Test
+	public void testUniformIsWithinMinAndMax() throws Exception {
+		CallDelay delay = CallDelay.uniform(Duration.ofNanos(10), Duration.ofNanos(13));
+		Random random = new Random(1);
+
+		boolean[] delayed = new boolean[4];
+		for (int call = 0; call < 1000; call++) {
+			long delayInNanos = delay.nextDelayInNanos(random);
+			assertTrue(delayInNanos >= 10 && delayInNanos <= 13);
+			delayed[(int) delayInNanos - 10] = true;
+		}
+		assertEquals(delayed, new boolean[] { true, true, true, true });
+	}
+
+	@Test
+	public void testUniformSameSeedGivesSameDelays() throws Exception {
+		CallDelay delay = CallDelay.uniform(Duration.ZERO, Duration.ofMillis(10));
+		Random random = new Random(42);
+		Random otherRandom = new Random(42);
+
+		for (int call = 0; call < 100; call++) {
+			assertEquals(delay.nextDelayInNanos(random), delay.nextDelayInNanos(otherRandom));
+		}
+	}
+
+	@Test
+	public void testUniformMinEqualsMax() throws Exception {
+		CallDelay delay = CallDelay.uniform(Duration.ofMillis(5), Duration.ofMillis(5));
+
+		assertEquals(delay.nextDelayInNanos(new Random()), 5_000_000L);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Delay can not be negative, was: PT-0.001S")
+	public void testUniformNegativeMin() throws Exception {
+		CallDelay.uniform(Duration.ofMillis(-1), Duration.ofMillis(5));
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Max delay must be at least min delay, was min: PT0.005S and max: PT0.004S")
+	public void testUniformMaxShorterThanMin() throws Exception {
+		CallDelay.uniform(Duration.ofMillis(5), Duration.ofMillis(4));
+	}
+
+	@Test
+	public void testFromHistogramFollowsRecordedDurations() throws Exception {
+		LatencyHistogram histogram = createHistogramWithRecordedDurations();
+		CallDelay delay = CallDelay.fromHistogram(histogram);
+		Random random = new Random(1);
+
+		for (int call = 0; call < 1000; call++) {
+			long delayInNanos = delay.nextDelayInNanos(random);
+			assertTrue(delayInNanos >= histogram.getMin());
+			assertTrue(delayInNanos <= histogram.getMax());
+		}
+	}
+
+	private LatencyHistogram createHistogramWithRecordedDurations() {
+		MethodCallRecorder MCR = new MethodCallRecorder();
+		MCR.useCallTiming();
+		for (int call = 0; call < 100; call++) {
+			MCR.addCallForMethodNameAndParameters("read");
+			MCR.addReturnedForMethodNameAndReturnValue("read", call);
+		}
+		return MCR.getCallDurations("read");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Histogram has no recorded durations")
+	public void testFromEmptyHistogram() throws Exception {
+		MethodCallRecorder MCR = new MethodCallRecorder();
+		MCR.useCallTiming();
+		MCR.addCallForMethodNameAndParameters("read");
+
+		CallDelay.fromHistogram(MCR.getCallDurations("read"));
+	}
+}
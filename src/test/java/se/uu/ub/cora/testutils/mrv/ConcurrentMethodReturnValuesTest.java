@@ -0,0 +1,179 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mrv;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ConcurrentMethodReturnValuesTest {
+	private static final int NUMBER_OF_THREADS = 16;
+	private static final int CALLS_PER_THREAD = 2000;
+	private static final String DEFAULT_VALUE = "default";
+	private ConcurrentMethodReturnValues MRV;
+	private ExecutorService executor;
+
+	@BeforeMethod
+	public void beforeMethod() {
+		MRV = new ConcurrentMethodReturnValues();
+		executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+	}
+
+	@AfterMethod
+	public void afterMethod() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testIsMethodReturnValues() throws Exception {
+		assertTrue(MRV instanceof MethodReturnValues);
+	}
+
+	@Test
+	public void testGetReturnValueUsesCallingMethodName() throws Exception {
+		MRV.setReturnValues("testGetReturnValueUsesCallingMethodName", List.of("returnValue"),
+				"one");
+
+		assertEquals(MRV.getReturnValue("one"), "returnValue");
+	}
+
+	@Test
+	public void testQueuedValuesAreReturnedOnceEach() throws Exception {
+		int numberOfQueuedValues = NUMBER_OF_THREADS * CALLS_PER_THREAD / 2;
+		MRV.setReturnValues("sharedMethod", createQueuedValues(numberOfQueuedValues), "one");
+		MRV.setDefaultReturnValuesSupplier("sharedMethod", () -> DEFAULT_VALUE);
+		List<List<Object>> returnedPerThread = createListPerThread();
+
+		runInAllThreads(thread -> getReturnValuesForThread(returnedPerThread.get(thread)));
+
+		Set<Object> returnedQueuedValues = new HashSet<>();
+		int numberOfDefaultValues = 0;
+		for (List<Object> returned : returnedPerThread) {
+			for (Object value : returned) {
+				if (DEFAULT_VALUE.equals(value)) {
+					numberOfDefaultValues++;
+				} else {
+					assertTrue(returnedQueuedValues.add(value), "returned twice: " + value);
+				}
+			}
+		}
+		assertEquals(returnedQueuedValues.size(), numberOfQueuedValues);
+		assertEquals(numberOfDefaultValues, NUMBER_OF_THREADS * CALLS_PER_THREAD / 2);
+	}
+
+	private List<Object> createQueuedValues(int numberOfQueuedValues) {
+		List<Object> queuedValues = new ArrayList<>();
+		for (int i = 0; i < numberOfQueuedValues; i++) {
+			queuedValues.add(i);
+		}
+		return queuedValues;
+	}
+
+	private List<List<Object>> createListPerThread() {
+		List<List<Object>> listPerThread = new ArrayList<>();
+		for (int thread = 0; thread < NUMBER_OF_THREADS; thread++) {
+			listPerThread.add(new ArrayList<>());
+		}
+		return listPerThread;
+	}
+
+	private void getReturnValuesForThread(List<Object> returned) {
+		for (int call = 0; call < CALLS_PER_THREAD; call++) {
+			returned.add(MRV.getReturnValueForMethodNameAndParameters("sharedMethod", "one"));
+		}
+	}
+
+	@Test
+	public void testSetValuesWhileCallsAreInFlight() throws Exception {
+		MRV.setDefaultReturnValuesSupplier("sharedMethod", () -> DEFAULT_VALUE);
+
+		runInAllThreads(this::setAndGetValuesForThread);
+
+		for (int thread = 0; thread < NUMBER_OF_THREADS; thread++) {
+			assertEquals(MRV.getReturnValueForMethodNameAndParameters("sharedMethod", thread, -1),
+					thread);
+		}
+	}
+
+	private void setAndGetValuesForThread(int thread) {
+		for (int call = 0; call < CALLS_PER_THREAD; call++) {
+			MRV.setReturnValues("sharedMethod", List.of(call), thread, call);
+			MRV.setSpecificReturnValuesSupplier("sharedMethod", () -> thread, thread, -1);
+			int otherThread = (thread + 1) % NUMBER_OF_THREADS;
+			Object otherThreadsValue = MRV.getReturnValueForMethodNameAndParameters(
+					"sharedMethod", otherThread, -1);
+			assertTrue(DEFAULT_VALUE.equals(otherThreadsValue)
+					|| otherThreadsValue.equals(otherThread));
+			assertEquals(MRV.getReturnValueForMethodNameAndParameters("sharedMethod", thread, call),
+					call);
+		}
+	}
+
+	@Test
+	public void testDelaysFromManyThreadsAreAddedUp() throws Exception {
+		MRV.setDefaultDelay("sharedMethod", CallDelay.fixed(Duration.ofNanos(1000)));
+		MRV.setSpecificDelay("sharedMethod", CallDelay.fixed(Duration.ofNanos(3000)), "slow");
+
+		runInAllThreads(thread -> {
+			for (int call = 0; call < CALLS_PER_THREAD; call++) {
+				Object value = call % 2 == 0 ? "slow" : call;
+				MRV.delayForMethodNameAndParameters("sharedMethod", new Object[] { value });
+			}
+		});
+
+		assertEquals(MRV.getTotalDelayForMethod("sharedMethod"),
+				Duration.ofNanos(NUMBER_OF_THREADS * CALLS_PER_THREAD / 2 * 4000L));
+	}
+
+	private void runInAllThreads(ThreadWork work) throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int thread = 0; thread < NUMBER_OF_THREADS; thread++) {
+			int threadNumber = thread;
+			futures.add(executor.submit(() -> {
+				start.await();
+				work.run(threadNumber);
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(30, TimeUnit.SECONDS);
+		}
+	}
+
+	@FunctionalInterface
+	private interface ThreadWork {
+		void run(int thread);
+	}
+}
@@ -25,7 +25,9 @@ import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNotSame;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
+import java.time.Duration;
 import java.util.List;
 
 import org.testng.annotations.BeforeMethod;
@@ -117,6 +119,22 @@ public class MethodReturnValuesTest {
 				"No return value found for methodName: testParametersNotFound and parameterValues:one, two");
 	}
 
+	@Test
+	public void testNullParameterValues() {
+		MRV.setReturnValues("testNullParameterValues", List.of("returnValue"), "one", null);
+
+		Object returnValue = MRV.getReturnValue("one", null);
+
+		assertEquals(returnValue, "returnValue");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "No return value found for methodName: testNullParameterValuesNotFound "
+			+ "and parameterValues:one, null")
+	public void testNullParameterValuesNotFound() {
+		MRV.getReturnValue("one", null);
+	}
+
 	@Test
 	public void testStringValues() {
 		MRV.setReturnValues("testStringValues", List.of(1, 2, 3), "one", "two");
@@ -289,6 +307,242 @@ public class MethodReturnValuesTest {
 		assertNotNull(caughtException);
 		assertSame(caughtException, returnException);
 	}
+
+	@Test
+	public void testSetReturnValuesAgainStartsFromFirstValue() {
+		MRV.setReturnValues("testSetReturnValuesAgainStartsFromFirstValue",
+				List.of("firstValue", "secondValue"), "one");
+		MRV.getReturnValue("one");
+		MRV.setReturnValues("testSetReturnValuesAgainStartsFromFirstValue",
+				List.of("otherFirstValue"), "one");
+
+		var return1 = MRV.getReturnValue("one");
+
+		assertEquals(return1, "otherFirstValue");
+	}
+
+	@Test
+	public void testThrowExceptionBeforeAlwaysThrowException() {
+		RuntimeException specificException = new RuntimeException();
+		RuntimeException alwaysException = new RuntimeException();
+		MRV.setThrowException("testThrowExceptionBeforeAlwaysThrowException", specificException,
+				"one");
+		MRV.setAlwaysThrowException("testThrowExceptionBeforeAlwaysThrowException",
+				alwaysException);
+
+		assertSame(getExceptionFromGetReturnValue("one"), specificException);
+		assertSame(getExceptionFromGetReturnValue("two"), alwaysException);
+	}
+
+	private Exception getExceptionFromGetReturnValue(Object... values) {
+		try {
+			MRV.getReturnValueForMethodNameAndParameters(
+					"testThrowExceptionBeforeAlwaysThrowException", values);
+		} catch (Exception e) {
+			return e;
+		}
+		return null;
+	}
+
+	@Test
+	public void testSpecificReturnValuesBeforeAlwaysThrowException() {
+		MRV.setAlwaysThrowException("testSpecificReturnValuesBeforeAlwaysThrowException",
+				new RuntimeException());
+		MRV.setReturnValues("testSpecificReturnValuesBeforeAlwaysThrowException",
+				List.of("firstValue"), "one");
+
+		var return1 = MRV.getReturnValue("one");
+
+		assertEquals(return1, "firstValue");
+	}
+
+	@Test
+	public void testGetReturnValueForMethodId() {
+		int methodId = MRV.registerMethod("someMethod");
+		MRV.setDefaultReturnValuesSupplier("someMethod", () -> "default");
+		MRV.setReturnValues("someMethod", List.of("queued"), "one");
+		MRV.setSpecificReturnValuesSupplier("someMethod", () -> "specific", "two");
+
+		assertEquals(MRV.getReturnValueForMethodId(methodId, "one"), "queued");
+		assertEquals(MRV.getReturnValueForMethodId(methodId, "one"), "default");
+		assertEquals(MRV.getReturnValueForMethodId(methodId, "two"), "specific");
+		assertEquals(MRV.getReturnValueForMethodId(methodId), "default");
+	}
+
+	@Test
+	public void testGetReturnValueForMethodIdRegisteredAfterSettingValues() {
+		MRV.setReturnValues("someMethod", List.of("queued"), "one");
+		int otherMethodId = MRV.registerMethod("otherMethod");
+		int methodId = MRV.registerMethod("someMethod");
+
+		assertEquals(otherMethodId, 0);
+		assertEquals(methodId, 1);
+		assertEquals(MRV.getReturnValueForMethodId(methodId, "one"), "queued");
+	}
+
+	@Test
+	public void testThrowExceptionForMethodId() {
+		RuntimeException specificException = new RuntimeException();
+		RuntimeException alwaysException = new RuntimeException();
+		int methodId = MRV.registerMethod("someMethod");
+		MRV.setThrowException("someMethod", specificException, "one");
+
+		assertSame(getExceptionFromGetReturnValueForMethodId(methodId, "one"), specificException);
+		MRV.possiblyThrowErrorForMethodId(methodId, new Object[] { "two" });
+		MRV.setAlwaysThrowException("someMethod", alwaysException);
+		assertSame(getExceptionFromGetReturnValueForMethodId(methodId, "two"), alwaysException);
+	}
+
+	private Exception getExceptionFromGetReturnValueForMethodId(int methodId, Object... values) {
+		try {
+			MRV.getReturnValueForMethodId(methodId, values);
+		} catch (Exception e) {
+			return e;
+		}
+		return null;
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "No return value found for methodName: someMethod and parameterValues:one")
+	public void testGetReturnValueForMethodIdNothingSet() {
+		int methodId = MRV.registerMethod("someMethod");
+
+		MRV.getReturnValueForMethodId(methodId, "one");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "MethodId not registered for \\(methodId: 0\\)")
+	public void testGetReturnValueForMethodIdNotRegistered() {
+		MRV.getReturnValueForMethodId(0, "one");
+	}
+
+	@Test
+	public void testTotalDelayForMethodNothingSet() {
+		assertEquals(MRV.getTotalDelayForMethod("someMethod"), Duration.ZERO);
+	}
+
+	@Test
+	public void testGetReturnValueIsDelayed() {
+		MRV.setDefaultReturnValuesSupplier("testGetReturnValueIsDelayed", () -> "default");
+		MRV.setDefaultDelay("testGetReturnValueIsDelayed", CallDelay.fixed(Duration.ofMillis(5)));
+		long start = System.nanoTime();
+
+		Object returnValue = MRV.getReturnValue("one");
+
+		assertTrue(System.nanoTime() - start >= Duration.ofMillis(5).toNanos());
+		assertEquals(returnValue, "default");
+		assertEquals(MRV.getTotalDelayForMethod("testGetReturnValueIsDelayed"),
+				Duration.ofMillis(5));
+	}
+
+	@Test
+	public void testDelayBeforeThrowing() {
+		RuntimeException exception = new RuntimeException();
+		MRV.setAlwaysThrowException("testDelayBeforeThrowing", exception);
+		MRV.setDefaultDelay("testDelayBeforeThrowing", CallDelay.fixed(Duration.ofMillis(1)));
+
+		try {
+			MRV.getReturnValue("one");
+			fail();
+		} catch (RuntimeException e) {
+			assertSame(e, exception);
+		}
+		assertEquals(MRV.getTotalDelayForMethod("testDelayBeforeThrowing"), Duration.ofMillis(1));
+	}
+
+	@Test
+	public void testSpecificDelayIsUsedInsteadOfDefaultDelay() {
+		MRV.setDefaultDelay("someMethod", CallDelay.fixed(Duration.ofMillis(1)));
+		MRV.setSpecificDelay("someMethod", CallDelay.fixed(Duration.ofMillis(3)), "one");
+
+		MRV.delayForMethodNameAndParameters("someMethod", new Object[] { "one" });
+		assertEquals(MRV.getTotalDelayForMethod("someMethod"), Duration.ofMillis(3));
+
+		MRV.delayForMethodNameAndParameters("someMethod", new Object[] { "two" });
+		assertEquals(MRV.getTotalDelayForMethod("someMethod"), Duration.ofMillis(4));
+	}
+
+	@Test
+	public void testOnlySpecificDelay() {
+		MRV.setSpecificDelay("someMethod", CallDelay.fixed(Duration.ofMillis(2)), "one");
+
+		MRV.delayForMethodNameAndParameters("someMethod", new Object[] { "two" });
+		MRV.delayForMethodNameAndParameters("otherMethod", new Object[] { "one" });
+		assertEquals(MRV.getTotalDelayForMethod("someMethod"), Duration.ZERO);
+
+		MRV.delayForMethodNameAndParameters("someMethod", new Object[] { "one" });
+		assertEquals(MRV.getTotalDelayForMethod("someMethod"), Duration.ofMillis(2));
+	}
+
+	@Test
+	public void testSpecificDelayDoesNotChangeReturnValue() {
+		MRV.setDefaultReturnValuesSupplier("someMethod", () -> "default");
+		MRV.setSpecificDelay("someMethod", CallDelay.fixed(Duration.ZERO), "one");
+
+		assertEquals(MRV.getReturnValueForMethodNameAndParameters("someMethod", "one"),
+				"default");
+	}
+
+	@Test
+	public void testGetReturnValueForMethodNameAndParametersIsNotDelayed() {
+		MRV.setDefaultReturnValuesSupplier("someMethod", () -> "default");
+		MRV.setDefaultDelay("someMethod", CallDelay.fixed(Duration.ofSeconds(10)));
+
+		MRV.getReturnValueForMethodNameAndParameters("someMethod", "one");
+
+		assertEquals(MRV.getTotalDelayForMethod("someMethod"), Duration.ZERO);
+	}
+
+	@Test
+	public void testDelayForMethodId() {
+		int methodId = MRV.registerMethod("someMethod");
+		MRV.setDefaultDelay("someMethod", CallDelay.fixed(Duration.ofMillis(1)));
+		MRV.setSpecificDelay("someMethod", CallDelay.fixed(Duration.ofMillis(2)), "one");
+
+		MRV.delayForMethodId(methodId, new Object[] { "one" });
+		MRV.delayForMethodId(methodId, new Object[] { "two" });
+
+		assertEquals(MRV.getTotalDelayForMethod("someMethod"), Duration.ofMillis(3));
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "MethodId not registered for \\(methodId: 0\\)")
+	public void testDelayForMethodIdNotRegistered() {
+		MRV.delayForMethodId(0, new Object[] { "one" });
+	}
+
+	@Test
+	public void testUseSeedForDelaysRepeatsDelays() {
+		MethodReturnValues otherMRV = new MethodReturnValues();
+		delayTenCallsUsingSeed(MRV);
+		delayTenCallsUsingSeed(otherMRV);
+
+		assertEquals(MRV.getTotalDelayForMethod("someMethod"),
+				otherMRV.getTotalDelayForMethod("someMethod"));
+	}
+
+	private void delayTenCallsUsingSeed(MethodReturnValues mrv) {
+		mrv.setDefaultDelay("someMethod",
+				CallDelay.uniform(Duration.ZERO, Duration.ofNanos(100_000)));
+		mrv.useSeedForDelays(42);
+		for (int call = 0; call < 10; call++) {
+			mrv.delayForMethodNameAndParameters("someMethod", new Object[] { call });
+		}
+	}
+
+	@Test
+	public void testInterruptedThreadIsNotDelayed() {
+		MRV.setDefaultDelay("someMethod", CallDelay.fixed(Duration.ofSeconds(30)));
+		long start = System.nanoTime();
+		Thread.currentThread().interrupt();
+
+		MRV.delayForMethodNameAndParameters("someMethod", new Object[] {});
+
+		assertTrue(Thread.interrupted());
+		assertTrue(System.nanoTime() - start < Duration.ofSeconds(10).toNanos());
+		assertEquals(MRV.getTotalDelayForMethod("someMethod"), Duration.ofSeconds(30));
+	}
+
 	// -make it possible to set error to throw
 	// -make it possible to set default for some value
 	// -see if we can set a MVR in MCR, to reduce boilerplate code
@@ -20,8 +20,12 @@ package se.uu.ub.cora.testutils.mrv;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertTrue;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -34,11 +38,11 @@ public class NameValuesTest {
 
 	@BeforeMethod
 	public void beforeMethod() {
-		nameValues = new NameValues("someMethod", "one", "two");
-		nameValues2 = new NameValues("someMethod", "one", "two");
-		nameValues3 = new NameValues("someOtherMethod", "one", "two");
-		nameValues4 = new NameValues("someMethod", "two", "one");
-		nameValues5 = new NameValues("someMethod", "one", "two", "two");
+		nameValues = NameValues.forStoring("someMethod", "one", "two");
+		nameValues2 = NameValues.forStoring("someMethod", "one", "two");
+		nameValues3 = NameValues.forStoring("someOtherMethod", "one", "two");
+		nameValues4 = NameValues.forStoring("someMethod", "two", "one");
+		nameValues5 = NameValues.forStoring("someMethod", "one", "two", "two");
 	}
 
 	@Test
@@ -56,4 +60,40 @@ public class NameValuesTest {
 		assertTrue(nameValues.equals(nameValues));
 		assertTrue(nameValues.equals(nameValues2));
 	}
+
+	@Test
+	public void testHashCodeDependsOnOrderOfValues() throws Exception {
+		assertNotEquals(nameValues.hashCode(), nameValues4.hashCode());
+	}
+
+	@Test
+	public void testHashCodeSpreadsSimilarValues() throws Exception {
+		Set<Integer> hashes = new HashSet<>();
+		for (int i = 0; i < 1000; i++) {
+			hashes.add(NameValues.forStoring("someMethod", i, i + 1).hashCode());
+			hashes.add(NameValues.forStoring("someMethod", i + 1, i).hashCode());
+		}
+		assertTrue(hashes.size() > 1990);
+	}
+
+	@Test
+	public void testEqualsWithNullValues() throws Exception {
+		NameValues withNull = NameValues.forStoring("someMethod", "one", null);
+		NameValues withNull2 = NameValues.forStoring("someMethod", "one", null);
+
+		assertTrue(withNull.equals(withNull2));
+		assertEquals(withNull.hashCode(), withNull2.hashCode());
+		assertFalse(withNull.equals(nameValues));
+		assertFalse(nameValues.equals(withNull));
+	}
+
+	@Test
+	public void testChangingValuesAfterCreationDoesNotChangeKey() throws Exception {
+		Object[] values = { "one", "two" };
+		NameValues fromArray = NameValues.forStoring("someMethod", values);
+		values[1] = "changed";
+
+		assertTrue(fromArray.equals(nameValues));
+		assertEquals(fromArray.hashCode(), nameValues.hashCode());
+	}
 }
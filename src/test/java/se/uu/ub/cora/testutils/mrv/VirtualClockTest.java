@@ -0,0 +1,207 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.mrv;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.testutils.mcr.LatencyHistogram;
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+
+public class VirtualClockTest {
+	private static final int NUMBER_OF_THREADS = 16;
+	private static final Duration SLOW = Duration.ofSeconds(5);
+	private VirtualClock clock;
+	private MethodReturnValues MRV;
+	private ExecutorService executor;
+
+	@BeforeMethod
+	public void beforeMethod() {
+		clock = new VirtualClock();
+		MRV = new ConcurrentMethodReturnValues();
+		MRV.useVirtualClock(clock);
+		MRV.setDefaultReturnValuesSupplier("read", () -> "value");
+		MRV.setDefaultDelay("read", CallDelay.fixed(SLOW));
+		executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+	}
+
+	@AfterMethod
+	public void afterMethod() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testStartsAtZero() throws Exception {
+		assertEquals(clock.nanoTime(), 0);
+		assertEquals(clock.getNumberOfWaitingCalls(), 0);
+	}
+
+	@Test
+	public void testAdvance() throws Exception {
+		clock.advance(Duration.ofMillis(5));
+		clock.advance(Duration.ofNanos(7));
+
+		assertEquals(clock.nanoTime(), 5_000_007L);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Time can not be advanced by a negative duration, was: PT-1S")
+	public void testAdvanceNegative() throws Exception {
+		clock.advance(Duration.ofSeconds(-1));
+	}
+
+	@Test
+	public void testDelayedCallWaitsUntilClockIsAdvancedPastDelay() throws Exception {
+		Future<Object> future = executor.submit(() -> read("one"));
+		clock.awaitNumberOfWaitingCalls(1, Duration.ofSeconds(30));
+
+		clock.advance(SLOW.minusNanos(1));
+		assertEquals(clock.getNumberOfWaitingCalls(), 1);
+		assertFalse(future.isDone());
+
+		clock.advance(Duration.ofNanos(1));
+		assertEquals(future.get(30, TimeUnit.SECONDS), "value");
+		assertEquals(clock.getNumberOfWaitingCalls(), 0);
+	}
+
+	private Object read(String id) {
+		return MRV.getReturnValue(id);
+	}
+
+	@Test
+	public void testManyDelayedCallsReturnWhenClockIsAdvancedOnce() throws Exception {
+		List<Future<Object>> futures = new ArrayList<>();
+		for (int thread = 0; thread < NUMBER_OF_THREADS; thread++) {
+			futures.add(executor.submit(() -> read("one")));
+		}
+		clock.awaitNumberOfWaitingCalls(NUMBER_OF_THREADS, Duration.ofSeconds(30));
+
+		clock.advance(SLOW);
+
+		for (Future<Object> future : futures) {
+			assertEquals(future.get(30, TimeUnit.SECONDS), "value");
+		}
+		assertEquals(MRV.getTotalDelayForMethod("read"), SLOW.multipliedBy(NUMBER_OF_THREADS));
+		assertEquals(clock.nanoTime(), SLOW.toNanos());
+	}
+
+	@Test
+	public void testAwaitNumberOfWaitingCallsTimesOut() throws Exception {
+		try {
+			clock.awaitNumberOfWaitingCalls(1, Duration.ofMillis(50));
+			fail();
+		} catch (AssertionError e) {
+			assertEquals(e.getMessage(),
+					"Waiting calls: 0, expected at least: 1 waiting calls within: PT0.05S");
+		}
+	}
+
+	@Test
+	public void testAwaitNumberOfWaitingCallsInterrupted() throws Exception {
+		Thread.currentThread().interrupt();
+		try {
+			clock.awaitNumberOfWaitingCalls(1, Duration.ofSeconds(30));
+			fail();
+		} catch (RuntimeException e) {
+			assertEquals(e.getMessage(), "Interrupted while waiting for waiting calls");
+			assertTrue(Thread.interrupted());
+		}
+	}
+
+	@Test
+	public void testInterruptedDelayedCallReturnsWithoutWaiting() throws Exception {
+		Thread.currentThread().interrupt();
+
+		MRV.delayForMethodNameAndParameters("read", new Object[] { "one" });
+
+		assertTrue(Thread.interrupted());
+		assertEquals(clock.nanoTime(), 0);
+		assertEquals(clock.getNumberOfWaitingCalls(), 0);
+	}
+
+	@Test
+	public void testAutoAdvanceLetsManySlowCallsReturnDirectly() throws Exception {
+		clock.useAutoAdvance();
+		long start = System.nanoTime();
+
+		for (int call = 0; call < 10_000; call++) {
+			MRV.delayForMethodNameAndParameters("read", new Object[] { call });
+		}
+
+		assertTrue(System.nanoTime() - start < Duration.ofSeconds(10).toNanos());
+		assertEquals(clock.nanoTime(), SLOW.multipliedBy(10_000).toNanos());
+		assertEquals(MRV.getTotalDelayForMethod("read"), SLOW.multipliedBy(10_000));
+	}
+
+	@Test
+	public void testAutoAdvanceWithRandomDelaysIsRepeatable() throws Exception {
+		assertEquals(runRandomDelaysUsingAutoAdvance(), runRandomDelaysUsingAutoAdvance());
+	}
+
+	private long runRandomDelaysUsingAutoAdvance() {
+		VirtualClock autoClock = new VirtualClock();
+		autoClock.useAutoAdvance();
+		MethodReturnValues mrv = new MethodReturnValues();
+		mrv.useVirtualClock(autoClock);
+		mrv.setDefaultDelay("read", CallDelay.uniform(Duration.ZERO, SLOW));
+		mrv.useSeedForDelays(42);
+		for (int call = 0; call < 1000; call++) {
+			mrv.delayForMethodNameAndParameters("read", new Object[] { call });
+		}
+		return autoClock.nanoTime();
+	}
+
+	@Test
+	public void testCallTimingOnVirtualClockMeasuresDelays() throws Exception {
+		clock.useAutoAdvance();
+		MRV.setSpecificDelay("read", CallDelay.fixed(Duration.ofMillis(20)), "fast");
+		MethodCallRecorder MCR = new MethodCallRecorder();
+		MCR.useCallTiming(clock);
+		MCR.useMRV(MRV);
+
+		for (int call = 0; call < 100; call++) {
+			read(MCR, "slow");
+			read(MCR, "fast");
+		}
+
+		LatencyHistogram callDurations = MCR.getCallDurations("read");
+		assertEquals(callDurations.getCount(), 200);
+		assertEquals(callDurations.getMin(), Duration.ofMillis(20).toNanos());
+		assertEquals(callDurations.getMax(), SLOW.toNanos());
+		assertEquals(MCR.getTimesBeforeCalls("read").getMax(), 0);
+	}
+
+	private Object read(MethodCallRecorder MCR, String id) {
+		return MCR.addCallAndReturnFromMRV("id", id);
+	}
+}
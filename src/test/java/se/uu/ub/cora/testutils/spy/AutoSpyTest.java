@@ -0,0 +1,278 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.spy;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.testutils.mcr.ConcurrentMethodCallRecorder;
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+import se.uu.ub.cora.testutils.mrv.ConcurrentMethodReturnValues;
+import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
+
+public class AutoSpyTest {
+	private AutoSpy<InterfaceToSpyOn> autoSpy;
+	private InterfaceToSpyOn spy;
+
+	@BeforeMethod
+	public void beforeMethod() {
+		autoSpy = createSpyFor(InterfaceToSpyOn.class);
+		spy = autoSpy.getSpy();
+	}
+
+	<T> AutoSpy<T> createSpyFor(Class<T> interfaceToSpyOn) {
+		return AutoSpy.createSpyFor(interfaceToSpyOn);
+	}
+
+	<T> AutoSpy<T> createSpyFor(Class<T> interfaceToSpyOn, MethodCallRecorder MCR,
+			MethodReturnValues MRV) {
+		return AutoSpy.createSpyFor(interfaceToSpyOn, MCR, MRV);
+	}
+
+	@Test
+	public void testSpyImplementsInterface() throws Exception {
+		assertTrue(spy instanceof InterfaceToSpyOn);
+	}
+
+	@Test
+	public void testSpyClass() throws Exception {
+		assertSpyClass(spy.getClass());
+	}
+
+	void assertSpyClass(Class<?> spyClass) {
+		assertTrue(Proxy.isProxyClass(spyClass));
+	}
+
+	@Test
+	public void testMCRUsesMRV() throws Exception {
+		autoSpy.MRV.setDefaultReturnValuesSupplier("read", () -> "fromMRV");
+
+		assertEquals(autoSpy.MCR.addCallAndReturnFromMRVForMethodId(
+				autoSpy.MCR.registerMethod("read", "number"), 1), "fromMRV");
+	}
+
+	@Test
+	public void testCallIsRecorded() throws Exception {
+		spy.read("someType", "someId");
+
+		autoSpy.MCR.assertNumberOfCallsToMethod("read", 1);
+		autoSpy.MCR.assertParameters("read", 0, "someType", "someId");
+	}
+
+	@Test
+	public void testCallIsRecordedWithParameterNamesFromReflection() throws Exception {
+		spy.read("someType", "someId");
+
+		String[] parameterNames = parameterNamesFor("read", String.class, String.class);
+		autoSpy.MCR.assertParameter("read", 0, parameterNames[0], "someType");
+		autoSpy.MCR.assertParameter("read", 0, parameterNames[1], "someId");
+	}
+
+	private String[] parameterNamesFor(String methodName, Class<?>... parameterTypes)
+			throws Exception {
+		return new SpiedMethod(InterfaceToSpyOn.class.getMethod(methodName, parameterTypes))
+				.getParameterNames();
+	}
+
+	@Test
+	public void testReturnValueIsRecorded() throws Exception {
+		autoSpy.MRV.setDefaultReturnValuesSupplier("read", () -> "someValue");
+
+		String value = spy.read("someType", "someId");
+
+		assertEquals(value, "someValue");
+		autoSpy.MCR.assertReturn("read", 0, "someValue");
+	}
+
+	@Test
+	public void testSpecificReturnValue() throws Exception {
+		autoSpy.MRV.setSpecificReturnValuesSupplier("read", () -> "specific", "someType",
+				"someId");
+
+		assertEquals(spy.read("someType", "someId"), "specific");
+		assertNull(spy.read("otherType", "someId"));
+	}
+
+	@Test
+	public void testReturnValuesAreQueued() throws Exception {
+		autoSpy.MRV.setReturnValues("count", List.of(1, 2));
+
+		assertEquals(spy.count(), 1);
+		assertEquals(spy.count(), 2);
+		assertEquals(spy.count(), 0);
+		autoSpy.MCR.assertNumberOfCallsToMethod("count", 3);
+	}
+
+	@Test
+	public void testDefaultReturnValues() throws Exception {
+		assertNull(spy.read("someType", "someId"));
+		assertEquals(spy.count(), 0);
+		assertEquals(spy.size("someType"), 0L);
+		assertFalse(spy.exists("someType", "someId"));
+		assertEquals(spy.initial(), (char) 0);
+		assertEquals(spy.average(), 0d);
+	}
+
+	@Test
+	public void testPrimitiveReturnValueFromMRV() throws Exception {
+		autoSpy.MRV.setDefaultReturnValuesSupplier("exists", () -> true);
+		autoSpy.MRV.setDefaultReturnValuesSupplier("size", () -> 7L);
+
+		assertTrue(spy.exists("someType", "someId"));
+		assertEquals(spy.size("someType"), 7L);
+	}
+
+	@Test
+	public void testVoidMethodIsRecorded() throws Exception {
+		Object data = new Object();
+
+		spy.update("someType", data);
+
+		autoSpy.MCR.assertParameters("update", 0, "someType", data);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "MethodName not found for \\(methodName: update, callNumber: 0\\)")
+	public void testVoidMethodIsRecordedWithoutReturnValue() throws Exception {
+		spy.update("someType", new Object());
+
+		autoSpy.MCR.getReturnValue("update", 0);
+	}
+
+	@Test
+	public void testVoidMethodThrowsErrorFromMRV() throws Exception {
+		RuntimeException exception = new RuntimeException();
+		Object data = new Object();
+		autoSpy.MRV.setThrowException("update", exception, "someType", data);
+
+		try {
+			spy.update("someType", data);
+			fail();
+		} catch (RuntimeException e) {
+			assertSame(e, exception);
+		}
+		autoSpy.MCR.assertNumberOfCallsToMethod("update", 1);
+	}
+
+	@Test
+	public void testMethodThrowsErrorFromMRV() throws Exception {
+		RuntimeException exception = new RuntimeException();
+		autoSpy.MRV.setAlwaysThrowException("count", exception);
+
+		try {
+			spy.count();
+			fail();
+		} catch (RuntimeException e) {
+			assertSame(e, exception);
+		}
+		autoSpy.MCR.assertNumberOfCallsToMethod("count", 1);
+	}
+
+	@Test
+	public void testMethodWithoutParameters() throws Exception {
+		spy.count();
+
+		autoSpy.MCR.assertParameters("count", 0);
+		assertEquals(autoSpy.MCR.getParametersForMethodAndCallNumber("count", 0).size(), 0);
+	}
+
+	@Test
+	public void testOverloadedMethodsAreRecordedUnderSameName() throws Exception {
+		spy.read("someType", "someId");
+		spy.read(5);
+
+		autoSpy.MCR.assertNumberOfCallsToMethod("read", 2);
+		autoSpy.MCR.assertParameters("read", 0, "someType", "someId");
+		autoSpy.MCR.assertParameters("read", 1, 5);
+	}
+
+	@Test
+	public void testDefaultMethodIsSpiedOn() throws Exception {
+		assertNull(spy.describe("someType"));
+
+		autoSpy.MCR.assertParameters("describe", 0, "someType");
+	}
+
+	@Test
+	public void testObjectMethodsAreNotRecorded() throws Exception {
+		AutoSpy<InterfaceToSpyOn> otherAutoSpy = createSpyFor(InterfaceToSpyOn.class);
+
+		assertEquals(spy, spy);
+		assertNotEquals(spy, otherAutoSpy.getSpy());
+		assertEquals(spy.hashCode(), System.identityHashCode(spy));
+		assertEquals(spy.toString(), "AutoSpy for " + InterfaceToSpyOn.class.getName());
+		assertFalse(autoSpy.MCR.methodWasCalled("equals"));
+		assertFalse(autoSpy.MCR.methodWasCalled("hashCode"));
+		assertFalse(autoSpy.MCR.methodWasCalled("toString"));
+	}
+
+	@Test
+	public void testSpiesForSameInterfaceRecordSeparately() throws Exception {
+		AutoSpy<InterfaceToSpyOn> otherAutoSpy = createSpyFor(InterfaceToSpyOn.class);
+
+		spy.count();
+		otherAutoSpy.getSpy().count();
+		otherAutoSpy.getSpy().count();
+
+		autoSpy.MCR.assertNumberOfCallsToMethod("count", 1);
+		otherAutoSpy.MCR.assertNumberOfCallsToMethod("count", 2);
+	}
+
+	@Test
+	public void testCreateSpyForUsesSuppliedMCRAndMRV() throws Exception {
+		MethodCallRecorder MCR = new MethodCallRecorder();
+		MethodReturnValues MRV = new MethodReturnValues();
+
+		AutoSpy<InterfaceToSpyOn> otherAutoSpy = createSpyFor(InterfaceToSpyOn.class, MCR, MRV);
+		otherAutoSpy.getSpy().count();
+
+		assertSame(otherAutoSpy.MCR, MCR);
+		assertSame(otherAutoSpy.MRV, MRV);
+		MCR.assertNumberOfCallsToMethod("count", 1);
+	}
+
+	@Test
+	public void testCreateConcurrentSpyFor() throws Exception {
+		AutoSpy<InterfaceToSpyOn> concurrentAutoSpy = AutoSpy
+				.createConcurrentSpyFor(InterfaceToSpyOn.class);
+
+		concurrentAutoSpy.getSpy().read("someType", "someId");
+
+		assertTrue(concurrentAutoSpy.MCR instanceof ConcurrentMethodCallRecorder);
+		assertTrue(concurrentAutoSpy.MRV instanceof ConcurrentMethodReturnValues);
+		concurrentAutoSpy.MCR.assertParameters("read", 0, "someType", "someId");
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ""
+			+ "Spies can only be created for interfaces, not for: java.lang.String")
+	public void testCreateSpyForClassThrowsError() throws Exception {
+		createSpyFor(String.class);
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.spy;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
+
+public class GeneratedAutoSpyTest extends AutoSpyTest {
+
+	@Override
+	<T> AutoSpy<T> createSpyFor(Class<T> interfaceToSpyOn) {
+		return AutoSpy.createGeneratedSpyFor(interfaceToSpyOn);
+	}
+
+	@Override
+	<T> AutoSpy<T> createSpyFor(Class<T> interfaceToSpyOn, MethodCallRecorder MCR,
+			MethodReturnValues MRV) {
+		return AutoSpy.createGeneratedSpyFor(interfaceToSpyOn, MCR, MRV);
+	}
+
+	@Override
+	void assertSpyClass(Class<?> spyClass) {
+		assertFalse(Proxy.isProxyClass(spyClass));
+		assertTrue(spyClass.isHidden());
+		assertTrue(GeneratedSpyBase.class.isAssignableFrom(spyClass));
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.spy;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import java.lang.reflect.Method;
+
+import org.testng.annotations.Test;
+
+public class SpiedInterfaceTest {
+
+	@Test
+	public void testSameInstanceForSameInterface() throws Exception {
+		assertSame(SpiedInterface.forInterface(InterfaceToSpyOn.class),
+				SpiedInterface.forInterface(InterfaceToSpyOn.class));
+	}
+
+	@Test
+	public void testStaticMethodsAreNotSpiedOn() throws Exception {
+		SpiedInterface spiedInterface = SpiedInterface.forInterface(InterfaceToSpyOn.class);
+
+		Method staticMethod = InterfaceToSpyOn.class.getMethod("notSpiedOn");
+
+		assertEquals(spiedInterface.getNumberOfMethods(), 9);
+		assertEquals(spiedInterface.getPositionOfMethod(staticMethod),
+				SpiedInterface.METHOD_NOT_FOUND);
+	}
+
+	@Test
+	public void testMethodIsFoundByEqualsAndThenByIdentity() throws Exception {
+		SpiedInterface spiedInterface = SpiedInterface.forInterface(InterfaceToSpyOn.class);
+		Method method = InterfaceToSpyOn.class.getMethod("size", String.class);
+		Method equalMethod = InterfaceToSpyOn.class.getMethod("size", String.class);
+		assertNotSame(method, equalMethod);
+
+		int position = spiedInterface.getPositionOfMethod(method);
+
+		assertEquals(spiedInterface.getSpiedMethod(position).getMethodName(), "size");
+		assertEquals(spiedInterface.getPositionOfMethod(equalMethod), position);
+		assertEquals(spiedInterface.getPositionOfMethod(method), position);
+	}
+
+	@Test
+	public void testObjectMethodIsNotFound() throws Exception {
+		SpiedInterface spiedInterface = SpiedInterface.forInterface(InterfaceToSpyOn.class);
+
+		Method method = Object.class.getMethod("toString");
+
+		assertEquals(spiedInterface.getPositionOfMethod(method), SpiedInterface.METHOD_NOT_FOUND);
+	}
+
+	@Test
+	public void testSpiedMethodDefaultReturnValues() throws Exception {
+		assertEquals(defaultReturnValueFor("count"), 0);
+		assertEquals(defaultReturnValueFor("initial"), (char) 0);
+		assertEquals(defaultReturnValueFor("average"), 0d);
+		assertEquals(defaultReturnValueFor("exists", String.class, String.class), false);
+		assertEquals(defaultReturnValueFor("read", int.class), null);
+		assertEquals(defaultReturnValueFor("update", String.class, Object.class), null);
+	}
+
+	private Object defaultReturnValueFor(String methodName, Class<?>... parameterTypes)
+			throws Exception {
+		Method method = InterfaceToSpyOn.class.getMethod(methodName, parameterTypes);
+		return new SpiedMethod(method).getDefaultReturnValue();
+	}
+}
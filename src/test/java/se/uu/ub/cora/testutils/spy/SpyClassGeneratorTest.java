@@ -0,0 +1,232 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.testutils.spy;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class SpyClassGeneratorTest {
+
+	public interface AllPrimitives {
+		int ints(int value);
+
+		long longs(long first, int second, long third);
+
+		boolean booleans(boolean value);
+
+		short shorts(short value);
+
+		byte bytes(byte value);
+
+		char chars(char value);
+
+		float floats(float value);
+
+		double doubles(double first, float second, double third);
+	}
+
+	public interface Arrays {
+		String[] strings(String[] values);
+
+		int[][] ints(int[][] values);
+	}
+
+	public interface Empty {
+	}
+
+	public interface First {
+		String read(String id);
+	}
+
+	public interface Second {
+		String read(String id);
+	}
+
+	public interface Both extends First, Second {
+	}
+
+	public interface Generic<T> {
+		T get(T value);
+	}
+
+	public interface StringGeneric extends Generic<String> {
+		@Override
+		String get(String value);
+	}
+
+	interface NotPublic {
+		String read(String id);
+	}
+
+	public interface UsingNotPublic {
+		void use(NotPublic notPublic);
+	}
+
+	@Test
+	public void testAllPrimitivesAreRecordedAndReturned() throws Exception {
+		AutoSpy<AllPrimitives> autoSpy = AutoSpy.createGeneratedSpyFor(AllPrimitives.class);
+		AllPrimitives spy = autoSpy.getSpy();
+		assertGenerated(spy);
+		autoSpy.MRV.setDefaultReturnValuesSupplier("ints", () -> 1);
+		autoSpy.MRV.setDefaultReturnValuesSupplier("longs", () -> 2L);
+		autoSpy.MRV.setDefaultReturnValuesSupplier("booleans", () -> true);
+		autoSpy.MRV.setDefaultReturnValuesSupplier("shorts", () -> (short) 3);
+		autoSpy.MRV.setDefaultReturnValuesSupplier("bytes", () -> (byte) 4);
+		autoSpy.MRV.setDefaultReturnValuesSupplier("chars", () -> 'c');
+		autoSpy.MRV.setDefaultReturnValuesSupplier("floats", () -> 5.5f);
+		autoSpy.MRV.setDefaultReturnValuesSupplier("doubles", () -> 6.5d);
+
+		assertEquals(spy.ints(10), 1);
+		assertEquals(spy.longs(11L, 12, 13L), 2L);
+		assertTrue(spy.booleans(true));
+		assertEquals(spy.shorts((short) 14), (short) 3);
+		assertEquals(spy.bytes((byte) 15), (byte) 4);
+		assertEquals(spy.chars('d'), 'c');
+		assertEquals(spy.floats(16.5f), 5.5f);
+		assertEquals(spy.doubles(17.5d, 18.5f, 19.5d), 6.5d);
+
+		autoSpy.MCR.assertParameters("ints", 0, 10);
+		autoSpy.MCR.assertParameters("longs", 0, 11L, 12, 13L);
+		autoSpy.MCR.assertParameters("booleans", 0, true);
+		autoSpy.MCR.assertParameters("shorts", 0, (short) 14);
+		autoSpy.MCR.assertParameters("bytes", 0, (byte) 15);
+		autoSpy.MCR.assertParameters("chars", 0, 'd');
+		assertEquals(parameterValues(autoSpy, "floats"), List.of(16.5f));
+		assertEquals(parameterValues(autoSpy, "doubles"), List.of(17.5d, 18.5f, 19.5d));
+	}
+
+	private List<Object> parameterValues(AutoSpy<?> autoSpy, String methodName) {
+		return List.copyOf(
+				autoSpy.MCR.getParametersForMethodAndCallNumber(methodName, 0).values());
+	}
+
+	private void assertGenerated(Object spy) {
+		assertTrue(spy instanceof GeneratedSpyBase);
+	}
+
+	@Test
+	public void testPrimitivesDefaultToZero() throws Exception {
+		AllPrimitives spy = AutoSpy.createGeneratedSpyFor(AllPrimitives.class).getSpy();
+
+		assertEquals(spy.ints(10), 0);
+		assertEquals(spy.longs(11L, 12, 13L), 0L);
+		assertFalse(spy.booleans(true));
+		assertEquals(spy.shorts((short) 14), (short) 0);
+		assertEquals(spy.bytes((byte) 15), (byte) 0);
+		assertEquals(spy.chars('d'), (char) 0);
+		assertEquals(spy.floats(16.5f), 0f);
+		assertEquals(spy.doubles(17.5d, 18.5f, 19.5d), 0d);
+	}
+
+	@Test
+	public void testArrays() throws Exception {
+		AutoSpy<Arrays> autoSpy = AutoSpy.createGeneratedSpyFor(Arrays.class);
+		Arrays spy = autoSpy.getSpy();
+		assertGenerated(spy);
+		String[] strings = { "a" };
+		int[][] ints = { { 1 } };
+		autoSpy.MRV.setDefaultReturnValuesSupplier("strings", () -> strings);
+		autoSpy.MRV.setDefaultReturnValuesSupplier("ints", () -> ints);
+
+		assertSame(spy.strings(strings), strings);
+		assertSame(spy.ints(ints), ints);
+		autoSpy.MCR.assertParameters("strings", 0, (Object) strings);
+	}
+
+	@Test(expectedExceptions = ClassCastException.class)
+	public void testWrongReturnTypeFromMRV() throws Exception {
+		AutoSpy<Arrays> autoSpy = AutoSpy.createGeneratedSpyFor(Arrays.class);
+		autoSpy.MRV.setDefaultReturnValuesSupplier("strings", () -> List.of("a"));
+
+		autoSpy.getSpy().strings(null);
+	}
+
+	@Test
+	public void testEmptyInterface() throws Exception {
+		Empty spy = AutoSpy.createGeneratedSpyFor(Empty.class).getSpy();
+
+		assertGenerated(spy);
+	}
+
+	@Test
+	public void testSameMethodFromTwoInterfacesIsGeneratedOnce() throws Exception {
+		AutoSpy<Both> autoSpy = AutoSpy.createGeneratedSpyFor(Both.class);
+
+		autoSpy.getSpy().read("someId");
+
+		assertGenerated(autoSpy.getSpy());
+		autoSpy.MCR.assertParameters("read", 0, "someId");
+	}
+
+	@Test
+	public void testGenericInterfaceWithBridgedMethod() throws Exception {
+		AutoSpy<StringGeneric> autoSpy = AutoSpy.createGeneratedSpyFor(StringGeneric.class);
+		autoSpy.MRV.setDefaultReturnValuesSupplier("get", () -> "value");
+		StringGeneric spy = autoSpy.getSpy();
+		Generic<String> generic = spy;
+
+		assertEquals(spy.get("first"), "value");
+		assertEquals(generic.get("second"), "value");
+
+		assertGenerated(spy);
+		autoSpy.MCR.assertParameters("get", 0, "first");
+		autoSpy.MCR.assertParameters("get", 1, "second");
+	}
+
+	@Test
+	public void testNotPublicInterfaceUsesProxy() throws Exception {
+		AutoSpy<NotPublic> autoSpy = AutoSpy.createGeneratedSpyFor(NotPublic.class);
+
+		autoSpy.getSpy().read("someId");
+
+		assertTrue(Proxy.isProxyClass(autoSpy.getSpy().getClass()));
+		autoSpy.MCR.assertParameters("read", 0, "someId");
+	}
+
+	@Test
+	public void testInterfaceUsingNotPublicTypeUsesProxy() throws Exception {
+		AutoSpy<UsingNotPublic> autoSpy = AutoSpy.createGeneratedSpyFor(UsingNotPublic.class);
+
+		assertTrue(Proxy.isProxyClass(autoSpy.getSpy().getClass()));
+	}
+
+	@Test
+	public void testNoClassGeneratedForNotPublicInterface() throws Exception {
+		assertNull(SpyClassGenerator
+				.generateSpyClassFor(SpiedInterface.forInterface(NotPublic.class)));
+	}
+
+	@Test
+	public void testClassGeneratedOncePerInterface() throws Exception {
+		SpiedInterface spiedInterface = SpiedInterface.forInterface(AllPrimitives.class);
+
+		assertNotNull(spiedInterface.getGeneratedSpyConstructor().get());
+		assertSame(spiedInterface.getGeneratedSpyConstructor().get(),
+				spiedInterface.getGeneratedSpyConstructor().get());
+	}
+}